@@ -0,0 +1,222 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 单独测量{@link Builder}和{@link Timer}的各个操作的耗时。
+ *
+ * <p>输入数据保存在非{@code final}的字段中，以避免被JIT编译器当作常量折叠。
+ *
+ * @author Haixing Hu
+ */
+@State(Scope.Thread)
+@BenchmarkMode({org.openjdk.jmh.annotations.Mode.Throughput,
+    org.openjdk.jmh.annotations.Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ComponentBenchmark {
+
+  /**
+   * 批量解析时每批ID的数目。
+   */
+  private static final int BATCH_SIZE = 1024;
+
+  /**
+   * 压缩ID列表中ID的数目。
+   */
+  private static final int LIST_SIZE = 1 << 20;
+
+  @Param
+  public Mode mode;
+
+  @Param
+  public Precision precision;
+
+  private Builder builder;
+
+  private Timer timer;
+
+  private CachedTimer cachedTimer;
+
+  private long timestamp;
+
+  private long sequence;
+
+  private long id;
+
+  private long[] ids;
+
+  private IdDecoder decoder;
+
+  private DecodedIds decoded;
+
+  private long[] fields;
+
+  private byte[] encoded;
+
+  private String decimal;
+
+  private long[] sortedIds;
+
+  private IdList idList;
+
+  private int probe;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    final Instant epoch = Instant.parse("2018-12-01T00:00:00.00Z");
+    builder = new Builder(mode, precision, 1L);
+    timer = new Timer(precision, epoch);
+    cachedTimer = new CachedTimer(precision, epoch);
+    timestamp = timer.now();
+    sequence = builder.getMaxSequence() / 3;
+    id = builder.build(timestamp, sequence);
+    ids = new long[BATCH_SIZE];
+    for (int i = 0; i < BATCH_SIZE; ++i) {
+      ids[i] = builder.build(timestamp - i, i);
+    }
+    decoder = new IdDecoder(epoch);
+    decoded = new DecodedIds(BATCH_SIZE);
+    fields = new long[BATCH_SIZE];
+    encoded = new byte[Base62IdCodec.INSTANCE.width()];
+    Base62IdCodec.INSTANCE.encode(id, encoded, 0);
+    decimal = Long.toString(id);
+    sortedIds = new long[LIST_SIZE];
+    for (int i = 0; i < LIST_SIZE; ++i) {
+      sortedIds[i] = builder.build(timestamp - LIST_SIZE / 4 + i / 4, (i % 4) * 3);
+    }
+    Arrays.sort(sortedIds);
+    idList = new IdList(sortedIds);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    cachedTimer.close();
+  }
+
+  @Benchmark
+  public long build() {
+    return builder.build(timestamp, sequence);
+  }
+
+  @Benchmark
+  public Mode extractMode() {
+    return builder.extractMode(id);
+  }
+
+  @Benchmark
+  public long extractTimestamp() {
+    return builder.extractTimestamp(id);
+  }
+
+  @Benchmark
+  public Precision extractPrecision() {
+    return builder.extractPrecision(id);
+  }
+
+  @Benchmark
+  public long extractHost() {
+    return builder.extractHost(id);
+  }
+
+  @Benchmark
+  public long extractSequence() {
+    return builder.extractSequence(id);
+  }
+
+  /**
+   * 逐个调用{@link Builder}的{@code extract*}函数解析一批ID，作为批量解析的对照。
+   */
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public long[] extractBatch() {
+    for (int i = 0; i < BATCH_SIZE; ++i) {
+      final long value = ids[i];
+      fields[i] = builder.extractTimestamp(value) + builder.extractHost(value)
+          + builder.extractSequence(value) + builder.extractMode(value).ordinal()
+          + builder.extractPrecision(value).ordinal();
+    }
+    return fields;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public int decodeBatch() {
+    return decoder.decode(ids, decoded);
+  }
+
+  /**
+   * 将ID转换为十进制字符串，作为字符串编码的对照。
+   */
+  @Benchmark
+  public String toDecimalString() {
+    return Long.toString(id);
+  }
+
+  @Benchmark
+  public long parseDecimalString() {
+    return Long.parseLong(decimal);
+  }
+
+  @Benchmark
+  public byte[] encodeBase62() {
+    Base62IdCodec.INSTANCE.encode(id, encoded, 0);
+    return encoded;
+  }
+
+  @Benchmark
+  public long decodeBase62() {
+    return Base62IdCodec.INSTANCE.decode(encoded, 0);
+  }
+
+  /**
+   * 随机访问压缩ID列表；探测的下标每次前进一个与列表长度互质的步长，以免总是访问相邻的ID。
+   */
+  @Benchmark
+  public long idListGet() {
+    probe = (probe + 7919) & (LIST_SIZE - 1);
+    return idList.get(probe);
+  }
+
+  @Benchmark
+  public boolean idListContains() {
+    probe = (probe + 7919) & (LIST_SIZE - 1);
+    return idList.contains(sortedIds[probe] + (probe & 1));
+  }
+
+  @Benchmark
+  public long timerNow() {
+    return timer.now();
+  }
+
+  @Benchmark
+  public long cachedTimerNow() {
+    return cachedTimer.now();
+  }
+}
@@ -0,0 +1,67 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 测量各个ID生成器在不同的生成模式和时间戳精度下的吞吐量和平均耗时。
+ *
+ * <p>线程数由{@link JmhRunner}设置，所有线程共享同一个ID生成器。
+ *
+ * @author Haixing Hu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({org.openjdk.jmh.annotations.Mode.Throughput,
+    org.openjdk.jmh.annotations.Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class GeneratorBenchmark {
+
+  @Param
+  public GeneratorKind kind;
+
+  @Param
+  public Mode mode;
+
+  @Param
+  public Precision precision;
+
+  private IdGenerator generator;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    generator = kind.create(mode, precision);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    GeneratorKind.dispose(generator);
+  }
+
+  @Benchmark
+  public long generate() {
+    return generator.generate();
+  }
+}
@@ -0,0 +1,91 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+/**
+ * 基准测试中使用的ID生成器的种类。
+ *
+ * @author Haixing Hu
+ */
+public enum GeneratorKind {
+
+  ATOMIC {
+    @Override
+    public IdGenerator create(final Mode mode, final Precision precision) {
+      return new AtomicIdGenerator(mode, precision);
+    }
+  },
+
+  LOCKED {
+    @Override
+    public IdGenerator create(final Mode mode, final Precision precision) {
+      return new LockedIdGenerator(mode, precision);
+    }
+  },
+
+  PACKED {
+    @Override
+    public IdGenerator create(final Mode mode, final Precision precision) {
+      return new PackedIdGenerator(mode, precision);
+    }
+  },
+
+  BORROW_AHEAD {
+    @Override
+    public IdGenerator create(final Mode mode, final Precision precision) {
+      return new BorrowAheadIdGenerator(mode, precision);
+    }
+  },
+
+  CACHED {
+    @Override
+    public IdGenerator create(final Mode mode, final Precision precision) {
+      return new CachedIdGenerator(mode, precision);
+    }
+  },
+
+  AUTO_INCREMENT {
+    @Override
+    public IdGenerator create(final Mode mode, final Precision precision) {
+      return new AutoIncrementIdGenerator();
+    }
+  },
+
+  STRIPED_AUTO_INCREMENT {
+    @Override
+    public IdGenerator create(final Mode mode, final Precision precision) {
+      return new StripedAutoIncrementIdGenerator();
+    }
+  };
+
+  /**
+   * 创建一个此种类的ID生成器。
+   *
+   * @param mode
+   *     生成模式；{@link #AUTO_INCREMENT}和{@link #STRIPED_AUTO_INCREMENT}忽略此参数。
+   * @param precision
+   *     时间戳精度；{@link #AUTO_INCREMENT}和{@link #STRIPED_AUTO_INCREMENT}忽略此参数。
+   * @return 创建的ID生成器。
+   */
+  public abstract IdGenerator create(Mode mode, Precision precision);
+
+  /**
+   * 释放指定的ID生成器所占用的资源。
+   *
+   * @param generator
+   *     待释放的ID生成器。
+   * @throws Exception
+   *     若释放资源时出错。
+   */
+  public static void dispose(final IdGenerator generator) throws Exception {
+    if (generator instanceof AutoCloseable) {
+      ((AutoCloseable) generator).close();
+    }
+  }
+}
@@ -0,0 +1,82 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 运行所有JMH基准测试，并把结果以JSON格式写入指定的目录。
+ *
+ * <p>{@link GeneratorBenchmark}按照线程数{@code 1, 2, 4, ..., N}分别运行，每个线程数的结果
+ * 写入一个单独的文件，其中{@code N}为可用的处理器数目；也可以通过系统属性
+ * {@code jmh.threads}指定以逗号分隔的线程数列表。系统属性{@code jmh.args}中的内容会
+ * 作为额外的JMH命令行参数，例如{@code -f 1 -wi 1}。
+ *
+ * @author Haixing Hu
+ */
+public class JmhRunner {
+
+  public static void main(final String[] args) throws Exception {
+    final File dir = new File(args.length > 0 ? args[0] : "target/jmh");
+    if (!dir.isDirectory() && !dir.mkdirs()) {
+      throw new IllegalStateException("Cannot create the directory: " + dir);
+    }
+    final CommandLineOptions parent = new CommandLineOptions(extraArgs());
+    final ChainedOptionsBuilder components = new OptionsBuilder()
+        .parent(parent)
+        .include(pattern(ComponentBenchmark.class))
+        .threads(1)
+        .resultFormat(ResultFormatType.JSON)
+        .result(new File(dir, "components.json").getPath());
+    new Runner(components.build()).run();
+    for (final int threads : threadCounts()) {
+      final ChainedOptionsBuilder generators = new OptionsBuilder()
+          .parent(parent)
+          .include(pattern(GeneratorBenchmark.class))
+          .threads(threads)
+          .resultFormat(ResultFormatType.JSON)
+          .result(new File(dir, "generators-t" + threads + ".json").getPath());
+      new Runner(generators.build()).run();
+    }
+  }
+
+  private static String pattern(final Class<?> type) {
+    return "\\." + type.getSimpleName() + "\\.";
+  }
+
+  private static String[] extraArgs() {
+    final String args = System.getProperty("jmh.args", "").trim();
+    return (args.isEmpty() ? new String[0] : args.split("\\s+"));
+  }
+
+  private static List<Integer> threadCounts() {
+    final List<Integer> result = new ArrayList<>();
+    final String threads = System.getProperty("jmh.threads", "").trim();
+    if (!threads.isEmpty()) {
+      for (final String item : threads.split(",")) {
+        result.add(Integer.parseInt(item.trim()));
+      }
+      return result;
+    }
+    final int max = Runtime.getRuntime().availableProcessors();
+    for (int n = 1; n < max; n *= 2) {
+      result.add(n);
+    }
+    result.add(max);
+    return result;
+  }
+}
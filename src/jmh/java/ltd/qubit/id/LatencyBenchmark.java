@@ -0,0 +1,243 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * 测量各个ID生成器在固定请求速率下的延迟分布。
+ *
+ * <p>每个工作线程按照预先计算好的时间表发起请求：第{@code i}个请求的预定发起时刻为
+ * {@code start + i * interval}。每个请求的延迟从预定发起时刻而不是实际发起时刻算起，
+ * 因此当某次调用被阻塞时，后续被推迟的请求的等待时间也会被计入，从而修正了
+ * coordinated omission。同时还记录了从实际发起时刻算起的服务时间，以便对比。
+ *
+ * <p>请求速率包括超过每个时间片序列号容量的速率（秒精度下约为每秒419万个，毫秒精度下约为
+ * 每秒410万个），用于暴露序列号耗尽时的长尾延迟。对于{@link AbstractIdGenerator}的子类，
+ * 分别测量各个序列号耗尽策略。
+ *
+ * <p>可以通过以下系统属性调整测试参数：
+ * <ul>
+ * <li>{@code latency.kinds}：以逗号分隔的{@link GeneratorKind}列表，默认为全部；</li>
+ * <li>{@code latency.precisions}：以逗号分隔的{@link Precision}列表，默认为全部；</li>
+ * <li>{@code latency.policies}：以逗号分隔的序列号耗尽策略列表，可选值为
+ * {@code SLEEP, SPIN, PARK, BARRIER}，默认为全部；</li>
+ * <li>{@code latency.rates}：以逗号分隔的每秒请求数列表，默认为
+ * {@code 100000,1000000,5000000}；</li>
+ * <li>{@code latency.threads}：工作线程数，默认为4；</li>
+ * <li>{@code latency.warmup}：每次测量前的预热时间，单位为秒，默认为1；</li>
+ * <li>{@code latency.duration}：每次测量的时间，单位为秒，默认为3。</li>
+ * </ul>
+ *
+ * @author Haixing Hu
+ */
+public class LatencyBenchmark {
+
+  /**
+   * 直方图能够记录的最大延迟，单位为纳秒。
+   */
+  private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+  /**
+   * 直方图的有效数字位数。
+   */
+  private static final int SIGNIFICANT_DIGITS = 3;
+
+  /**
+   * 输出时把纳秒换算为微秒的比例。
+   */
+  private static final double NANOS_PER_MICRO = 1000.0;
+
+  private static final String NO_POLICY = "-";
+
+  /**
+   * 所有工作线程生成的ID的异或值。
+   *
+   * <p>工作线程结束后将其结果发布到此字段，防止生成ID的调用被当作死代码消除。
+   */
+  private static volatile long sink;
+
+  public static void main(final String[] args) throws Exception {
+    final File dir = new File(args.length > 0 ? args[0] : "target/latency");
+    if (!dir.isDirectory() && !dir.mkdirs()) {
+      throw new IllegalStateException("Cannot create the directory: " + dir);
+    }
+    final List<GeneratorKind> kinds = parse("latency.kinds", GeneratorKind.values(),
+        GeneratorKind::valueOf);
+    final List<Precision> precisions = parse("latency.precisions", Precision.values(),
+        Precision::valueOf);
+    final List<String> policies = parse("latency.policies",
+        new String[]{"SLEEP", "SPIN", "PARK", "BARRIER"}, String::valueOf);
+    final List<Long> rates = parse("latency.rates",
+        new Long[]{100_000L, 1_000_000L, 5_000_000L}, Long::valueOf);
+    final int threads = Integer.getInteger("latency.threads", 4);
+    final long warmup = TimeUnit.SECONDS.toNanos(Long.getLong("latency.warmup", 1L));
+    final long duration = TimeUnit.SECONDS.toNanos(Long.getLong("latency.duration", 3L));
+
+    System.out.printf("%-15s %-12s %-8s %10s | %-8s %10s %10s %10s %12s%n",
+        "generator", "precision", "policy", "rate/s", "latency", "p50(us)", "p99(us)",
+        "p99.9(us)", "max(us)");
+    for (final GeneratorKind kind : kinds) {
+      for (final Precision precision : precisions) {
+        for (final String policy : policies) {
+          final Supplier<IdGenerator> factory = () -> create(kind, precision, policy);
+          final IdGenerator sample = factory.get();
+          final boolean hasPolicy = (sample instanceof AbstractIdGenerator);
+          GeneratorKind.dispose(sample);
+          if (!hasPolicy && !policy.equals(policies.get(0))) {
+            // 其他ID生成器没有序列号耗尽策略，只需要测量一次
+            continue;
+          }
+          for (final long rate : rates) {
+            final IdGenerator generator = factory.get();
+            try {
+              run(generator, rate, threads, warmup);
+              final Histogram[] result = run(generator, rate, threads, duration);
+              final String name = kind + "-" + precision + "-"
+                  + (hasPolicy ? policy : NO_POLICY) + "-" + rate;
+              report(kind, precision, (hasPolicy ? policy : NO_POLICY), rate, result);
+              save(new File(dir, name + ".hgrm"), result[0]);
+            } finally {
+              GeneratorKind.dispose(generator);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private static IdGenerator create(final GeneratorKind kind, final Precision precision,
+      final String policy) {
+    final IdGenerator generator = kind.create(Mode.SEQUENTIAL, precision);
+    if (generator instanceof AbstractIdGenerator) {
+      ((AbstractIdGenerator) generator).setExhaustionPolicy(
+          policy.equals("BARRIER") ? new SliceBarrier()
+                                   : StandardExhaustionPolicy.valueOf(policy));
+    }
+    return generator;
+  }
+
+  /**
+   * 以指定的速率驱动ID生成器。
+   *
+   * @return 两个直方图，第一个记录从预定发起时刻算起的延迟，第二个记录服务时间。
+   */
+  private static Histogram[] run(final IdGenerator generator, final long rate,
+      final int threads, final long duration) throws InterruptedException {
+    final long interval = Math.max(1L, TimeUnit.SECONDS.toNanos(threads) / rate);
+    final Worker[] workers = new Worker[threads];
+    final long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+    for (int i = 0; i < threads; ++i) {
+      // 错开各个线程的时间表，使得整体的请求均匀分布
+      workers[i] = new Worker(generator, start + i * interval / threads, interval,
+          start + duration);
+      workers[i].start();
+    }
+    final Histogram response = new Histogram(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+    final Histogram service = new Histogram(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+    long checksum = 0;
+    for (final Worker worker : workers) {
+      worker.join();
+      response.add(worker.response);
+      service.add(worker.service);
+      checksum ^= worker.checksum;
+    }
+    sink ^= checksum;
+    return new Histogram[]{response, service};
+  }
+
+  private static void report(final GeneratorKind kind, final Precision precision,
+      final String policy, final long rate, final Histogram[] result) {
+    final String[] labels = {"response", "service"};
+    for (int i = 0; i < result.length; ++i) {
+      final Histogram h = result[i];
+      System.out.printf(Locale.ROOT, "%-15s %-12s %-8s %10d | %-8s %10.1f %10.1f %10.1f %12.1f%n",
+          kind, precision, policy, rate, labels[i],
+          h.getValueAtPercentile(50.0) / NANOS_PER_MICRO,
+          h.getValueAtPercentile(99.0) / NANOS_PER_MICRO,
+          h.getValueAtPercentile(99.9) / NANOS_PER_MICRO,
+          h.getMaxValue() / NANOS_PER_MICRO);
+    }
+  }
+
+  private static void save(final File file, final Histogram histogram)
+      throws FileNotFoundException {
+    try (final PrintStream out = new PrintStream(file)) {
+      histogram.outputPercentileDistribution(out, NANOS_PER_MICRO);
+    }
+  }
+
+  private static <T> List<T> parse(final String property, final T[] defaults,
+      final Function<String, T> parser) {
+    final String value = System.getProperty(property, "").trim();
+    final List<T> result = new ArrayList<>();
+    if (value.isEmpty()) {
+      result.addAll(List.of(defaults));
+    } else {
+      for (final String item : value.split(",")) {
+        result.add(parser.apply(item.trim()));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * 按照固定的时间表发起请求的工作线程。
+   */
+  private static final class Worker extends Thread {
+
+    private final IdGenerator generator;
+    private final long start;
+    private final long interval;
+    private final long end;
+    private final Histogram response = new Histogram(HIGHEST_TRACKABLE_NANOS,
+        SIGNIFICANT_DIGITS);
+    private final Histogram service = new Histogram(HIGHEST_TRACKABLE_NANOS,
+        SIGNIFICANT_DIGITS);
+    private volatile long checksum;
+
+    Worker(final IdGenerator generator, final long start, final long interval,
+        final long end) {
+      super("LatencyBenchmark-worker");
+      this.generator = generator;
+      this.start = start;
+      this.interval = interval;
+      this.end = end;
+    }
+
+    @Override
+    public void run() {
+      long intended = start;
+      long result = 0;
+      while (intended < end) {
+        long now = System.nanoTime();
+        while (now < intended) {
+          Thread.onSpinWait();
+          now = System.nanoTime();
+        }
+        result ^= generator.generate();
+        final long finished = System.nanoTime();
+        response.recordValue(Math.min(finished - intended, HIGHEST_TRACKABLE_NANOS));
+        service.recordValue(Math.min(finished - now, HIGHEST_TRACKABLE_NANOS));
+        intended += interval;
+      }
+      checksum = result;
+    }
+  }
+}
@@ -0,0 +1,40 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+/**
+ * ID生成相关的Java Flight Recorder事件的抽象基类。
+ *
+ * <p>事件的持续时间、开始时刻和线程由JFR自动记录。创建事件对象并调用
+ * {@link #begin()}、{@link #end()}的开销在未启用事件时可以被JIT完全消除；各个字段只在
+ * {@link #shouldCommit()}返回{@code true}之后才赋值。
+ *
+ * @author 胡海星
+ */
+@Category({"Qubit", "ID Generator"})
+abstract class AbstractIdEvent extends Event {
+
+  @Label("Slice Timestamp")
+  @Description("The timestamp of the time slice, in the precision of the timer")
+  long timestamp;
+
+  @Label("Precision")
+  @Description("The precision of the timestamp")
+  String precision;
+
+  @Label("Waiting Threads")
+  @Description("The number of threads waiting for the next time slice, "
+      + "including the current thread")
+  int waitingThreads;
+}
@@ -9,6 +9,10 @@
 package ltd.qubit.id;
 
 import java.time.Instant;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.concurrent.ThreadSafe;
 
@@ -16,6 +20,8 @@ import ltd.qubit.commons.lang.Equality;
 import ltd.qubit.commons.lang.Hash;
 import ltd.qubit.commons.text.tostring.ToStringBuilder;
 
+import static ltd.qubit.commons.lang.Argument.requireNonNull;
+
 /**
  * ID生成器的抽象基类。
  *
@@ -26,6 +32,16 @@ import ltd.qubit.commons.text.tostring.ToStringBuilder;
 @ThreadSafe
 public abstract class AbstractIdGenerator implements IdGenerator {
 
+  /**
+   * 表示当前时间片的序列号已经耗尽，且在截止时刻之前未能进入下一个时间片。
+   */
+  protected static final long EXHAUSTED = -1L;
+
+  /**
+   * 表示已经进入下一个时间片，但没有分配到序列号，调用者应重新尝试。
+   */
+  protected static final long RETRY = SliceBarrier.RETRY;
+
   /**
    * 时间戳生成器。
    */
@@ -36,6 +52,33 @@ public abstract class AbstractIdGenerator implements IdGenerator {
    */
   protected final Builder builder;
 
+  /**
+   * 序列号占据的bit数目。
+   */
+  protected final int sequenceBits;
+
+  /**
+   * 最大可允许序列号。
+   */
+  protected final long maxSequence;
+
+  /**
+   * 序列号耗尽策略，默认将等待的线程挂起到时间片的边界。
+   */
+  private volatile ExhaustionPolicy exhaustionPolicy = StandardExhaustionPolicy.PARK;
+
+  /**
+   * 运行指标；若为{@code null}则不记录任何指标。
+   *
+   * <p>只在慢速路径上读取此字段，因此不记录指标时快速路径上没有额外的开销。
+   */
+  private volatile IdGeneratorMetrics metrics;
+
+  /**
+   * 序列号耗尽后正在等待进入下一个时间片的线程数，只在慢速路径上更新。
+   */
+  private final AtomicInteger waiters = new AtomicInteger();
+
   /**
    * 构造一个ID生成器。
    *
@@ -52,6 +95,29 @@ public abstract class AbstractIdGenerator implements IdGenerator {
       final long host, final Instant epoch) {
     this.timer = new Timer(precision, epoch);
     this.builder = new Builder(mode, precision, host);
+    this.sequenceBits = precision.getSequenceBits();
+    this.maxSequence = builder.getMaxSequence();
+  }
+
+  /**
+   * 使用指定的时间戳生成器构造一个ID生成器。
+   *
+   * <p>调用者可以通过此构造函数选择精确的{@link Timer}、带缓存的{@link CachedTimer}，
+   * 或者使用其他{@link ClockSource}的时间戳生成器。
+   *
+   * @param mode
+   *     该ID生成器的生成模式，不可为{@code null}。
+   * @param host
+   *     该ID生成器的主机编号，必须在 {@code [0, 512)} 之间。
+   * @param timer
+   *     该ID生成器使用的时间戳生成器，不可为{@code null}；ID生成器的时间戳精度和
+   *     时间戳起点都由它决定。
+   */
+  public AbstractIdGenerator(final Mode mode, final long host, final Timer timer) {
+    this.timer = requireNonNull("timer", timer);
+    this.builder = new Builder(mode, timer.getPrecision(), host);
+    this.sequenceBits = timer.getPrecision().getSequenceBits();
+    this.maxSequence = builder.getMaxSequence();
   }
 
   public final Mode getMode() {
@@ -78,13 +144,380 @@ public abstract class AbstractIdGenerator implements IdGenerator {
     return builder;
   }
 
+  public final ExhaustionPolicy getExhaustionPolicy() {
+    return exhaustionPolicy;
+  }
+
+  /**
+   * 设置序列号耗尽策略。
+   *
+   * @param exhaustionPolicy
+   *     新的序列号耗尽策略，不可为{@code null}。
+   */
+  public final void setExhaustionPolicy(final ExhaustionPolicy exhaustionPolicy) {
+    this.exhaustionPolicy = requireNonNull("exhaustionPolicy", exhaustionPolicy);
+  }
+
+  public final IdGeneratorMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * 设置运行指标。
+   *
+   * @param metrics
+   *     新的运行指标；若为{@code null}则停止记录指标。
+   */
+  public final void setMetrics(final IdGeneratorMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * 记录一次ID分配在成功之前经历的CAS失败。
+   *
+   * @param retries
+   *     CAS失败的次数；若为0则不做任何事情。
+   */
+  protected final void recordCasRetries(final int retries) {
+    if (retries != 0) {
+      final IdGeneratorMetrics m = metrics;
+      if (m != null) {
+        m.onCasRetries(retries);
+      }
+    }
+  }
+
+  /**
+   * 记录ID生成器离开了一个时间片，进入了另一个时间片。
+   *
+   * <p>若新时间片的时间戳小于离开的时间片的时间戳，则还会记录一次时钟回拨，并产生一个
+   * {@link ClockRegressionEvent}。
+   *
+   * @param lastTimestamp
+   *     离开的时间片的时间戳；若为0则表示尚未进入过任何时间片，不做任何事情。
+   * @param lastSequence
+   *     该时间片中最后分配的序列号。
+   * @param timestamp
+   *     进入的时间片的时间戳。
+   */
+  protected final void recordSliceSwitch(final long lastTimestamp, final long lastSequence,
+      final long timestamp) {
+    if (lastTimestamp == 0) {
+      return;
+    }
+    final IdGeneratorMetrics m = metrics;
+    if (m != null) {
+      m.onSliceClosed(lastSequence + 1, maxSequence + 1);
+    }
+    if (timestamp < lastTimestamp) {
+      recordClockRegression(lastTimestamp, timestamp, m);
+    }
+  }
+
+  private void recordClockRegression(final long lastTimestamp, final long timestamp,
+      final IdGeneratorMetrics m) {
+    if (m != null) {
+      m.onClockRegression(lastTimestamp, timestamp);
+    }
+    final ClockRegressionEvent event = new ClockRegressionEvent();
+    if (event.shouldCommit()) {
+      event.timestamp = timestamp;
+      event.precision = builder.getPrecision().name();
+      event.waitingThreads = waiters.get();
+      event.host = builder.getHost();
+      event.lastTimestamp = lastTimestamp;
+      event.regression = timer.getEpochMillis(lastTimestamp) - timer.getEpochMillis(timestamp);
+      event.commit();
+    }
+  }
+
   /**
    * 生成下一个ID。
    *
+   * <p>当前时间片的序列号耗尽时，此函数按照序列号耗尽策略等待进入下一个时间片；等待过程
+   * 不响应中断，但会保留当前线程的中断状态。
+   *
+   * @return
+   *     生成的ID。
+   * @throws SequenceExhaustedException
+   *     若当前时间片的序列号耗尽，而序列号耗尽策略放弃等待。
+   */
+  @Override
+  public final long generate() {
+    final long state;
+    try {
+      state = next(ExhaustionPolicy.NO_DEADLINE, false);
+    } catch (final InterruptedException e) {
+      // 不响应中断时不会抛出此异常
+      throw new IllegalStateException(e);
+    }
+    if (state == EXHAUSTED) {
+      throw new SequenceExhaustedException();
+    }
+    return build(state >>> sequenceBits, state & maxSequence);
+  }
+
+  /**
+   * 尝试生成下一个ID，不做任何等待。
+   *
+   * @return
+   *     生成的ID；若当前时间片的序列号已经耗尽，则返回空值。
+   */
+  @Override
+  public final OptionalLong tryGenerate() {
+    final long state;
+    try {
+      state = next(System.nanoTime(), false);
+    } catch (final InterruptedException e) {
+      // 不响应中断时不会抛出此异常
+      throw new IllegalStateException(e);
+    }
+    if (state == EXHAUSTED) {
+      return OptionalLong.empty();
+    }
+    return OptionalLong.of(build(state >>> sequenceBits, state & maxSequence));
+  }
+
+  /**
+   * 生成下一个ID，最多等待指定的时间。
+   *
+   * @param timeout
+   *     最长等待时间。
+   * @param unit
+   *     最长等待时间的单位。
    * @return
    *     生成的ID。
+   * @throws InterruptedException
+   *     若当前线程在等待过程中被中断。
+   * @throws TimeoutException
+   *     若在指定的时间内未能生成ID。
+   */
+  @Override
+  public final long generate(final long timeout, final TimeUnit unit)
+      throws InterruptedException, TimeoutException {
+    final long deadline = System.nanoTime() + unit.toNanos(timeout);
+    final long state = next(deadline, true);
+    if (state == EXHAUSTED) {
+      throw new TimeoutException("Timeout while waiting for the next time slice.");
+    }
+    return build(state >>> sequenceBits, state & maxSequence);
+  }
+
+  /**
+   * 分配下一个时间戳和序列号。
+   *
+   * @param deadline
+   *     截止时刻，以{@link System#nanoTime()}为基准；若为
+   *     {@link ExhaustionPolicy#NO_DEADLINE}则表示没有截止时刻。
+   * @param interruptible
+   *     等待过程中是否响应中断。
+   * @return
+   *     分配的时间戳和序列号，由{@link #pack(long, long)}打包；若当前时间片的序列号
+   *     已经耗尽，且在截止时刻之前未能进入下一个时间片，则返回{@link #EXHAUSTED}。
+   * @throws InterruptedException
+   *     若{@code interruptible}为{@code true}且当前线程在等待过程中被中断。
+   */
+  protected abstract long next(long deadline, boolean interruptible)
+      throws InterruptedException;
+
+  /**
+   * 将时间戳和序列号打包为一个长整数。
+   *
+   * @param timestamp
+   *     时间戳，不可为负数。
+   * @param sequence
+   *     序列号。
+   * @return 打包后的长整数，其高位为时间戳，低{@link #sequenceBits}位为序列号。
+   */
+  protected final long pack(final long timestamp, final long sequence) {
+    return (timestamp << sequenceBits) | sequence;
+  }
+
+  /**
+   * 根据时间戳和序列号构造ID。
+   *
+   * <p>子类可以覆盖此函数以缓存每个时间片的计算结果。
+   *
+   * @param timestamp
+   *     时间戳。
+   * @param sequence
+   *     序列号。
+   * @return 构造的ID。
+   */
+  protected long build(final long timestamp, final long sequence) {
+    return builder.build(timestamp, sequence);
+  }
+
+  /**
+   * 按照序列号耗尽策略等待进入下一个时间片，没有截止时刻，也不响应中断。
+   *
+   * @param lastTimestamp
+   *     序列号已经耗尽的时间片的时间戳。
+   * @throws SequenceExhaustedException
+   *     若序列号耗尽策略放弃等待。
+   */
+  protected final void awaitNextSlice(final long lastTimestamp) {
+    final boolean passed;
+    try {
+      passed = awaitNextSlice(lastTimestamp, ExhaustionPolicy.NO_DEADLINE, false);
+    } catch (final InterruptedException e) {
+      // 不响应中断时不会抛出此异常
+      throw new IllegalStateException(e);
+    }
+    if (!passed) {
+      throw new SequenceExhaustedException();
+    }
+  }
+
+  /**
+   * 按照序列号耗尽策略等待进入下一个时间片。
+   *
+   * <p>此函数会产生一个{@link SliceExhaustedEvent}。等待之前会先调用
+   * {@link Timer#advance(long)}，若计时器能够直接推进到下一个时间片，则无需等待；否则此
+   * 函数还会产生一个{@link TimerWaitEvent}。
+   *
+   * @param lastTimestamp
+   *     序列号已经耗尽的时间片的时间戳。
+   * @param deadline
+   *     截止时刻，以{@link System#nanoTime()}为基准；若为
+   *     {@link ExhaustionPolicy#NO_DEADLINE}则表示没有截止时刻。
+   * @param interruptible
+   *     是否响应中断；若不响应中断，等待结束后会恢复当前线程的中断状态。
+   * @return
+   *     若已经进入下一个时间片则返回{@code true}；否则返回{@code false}。
+   * @throws InterruptedException
+   *     若{@code interruptible}为{@code true}且当前线程在等待过程中被中断。
+   */
+  protected final boolean awaitNextSlice(final long lastTimestamp, final long deadline,
+      final boolean interruptible) throws InterruptedException {
+    final IdGeneratorMetrics m = recordExhausted(lastTimestamp);
+    if (timer.advance(lastTimestamp) != lastTimestamp) {
+      return true;
+    }
+    final TimerWaitEvent event = new TimerWaitEvent();
+    event.begin();
+    final long start = (m == null ? 0L : System.nanoTime());
+    final int waiting = waiters.incrementAndGet();
+    boolean passed = false;
+    try {
+      passed = awaitPolicy(lastTimestamp, deadline, interruptible);
+      return passed;
+    } finally {
+      endWait(m, start, event, lastTimestamp, waiting, passed);
+    }
+  }
+
+  /**
+   * 记录一次序列号耗尽，并提交{@link SliceExhaustedEvent}。
+   *
+   * @return 当前的运行指标，可能为{@code null}。
+   */
+  private IdGeneratorMetrics recordExhausted(final long lastTimestamp) {
+    final IdGeneratorMetrics m = metrics;
+    if (m != null) {
+      m.onExhausted();
+    }
+    final SliceExhaustedEvent event = new SliceExhaustedEvent();
+    if (event.shouldCommit()) {
+      event.timestamp = lastTimestamp;
+      event.precision = builder.getPrecision().name();
+      event.waitingThreads = waiters.get() + 1;
+      event.host = builder.getHost();
+      event.commit();
+    }
+    return m;
+  }
+
+  /**
+   * 结束一次序列号耗尽后的等待，记录运行指标并提交{@link TimerWaitEvent}。
    */
-  public abstract long generate();
+  private void endWait(final IdGeneratorMetrics m, final long start,
+      final TimerWaitEvent event, final long lastTimestamp, final int waiting,
+      final boolean passed) {
+    waiters.decrementAndGet();
+    if (m != null) {
+      m.onWait(System.nanoTime() - start, passed);
+    }
+    event.end();
+    if (event.shouldCommit()) {
+      event.timestamp = lastTimestamp;
+      event.precision = builder.getPrecision().name();
+      event.waitingThreads = waiting;
+      event.host = builder.getHost();
+      event.passed = passed;
+      event.commit();
+    }
+  }
+
+  private boolean awaitPolicy(final long lastTimestamp, final long deadline,
+      final boolean interruptible) throws InterruptedException {
+    final ExhaustionPolicy policy = exhaustionPolicy;
+    if (interruptible) {
+      return policy.awaitNext(timer, lastTimestamp, deadline);
+    }
+    boolean interrupted = Thread.interrupted();
+    try {
+      while (true) {
+        try {
+          return policy.awaitNext(timer, lastTimestamp, deadline);
+        } catch (final InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * 按照序列号耗尽策略等待进入下一个时间片，并尽可能直接领取新时间片中的序列号。
+   *
+   * <p>若序列号耗尽策略是{@link SliceBarrier}，所有等待的线程会在时间片边界被同时放行，
+   * 并通过{@code claimer}一次性领取一段连续的序列号，按照到达的先后顺序分配给各个线程；
+   * 否则此函数等价于{@link #awaitNextSlice(long, long, boolean)}。
+   *
+   * @param lastTimestamp
+   *     序列号已经耗尽的时间片的时间戳。
+   * @param deadline
+   *     截止时刻，以{@link System#nanoTime()}为基准；若为
+   *     {@link ExhaustionPolicy#NO_DEADLINE}则表示没有截止时刻。
+   * @param interruptible
+   *     是否响应中断；若不响应中断，等待结束后会恢复当前线程的中断状态。
+   * @param claimer
+   *     在新的时间片中领取连续序列号的回调。
+   * @return
+   *     分配给当前线程的打包后的时间戳和序列号；若在截止时刻之前未能进入下一个时间片则
+   *     返回{@link #EXHAUSTED}；若已经进入下一个时间片但没有分配到序列号则返回
+   *     {@link #RETRY}。
+   * @throws InterruptedException
+   *     若{@code interruptible}为{@code true}且当前线程在等待过程中被中断。
+   */
+  protected final long awaitTicket(final long lastTimestamp, final long deadline,
+      final boolean interruptible, final SliceBarrier.Claimer claimer)
+      throws InterruptedException {
+    final ExhaustionPolicy policy = exhaustionPolicy;
+    if (!(policy instanceof SliceBarrier)) {
+      return (awaitNextSlice(lastTimestamp, deadline, interruptible) ? RETRY : EXHAUSTED);
+    }
+    final IdGeneratorMetrics m = recordExhausted(lastTimestamp);
+    if (timer.advance(lastTimestamp) != lastTimestamp) {
+      return RETRY;
+    }
+    final TimerWaitEvent event = new TimerWaitEvent();
+    event.begin();
+    final long start = (m == null ? 0L : System.nanoTime());
+    final int waiting = waiters.incrementAndGet();
+    long state = SliceBarrier.TIMEOUT;
+    try {
+      state = ((SliceBarrier) policy).awaitTicket(timer, lastTimestamp, deadline,
+          interruptible, claimer);
+      return (state == SliceBarrier.TIMEOUT ? EXHAUSTED : state);
+    } finally {
+      endWait(m, start, event, lastTimestamp, waiting, state != SliceBarrier.TIMEOUT);
+    }
+  }
 
   /**
    * 根据指定的时刻和序列号，生成ID。
@@ -9,6 +9,8 @@
 package ltd.qubit.id;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.concurrent.ThreadSafe;
@@ -16,7 +18,8 @@ import javax.annotation.concurrent.ThreadSafe;
 /**
  * 通过原子操作实现的ID生成器。
  *
- * <p>这个类是线程安全的，可以用于多线程环境。
+ * <p>这个类是线程安全的，可以用于多线程环境。等待下一个时间片时不持有任何监视器锁，
+ * 因此在虚拟线程中等待时会让出其载体线程。
  *
  * @author 胡海星
  */
@@ -28,6 +31,11 @@ public class AtomicIdGenerator extends AbstractIdGenerator {
    */
   private final AtomicReference<TimeSlice> slice;
 
+  /**
+   * 在新的时间片中为被放行的等待线程领取连续序列号的回调。
+   */
+  private final SliceBarrier.Claimer claimer = this::claim;
+
   /**
    * 构造默认的ID生成器。
    */
@@ -92,22 +100,50 @@ public class AtomicIdGenerator extends AbstractIdGenerator {
   }
 
   /**
-   * 生成下一个ID。
+   * 使用指定的时间戳生成器构造一个ID生成器。
    *
-   * @return 生成的ID。
+   * @param mode
+   *     该ID生成器的生成模式，不可为{@code null}。
+   * @param host
+   *     该ID生成器的主机编号，必须在 {@code [0, 512)} 之间。
+   * @param timer
+   *     该ID生成器使用的时间戳生成器，不可为{@code null}。
    */
-  public final long generate() {
-    final long maxSequence = builder.getMaxSequence();
+  public AtomicIdGenerator(final Mode mode, final long host, final Timer timer) {
+    super(mode, host, timer);
+    this.slice = new AtomicReference<>(new TimeSlice(0L));
+  }
+
+  /**
+   * 分配下一个时间戳和序列号。
+   *
+   * @param deadline
+   *     截止时刻，以{@link System#nanoTime()}为基准。
+   * @param interruptible
+   *     等待过程中是否响应中断。
+   * @return
+   *     打包后的时间戳和序列号；若在截止时刻之前未能分配则返回{@link #EXHAUSTED}。
+   * @throws InterruptedException
+   *     若{@code interruptible}为{@code true}且当前线程在等待过程中被中断。
+   */
+  @Override
+  protected final long next(final long deadline, final boolean interruptible)
+      throws InterruptedException {
+    int retries = 0;
     while (true) {
       final TimeSlice oldSlice = slice.get();
-      long timestamp = timer.now();
+      final long timestamp = timer.now();
       final long sequence;
       if (timestamp == oldSlice.timestamp) {
         // 本次调用和上次调用在同一个时间片内，增加序号计数器
-        sequence = (oldSlice.sequence + 1) & maxSequence;
-        if (sequence == 0) {
-          // 序号超出上界，等待进入下一个时间片
-          timestamp = timer.waitForNext(timestamp);
+        sequence = oldSlice.sequence + 1;
+        if (sequence > maxSequence) {
+          // 序号超出上界，等待进入下一个时间片；若未能直接分配到序列号则重头尝试
+          final long ticket = awaitTicket(timestamp, deadline, interruptible, claimer);
+          if (ticket != RETRY) {
+            return ticket;
+          }
+          continue;
         }
       } else {
         // 本次调用和上次调用不在同一个时间片内，重置序号计数器
@@ -116,9 +152,91 @@ public class AtomicIdGenerator extends AbstractIdGenerator {
       final TimeSlice newSlice = new TimeSlice(timestamp, sequence);
       if (slice.compareAndSet(oldSlice, newSlice)) {
         // 运行到这里表明前面的操作没有被其他线程打断
-        return builder.build(timestamp, sequence);
+        recordCasRetries(retries);
+        if (sequence == 0) {
+          recordSliceSwitch(oldSlice.timestamp, oldSlice.sequence, timestamp);
+        }
+        return pack(timestamp, sequence);
+      }
+      // 否则，重头尝试
+      ++retries;
+    }
+  }
+
+  /**
+   * 在当前时间片中通过一次CAS操作领取至多指定数目的连续序列号。
+   *
+   * @param count
+   *     需要领取的序列号的数目。
+   * @return
+   *     打包后的时间戳和第一个序列号；若当前时间片已经没有剩余的序列号则返回
+   *     {@link #EXHAUSTED}。
+   */
+  private long claim(final int count) {
+    while (true) {
+      final TimeSlice oldSlice = slice.get();
+      final long timestamp = timer.now();
+      final long first = (timestamp == oldSlice.timestamp ? oldSlice.sequence + 1 : 0);
+      if (first > maxSequence) {
+        return EXHAUSTED;
+      }
+      final long n = Math.min(count, maxSequence - first + 1);
+      final TimeSlice newSlice = new TimeSlice(timestamp, first + n - 1);
+      if (slice.compareAndSet(oldSlice, newSlice)) {
+        if (first == 0) {
+          recordSliceSwitch(oldSlice.timestamp, oldSlice.sequence, timestamp);
+        }
+        return pack(timestamp, first);
+      }
+    }
+  }
+
+  /**
+   * 一次性预留指定数目的连续ID。
+   *
+   * <p>在每个时间片内只需要一次CAS操作即可预留该时间片内剩余的连续序列号。
+   *
+   * @param count
+   *     需要预留的ID的数目，必须大于0。
+   * @return
+   *     预留的ID范围列表，当预留的ID跨越了时间片的边界时，结果会被拆分为多个范围。
+   * @throws SequenceExhaustedException
+   *     若当前时间片的序列号耗尽，而序列号耗尽策略放弃等待。
+   */
+  @Override
+  public final List<IdRange> reserve(final int count) {
+    if (count <= 0) {
+      throw new IllegalArgumentException("The count must be positive.");
+    }
+    final List<IdRange> result = new ArrayList<>(1);
+    long remaining = count;
+    while (remaining > 0) {
+      final TimeSlice oldSlice = slice.get();
+      final long timestamp = timer.now();
+      final long first;
+      if (timestamp == oldSlice.timestamp) {
+        // 本次调用和上次调用在同一个时间片内，从下一个序号开始预留
+        first = oldSlice.sequence + 1;
+        if (first > maxSequence) {
+          // 序号超出上界，等待进入下一个时间片后重头尝试
+          awaitNextSlice(timestamp);
+          continue;
+        }
+      } else {
+        // 本次调用和上次调用不在同一个时间片内，从0开始预留
+        first = 0;
+      }
+      final long n = Math.min(remaining, maxSequence - first + 1);
+      final TimeSlice newSlice = new TimeSlice(timestamp, first + n - 1);
+      if (slice.compareAndSet(oldSlice, newSlice)) {
+        if (first == 0) {
+          recordSliceSwitch(oldSlice.timestamp, oldSlice.sequence, timestamp);
+        }
+        result.add(new IdRange(builder.build(timestamp, first), (int) n));
+        remaining -= n;
       }
       // 否则，重头尝试
     }
+    return result;
   }
 }
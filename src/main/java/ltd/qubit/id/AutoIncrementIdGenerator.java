@@ -8,6 +8,8 @@
 ////////////////////////////////////////////////////////////////////////////////
 package ltd.qubit.id;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -36,6 +38,15 @@ public class AutoIncrementIdGenerator implements IdGenerator {
     return nextId.incrementAndGet();
   }
 
+  @Override
+  public List<IdRange> reserve(final int count) {
+    if (count <= 0) {
+      throw new IllegalArgumentException("The count must be positive.");
+    }
+    final long start = nextId.getAndAdd(count) + 1;
+    return Collections.singletonList(new IdRange(start, count));
+  }
+
   @Override
   public void reset() {
     nextId.set(0);
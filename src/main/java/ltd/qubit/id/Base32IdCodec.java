@@ -0,0 +1,55 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * 将ID编码为13位定长Crockford Base32字符串的编码器。
+ *
+ * <p>字母表为{@code 0123456789ABCDEFGHJKMNPQRSTVWXYZ}，不含容易混淆的{@code I}、
+ * {@code L}、{@code O}和{@code U}。解码时不区分大小写，并按照Crockford的规定将
+ * {@code O}视为{@code 0}，将{@code I}和{@code L}视为{@code 1}。64位的ID需要65个比特，
+ * 因此第一个字符不超过{@code F}。
+ *
+ * @author 胡海星
+ */
+@Immutable
+public final class Base32IdCodec extends IdCodec {
+
+  /**
+   * 此类的唯一实例。
+   */
+  public static final Base32IdCodec INSTANCE = new Base32IdCodec();
+
+  private static final String ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+
+  private Base32IdCodec() {
+    super(ALPHABET, aliases());
+  }
+
+  private static String aliases() {
+    final StringBuilder builder = new StringBuilder("O0o0I1i1L1l1");
+    for (int i = 10; i < ALPHABET.length(); ++i) {
+      final char ch = ALPHABET.charAt(i);
+      builder.append(Character.toLowerCase(ch)).append(ch);
+    }
+    return builder.toString();
+  }
+
+  @Override
+  protected int digit(final long id, final int index) {
+    return (int) (id >>> (60 - 5 * index)) & 0x1F;
+  }
+
+  @Override
+  public String toString() {
+    return "Base32IdCodec";
+  }
+}
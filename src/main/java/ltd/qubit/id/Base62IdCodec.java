@@ -0,0 +1,128 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * 将ID编码为11位定长Base62字符串的编码器。
+ *
+ * <p>字母表为{@code 0-9A-Za-z}，按照ASCII码递增排列，因此编码后的字符串按字典序比较
+ * （区分大小写）的结果与ID按无符号整数比较的结果相同。解码时区分大小写。
+ *
+ * @author 胡海星
+ */
+@Immutable
+public final class Base62IdCodec extends IdCodec {
+
+  /**
+   * 此类的唯一实例。
+   */
+  public static final Base62IdCodec INSTANCE = new Base62IdCodec();
+
+  private static final int RADIX = 62;
+
+  /**
+   * 编码后的字符串长度。
+   */
+  private static final int WIDTH = 11;
+
+  /**
+   * 62的4次幂，小于此数值的数字可以用4位Base62数字表示。
+   */
+  private static final int POW_4 = RADIX * RADIX * RADIX * RADIX;
+
+  /**
+   * 62的8次幂。
+   */
+  private static final long POW_8 = (long) POW_4 * POW_4;
+
+  /**
+   * 62的各次幂，用于获取指定位置上的数字。
+   */
+  private static final long[] POWERS = new long[WIDTH];
+
+  static {
+    POWERS[0] = 1;
+    for (int i = 1; i < POWERS.length; ++i) {
+      POWERS[i] = POWERS[i - 1] * RADIX;
+    }
+  }
+
+  private Base62IdCodec() {
+    super("0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz", "");
+  }
+
+  @Override
+  protected int digit(final long id, final int index) {
+    final long q = Long.divideUnsigned(id, POWERS[POWERS.length - 1 - index]);
+    return (int) Long.remainderUnsigned(q, RADIX);
+  }
+
+  /**
+   * 将ID拆分为3位、4位和4位Base62数字后分别编码，只需要一次64位无符号除法，其余都是
+   * 除数为常量的32位除法。
+   */
+  @Override
+  public int encode(final long id, final byte[] dst, final int offset) {
+    if (offset < 0 || offset > dst.length - WIDTH) {
+      throw new IndexOutOfBoundsException("Invalid offset " + offset
+          + " of an array of length " + dst.length);
+    }
+    final long high = Long.divideUnsigned(id, POW_8);
+    final long rest = id - high * POW_8;
+    int a = (int) high;
+    int b = (int) (rest / POW_4);
+    int c = (int) (rest % POW_4);
+    for (int i = 10; i >= 7; --i) {
+      dst[offset + i] = symbol(c % RADIX);
+      c /= RADIX;
+    }
+    for (int i = 6; i >= 3; --i) {
+      dst[offset + i] = symbol(b % RADIX);
+      b /= RADIX;
+    }
+    for (int i = 2; i >= 0; --i) {
+      dst[offset + i] = symbol(a % RADIX);
+      a /= RADIX;
+    }
+    return offset + WIDTH;
+  }
+
+  @Override
+  public int encode(final long id, final char[] dst, final int offset) {
+    if (offset < 0 || offset > dst.length - WIDTH) {
+      throw new IndexOutOfBoundsException("Invalid offset " + offset
+          + " of an array of length " + dst.length);
+    }
+    final long high = Long.divideUnsigned(id, POW_8);
+    final long rest = id - high * POW_8;
+    int a = (int) high;
+    int b = (int) (rest / POW_4);
+    int c = (int) (rest % POW_4);
+    for (int i = 10; i >= 7; --i) {
+      dst[offset + i] = (char) symbol(c % RADIX);
+      c /= RADIX;
+    }
+    for (int i = 6; i >= 3; --i) {
+      dst[offset + i] = (char) symbol(b % RADIX);
+      b /= RADIX;
+    }
+    for (int i = 2; i >= 0; --i) {
+      dst[offset + i] = (char) symbol(a % RADIX);
+      a /= RADIX;
+    }
+    return offset + WIDTH;
+  }
+
+  @Override
+  public String toString() {
+    return "Base62IdCodec";
+  }
+}
@@ -0,0 +1,346 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * 可以预借未来时间片的ID生成器。
+ *
+ * <p>此生成器维护一个逻辑时间戳，它永远不会小于真实时间戳。当前时间片的序列号耗尽时，
+ * 此生成器不会休眠等待下一个时间片，而是直接将逻辑时间戳推进到下一个时间片继续生成ID，
+ * 从而使逻辑时间戳超前于真实时间戳；只有当超前的时间片数目达到预设的上限
+ * {@link #getMaxLead()}时，才会等待真实时间追赶上来。当真实时间戳超过逻辑时间戳后，
+ * 逻辑时间戳随即与真实时间戳同步。
+ *
+ * <p>由于逻辑时间戳从不后退，此生成器生成的ID始终唯一，并且在顺序模式下单调递增。
+ *
+ * <p>这个类是线程安全的，可以用于多线程环境。
+ *
+ * @author 胡海星
+ */
+@ThreadSafe
+public class BorrowAheadIdGenerator extends AbstractIdGenerator {
+
+  /**
+   * 默认允许逻辑时间戳超前于真实时间戳的最大时间片数目。
+   */
+  public static final int DEFAULT_MAX_LEAD = 2;
+
+  /**
+   * 填充的长整数个数，8个长整数正好占据一个64字节的缓存行。
+   */
+  private static final int PADDING = 8;
+
+  /**
+   * 打包后的状态在数组中的下标。
+   */
+  private static final int STATE = PADDING;
+
+  /**
+   * 存放打包后的逻辑时间戳和序列号的数组，仅使用位于中间的一个元素，其余元素用于填充。
+   */
+  private final AtomicLongArray state;
+
+  /**
+   * 允许逻辑时间戳超前于真实时间戳的最大时间片数目。
+   */
+  private final int maxLead;
+
+  /**
+   * 累计预借的时间片数目。
+   */
+  private final AtomicLong borrowedSlices;
+
+  /**
+   * 构造默认的ID生成器。
+   */
+  public BorrowAheadIdGenerator() {
+    this(DEFAULT_MODE, DEFAULT_PRECISION, 0L, DEFAULT_EPOCH, DEFAULT_MAX_LEAD);
+  }
+
+  /**
+   * 构造一个ID生成器。
+   *
+   * @param mode
+   *     该ID生成器的生成模式，不可为{@code null}。
+   * @param precision
+   *     该ID生成器的时间戳精度，不可为{@code null}。
+   */
+  public BorrowAheadIdGenerator(final Mode mode, final Precision precision) {
+    this(mode, precision, 0L, DEFAULT_EPOCH, DEFAULT_MAX_LEAD);
+  }
+
+  /**
+   * 构造一个ID生成器。
+   *
+   * @param mode
+   *     该ID生成器的生成模式，不可为{@code null}。
+   * @param precision
+   *     该ID生成器的时间戳精度，不可为{@code null}。
+   * @param host
+   *     该ID生成器的主机编号，必须在 {@code [0, 512)} 之间。
+   * @param epoch
+   *     时间戳起点。
+   * @param maxLead
+   *     允许逻辑时间戳超前于真实时间戳的最大时间片数目，不可为负数。
+   */
+  public BorrowAheadIdGenerator(final Mode mode, final Precision precision,
+      final long host, final Instant epoch, final int maxLead) {
+    super(mode, precision, host, epoch);
+    this.state = new AtomicLongArray(2 * PADDING + 1);
+    this.maxLead = checkMaxLead(maxLead);
+    this.borrowedSlices = new AtomicLong();
+  }
+
+  /**
+   * 使用指定的时间戳生成器构造一个ID生成器。
+   *
+   * @param mode
+   *     该ID生成器的生成模式，不可为{@code null}。
+   * @param host
+   *     该ID生成器的主机编号，必须在 {@code [0, 512)} 之间。
+   * @param timer
+   *     该ID生成器使用的时间戳生成器，不可为{@code null}。
+   * @param maxLead
+   *     允许逻辑时间戳超前于真实时间戳的最大时间片数目，不可为负数。
+   */
+  public BorrowAheadIdGenerator(final Mode mode, final long host, final Timer timer,
+      final int maxLead) {
+    super(mode, host, timer);
+    this.state = new AtomicLongArray(2 * PADDING + 1);
+    this.maxLead = checkMaxLead(maxLead);
+    this.borrowedSlices = new AtomicLong();
+  }
+
+  private static int checkMaxLead(final int maxLead) {
+    if (maxLead < 0) {
+      throw new IllegalArgumentException("The maximum lead must not be negative.");
+    }
+    return maxLead;
+  }
+
+  /**
+   * 获取允许逻辑时间戳超前于真实时间戳的最大时间片数目。
+   *
+   * @return 允许逻辑时间戳超前于真实时间戳的最大时间片数目。
+   */
+  public final int getMaxLead() {
+    return maxLead;
+  }
+
+  /**
+   * 获取当前逻辑时间戳超前于真实时间戳的时间片数目。
+   *
+   * @return 当前逻辑时间戳超前于真实时间戳的时间片数目；若没有超前则返回0。
+   */
+  public final long getLead() {
+    final long timestamp = state.get(STATE) >> sequenceBits;
+    return Math.max(0L, timestamp - timer.now());
+  }
+
+  /**
+   * 获取累计预借的时间片数目。
+   *
+   * @return 自此生成器创建以来累计预借的时间片数目。
+   */
+  public final long getBorrowedSlices() {
+    return borrowedSlices.get();
+  }
+
+  /**
+   * 分配下一个时间戳和序列号。
+   *
+   * @param deadline
+   *     截止时刻，以{@link System#nanoTime()}为基准。
+   * @param interruptible
+   *     等待过程中是否响应中断。
+   * @return
+   *     打包后的时间戳和序列号；若在截止时刻之前未能分配则返回{@link #EXHAUSTED}。
+   * @throws InterruptedException
+   *     若{@code interruptible}为{@code true}且当前线程在等待过程中被中断。
+   */
+  @Override
+  protected final long next(final long deadline, final boolean interruptible)
+      throws InterruptedException {
+    int retries = 0;
+    while (true) {
+      final long current = state.get(STATE);
+      final long lastTimestamp = current >> sequenceBits;
+      final long now = timer.now();
+      long timestamp;
+      long sequence;
+      if (now > lastTimestamp) {
+        // 真实时间已经进入新的时间片，逻辑时间戳与之同步，重置序号计数器
+        timestamp = now;
+        sequence = 0;
+      } else {
+        // 仍在逻辑时间戳所在的时间片内，增加序号计数器
+        timestamp = lastTimestamp;
+        sequence = (current & maxSequence) + 1;
+        if (sequence > maxSequence) {
+          // 序号超出上界，预借下一个时间片
+          timestamp = lastTimestamp + 1;
+          sequence = 0;
+          if (timestamp - now > maxLead) {
+            // 超前的时间片数目已达上限，等待真实时间追赶上来后重头尝试
+            if (!awaitLead(now, timestamp - maxLead, deadline, interruptible)) {
+              return EXHAUSTED;
+            }
+            continue;
+          }
+        }
+      }
+      final long next = pack(timestamp, sequence);
+      if (state.compareAndSet(STATE, current, next)) {
+        // 运行到这里表明前面的操作没有被其他线程打断
+        recordCasRetries(retries);
+        if (sequence == 0) {
+          recordSwitch(current, timestamp, now);
+        }
+        return next;
+      }
+      // 否则，重头尝试
+      ++retries;
+    }
+  }
+
+  /**
+   * 一次性预留指定数目的连续ID。
+   *
+   * @param count
+   *     需要预留的ID的数目，必须大于0。
+   * @return
+   *     预留的ID范围列表，当预留的ID跨越了时间片的边界时，结果会被拆分为多个范围。
+   * @throws SequenceExhaustedException
+   *     若序列号耗尽，而序列号耗尽策略放弃等待。
+   */
+  @Override
+  public final List<IdRange> reserve(final int count) {
+    if (count <= 0) {
+      throw new IllegalArgumentException("The count must be positive.");
+    }
+    final List<IdRange> result = new ArrayList<>(1);
+    long remaining = count;
+    int retries = 0;
+    while (remaining > 0) {
+      final long current = state.get(STATE);
+      final long lastTimestamp = current >> sequenceBits;
+      final long now = timer.now();
+      long timestamp;
+      long first;
+      if (now > lastTimestamp) {
+        timestamp = now;
+        first = 0;
+      } else {
+        timestamp = lastTimestamp;
+        first = (current & maxSequence) + 1;
+        if (first > maxSequence) {
+          timestamp = lastTimestamp + 1;
+          first = 0;
+          if (timestamp - now > maxLead) {
+            awaitLead(now, timestamp - maxLead);
+            continue;
+          }
+        }
+      }
+      final long n = Math.min(remaining, maxSequence - first + 1);
+      final long last = first + n - 1;
+      if (state.compareAndSet(STATE, current, pack(timestamp, last))) {
+        recordCasRetries(retries);
+        retries = 0;
+        if (first == 0) {
+          recordSwitch(current, timestamp, now);
+        }
+        result.add(new IdRange(builder.build(timestamp, first), (int) n));
+        remaining -= n;
+      } else {
+        ++retries;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * 记录此生成器从打包后的状态{@code current}所在的时间片进入了一个新的时间片。
+   *
+   * <p>除了记录时间片的切换之外，还会统计预借的时间片，并通过
+   * {@link IdGeneratorMetrics#onBorrowLead(long)}报告新时间片超前于真实时间的程度。
+   *
+   * @param current
+   *     切换之前打包后的逻辑时间戳和序列号。
+   * @param timestamp
+   *     新时间片的时间戳。
+   * @param now
+   *     切换时的真实时间戳。
+   */
+  private void recordSwitch(final long current, final long timestamp, final long now) {
+    recordSliceSwitch(current >> sequenceBits, current & maxSequence, timestamp);
+    final long lead = Math.max(0L, timestamp - now);
+    if (lead > 0) {
+      borrowedSlices.incrementAndGet();
+    }
+    final IdGeneratorMetrics m = getMetrics();
+    if (m != null) {
+      m.onBorrowLead(lead);
+    }
+  }
+
+  /**
+   * 按照序列号耗尽策略等待真实时间戳追赶到指定的值。
+   *
+   * @param now
+   *     当前的真实时间戳。
+   * @param target
+   *     需要等待到达的真实时间戳。
+   * @param deadline
+   *     截止时刻，以{@link System#nanoTime()}为基准。
+   * @param interruptible
+   *     等待过程中是否响应中断。
+   * @return
+   *     若真实时间戳已经到达指定的值则返回{@code true}；否则返回{@code false}。
+   * @throws InterruptedException
+   *     若{@code interruptible}为{@code true}且当前线程在等待过程中被中断。
+   */
+  private boolean awaitLead(final long now, final long target, final long deadline,
+      final boolean interruptible) throws InterruptedException {
+    long timestamp = now;
+    while (timestamp < target) {
+      if (!awaitNextSlice(timestamp, deadline, interruptible)) {
+        return false;
+      }
+      timestamp = timer.now();
+    }
+    return true;
+  }
+
+  /**
+   * 按照序列号耗尽策略等待真实时间戳追赶到指定的值，没有截止时刻，也不响应中断。
+   *
+   * @param now
+   *     当前的真实时间戳。
+   * @param target
+   *     需要等待到达的真实时间戳。
+   * @throws SequenceExhaustedException
+   *     若序列号耗尽策略放弃等待。
+   */
+  private void awaitLead(final long now, final long target) {
+    long timestamp = now;
+    while (timestamp < target) {
+      awaitNextSlice(timestamp);
+      timestamp = timer.now();
+    }
+  }
+}
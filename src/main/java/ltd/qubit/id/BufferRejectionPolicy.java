@@ -0,0 +1,33 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+/**
+ * 此枚举表示{@link CachedIdGenerator}的缓冲区为空时的处理策略。
+ *
+ * @author 胡海星
+ */
+public enum BufferRejectionPolicy {
+
+  /**
+   * 等待后台线程填充缓冲区。
+   */
+  WAIT,
+
+  /**
+   * 绕过缓冲区，直接在调用者线程中生成ID。
+   */
+  DIRECT,
+
+  /**
+   * 立即失败：{@link IdGenerator#generate()}抛出{@link IllegalStateException}，
+   * {@link IdGenerator#tryGenerate()}返回空值。
+   */
+  FAIL,
+}
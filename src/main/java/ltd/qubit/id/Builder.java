@@ -8,6 +8,12 @@
 ////////////////////////////////////////////////////////////////////////////////
 package ltd.qubit.id;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import javax.annotation.concurrent.Immutable;
 
 import ltd.qubit.commons.lang.Equality;
@@ -44,6 +50,23 @@ import static ltd.qubit.commons.math.LongBit.reverse;
 @Immutable
 public class Builder implements Constant {
 
+  /**
+   * 缓存的所有生成模式。
+   *
+   * <p>{@link Mode#values()}每次调用都会复制一个新的数组，缓存后解析ID时不再分配内存。
+   */
+  private static final Mode[] MODES = Mode.values();
+
+  /**
+   * 缓存的所有时间戳精度。
+   */
+  private static final Precision[] PRECISIONS = Precision.values();
+
+  /**
+   * 稀疏模式下按时间戳范围计算ID区间时，允许的时间戳的最大个数。
+   */
+  private static final long MAX_SPREAD_INTERVALS = 1L << 20;
+
   /**
    * ID的生成模式，占据一个bit。
    */
@@ -182,13 +205,225 @@ public class Builder implements Constant {
   public final long build(final long timestamp, final long sequence) {
     //    timestamp &= maxTimestamp;        // 防止timestamp越界
     //    sequence  &= maxSequence;         // 防止sequence越界
-    assert (timestamp <= maxTimestamp);
     assert (sequence <= maxSequence);
+    // ID = [timestamp] [mode] [precision] [host] [sequence]
+    return (encodeTimestamp(timestamp) | fixedData | sequence);
+  }
+
+  /**
+   * 计算指定的时间戳在ID中所占据的比特。
+   *
+   * <p>返回值已经按照生成模式排列（稀疏模式下为反序）并移位到时间戳所在的位置，
+   * 同一个时间片内生成的所有ID的这部分比特都相同，因此调用者可以在每个时间片内只计算
+   * 一次，再通过{@link #buildEncoded(long, long)}构造ID。
+   *
+   * @param timestamp
+   *     当前时间戳，根据指定的精度从指定的起点开始算起
+   * @return 该时间戳在ID中所占据的比特。
+   */
+  public final long encodeTimestamp(final long timestamp) {
+    assert (timestamp <= maxTimestamp);
     final long t = (mode == Mode.SEQUENTIAL
               ? timestamp
               : (reverse(timestamp) >>> (Long.SIZE - timestampBits)));
-    // ID = [timestamp] [mode] [precision] [host] [sequence]
-    return ((t << timestampShift) | fixedData | sequence);
+    return (t << timestampShift);
+  }
+
+  /**
+   * 根据预先编码的时间戳比特和序列号构造一个ID。
+   *
+   * @param encodedTimestamp
+   *     由{@link #encodeTimestamp(long)}计算出的时间戳比特。
+   * @param sequence
+   *     当前序列号，在同一个时间戳精度内序列号递增不重复
+   * @return 构造的ID
+   */
+  public final long buildEncoded(final long encodedTimestamp, final long sequence) {
+    assert (sequence <= maxSequence);
+    return (encodedTimestamp | fixedData | sequence);
+  }
+
+  /**
+   * 获取在指定时间戳内，任意主机以此构造器的生成模式和时间戳精度可以生成的最小的ID，即主机
+   * 编号和序列号均为0的ID。
+   *
+   * @param timestamp
+   *     指定的时间戳，必须在{@code [0, getMaxTimestamp()]}之间。
+   * @return 该时间戳内可以生成的最小的ID。
+   */
+  public final long getMinId(final long timestamp) {
+    requireInCloseRange("timestamp", timestamp, 0L, maxTimestamp);
+    return encodeTimestamp(timestamp) | (fixedData & ~(HOST_MAX << hostShift));
+  }
+
+  /**
+   * 获取在指定时间戳内，任意主机以此构造器的生成模式和时间戳精度可以生成的最大的ID，即主机
+   * 编号和序列号均取最大值的ID。
+   *
+   * @param timestamp
+   *     指定的时间戳，必须在{@code [0, getMaxTimestamp()]}之间。
+   * @return 该时间戳内可以生成的最大的ID。
+   */
+  public final long getMaxId(final long timestamp) {
+    return getMinId(timestamp) | (HOST_MAX << hostShift) | maxSequence;
+  }
+
+  /**
+   * 获取在指定的时间戳范围内，任意主机以此构造器的生成模式和时间戳精度可以生成的最小的ID和
+   * 最大的ID所构成的区间。
+   *
+   * <p>对于顺序模式，ID的大小与时间戳的先后一致，因此返回的区间就是
+   * {@code [getMinId(fromTimestamp), getMaxId(toTimestamp)]}，可以直接用于按主键范围扫描
+   * 该时间段内生成的所有ID。对于稀疏模式，返回的区间是包含该时间段内所有ID的最小区间，但
+   * 通常也包含大量其他时间生成的ID，按时间段查询时应使用
+   * {@link #getIdIntervals(long, long)}。
+   *
+   * <p>区间内还包含另一种时间戳精度的ID，但同一个系统中的ID总是使用同一种精度生成的，因此
+   * 这些ID不会实际出现。
+   *
+   * @param fromTimestamp
+   *     范围内最早的时间戳，必须在{@code [0, getMaxTimestamp()]}之间。
+   * @param toTimestamp
+   *     范围内最晚的时间戳，必须在{@code [fromTimestamp, getMaxTimestamp()]}之间。
+   * @return 该时间戳范围内可以生成的所有ID所在的最小区间。
+   */
+  public final IdInterval getIdInterval(final long fromTimestamp, final long toTimestamp) {
+    checkTimestampRange(fromTimestamp, toTimestamp);
+    if (mode == Mode.SEQUENTIAL) {
+      return new IdInterval(getMinId(fromTimestamp), getMaxId(toTimestamp));
+    }
+    // 稀疏模式下时间戳字段为反转后的时间戳：末尾0最多的时间戳反转后最小，
+    // 末尾1最多的时间戳反转后最大，即其按位取反后的末尾0最多
+    final long minTimestamp = mostTrailingZeros(fromTimestamp, toTimestamp);
+    final long maxTimestamp = this.maxTimestamp
+        - mostTrailingZeros(this.maxTimestamp - toTimestamp, this.maxTimestamp - fromTimestamp);
+    return new IdInterval(getMinId(minTimestamp), getMaxId(maxTimestamp));
+  }
+
+  /**
+   * 获取在指定的时间戳范围内，任意主机以此构造器的生成模式和时间戳精度可以生成的所有ID所在
+   * 的最少的若干个互不相交的区间。
+   *
+   * <p>对于顺序模式，返回的列表中只有一个区间，即{@link #getIdInterval(long, long)}的返回
+   * 值。对于稀疏模式，时间戳字段中存放的是反转后的时间戳，时间戳相邻的ID在数值上相距很远。
+   * 只有当两个时间戳反转后恰好相邻时，它们的ID才能合并为一个连续的区间，而这样的两个时间戳
+   * 至少相差最大时间戳的四分之一（秒精度下约17年），远超此函数允许的时间戳个数。因此时间段
+   * 内的每个时间戳都单独构成一个区间，这些区间的个数是最少的，且不包含其他时间生成的ID
+   * （不计另一种时间戳精度的ID）。例如毫秒精度下一分钟的时间段对应60000个区间，需要按时间
+   * 段查询的ID应当使用顺序模式生成。
+   *
+   * @param fromTimestamp
+   *     范围内最早的时间戳，必须在{@code [0, getMaxTimestamp()]}之间。
+   * @param toTimestamp
+   *     范围内最晚的时间戳，必须在{@code [fromTimestamp, getMaxTimestamp()]}之间。
+   * @return 该时间戳范围内可以生成的所有ID所在的最少的区间，按从小到大的次序排列。
+   * @throws IllegalArgumentException
+   *     若生成模式为稀疏模式，且时间戳范围内时间戳的个数超过{@code 2^20}。
+   */
+  public final List<IdInterval> getIdIntervals(final long fromTimestamp,
+      final long toTimestamp) {
+    checkTimestampRange(fromTimestamp, toTimestamp);
+    if (mode == Mode.SEQUENTIAL) {
+      return Collections.singletonList(getIdInterval(fromTimestamp, toTimestamp));
+    }
+    final long count = toTimestamp - fromTimestamp + 1;
+    if (count > MAX_SPREAD_INTERVALS) {
+      throw new IllegalArgumentException("Too many timestamps in the range of the SPREAD "
+          + "mode: " + count);
+    }
+    final long[] encoded = new long[(int) count];
+    for (int i = 0; i < encoded.length; ++i) {
+      encoded[i] = encodeTimestamp(fromTimestamp + i);
+    }
+    // 编码后的时间戳不含生成模式bit，均为非负数，按其排序即按ID排序
+    Arrays.sort(encoded);
+    final long fixed = fixedData & ~(HOST_MAX << hostShift);
+    final long variable = (HOST_MAX << hostShift) | maxSequence;
+    final List<IdInterval> result = new ArrayList<>(encoded.length);
+    for (final long e : encoded) {
+      result.add(new IdInterval(e | fixed, e | fixed | variable));
+    }
+    return result;
+  }
+
+  /**
+   * 获取在指定的时间段内，任意主机以此构造器的生成模式和时间戳精度可以生成的最小的ID和最大
+   * 的ID所构成的区间。
+   *
+   * @param timer
+   *     用于将时刻转换为时间戳的计时器，不可为{@code null}，其时间戳精度必须与此构造器一致。
+   * @param from
+   *     时间段的起始时刻（包含），不可为{@code null}。
+   * @param to
+   *     时间段的结束时刻（包含），不可为{@code null}，不可早于{@code from}。
+   * @return 该时间段内可以生成的所有ID所在的最小区间；若该时间段与计时器可以表示的时间戳
+   *     范围没有交集，则返回{@code null}。
+   * @see #getIdInterval(long, long)
+   */
+  public final IdInterval getIdInterval(final Timer timer, final Instant from,
+      final Instant to) {
+    final long[] range = getTimestampRange(timer, from, to);
+    return (range == null ? null : getIdInterval(range[0], range[1]));
+  }
+
+  /**
+   * 获取在指定的时间段内，任意主机以此构造器的生成模式和时间戳精度可以生成的所有ID所在的
+   * 最少的若干个互不相交的区间。
+   *
+   * @param timer
+   *     用于将时刻转换为时间戳的计时器，不可为{@code null}，其时间戳精度必须与此构造器一致。
+   * @param from
+   *     时间段的起始时刻（包含），不可为{@code null}。
+   * @param to
+   *     时间段的结束时刻（包含），不可为{@code null}，不可早于{@code from}。
+   * @return 该时间段内可以生成的所有ID所在的最少的区间，按从小到大的次序排列；若该时间段与
+   *     计时器可以表示的时间戳范围没有交集，则返回空列表。
+   * @see #getIdIntervals(long, long)
+   */
+  public final List<IdInterval> getIdIntervals(final Timer timer, final Instant from,
+      final Instant to) {
+    final long[] range = getTimestampRange(timer, from, to);
+    return (range == null ? Collections.emptyList() : getIdIntervals(range[0], range[1]));
+  }
+
+  private void checkTimestampRange(final long fromTimestamp, final long toTimestamp) {
+    requireInCloseRange("fromTimestamp", fromTimestamp, 0L, maxTimestamp);
+    requireInCloseRange("toTimestamp", toTimestamp, fromTimestamp, maxTimestamp);
+  }
+
+  /**
+   * 将时间段转换为此构造器可以表示的时间戳范围。
+   *
+   * @return 包含起始和结束时间戳的数组；若没有交集则返回{@code null}。
+   */
+  private long[] getTimestampRange(final Timer timer, final Instant from, final Instant to) {
+    requireNonNull("timer", timer);
+    requireNonNull("from", from);
+    requireNonNull("to", to);
+    if (timer.getPrecision() != precision) {
+      throw new IllegalArgumentException("The precision of the timer must be " + precision);
+    }
+    if (from.isAfter(to)) {
+      throw new IllegalArgumentException("The start of the time range must not be after "
+          + "its end.");
+    }
+    final long fromTimestamp = Math.max(timer.getTimestamp(from), 0L);
+    final long toTimestamp = Math.min(timer.getTimestamp(to), maxTimestamp);
+    return (fromTimestamp > toTimestamp ? null : new long[]{fromTimestamp, toTimestamp});
+  }
+
+  /**
+   * 获取闭区间{@code [from, to]}中末尾的0最多的非负整数，该整数是唯一的。
+   */
+  private static long mostTrailingZeros(final long from, final long to) {
+    if (from == to) {
+      return from;
+    }
+    // from和to的最高的不同bit为h，from的该bit为0，to的该bit为1；
+    // 将to的低h位清零得到的整数在区间内且至少有h个末尾的0，
+    // 只有当from的低h+1位全为0时，from的末尾的0更多
+    final int h = Long.SIZE - 1 - Long.numberOfLeadingZeros(from ^ to);
+    return (Long.numberOfTrailingZeros(from) > h ? from : to & (-1L << h));
   }
 
   /**
@@ -200,10 +435,10 @@ public class Builder implements Constant {
    */
   public final Mode extractMode(final long id) {
     final int mode = (int) ((id >>> modeShift) & ((1L << MODE_BITS) - 1));
-    if (mode < 0 || mode > Mode.values().length) {
+    if (mode < 0 || mode >= MODES.length) {
       throw new IllegalArgumentException("Invalid mode in the generated ID.");
     }
-    return Mode.values()[mode];
+    return MODES[mode];
   }
 
   /**
@@ -231,10 +466,10 @@ public class Builder implements Constant {
    */
   public final Precision extractPrecision(final long id) {
     final int precision = (int) ((id >>> precisionShift) & ((1 << PRECISION_BITS) - 1));
-    if (precision < 0 || precision > Precision.values().length) {
+    if (precision < 0 || precision >= PRECISIONS.length) {
       throw new IllegalArgumentException("Invalid precision in the generated ID.");
     }
-    return Precision.values()[precision];
+    return PRECISIONS[precision];
   }
 
   /**
@@ -0,0 +1,502 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import ltd.qubit.commons.text.tostring.ToStringBuilder;
+
+import static ltd.qubit.commons.lang.Argument.requireNonNull;
+
+/**
+ * 预先生成ID并缓存在环形缓冲区中的ID生成器。
+ *
+ * <p>此生成器内部包装了一个{@link PackedIdGenerator}，由一个后台线程通过
+ * {@link IdGenerator#reserve(int)}批量预留ID，并写入预先分配的环形缓冲区；调用者只需通过
+ * 一次CAS操作领取缓冲区中的一个槽位即可获得ID。当缓冲区中剩余的ID数目低于填充阈值时，
+ * 后台线程会被唤醒并把缓冲区重新填满。
+ *
+ * <p>由于缓冲区中的ID是预先生成的，ID中的时间戳可能早于调用者获取该ID的时刻。
+ * {@link #reserve(int)}不经过缓冲区，直接从内部的生成器预留ID。使用完毕后应调用
+ * {@link #close()}结束后台线程。
+ *
+ * @author 胡海星
+ */
+@ThreadSafe
+public class CachedIdGenerator implements IdGenerator, AutoCloseable {
+
+  /**
+   * 默认的缓冲区大小。
+   */
+  public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+  /**
+   * 表示缓冲区为空。
+   *
+   * <p>只有稀疏模式下时间戳为0的第一个ID才会等于此数值，后台线程会跳过这个ID，
+   * 因此缓冲区中不会出现此数值。
+   */
+  private static final long EMPTY = Long.MIN_VALUE;
+
+  /**
+   * 缓冲区为空时，等待的线程每次休眠的时间，单位为纳秒。
+   */
+  private static final long WAIT_NANOS = 10_000L;
+
+  /**
+   * 后台线程在没有被唤醒的情况下检查缓冲区的间隔，单位为纳秒。
+   */
+  private static final long FILLER_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  /**
+   * 后台线程在序列号耗尽后每次等待下一个时间片的最长时间，单位为纳秒。
+   *
+   * <p>等待超时后后台线程会重新检查是否已经被关闭，因此即使时钟停滞，{@link #close()}也
+   * 能够结束后台线程。
+   */
+  private static final long FILLER_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  /**
+   * 填充在计数器之间的元素数目，用于避免伪共享。
+   */
+  private static final int PADDING = 8;
+
+  /**
+   * 已领取的ID的数目在计数器数组中的下标。
+   */
+  private static final int HEAD = PADDING;
+
+  /**
+   * 已写入的ID的数目在计数器数组中的下标。
+   */
+  private static final int TAIL = 2 * PADDING;
+
+  /**
+   * 实际生成ID的生成器。
+   */
+  private final PackedIdGenerator delegate;
+
+  /**
+   * 环形缓冲区。
+   */
+  private final long[] slots;
+
+  /**
+   * 环形缓冲区下标的掩码。
+   */
+  private final int mask;
+
+  /**
+   * 填充阈值，当缓冲区中剩余的ID数目低于此数值时唤醒后台线程。
+   */
+  private final int threshold;
+
+  /**
+   * 缓冲区为空时的处理策略。
+   */
+  private final BufferRejectionPolicy rejectionPolicy;
+
+  /**
+   * 计数器数组，其中位于{@link #HEAD}的元素为已领取的ID的数目，位于{@link #TAIL}的元素
+   * 为已写入的ID的数目，其余元素用于填充。
+   */
+  private final AtomicLongArray counters = new AtomicLongArray(3 * PADDING + 1);
+
+  /**
+   * 后台线程填充缓冲区的次数。
+   */
+  private final AtomicLong refills = new AtomicLong();
+
+  /**
+   * 调用者发现缓冲区为空的次数。
+   */
+  private final AtomicLong rejections = new AtomicLong();
+
+  /**
+   * 后台线程。
+   */
+  private final Thread filler;
+
+  /**
+   * 后台线程是否正在运行。
+   */
+  private volatile boolean running;
+
+  /**
+   * 构造默认的ID生成器。
+   */
+  public CachedIdGenerator() {
+    this(DEFAULT_MODE, DEFAULT_PRECISION, 0L, DEFAULT_EPOCH);
+  }
+
+  /**
+   * 构造一个ID生成器。
+   *
+   * @param mode
+   *     该ID生成器的生成模式，不可为{@code null}。
+   * @param precision
+   *     该ID生成器的时间戳精度，不可为{@code null}。
+   */
+  public CachedIdGenerator(final Mode mode, final Precision precision) {
+    this(mode, precision, 0L, DEFAULT_EPOCH);
+  }
+
+  /**
+   * 构造一个ID生成器，使用默认的缓冲区大小和填充阈值。
+   *
+   * @param mode
+   *     该ID生成器的生成模式，不可为{@code null}。
+   * @param precision
+   *     该ID生成器的时间戳精度，不可为{@code null}。
+   * @param host
+   *     该ID生成器的主机编号，必须在 {@code [0, 512)} 之间。
+   * @param epoch
+   *     时间戳起点。
+   */
+  public CachedIdGenerator(final Mode mode, final Precision precision, final long host,
+      final Instant epoch) {
+    this(mode, host, new Timer(precision, epoch), DEFAULT_BUFFER_SIZE,
+        DEFAULT_BUFFER_SIZE / 2, BufferRejectionPolicy.WAIT);
+  }
+
+  /**
+   * 构造一个ID生成器。
+   *
+   * @param mode
+   *     该ID生成器的生成模式，不可为{@code null}。
+   * @param host
+   *     该ID生成器的主机编号，必须在 {@code [0, 512)} 之间。
+   * @param timer
+   *     该ID生成器使用的时间戳生成器，不可为{@code null}。
+   * @param bufferSize
+   *     缓冲区大小，必须是2的正整数次幂。
+   * @param threshold
+   *     填充阈值，必须在{@code [0, bufferSize)}之间；当缓冲区中剩余的ID数目低于此数值时
+   *     唤醒后台线程填充缓冲区。
+   * @param rejectionPolicy
+   *     缓冲区为空时的处理策略，不可为{@code null}。
+   */
+  public CachedIdGenerator(final Mode mode, final long host, final Timer timer,
+      final int bufferSize, final int threshold,
+      final BufferRejectionPolicy rejectionPolicy) {
+    if (bufferSize <= 0 || (bufferSize & (bufferSize - 1)) != 0) {
+      throw new IllegalArgumentException("The buffer size must be a positive power of 2.");
+    }
+    if (threshold < 0 || threshold >= bufferSize) {
+      throw new IllegalArgumentException("The threshold must be in [0, bufferSize).");
+    }
+    this.rejectionPolicy = requireNonNull("rejectionPolicy", rejectionPolicy);
+    this.delegate = new PackedIdGenerator(mode, host, timer);
+    this.slots = new long[bufferSize];
+    this.mask = bufferSize - 1;
+    this.threshold = threshold;
+    this.running = true;
+    this.filler = new Thread(this::fill, "CachedIdGenerator-filler");
+    this.filler.setDaemon(true);
+    this.filler.start();
+  }
+
+  @Override
+  public final Mode getMode() {
+    return delegate.getMode();
+  }
+
+  @Override
+  public final Precision getPrecision() {
+    return delegate.getPrecision();
+  }
+
+  public final Timer getTimer() {
+    return delegate.getTimer();
+  }
+
+  public final Builder getBuilder() {
+    return delegate.getBuilder();
+  }
+
+  public final int getBufferSize() {
+    return slots.length;
+  }
+
+  public final int getThreshold() {
+    return threshold;
+  }
+
+  public final BufferRejectionPolicy getRejectionPolicy() {
+    return rejectionPolicy;
+  }
+
+  /**
+   * 获取缓冲区中剩余的ID数目。
+   *
+   * @return 缓冲区中剩余的ID数目。
+   */
+  public final int getFillLevel() {
+    final long head = counters.get(HEAD);
+    final long tail = counters.get(TAIL);
+    return (int) Math.max(0L, tail - head);
+  }
+
+  /**
+   * 获取后台线程填充缓冲区的次数。
+   *
+   * @return 后台线程填充缓冲区的次数。
+   */
+  public final long getRefills() {
+    return refills.get();
+  }
+
+  /**
+   * 获取调用者发现缓冲区为空的次数。
+   *
+   * @return 调用者发现缓冲区为空的次数。
+   */
+  public final long getRejections() {
+    return rejections.get();
+  }
+
+  /**
+   * 判断后台线程是否正在运行。
+   *
+   * @return 若后台线程正在运行则返回{@code true}；否则返回{@code false}。
+   */
+  public final boolean isRunning() {
+    return running && filler.isAlive();
+  }
+
+  @Override
+  public final long generate() {
+    final long id = claim();
+    if (id != EMPTY) {
+      return id;
+    }
+    switch (rejectionPolicy) {
+      case WAIT:
+        try {
+          return await(ExhaustionPolicy.NO_DEADLINE, false);
+        } catch (final InterruptedException | TimeoutException e) {
+          // 不会发生
+          throw new IllegalStateException(e);
+        }
+      case DIRECT:
+        return delegate.generate();
+      case FAIL:
+      default:
+        throw new IllegalStateException("The ID buffer is empty.");
+    }
+  }
+
+  @Override
+  public final OptionalLong tryGenerate() {
+    final long id = claim();
+    if (id != EMPTY) {
+      return OptionalLong.of(id);
+    }
+    if (rejectionPolicy == BufferRejectionPolicy.DIRECT) {
+      return delegate.tryGenerate();
+    }
+    return OptionalLong.empty();
+  }
+
+  @Override
+  public final long generate(final long timeout, final TimeUnit unit)
+      throws InterruptedException, TimeoutException {
+    final long deadline = System.nanoTime() + unit.toNanos(timeout);
+    final long id = claim();
+    if (id != EMPTY) {
+      return id;
+    }
+    switch (rejectionPolicy) {
+      case WAIT:
+        return await(deadline, true);
+      case DIRECT:
+        return delegate.generate(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+      case FAIL:
+      default:
+        throw new IllegalStateException("The ID buffer is empty.");
+    }
+  }
+
+  /**
+   * 一次性预留指定数目的连续ID。
+   *
+   * <p>此函数不经过缓冲区，直接从内部的生成器预留ID。
+   *
+   * @param count
+   *     需要预留的ID的数目，必须大于0。
+   * @return
+   *     预留的ID范围列表，当预留的ID跨越了时间片的边界时，结果会被拆分为多个范围。
+   */
+  @Override
+  public final List<IdRange> reserve(final int count) {
+    return delegate.reserve(count);
+  }
+
+  @Override
+  public void reset() {
+    delegate.reset();
+  }
+
+  /**
+   * 结束后台线程。
+   *
+   * <p>此函数中断并等待后台线程结束，即使后台线程正在等待下一个时间片。结束后缓冲区中
+   * 剩余的ID仍然可以被领取，但缓冲区不会再被填充。
+   */
+  @Override
+  public void close() {
+    running = false;
+    filler.interrupt();
+    try {
+      filler.join();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * 从缓冲区中领取一个ID。
+   *
+   * @return 领取到的ID；若缓冲区为空则返回{@link #EMPTY}。
+   */
+  private long claim() {
+    while (true) {
+      final long head = counters.get(HEAD);
+      final long tail = counters.get(TAIL);
+      if (head >= tail) {
+        rejections.incrementAndGet();
+        LockSupport.unpark(filler);
+        return EMPTY;
+      }
+      // 在领取之前读取槽位；若该槽位在此期间被重新填充，则下面的CAS一定失败
+      final long id = slots[(int) (head & mask)];
+      if (counters.compareAndSet(HEAD, head, head + 1)) {
+        if (tail - head - 1 == threshold) {
+          // 刚好跨过填充阈值，唤醒后台线程
+          LockSupport.unpark(filler);
+        }
+        return id;
+      }
+    }
+  }
+
+  private long await(final long deadline, final boolean interruptible)
+      throws InterruptedException, TimeoutException {
+    boolean interrupted = false;
+    try {
+      while (true) {
+        final long id = claim();
+        if (id != EMPTY) {
+          return id;
+        }
+        if (!running) {
+          throw new IllegalStateException("The ID generator has been closed.");
+        }
+        if (deadline != ExhaustionPolicy.NO_DEADLINE && System.nanoTime() - deadline >= 0) {
+          throw new TimeoutException();
+        }
+        LockSupport.parkNanos(this, WAIT_NANOS);
+        if (Thread.interrupted()) {
+          if (interruptible) {
+            throw new InterruptedException();
+          }
+          interrupted = true;
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * 后台线程的主循环。
+   */
+  private void fill() {
+    final long maxSequence = delegate.getBuilder().getMaxSequence();
+    final int maxBatch = (int) Math.min(slots.length, maxSequence + 1);
+    while (running) {
+      final long head = counters.get(HEAD);
+      long tail = counters.get(TAIL);
+      final long level = tail - head;
+      if (level > threshold) {
+        LockSupport.parkNanos(this, FILLER_PARK_NANOS);
+        continue;
+      }
+      // 把缓冲区填满，每批只领取当前时间片中剩余的序列号，每批写入后立即发布；
+      // 不能用reserve()预留跨越时间片的ID，否则它在等待下一个时间片时，已经预留的ID
+      // 既未写入缓冲区，也不会再被分配
+      long free = slots.length - level;
+      while (free > 0 && running) {
+        final long ticket = delegate.claim((int) Math.min(free, maxBatch));
+        if (ticket == AbstractIdGenerator.EXHAUSTED) {
+          // 当前时间片的序列号已经耗尽，按照耗尽策略等待进入下一个时间片
+          final long id = awaitNext();
+          if (id != EMPTY) {
+            slots[(int) (tail & mask)] = id;
+            ++tail;
+            --free;
+          }
+        } else {
+          final long timestamp = ticket >> delegate.sequenceBits;
+          final long first = ticket & maxSequence;
+          final long n = Math.min(Math.min(free, maxBatch), maxSequence - first + 1);
+          for (long sequence = first; sequence < first + n; ++sequence) {
+            final long id = delegate.build(timestamp, sequence);
+            if (id != EMPTY) {
+              slots[(int) (tail & mask)] = id;
+              ++tail;
+              --free;
+            }
+          }
+        }
+        counters.set(TAIL, tail);
+      }
+      refills.incrementAndGet();
+    }
+  }
+
+  /**
+   * 在后台线程中等待进入下一个时间片，并生成一个ID。
+   *
+   * <p>每次最多等待{@link #FILLER_WAIT_NANOS}纳秒，以便后台线程能够及时响应{@link #close()}。
+   *
+   * @return 生成的ID；若等待超时或者被中断则返回{@link #EMPTY}。
+   */
+  private long awaitNext() {
+    try {
+      return delegate.generate(FILLER_WAIT_NANOS, TimeUnit.NANOSECONDS);
+    } catch (final TimeoutException | InterruptedException e) {
+      // 由调用者重新检查后台线程是否已经被关闭
+      return EMPTY;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return new ToStringBuilder(this)
+        .append("mode", getMode())
+        .append("precision", getPrecision())
+        .append("host", delegate.getBuilder().getHost())
+        .append("bufferSize", slots.length)
+        .append("threshold", threshold)
+        .append("rejectionPolicy", rejectionPolicy)
+        .toString();
+  }
+}
@@ -0,0 +1,153 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * 带缓存的时间戳生成器。
+ *
+ * <p>此生成器启动一个后台线程，在每个时间片的边界处读取时钟源，并将当前时间戳发布到一个
+ * {@code volatile}字段中；{@link #now()}只需读取该字段，无需调用时钟源，也无需做任何
+ * 算术运算。为了及时发现时钟的跳变，后台线程两次读取时钟源之间的间隔不超过
+ * {@link #getMaxTickMillis()}毫秒。
+ *
+ * <p>由于缓存的时间戳最多会比真实时间戳滞后一次调度延迟，此生成器适用于对吞吐量要求高
+ * 而对时间戳精确度要求相对宽松的场合。使用完毕后应调用{@link #close()}结束后台线程。
+ *
+ * <p>后台线程在构造函数中启动，为了避免它在子类的构造函数完成之前运行，此类不可被继承。
+ *
+ * @author 胡海星
+ */
+@ThreadSafe
+public final class CachedTimer extends Timer implements AutoCloseable {
+
+  /**
+   * 默认的后台线程两次读取时钟源之间的最大间隔，单位为毫秒。
+   */
+  public static final long DEFAULT_MAX_TICK_MILLIS = 10L;
+
+  /**
+   * 后台线程两次读取时钟源之间的最大间隔，单位为毫秒。
+   */
+  private final long maxTickMillis;
+
+  /**
+   * 后台线程。
+   */
+  private final Thread ticker;
+
+  /**
+   * 缓存的当前时间戳。
+   */
+  private volatile long current;
+
+  /**
+   * 后台线程是否正在运行。
+   */
+  private volatile boolean running;
+
+  /**
+   * 构造一个{@link CachedTimer}对象，使用系统时钟作为时钟源。
+   *
+   * @param precision
+   *     时间戳精度。
+   * @param epoch
+   *     时间戳计算起点。
+   */
+  public CachedTimer(final Precision precision, final Instant epoch) {
+    this(precision, epoch, SystemClockSource.INSTANCE, DEFAULT_MAX_TICK_MILLIS);
+  }
+
+  /**
+   * 构造一个{@link CachedTimer}对象。
+   *
+   * @param precision
+   *     时间戳精度。
+   * @param epoch
+   *     时间戳计算起点。
+   * @param clock
+   *     时钟源。
+   * @param maxTickMillis
+   *     后台线程两次读取时钟源之间的最大间隔，单位为毫秒，必须大于0。
+   */
+  public CachedTimer(final Precision precision, final Instant epoch,
+      final ClockSource clock, final long maxTickMillis) {
+    super(precision, epoch, clock);
+    if (maxTickMillis <= 0) {
+      throw new IllegalArgumentException("The maximum tick interval must be positive.");
+    }
+    this.maxTickMillis = maxTickMillis;
+    this.current = super.now();
+    this.running = true;
+    this.ticker = new Thread(this::tick, "CachedTimer-ticker");
+    this.ticker.setDaemon(true);
+    this.ticker.start();
+  }
+
+  public final long getMaxTickMillis() {
+    return maxTickMillis;
+  }
+
+  /**
+   * 获取缓存的当前时间戳。
+   *
+   * @return 缓存的当前时间戳数值，按照预设的精度从预设的起点开始计算。
+   */
+  @Override
+  public final long now() {
+    return current;
+  }
+
+  /**
+   * 判断后台线程是否正在运行。
+   *
+   * @return 若后台线程正在运行则返回{@code true}；否则返回{@code false}。
+   */
+  public final boolean isRunning() {
+    return running && ticker.isAlive();
+  }
+
+  /**
+   * 结束后台线程。
+   *
+   * <p>结束后{@link #now()}将一直返回最后一次缓存的时间戳。
+   */
+  @Override
+  public void close() {
+    running = false;
+    LockSupport.unpark(ticker);
+    try {
+      ticker.join();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * 后台线程的主循环。
+   *
+   * <p>每次读取时钟源后，预先计算出下一个时间片的起始时刻，休眠到该时刻（但不超过
+   * {@link #maxTickMillis}毫秒）后再次读取时钟源。
+   */
+  private void tick() {
+    while (running) {
+      final long millis = clock.millis();
+      final long timestamp = getTimestamp(millis);
+      current = timestamp;
+      final long boundary = getEpochMillis(timestamp + 1);
+      final long delay = Math.max(1L, Math.min(boundary - millis, maxTickMillis));
+      LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(delay));
+    }
+  }
+}
@@ -0,0 +1,47 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * ID生成器检测到时钟回拨的JFR事件。
+ *
+ * <p>当ID生成器读取到的时间戳小于上一个时间片的时间戳时产生此事件，其持续时间为0。
+ * {@link #timestamp}为回拨后的时间戳。
+ *
+ * @author 胡海星
+ */
+@Name(ClockRegressionEvent.NAME)
+@Label("ID Clock Regression")
+@Description("An ID generator read a timestamp smaller than the timestamp of its "
+    + "last time slice")
+public final class ClockRegressionEvent extends AbstractIdEvent {
+
+  /**
+   * 此事件的名称。
+   */
+  public static final String NAME = "ltd.qubit.id.ClockRegression";
+
+  @Label("Host")
+  @Description("The host number of the ID generator")
+  long host;
+
+  @Label("Last Slice Timestamp")
+  @Description("The timestamp of the last time slice before the regression")
+  long lastTimestamp;
+
+  @Label("Regression")
+  @Description("How far the clock went backwards")
+  @Timespan(Timespan.MILLISECONDS)
+  long regression;
+}
@@ -0,0 +1,25 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+/**
+ * 时钟源接口，为{@link Timer}提供当前的真实时刻。
+ *
+ * @author 胡海星
+ */
+public interface ClockSource {
+
+  /**
+   * 获取当前时刻。
+   *
+   * @return
+   *     当前时刻距离{@code 1970-01-01T00:00:00Z}的毫秒数。
+   */
+  long millis();
+}
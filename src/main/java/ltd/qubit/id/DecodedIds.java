@@ -0,0 +1,175 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.time.Instant;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import ltd.qubit.commons.text.tostring.ToStringBuilder;
+
+/**
+ * 按列存放的一批已解析的ID，由{@link IdDecoder}填充。
+ *
+ * <p>每个字段存放在一个单独的基本类型数组中，第{@code i}个ID的各个字段位于各个数组的
+ * 第{@code i}个元素。为避免复制，{@code getXxxColumn()}函数直接返回内部数组，数组的长度
+ * 为容量，只有前{@link #size()}个元素有效。同一个对象可以被反复用于解析多批ID。
+ *
+ * @author 胡海星
+ */
+@NotThreadSafe
+public class DecodedIds {
+
+  /**
+   * 标志：该ID同时符合两种时间戳精度的格式，按照优先的精度解析。
+   */
+  public static final int FLAG_AMBIGUOUS = 1;
+
+  /**
+   * 标志：该ID的时间戳晚于当前时刻。
+   */
+  public static final int FLAG_FUTURE = 1 << 1;
+
+  /**
+   * 标志：该ID的主机编号不在已知的主机编号之中。
+   */
+  public static final int FLAG_UNKNOWN_HOST = 1 << 2;
+
+  /**
+   * 标志：该ID的时间戳精度比特和两种时间戳精度的格式都不符。
+   */
+  public static final int FLAG_INVALID_PRECISION = 1 << 3;
+
+  private static final Mode[] MODES = Mode.values();
+
+  private static final Precision[] PRECISIONS = Precision.values();
+
+  private final long[] timestamps;
+  private final byte[] modes;
+  private final byte[] precisions;
+  private final short[] hosts;
+  private final int[] sequences;
+  private final byte[] flags;
+  private int size;
+
+  /**
+   * 构造一个{@link DecodedIds}对象。
+   *
+   * @param capacity
+   *     最多可存放的ID数目，必须大于0。
+   */
+  public DecodedIds(final int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("The capacity must be positive.");
+    }
+    timestamps = new long[capacity];
+    modes = new byte[capacity];
+    precisions = new byte[capacity];
+    hosts = new short[capacity];
+    sequences = new int[capacity];
+    flags = new byte[capacity];
+  }
+
+  public final int capacity() {
+    return timestamps.length;
+  }
+
+  public final int size() {
+    return size;
+  }
+
+  final void setSize(final int size) {
+    this.size = size;
+  }
+
+  /**
+   * 获取时间戳列。
+   *
+   * @return 各个ID的时间戳所对应的时间片的起始时刻距离{@code 1970-01-01T00:00:00Z}的
+   *     毫秒数。
+   */
+  public final long[] getTimestampColumn() {
+    return timestamps;
+  }
+
+  /**
+   * 获取生成模式列。
+   *
+   * @return 各个ID的生成模式的序数。
+   */
+  public final byte[] getModeColumn() {
+    return modes;
+  }
+
+  /**
+   * 获取时间戳精度列。
+   *
+   * @return 各个ID的时间戳精度的序数。
+   */
+  public final byte[] getPrecisionColumn() {
+    return precisions;
+  }
+
+  public final short[] getHostColumn() {
+    return hosts;
+  }
+
+  public final int[] getSequenceColumn() {
+    return sequences;
+  }
+
+  /**
+   * 获取校验标志列。
+   *
+   * @return 各个ID的校验标志，由{@code FLAG_XXX}常量按位或组成，0表示校验通过。
+   */
+  public final byte[] getFlagColumn() {
+    return flags;
+  }
+
+  public final Instant getTimestamp(final int index) {
+    return Instant.ofEpochMilli(timestamps[checkIndex(index)]);
+  }
+
+  public final Mode getMode(final int index) {
+    return MODES[modes[checkIndex(index)]];
+  }
+
+  public final Precision getPrecision(final int index) {
+    return PRECISIONS[precisions[checkIndex(index)]];
+  }
+
+  public final int getHost(final int index) {
+    return hosts[checkIndex(index)];
+  }
+
+  public final int getSequence(final int index) {
+    return sequences[checkIndex(index)];
+  }
+
+  public final int getFlags(final int index) {
+    return flags[checkIndex(index)];
+  }
+
+  private int checkIndex(final int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size "
+          + size);
+    }
+    return index;
+  }
+
+  @Override
+  public String toString() {
+    return new ToStringBuilder(this)
+        .append("capacity", capacity())
+        .append("size", size)
+        .toString();
+  }
+}
@@ -0,0 +1,45 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+/**
+ * 序列号耗尽策略接口。
+ *
+ * <p>当同一个时间片内的序列号耗尽时，ID生成器调用此策略等待进入下一个时间片。不同的策略
+ * 可以选择休眠、自旋、挂起到时间片边界，或者立即失败。
+ *
+ * @author 胡海星
+ * @see StandardExhaustionPolicy
+ */
+public interface ExhaustionPolicy {
+
+  /**
+   * 表示没有截止时刻。
+   */
+  long NO_DEADLINE = Long.MAX_VALUE;
+
+  /**
+   * 等待直到计时器离开指定的时间片，或者到达截止时刻。
+   *
+   * @param timer
+   *     ID生成器所使用的计时器。
+   * @param lastTimestamp
+   *     序列号已经耗尽的时间片的时间戳。
+   * @param deadline
+   *     截止时刻，以{@link System#nanoTime()}为基准；若为{@link #NO_DEADLINE}则表示
+   *     没有截止时刻。
+   * @return
+   *     若计时器已经离开指定的时间片则返回{@code true}；若到达截止时刻时计时器仍然位于
+   *     指定的时间片内，或者此策略放弃等待，则返回{@code false}。
+   * @throws InterruptedException
+   *     若当前线程在等待过程中被中断。
+   */
+  boolean awaitNext(Timer timer, long lastTimestamp, long deadline)
+      throws InterruptedException;
+}
@@ -0,0 +1,75 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import ltd.qubit.commons.text.tostring.ToStringBuilder;
+
+/**
+ * 将已分配的最大ID记录在内存映射文件中的号段存储。
+ *
+ * <p>此存储使用一个块大小为1的{@link PersistentAutoIncrementIdGenerator}记录高水位，每次
+ * 分配号段时把高水位推进号段的大小，并在返回之前将其写入磁盘。文件格式与
+ * {@link PersistentAutoIncrementIdGenerator}相同；同一个文件同时只能被一个存储打开，
+ * 使用完毕后应调用{@link #close()}释放文件。
+ *
+ * @author 胡海星
+ */
+@ThreadSafe
+public class FileSegmentStore implements SegmentStore, Closeable {
+
+  /**
+   * 记录高水位的生成器。
+   */
+  private final PersistentAutoIncrementIdGenerator generator;
+
+  /**
+   * 构造一个{@link FileSegmentStore}对象。
+   *
+   * @param file
+   *     存放高水位的文件，不可为{@code null}；若文件不存在则自动创建。
+   * @throws IOException
+   *     若无法打开或创建该文件，该文件的格式不正确，或者该文件已被其他对象打开。
+   */
+  public FileSegmentStore(final Path file) throws IOException {
+    this.generator = new PersistentAutoIncrementIdGenerator(file, 1);
+  }
+
+  public final Path getFile() {
+    return generator.getFile();
+  }
+
+  @Override
+  public IdRange allocate(final int size) throws IOException {
+    try {
+      return generator.reserve(size).get(0);
+    } catch (final UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    generator.close();
+  }
+
+  @Override
+  public String toString() {
+    return new ToStringBuilder(this)
+        .append("file", generator.getFile())
+        .append("highWaterMark", generator.getHighWaterMark())
+        .toString();
+  }
+}
@@ -0,0 +1,41 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * 将ID编码为16位定长小写十六进制字符串的编码器。
+ *
+ * <p>解码时同时接受大写字母。
+ *
+ * @author 胡海星
+ */
+@Immutable
+public final class HexIdCodec extends IdCodec {
+
+  /**
+   * 此类的唯一实例。
+   */
+  public static final HexIdCodec INSTANCE = new HexIdCodec();
+
+  private HexIdCodec() {
+    super("0123456789abcdef", "AaBbCcDdEeFf");
+  }
+
+  @Override
+  protected int digit(final long id, final int index) {
+    return (int) (id >>> (60 - 4 * index)) & 0xF;
+  }
+
+  @Override
+  public String toString() {
+    return "HexIdCodec";
+  }
+}
@@ -0,0 +1,179 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import static ltd.qubit.commons.lang.Argument.requireNonNull;
+
+/**
+ * 基于混合逻辑时钟的时间戳生成器。
+ *
+ * <p>此生成器返回的时间戳永远不会减小：它记录已经返回过的最大时间戳，当时钟源被回拨时
+ * （例如NTP校时），继续返回这个最大时间戳，ID生成器便会在该时间片中继续递增序列号，
+ * 而不会把序列号重置为0并重复生成ID。
+ *
+ * <p>当逻辑时间片的序列号耗尽时，{@link #advance(long)}会把逻辑时间戳推进到下一个时间片，
+ * 而不必等待时钟源追上来，前提是逻辑时间戳领先时钟源的幅度不超过
+ * {@link #getMaxDrift()}；超过此幅度后，ID生成器按照其序列号耗尽策略等待时钟源。
+ * 因此，幅度较小的回拨既不会导致重复的ID，也不会导致长时间的停顿。
+ *
+ * <p>此生成器适用于{@link AtomicIdGenerator}、{@link LockedIdGenerator}和
+ * {@link PackedIdGenerator}；{@link BorrowAheadIdGenerator}自身已经实现了类似的借用逻辑，
+ * 不需要与此生成器一起使用。
+ *
+ * @author 胡海星
+ */
+@ThreadSafe
+public class HybridLogicalTimer extends Timer {
+
+  /**
+   * 默认的逻辑时间戳领先时钟源的最大幅度。
+   */
+  public static final Duration DEFAULT_MAX_DRIFT = Duration.ofSeconds(5);
+
+  /**
+   * 逻辑时间戳领先时钟源的最大幅度，以时间片为单位。
+   */
+  private final long maxDrift;
+
+  /**
+   * 已经返回过的最大时间戳。
+   */
+  private final AtomicLong floor = new AtomicLong(Long.MIN_VALUE);
+
+  /**
+   * 观察到的逻辑时间戳领先时钟源的最大幅度。
+   */
+  private final AtomicLong peakDrift = new AtomicLong();
+
+  /**
+   * 构造一个{@link HybridLogicalTimer}对象，使用系统时钟作为时钟源。
+   *
+   * @param precision
+   *     时间戳精度。
+   * @param epoch
+   *     时间戳计算起点。
+   */
+  public HybridLogicalTimer(final Precision precision, final Instant epoch) {
+    this(precision, epoch, SystemClockSource.INSTANCE, DEFAULT_MAX_DRIFT);
+  }
+
+  /**
+   * 构造一个{@link HybridLogicalTimer}对象。
+   *
+   * @param precision
+   *     时间戳精度。
+   * @param epoch
+   *     时间戳计算起点。
+   * @param clock
+   *     时钟源。
+   * @param maxDrift
+   *     逻辑时间戳领先时钟源的最大幅度，不可为负数；按照时间戳精度向下取整。
+   */
+  public HybridLogicalTimer(final Precision precision, final Instant epoch,
+      final ClockSource clock, final Duration maxDrift) {
+    super(precision, epoch, clock);
+    requireNonNull("maxDrift", maxDrift);
+    if (maxDrift.isNegative()) {
+      throw new IllegalArgumentException("The maximum drift must not be negative.");
+    }
+    final long millis = maxDrift.toMillis();
+    this.maxDrift = (precision == Precision.SECOND ? millis / MILLIS_PER_SECOND : millis);
+  }
+
+  /**
+   * 获取逻辑时间戳领先时钟源的最大幅度。
+   *
+   * @return 逻辑时间戳领先时钟源的最大幅度，以时间片为单位。
+   */
+  public final long getMaxDrift() {
+    return maxDrift;
+  }
+
+  /**
+   * 获取当前逻辑时间戳领先时钟源的幅度。
+   *
+   * @return 当前逻辑时间戳领先时钟源的幅度，以时间片为单位；若没有领先则返回0。
+   */
+  public final long getDrift() {
+    return Math.max(0L, floor.get() - getTimestamp(clock.millis()));
+  }
+
+  /**
+   * 获取观察到的逻辑时间戳领先时钟源的最大幅度。
+   *
+   * <p>此数值反映了时钟源被回拨的最大幅度，以及序列号耗尽时逻辑时间戳推进的最大幅度。
+   *
+   * @return 观察到的逻辑时间戳领先时钟源的最大幅度，以时间片为单位。
+   */
+  public final long getPeakDrift() {
+    return peakDrift.get();
+  }
+
+  /**
+   * 获取当前时间戳。
+   *
+   * @return 时钟源的当前时间戳与已经返回过的最大时间戳中的较大者。
+   */
+  @Override
+  public final long now() {
+    final long wall = getTimestamp(clock.millis());
+    while (true) {
+      final long last = floor.get();
+      if (wall == last) {
+        return last;
+      }
+      if (wall < last) {
+        // 时钟源被回拨，或者逻辑时间戳已经推进，继续使用逻辑时间戳
+        recordDrift(last - wall);
+        return last;
+      }
+      if (floor.compareAndSet(last, wall)) {
+        return wall;
+      }
+    }
+  }
+
+  /**
+   * 尝试把逻辑时间戳推进到指定时间片的下一个时间片。
+   *
+   * <p>只有当逻辑时间戳仍然位于指定的时间片，且推进后领先时钟源的幅度不超过
+   * {@link #getMaxDrift()}时，才会推进。
+   *
+   * @param lastTimestamp
+   *     序列号已经耗尽的时间片的时间戳。
+   * @return 调用此函数之后的当前时间戳。
+   */
+  @Override
+  public final long advance(final long lastTimestamp) {
+    final long current = now();
+    if (current != lastTimestamp) {
+      return current;
+    }
+    final long wall = getTimestamp(clock.millis());
+    if (lastTimestamp + 1 - wall > maxDrift) {
+      return current;
+    }
+    if (floor.compareAndSet(lastTimestamp, lastTimestamp + 1)) {
+      recordDrift(lastTimestamp + 1 - wall);
+    }
+    return floor.get();
+  }
+
+  private void recordDrift(final long drift) {
+    if (drift > peakDrift.get()) {
+      peakDrift.accumulateAndGet(drift, Math::max);
+    }
+  }
+}
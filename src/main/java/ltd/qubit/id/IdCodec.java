@@ -0,0 +1,393 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import javax.annotation.concurrent.Immutable;
+
+import static ltd.qubit.commons.lang.Argument.requireNonNull;
+
+/**
+ * 定长的ID字符串编码器的基类。
+ *
+ * <p>ID被视为64位无符号整数，按照固定的进制和字母表编码为固定长度的字符串，高位在前，
+ * 不足的位数用字母表的第一个字符补齐。字母表中的字符按照ASCII码递增排列，因此编码后的
+ * 字符串按字典序比较的结果与ID按无符号整数比较的结果相同；顺序模式生成的ID的最高位为0，
+ * 其编码后的字符串按时间排序。
+ *
+ * <p>编码和解码函数直接读写调用者提供的{@code byte[]}、{@code char[]}或者
+ * {@link ByteBuffer}，不创建任何中间对象。非法的输入会导致{@link NumberFormatException}。
+ *
+ * @author 胡海星
+ */
+@Immutable
+public abstract class IdCodec {
+
+  /**
+   * 字母表。
+   */
+  private final byte[] alphabet;
+
+  /**
+   * 从ASCII字符到数字的映射表，非法字符映射为-1。
+   */
+  private final byte[] values;
+
+  /**
+   * 进制。
+   */
+  private final int radix;
+
+  /**
+   * 编码后的字符串长度。
+   */
+  private final int width;
+
+  /**
+   * 解析最后一位数字之前，已经解析的数值的最大值。
+   */
+  private final long limit;
+
+  /**
+   * 构造一个编码器。
+   *
+   * @param alphabet
+   *     字母表，其中的字符必须按照ASCII码严格递增排列，其长度即为进制。
+   * @param aliases
+   *     解码时额外接受的字符及其对应的字母表中的字符，依次成对排列，可以为空字符串。
+   */
+  protected IdCodec(final String alphabet, final String aliases) {
+    requireNonNull("alphabet", alphabet);
+    requireNonNull("aliases", aliases);
+    this.radix = alphabet.length();
+    this.alphabet = new byte[radix];
+    this.values = new byte[128];
+    Arrays.fill(values, (byte) -1);
+    for (int i = 0; i < radix; ++i) {
+      final char ch = alphabet.charAt(i);
+      if (ch >= 128 || (i > 0 && ch <= alphabet.charAt(i - 1))) {
+        throw new IllegalArgumentException("The alphabet must be increasing ASCII.");
+      }
+      this.alphabet[i] = (byte) ch;
+      values[ch] = (byte) i;
+    }
+    for (int i = 0; i + 1 < aliases.length(); i += 2) {
+      values[aliases.charAt(i)] = values[aliases.charAt(i + 1)];
+    }
+    // 最少需要多少位数字才能表示所有的64位无符号整数
+    int n = 1;
+    for (long max = -1L; Long.compareUnsigned(max, radix) >= 0;
+         max = Long.divideUnsigned(max, radix)) {
+      ++n;
+    }
+    this.width = n;
+    this.limit = Long.divideUnsigned(-1L, radix);
+  }
+
+  /**
+   * 获取编码后的字符串长度。
+   *
+   * @return 编码后的字符串长度。
+   */
+  public final int width() {
+    return width;
+  }
+
+  public final int radix() {
+    return radix;
+  }
+
+  /**
+   * 获取ID在指定位置上的数字。
+   *
+   * @param id
+   *     ID。
+   * @param index
+   *     数字的位置，0表示最高位。
+   * @return 该位置上的数字。
+   */
+  protected abstract int digit(long id, int index);
+
+  /**
+   * 获取数字对应的字符。
+   */
+  protected final byte symbol(final int digit) {
+    return alphabet[digit];
+  }
+
+  /**
+   * 将一个ID编码到字节数组中。
+   *
+   * @param id
+   *     ID。
+   * @param dst
+   *     目标数组，从{@code offset}开始必须至少有{@link #width()}个字节的空间。
+   * @param offset
+   *     写入的起始位置。
+   * @return 写入的最后一个字节之后的位置。
+   */
+  public int encode(final long id, final byte[] dst, final int offset) {
+    checkRange(dst.length, offset, width);
+    for (int i = 0; i < width; ++i) {
+      dst[offset + i] = alphabet[digit(id, i)];
+    }
+    return offset + width;
+  }
+
+  /**
+   * 将一个ID编码到字符数组中。
+   *
+   * @param id
+   *     ID。
+   * @param dst
+   *     目标数组，从{@code offset}开始必须至少有{@link #width()}个字符的空间。
+   * @param offset
+   *     写入的起始位置。
+   * @return 写入的最后一个字符之后的位置。
+   */
+  public int encode(final long id, final char[] dst, final int offset) {
+    checkRange(dst.length, offset, width);
+    for (int i = 0; i < width; ++i) {
+      dst[offset + i] = (char) alphabet[digit(id, i)];
+    }
+    return offset + width;
+  }
+
+  /**
+   * 将一个ID编码到缓冲区的当前位置，并将缓冲区的位置向后移动{@link #width()}个字节。
+   *
+   * @param id
+   *     ID。
+   * @param dst
+   *     目标缓冲区，其剩余空间必须至少有{@link #width()}个字节。
+   */
+  public void encode(final long id, final ByteBuffer dst) {
+    final int position = dst.position();
+    if (dst.remaining() < width) {
+      throw new IndexOutOfBoundsException("The buffer is too small.");
+    }
+    if (dst.hasArray()) {
+      encode(id, dst.array(), dst.arrayOffset() + position);
+    } else {
+      for (int i = 0; i < width; ++i) {
+        dst.put(position + i, alphabet[digit(id, i)]);
+      }
+    }
+    dst.position(position + width);
+  }
+
+  /**
+   * 将一个ID编码为字符串。
+   *
+   * <p>此函数需要创建字符串对象，对性能敏感的场合应使用将ID编码到调用者提供的数组中的
+   * 函数。
+   *
+   * @param id
+   *     ID。
+   * @return 编码后的字符串。
+   */
+  public String encode(final long id) {
+    final char[] result = new char[width];
+    encode(id, result, 0);
+    return new String(result);
+  }
+
+  /**
+   * 将一批ID依次编码到字节数组中，编码后的字符串首尾相接，中间没有分隔符。
+   *
+   * @param ids
+   *     存放ID的数组。
+   * @param offset
+   *     第一个ID在数组中的下标。
+   * @param length
+   *     ID的数目。
+   * @param dst
+   *     目标数组，从{@code dstOffset}开始必须至少有{@code length * width()}个字节的空间。
+   * @param dstOffset
+   *     写入的起始位置。
+   * @return 写入的最后一个字节之后的位置。
+   */
+  public int encode(final long[] ids, final int offset, final int length, final byte[] dst,
+      final int dstOffset) {
+    checkRange(ids.length, offset, length);
+    checkRange(dst.length, dstOffset, (long) length * width);
+    int pos = dstOffset;
+    for (int i = 0; i < length; ++i) {
+      pos = encode(ids[offset + i], dst, pos);
+    }
+    return pos;
+  }
+
+  /**
+   * 从字节数组中解析一个ID。
+   *
+   * @param src
+   *     源数组，从{@code offset}开始必须至少有{@link #width()}个字节。
+   * @param offset
+   *     读取的起始位置。
+   * @return 解析出的ID。
+   * @throws NumberFormatException
+   *     若其中包含非法的字符，或者其数值超出64位无符号整数的范围。
+   */
+  public long decode(final byte[] src, final int offset) {
+    checkRange(src.length, offset, width);
+    long result = 0;
+    int invalid = 0;
+    for (int i = 0; i < width - 1; ++i) {
+      final int d = value(src[offset + i]);
+      invalid |= d;
+      result = result * radix + d;
+    }
+    return finish(result, value(src[offset + width - 1]), invalid);
+  }
+
+  /**
+   * 从字符数组中解析一个ID。
+   *
+   * @param src
+   *     源数组，从{@code offset}开始必须至少有{@link #width()}个字符。
+   * @param offset
+   *     读取的起始位置。
+   * @return 解析出的ID。
+   * @throws NumberFormatException
+   *     若其中包含非法的字符，或者其数值超出64位无符号整数的范围。
+   */
+  public long decode(final char[] src, final int offset) {
+    checkRange(src.length, offset, width);
+    long result = 0;
+    int invalid = 0;
+    for (int i = 0; i < width - 1; ++i) {
+      final int d = value(src[offset + i]);
+      invalid |= d;
+      result = result * radix + d;
+    }
+    return finish(result, value(src[offset + width - 1]), invalid);
+  }
+
+  /**
+   * 从字符序列中解析一个ID。
+   *
+   * @param src
+   *     源字符序列，其长度必须等于{@link #width()}。
+   * @return 解析出的ID。
+   * @throws NumberFormatException
+   *     若其长度不正确，其中包含非法的字符，或者其数值超出64位无符号整数的范围。
+   */
+  public long decode(final CharSequence src) {
+    if (src.length() != width) {
+      throw new NumberFormatException("The length of an encoded ID must be " + width
+          + ": " + src);
+    }
+    long result = 0;
+    int invalid = 0;
+    for (int i = 0; i < width - 1; ++i) {
+      final int d = value(src.charAt(i));
+      invalid |= d;
+      result = result * radix + d;
+    }
+    return finish(result, value(src.charAt(width - 1)), invalid);
+  }
+
+  /**
+   * 从缓冲区的当前位置解析一个ID，并将缓冲区的位置向后移动{@link #width()}个字节。
+   *
+   * @param src
+   *     源缓冲区，其剩余部分必须至少有{@link #width()}个字节。
+   * @return 解析出的ID。
+   * @throws NumberFormatException
+   *     若其中包含非法的字符，或者其数值超出64位无符号整数的范围。
+   */
+  public long decode(final ByteBuffer src) {
+    final int position = src.position();
+    if (src.remaining() < width) {
+      throw new IndexOutOfBoundsException("The buffer is too small.");
+    }
+    final long result;
+    if (src.hasArray()) {
+      result = decode(src.array(), src.arrayOffset() + position);
+    } else {
+      long r = 0;
+      int invalid = 0;
+      for (int i = 0; i < width - 1; ++i) {
+        final int d = value(src.get(position + i));
+        invalid |= d;
+        r = r * radix + d;
+      }
+      result = finish(r, value(src.get(position + width - 1)), invalid);
+    }
+    src.position(position + width);
+    return result;
+  }
+
+  /**
+   * 从字节数组中依次解析一批首尾相接的ID。
+   *
+   * @param src
+   *     源数组，从{@code srcOffset}开始必须至少有{@code length * width()}个字节。
+   * @param srcOffset
+   *     读取的起始位置。
+   * @param ids
+   *     存放解析出的ID的数组。
+   * @param offset
+   *     第一个ID在数组中的下标。
+   * @param length
+   *     ID的数目。
+   * @throws NumberFormatException
+   *     若其中包含非法的字符，或者某个ID的数值超出64位无符号整数的范围。
+   */
+  public void decode(final byte[] src, final int srcOffset, final long[] ids, final int offset,
+      final int length) {
+    checkRange(ids.length, offset, length);
+    checkRange(src.length, srcOffset, (long) length * width);
+    for (int i = 0; i < length; ++i) {
+      ids[offset + i] = decode(src, srcOffset + i * width);
+    }
+  }
+
+  /**
+   * 获取字符对应的数字。
+   *
+   * @return 字符对应的数字；若该字符不在字母表中，则返回一个负数。
+   */
+  private int value(final int ch) {
+    return (ch & ~0x7F) == 0 ? values[ch] : -1;
+  }
+
+  /**
+   * 完成解析，检查非法字符和溢出。
+   *
+   * @param result
+   *     除最后一位数字之外已经解析的数值。
+   * @param last
+   *     最后一位数字。
+   * @param invalid
+   *     之前各位数字按位或的结果，若为负数则表示存在非法字符。
+   * @return 解析出的ID。
+   */
+  private long finish(final long result, final int last, final int invalid) {
+    if ((invalid | last) < 0) {
+      throw new NumberFormatException("Invalid character in an encoded ID.");
+    }
+    final long value = result * radix + last;
+    if (Long.compareUnsigned(result, limit) > 0
+        || Long.compareUnsigned(value, result * radix) < 0) {
+      throw new NumberFormatException("The encoded ID is out of range.");
+    }
+    return value;
+  }
+
+  private static void checkRange(final int arrayLength, final int offset, final long length) {
+    if (offset < 0 || offset + length > arrayLength) {
+      throw new IndexOutOfBoundsException("Invalid range [" + offset + ", "
+          + (offset + length) + ") of an array of length " + arrayLength);
+    }
+  }
+}
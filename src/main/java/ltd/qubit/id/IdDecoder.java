@@ -0,0 +1,377 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.nio.LongBuffer;
+import java.time.Instant;
+import java.util.Arrays;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import ltd.qubit.commons.text.tostring.ToStringBuilder;
+
+import static ltd.qubit.commons.lang.Argument.requireInCloseRange;
+import static ltd.qubit.commons.lang.Argument.requireNonNull;
+
+/**
+ * 批量ID解析器，将一批ID解析为按列存放的{@link DecodedIds}。
+ *
+ * <p>与逐个调用{@link Builder#extractTimestamp(long)}等函数相比，此解析器不需要预先知道
+ * 每个ID的时间戳精度，也不会为每个ID创建任何对象。主循环对每个ID只做移位、掩码和比较
+ * 运算，分支都可以被编译为条件传送指令，便于JIT编译器展开和向量化。
+ *
+ * <p>两种时间戳精度下时间戳精度比特的位置不同（精度为秒时位于第31位，精度为毫秒时位于
+ * 第21位），因此单凭一个比特无法确定ID的精度。解析器按照两种精度的格式分别解析每个ID，
+ * 并按以下条件给两种解析结果打分，条件依次从重到轻：
+ * <ol>
+ * <li>该格式下的时间戳精度比特与该精度一致；</li>
+ * <li>主机编号是已知的主机编号；</li>
+ * <li>时间戳不晚于当前时刻加上允许的时钟偏差。</li>
+ * </ol>
+ * 得分较高的结果被采用；得分相同时采用优先的精度，若两种结果都满足全部条件，则该ID被标记
+ * 为{@link DecodedIds#FLAG_AMBIGUOUS}。指定的已知主机编号越少，区分两种精度的能力越强。
+ * 若所有ID的精度都是已知的，可以通过{@link #setPrecision(Precision)}固定精度。
+ *
+ * <p>解析器的配置不是线程安全的；配置完成后，多个线程可以同时使用同一个解析器解析ID。
+ *
+ * @author 胡海星
+ */
+@NotThreadSafe
+public class IdDecoder implements Constant {
+
+  private static final int SECOND_TIMESTAMP_SHIFT = PRECISION_BITS + HOST_BITS
+      + SEQUENCE_BITS_IN_SECOND;
+  private static final int SECOND_PRECISION_SHIFT = HOST_BITS + SEQUENCE_BITS_IN_SECOND;
+  private static final long SECOND_TIMESTAMP_MASK = (1L << TIMESTAMP_BITS_IN_SECOND) - 1;
+  private static final long SECOND_SEQUENCE_MASK = (1L << SEQUENCE_BITS_IN_SECOND) - 1;
+
+  private static final int MILLISECOND_TIMESTAMP_SHIFT = PRECISION_BITS + HOST_BITS
+      + SEQUENCE_BITS_IN_MILLISECOND;
+  private static final int MILLISECOND_PRECISION_SHIFT = HOST_BITS
+      + SEQUENCE_BITS_IN_MILLISECOND;
+  private static final long MILLISECOND_TIMESTAMP_MASK =
+      (1L << TIMESTAMP_BITS_IN_MILLISECOND) - 1;
+  private static final long MILLISECOND_SEQUENCE_MASK =
+      (1L << SEQUENCE_BITS_IN_MILLISECOND) - 1;
+
+  private static final long HOST_MASK = (1L << HOST_BITS) - 1;
+
+  private static final int MODE_SHIFT = Long.SIZE - MODE_BITS;
+
+  /**
+   * 时间戳精度比特符合该格式时的得分。
+   */
+  private static final int PRECISION_SCORE = 4;
+
+  /**
+   * 主机编号已知时的得分。
+   */
+  private static final int HOST_SCORE = 2;
+
+  /**
+   * 时间戳不晚于当前时刻时的得分。
+   */
+  private static final int TIME_SCORE = 1;
+
+  private static final int FULL_SCORE = PRECISION_SCORE + HOST_SCORE + TIME_SCORE;
+
+  private final Instant epoch;
+
+  private final long epochMillis;
+
+  private Precision preferredPrecision;
+
+  private Precision precision;
+
+  /**
+   * 已知主机编号的位图，每个主机编号占据一个比特。
+   */
+  private final long[] knownHosts = new long[(1 << HOST_BITS) / Long.SIZE];
+
+  private ClockSource clock = SystemClockSource.INSTANCE;
+
+  private long maxClockSkew;
+
+  /**
+   * 使用默认的EPOCH构造一个解析器。
+   */
+  public IdDecoder() {
+    this(DEFAULT_EPOCH);
+  }
+
+  /**
+   * 构造一个解析器。
+   *
+   * <p>默认情况下优先的精度为秒，所有的主机编号都是已知的，使用系统时钟判断时间戳是否晚于
+   * 当前时刻，并且不允许时钟偏差。
+   *
+   * @param epoch
+   *     生成ID时所使用的EPOCH，不可为{@code null}。
+   */
+  public IdDecoder(final Instant epoch) {
+    this.epoch = requireNonNull("epoch", epoch);
+    this.epochMillis = epoch.toEpochMilli();
+    this.preferredPrecision = Precision.SECOND;
+    setAllHostsKnown();
+  }
+
+  public final Instant getEpoch() {
+    return epoch;
+  }
+
+  public final Precision getPreferredPrecision() {
+    return preferredPrecision;
+  }
+
+  /**
+   * 设置优先的时间戳精度，当两种精度的解析结果得分相同时采用此精度。
+   *
+   * @param preferredPrecision
+   *     优先的时间戳精度，不可为{@code null}。
+   * @return 此对象本身。
+   */
+  public final IdDecoder setPreferredPrecision(final Precision preferredPrecision) {
+    this.preferredPrecision = requireNonNull("preferredPrecision", preferredPrecision);
+    return this;
+  }
+
+  public final Precision getPrecision() {
+    return precision;
+  }
+
+  /**
+   * 固定所有ID的时间戳精度。
+   *
+   * @param precision
+   *     所有ID的时间戳精度；若为{@code null}，则对每个ID分别判断其精度。
+   * @return 此对象本身。
+   */
+  public final IdDecoder setPrecision(final Precision precision) {
+    this.precision = precision;
+    return this;
+  }
+
+  /**
+   * 设置已知的主机编号，不在其中的主机编号将被标记为
+   * {@link DecodedIds#FLAG_UNKNOWN_HOST}。
+   *
+   * @param hosts
+   *     已知的主机编号，每个编号必须在{@code [0, 511]}之间。
+   * @return 此对象本身。
+   */
+  public final IdDecoder setKnownHosts(final long... hosts) {
+    requireNonNull("hosts", hosts);
+    final long[] bitmap = new long[knownHosts.length];
+    for (final long host : hosts) {
+      requireInCloseRange("host", host, HOST_MIN, HOST_MAX);
+      bitmap[(int) (host >>> 6)] |= (1L << host);
+    }
+    System.arraycopy(bitmap, 0, knownHosts, 0, bitmap.length);
+    return this;
+  }
+
+  /**
+   * 将所有的主机编号都视为已知的主机编号。
+   *
+   * @return 此对象本身。
+   */
+  public final IdDecoder setAllHostsKnown() {
+    Arrays.fill(knownHosts, -1L);
+    return this;
+  }
+
+  public final boolean isKnownHost(final long host) {
+    return ((knownHosts[(int) (host >>> 6)] >>> host) & 1L) != 0;
+  }
+
+  public final ClockSource getClock() {
+    return clock;
+  }
+
+  /**
+   * 设置用于判断时间戳是否晚于当前时刻的时钟源。
+   *
+   * @param clock
+   *     时钟源，不可为{@code null}；每解析一批ID只读取一次。
+   * @return 此对象本身。
+   */
+  public final IdDecoder setClock(final ClockSource clock) {
+    this.clock = requireNonNull("clock", clock);
+    return this;
+  }
+
+  public final long getMaxClockSkew() {
+    return maxClockSkew;
+  }
+
+  /**
+   * 设置允许的时钟偏差。
+   *
+   * @param maxClockSkew
+   *     允许的时钟偏差，单位为毫秒，不可为负数；时间戳晚于当前时刻加上此偏差的ID将被
+   *     标记为{@link DecodedIds#FLAG_FUTURE}。
+   * @return 此对象本身。
+   */
+  public final IdDecoder setMaxClockSkew(final long maxClockSkew) {
+    if (maxClockSkew < 0) {
+      throw new IllegalArgumentException("The max clock skew must be non-negative.");
+    }
+    this.maxClockSkew = maxClockSkew;
+    return this;
+  }
+
+  /**
+   * 解析数组中的一批ID。
+   *
+   * @param ids
+   *     存放ID的数组，不可为{@code null}。
+   * @param offset
+   *     第一个ID在数组中的下标。
+   * @param length
+   *     ID的数目，不可超过{@code result}的容量。
+   * @param result
+   *     用于存放解析结果的对象，不可为{@code null}；解析结果从其第0个元素开始存放。
+   * @return 未通过校验的ID的数目，仅被标记为{@link DecodedIds#FLAG_AMBIGUOUS}的ID不计算
+   *     在内。
+   */
+  public int decode(final long[] ids, final int offset, final int length,
+      final DecodedIds result) {
+    requireNonNull("ids", ids);
+    requireNonNull("result", result);
+    if (offset < 0 || length < 0 || offset > ids.length - length) {
+      throw new IndexOutOfBoundsException("Invalid range [" + offset + ", "
+          + (offset + length) + ") of an array of length " + ids.length);
+    }
+    if (length > result.capacity()) {
+      throw new IllegalArgumentException("The length exceeds the capacity of the result.");
+    }
+    final long limit = clock.millis() + maxClockSkew;
+    int flagged = 0;
+    for (int i = 0; i < length; ++i) {
+      flagged += decode(ids[offset + i], i, limit, result);
+    }
+    result.setSize(length);
+    return flagged;
+  }
+
+  /**
+   * 解析数组中的全部ID。
+   *
+   * @param ids
+   *     存放ID的数组，不可为{@code null}，其长度不可超过{@code result}的容量。
+   * @param result
+   *     用于存放解析结果的对象，不可为{@code null}。
+   * @return 未通过校验的ID的数目，仅被标记为{@link DecodedIds#FLAG_AMBIGUOUS}的ID不计算
+   *     在内。
+   */
+  public int decode(final long[] ids, final DecodedIds result) {
+    return decode(ids, 0, ids.length, result);
+  }
+
+  /**
+   * 解析缓冲区中的一批ID。
+   *
+   * <p>此函数从缓冲区的当前位置开始，最多解析{@code result}的容量个ID，并将缓冲区的位置
+   * 向后移动相应的数目。缓冲区可以是内存映射文件的视图，从而直接解析存放在文件中的ID。
+   *
+   * @param buffer
+   *     存放ID的缓冲区，不可为{@code null}。
+   * @param result
+   *     用于存放解析结果的对象，不可为{@code null}；解析的ID数目可通过其
+   *     {@link DecodedIds#size()}获得。
+   * @return 未通过校验的ID的数目，仅被标记为{@link DecodedIds#FLAG_AMBIGUOUS}的ID不计算
+   *     在内。
+   */
+  public int decode(final LongBuffer buffer, final DecodedIds result) {
+    requireNonNull("buffer", buffer);
+    requireNonNull("result", result);
+    final int length = Math.min(buffer.remaining(), result.capacity());
+    final int position = buffer.position();
+    final long limit = clock.millis() + maxClockSkew;
+    int flagged = 0;
+    for (int i = 0; i < length; ++i) {
+      flagged += decode(buffer.get(position + i), i, limit, result);
+    }
+    buffer.position(position + length);
+    result.setSize(length);
+    return flagged;
+  }
+
+  /**
+   * 解析一个ID，并将其各个字段存放到解析结果的指定位置。
+   *
+   * @return 若该ID未通过校验，则返回1；否则返回0。
+   */
+  private int decode(final long id, final int index, final long limit,
+      final DecodedIds result) {
+    final int mode = (int) (id >>> MODE_SHIFT);
+    final boolean spread = (mode == Mode.SPREAD.ordinal());
+    // 按照精度为秒的格式解析
+    long secondTimestamp = (id >>> SECOND_TIMESTAMP_SHIFT) & SECOND_TIMESTAMP_MASK;
+    secondTimestamp = spread
+        ? Long.reverse(secondTimestamp) >>> (Long.SIZE - TIMESTAMP_BITS_IN_SECOND)
+        : secondTimestamp;
+    final long secondMillis = epochMillis + secondTimestamp * 1000L;
+    final long secondHost = (id >>> SEQUENCE_BITS_IN_SECOND) & HOST_MASK;
+    final int secondScore = score((int) ((id >>> SECOND_PRECISION_SHIFT) & 1L),
+        Precision.SECOND, secondHost, secondMillis, limit);
+    // 按照精度为毫秒的格式解析
+    long millisecondTimestamp = (id >>> MILLISECOND_TIMESTAMP_SHIFT)
+        & MILLISECOND_TIMESTAMP_MASK;
+    millisecondTimestamp = spread
+        ? Long.reverse(millisecondTimestamp) >>> (Long.SIZE - TIMESTAMP_BITS_IN_MILLISECOND)
+        : millisecondTimestamp;
+    final long millisecondMillis = epochMillis + millisecondTimestamp;
+    final long millisecondHost = (id >>> SEQUENCE_BITS_IN_MILLISECOND) & HOST_MASK;
+    final int millisecondScore = score((int) ((id >>> MILLISECOND_PRECISION_SHIFT) & 1L),
+        Precision.MILLISECOND, millisecondHost, millisecondMillis, limit);
+    // 选择得分较高的格式
+    final boolean second;
+    if (precision != null) {
+      second = (precision == Precision.SECOND);
+    } else if (secondScore != millisecondScore) {
+      second = (secondScore > millisecondScore);
+    } else {
+      second = (preferredPrecision == Precision.SECOND);
+    }
+    final int score = (second ? secondScore : millisecondScore);
+    int flags = ((score & PRECISION_SCORE) == 0 ? DecodedIds.FLAG_INVALID_PRECISION : 0)
+        | ((score & HOST_SCORE) == 0 ? DecodedIds.FLAG_UNKNOWN_HOST : 0)
+        | ((score & TIME_SCORE) == 0 ? DecodedIds.FLAG_FUTURE : 0);
+    if (precision == null && secondScore == FULL_SCORE && millisecondScore == FULL_SCORE) {
+      flags |= DecodedIds.FLAG_AMBIGUOUS;
+    }
+    result.getTimestampColumn()[index] = (second ? secondMillis : millisecondMillis);
+    result.getModeColumn()[index] = (byte) mode;
+    result.getPrecisionColumn()[index] = (byte) (second ? Precision.SECOND.ordinal()
+                                                        : Precision.MILLISECOND.ordinal());
+    result.getHostColumn()[index] = (short) (second ? secondHost : millisecondHost);
+    result.getSequenceColumn()[index] = (int) (second ? (id & SECOND_SEQUENCE_MASK)
+                                                      : (id & MILLISECOND_SEQUENCE_MASK));
+    result.getFlagColumn()[index] = (byte) flags;
+    return ((flags & ~DecodedIds.FLAG_AMBIGUOUS) == 0 ? 0 : 1);
+  }
+
+  private int score(final int precisionBit, final Precision expected, final long host,
+      final long millis, final long limit) {
+    return (precisionBit == expected.ordinal() ? PRECISION_SCORE : 0)
+        | (isKnownHost(host) ? HOST_SCORE : 0)
+        | (millis <= limit ? TIME_SCORE : 0);
+  }
+
+  @Override
+  public String toString() {
+    return new ToStringBuilder(this)
+        .append("epoch", epoch)
+        .append("preferredPrecision", preferredPrecision)
+        .append("precision", precision)
+        .append("maxClockSkew", maxClockSkew)
+        .toString();
+  }
+}
@@ -8,6 +8,12 @@
 ////////////////////////////////////////////////////////////////////////////////
 package ltd.qubit.id;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 /**
  * ID生成器接口。
  *
@@ -39,6 +45,77 @@ public interface IdGenerator extends Constant {
    */
   long generate();
 
+  /**
+   * 尝试生成下一个ID，不做任何等待。
+   *
+   * <p>默认实现直接调用{@link #generate()}，适用于生成ID时不会等待的实现；基于时间片的
+   * 生成器应当覆盖此函数。
+   *
+   * @return
+   *     生成的ID；若当前时间片的序列号已经耗尽，则返回空值。
+   */
+  default OptionalLong tryGenerate() {
+    return OptionalLong.of(generate());
+  }
+
+  /**
+   * 生成下一个ID，最多等待指定的时间。
+   *
+   * <p>默认实现直接调用{@link #generate()}，忽略等待时间的限制；基于时间片的生成器应当
+   * 覆盖此函数。
+   *
+   * @param timeout
+   *     最长等待时间。
+   * @param unit
+   *     最长等待时间的单位。
+   * @return
+   *     生成的ID。
+   * @throws InterruptedException
+   *     若当前线程在等待过程中被中断。
+   * @throws TimeoutException
+   *     若在指定的时间内未能生成ID。
+   */
+  default long generate(final long timeout, final TimeUnit unit)
+      throws InterruptedException, TimeoutException {
+    return generate();
+  }
+
+  /**
+   * 一次性预留指定数目的连续ID。
+   *
+   * <p>同一个时间片内连续的序列号对应的ID是连续的整数，因此预留的ID以若干个
+   * {@link IdRange}的形式返回；当预留的ID跨越了时间片的边界时，结果会被拆分为多个范围。
+   * 返回的各个范围按照生成的先后顺序排列。
+   *
+   * <p>默认实现逐个调用{@link #generate()}生成ID，并将相邻的连续ID合并为一个范围；能够
+   * 一次性领取多个序列号的实现应当覆盖此函数。
+   *
+   * @param count
+   *     需要预留的ID的数目，必须大于0。
+   * @return
+   *     预留的ID范围列表，其中所有范围的大小之和等于{@code count}。
+   */
+  default List<IdRange> reserve(final int count) {
+    if (count <= 0) {
+      throw new IllegalArgumentException("The count must be positive.");
+    }
+    final List<IdRange> result = new ArrayList<>(1);
+    long start = generate();
+    int size = 1;
+    for (int i = 1; i < count; ++i) {
+      final long id = generate();
+      if (id == start + size) {
+        ++size;
+      } else {
+        result.add(new IdRange(start, size));
+        start = id;
+        size = 1;
+      }
+    }
+    result.add(new IdRange(start, size));
+    return result;
+  }
+
   /**
    * 重置此ID生成器。
    */
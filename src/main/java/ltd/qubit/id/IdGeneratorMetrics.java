@@ -0,0 +1,100 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+/**
+ * ID生成器的运行指标接口。
+ *
+ * <p>通过{@link AbstractIdGenerator#setMetrics(IdGeneratorMetrics)}为ID生成器设置此接口
+ * 的实现后，ID生成器在发生以下事件时回调相应的函数。未设置时ID生成器不记录任何指标，其
+ * 快速路径上没有额外的开销；设置后，所有回调也只发生在CAS重试、锁竞争、时间片切换、序列号
+ * 耗尽和时钟回拨等慢速路径上。
+ *
+ * <p>此接口不依赖任何第三方库，调用者可以将其适配到Micrometer、Dropwizard Metrics等监控
+ * 系统；{@link StandardIdGeneratorMetrics}是一个基于分段计数器的默认实现，并可以注册为
+ * JMX MBean。实现必须是线程安全的，并且应当尽快返回。所有函数都有空的默认实现。
+ *
+ * @author 胡海星
+ * @see StandardIdGeneratorMetrics
+ */
+public interface IdGeneratorMetrics {
+
+  /**
+   * 一次ID分配在成功之前经历了若干次CAS失败。
+   *
+   * @param retries
+   *     CAS失败的次数，总是大于0。
+   */
+  default void onCasRetries(final int retries) {}
+
+  /**
+   * 一次ID分配在获取互斥锁时发生了竞争。
+   *
+   * <p>未发生竞争的加锁不会回调此函数。
+   *
+   * @param nanos
+   *     等待互斥锁的纳秒数。
+   */
+  default void onLockWait(final long nanos) {}
+
+  /**
+   * 一次ID分配遇到了当前时间片的序列号耗尽。
+   *
+   * <p>每个遇到序列号耗尽的调用都计一次，因此多个线程同时遇到同一个时间片的耗尽时会计多次。
+   */
+  default void onExhausted() {}
+
+  /**
+   * 一次ID分配在序列号耗尽后，按照序列号耗尽策略等待进入下一个时间片。
+   *
+   * <p>等待的时间为{@link ExhaustionPolicy#awaitNext(Timer, long, long)}或者
+   * {@link SliceBarrier}挂起当前线程的时间。若计时器能够直接推进到下一个时间片，则不会
+   * 回调此函数。
+   *
+   * @param nanos
+   *     等待的纳秒数。
+   * @param passed
+   *     若已经进入下一个时间片则为{@code true}；若到达截止时刻或者耗尽策略放弃等待则为
+   *     {@code false}。
+   */
+  default void onWait(final long nanos, final boolean passed) {}
+
+  /**
+   * ID生成器离开了一个时间片。
+   *
+   * <p>只有分配过序列号的时间片才会被观察到，没有生成任何ID的时间片不会回调此函数。
+   *
+   * @param used
+   *     该时间片中已经分配的序列号的数目，在{@code [1, capacity]}之间。
+   * @param capacity
+   *     一个时间片中序列号的数目，即{@link Builder#getMaxSequence()}加1。
+   */
+  default void onSliceClosed(final long used, final long capacity) {}
+
+  /**
+   * ID生成器读取到的时间戳小于上一个时间片的时间戳，即检测到时钟回拨。
+   *
+   * @param lastTimestamp
+   *     上一个时间片的时间戳。
+   * @param timestamp
+   *     回拨后读取到的时间戳。
+   */
+  default void onClockRegression(final long lastTimestamp, final long timestamp) {}
+
+  /**
+   * {@link BorrowAheadIdGenerator}进入了一个新的时间片。
+   *
+   * <p>无论新的时间片是否是预借的都会回调此函数，因此最近一次回调的参数就是该生成器当前
+   * 超前于真实时间的程度。
+   *
+   * @param lead
+   *     新时间片的时间戳超前于真实时间戳的时间片数目；若新时间片不是预借的则为0。
+   */
+  default void onBorrowLead(final long lead) {}
+}
@@ -0,0 +1,114 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+/**
+ * {@link StandardIdGeneratorMetrics}的JMX管理接口。
+ *
+ * <p>所有的时间都以纳秒为单位，所有的计数都从构造或者上一次{@link #reset()}开始累计。
+ *
+ * @author 胡海星
+ */
+public interface IdGeneratorMetricsMXBean {
+
+  /**
+   * 获取CAS失败的总次数。
+   */
+  long getCasRetries();
+
+  /**
+   * 获取获取互斥锁时发生竞争的次数。
+   */
+  long getLockWaitCount();
+
+  /**
+   * 获取等待互斥锁的总纳秒数。
+   */
+  long getLockWaitNanos();
+
+  /**
+   * 获取等待互斥锁的最长纳秒数。
+   */
+  long getMaxLockWaitNanos();
+
+  /**
+   * 获取遇到序列号耗尽的次数。
+   */
+  long getExhaustedCount();
+
+  /**
+   * 获取序列号耗尽后等待进入下一个时间片的次数。
+   */
+  long getWaitCount();
+
+  /**
+   * 获取序列号耗尽后等待失败的次数，即到达截止时刻或者耗尽策略放弃等待的次数。
+   */
+  long getWaitFailureCount();
+
+  /**
+   * 获取序列号耗尽后等待的总纳秒数。
+   */
+  long getWaitNanos();
+
+  /**
+   * 获取序列号耗尽后等待的纳秒数的近似99分位数。
+   */
+  long getWaitNanosP99();
+
+  /**
+   * 获取序列号耗尽后等待的最长纳秒数。
+   */
+  long getMaxWaitNanos();
+
+  /**
+   * 获取已经离开的、分配过序列号的时间片的数目。
+   */
+  long getSliceCount();
+
+  /**
+   * 获取一个时间片中序列号的数目。
+   */
+  long getSliceCapacity();
+
+  /**
+   * 获取所有已经离开的时间片中序列号的平均利用率，在{@code [0, 1]}之间。
+   */
+  double getMeanSequenceUtilization();
+
+  /**
+   * 获取已经离开的时间片中序列号利用率的近似99分位数，在{@code [0, 1]}之间。
+   */
+  double getSequenceUtilizationP99();
+
+  /**
+   * 获取检测到时钟回拨的次数。
+   */
+  long getClockRegressionCount();
+
+  /**
+   * 获取{@link BorrowAheadIdGenerator}预借的时间片的数目。
+   */
+  long getBorrowedSliceCount();
+
+  /**
+   * 获取{@link BorrowAheadIdGenerator}最近一次进入的时间片超前于真实时间戳的时间片数目。
+   */
+  long getBorrowLead();
+
+  /**
+   * 获取{@link BorrowAheadIdGenerator}预借的时间片超前于真实时间戳的最大时间片数目。
+   */
+  long getMaxBorrowLead();
+
+  /**
+   * 将所有指标清零。
+   */
+  void reset();
+}
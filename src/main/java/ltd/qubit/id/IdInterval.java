@@ -0,0 +1,160 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.concurrent.Immutable;
+
+import ltd.qubit.commons.lang.Equality;
+import ltd.qubit.commons.lang.Hash;
+import ltd.qubit.commons.text.tostring.ToStringBuilder;
+
+/**
+ * 此模型表示一个闭区间{@code [min, max]}内的所有ID，用于按ID范围扫描索引或划分数据表。
+ *
+ * <p>与{@link IdRange}不同，此区间的长度可以超过{@code int}的范围，区间内的ID也不一定都
+ * 已经生成。区间的端点按有符号整数比较。
+ *
+ * @author 胡海星
+ */
+@Immutable
+public class IdInterval {
+
+  /**
+   * 区间内最小的ID。
+   */
+  private final long min;
+
+  /**
+   * 区间内最大的ID。
+   */
+  private final long max;
+
+  /**
+   * 构造一个{@link IdInterval}对象。
+   *
+   * @param min
+   *     区间内最小的ID。
+   * @param max
+   *     区间内最大的ID，不可小于{@code min}。
+   */
+  public IdInterval(final long min, final long max) {
+    if (min > max) {
+      throw new IllegalArgumentException("The minimum ID must not be greater than "
+          + "the maximum ID.");
+    }
+    this.min = min;
+    this.max = max;
+  }
+
+  /**
+   * 获取此区间内最小的ID。
+   *
+   * @return 此区间内最小的ID。
+   */
+  public final long getMin() {
+    return min;
+  }
+
+  /**
+   * 获取此区间内最大的ID。
+   *
+   * @return 此区间内最大的ID。
+   */
+  public final long getMax() {
+    return max;
+  }
+
+  /**
+   * 获取此区间内ID的个数减1。
+   *
+   * <p>区间内ID的个数最多为{@code 2^64}，无法用{@code long}表示，因此返回其减1后的值，
+   * 并按无符号整数解释。
+   *
+   * @return 此区间内ID的个数减1，按无符号整数解释。
+   */
+  public final long getSpan() {
+    return max - min;
+  }
+
+  /**
+   * 判断此区间是否包含指定的ID。
+   *
+   * @param id
+   *     指定的ID。
+   * @return 若此区间包含指定的ID则返回{@code true}；否则返回{@code false}。
+   */
+  public final boolean contains(final long id) {
+    return id >= min && id <= max;
+  }
+
+  /**
+   * 将此区间划分为若干个首尾相接、互不重叠的子区间，用于并行扫描。
+   *
+   * <p>各个子区间内ID的个数至多相差1，并按从小到大的次序排列。对于顺序模式的ID区间，ID的
+   * 大小与时间戳成正比，因此各个子区间也大致对应于等长的时间段。若区间内ID的个数少于
+   * {@code count}，则每个ID单独构成一个子区间。
+   *
+   * @param count
+   *     子区间的个数，必须大于0。
+   * @return 划分得到的子区间的列表。
+   */
+  public final List<IdInterval> split(final int count) {
+    if (count <= 0) {
+      throw new IllegalArgumentException("The number of sub-intervals must be positive.");
+    }
+    final long span = max - min;
+    // 区间内ID的个数为 span + 1 = quotient * count + remainder + 1，
+    // 其中 0 <= remainder < count，因此前 remainder + 1 个子区间各包含 quotient + 1 个ID，
+    // 其余的子区间各包含 quotient 个ID；按此计算不会在区间包含 2^64 个ID时溢出
+    final long quotient = Long.divideUnsigned(span, count);
+    final int remainder = (int) Long.remainderUnsigned(span, count);
+    final int n = (quotient == 0 ? remainder + 1 : count);
+    final List<IdInterval> result = new ArrayList<>(n);
+    long start = min;
+    for (int i = 0; i < n; ++i) {
+      final long end = start + (i <= remainder ? quotient : quotient - 1);
+      result.add(new IdInterval(start, end));
+      start = end + 1;
+    }
+    return result;
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if ((o == null) || (getClass() != o.getClass())) {
+      return false;
+    }
+    final IdInterval other = (IdInterval) o;
+    return Equality.equals(min, other.min)
+        && Equality.equals(max, other.max);
+  }
+
+  @Override
+  public int hashCode() {
+    final int multiplier = 7;
+    int result = 3;
+    result = Hash.combine(result, multiplier, min);
+    result = Hash.combine(result, multiplier, max);
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return new ToStringBuilder(this)
+        .append("min", min)
+        .append("max", max)
+        .toString();
+  }
+}
@@ -0,0 +1,598 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import javax.annotation.concurrent.Immutable;
+
+import ltd.qubit.commons.lang.Equality;
+import ltd.qubit.commons.lang.Hash;
+import ltd.qubit.commons.text.tostring.ToStringBuilder;
+
+import static ltd.qubit.commons.lang.Argument.requireNonNull;
+
+/**
+ * 此模型表示一个严格递增的ID列表，使用Elias–Fano编码压缩存储。
+ *
+ * <p>设列表中有{@code n}个ID，最小的ID为{@code first}，最大的ID为{@code last}，记
+ * {@code u = last - first}。每个ID减去{@code first}后被拆分为低{@code l}位和高位两部分，
+ * 其中{@code l = floor(log2(u / n))}：
+ * <ul>
+ * <li>所有的低位部分依次紧密排列，每个ID占据{@code l}个bit；</li>
+ * <li>高位部分以一元编码存放在一个位向量中：第{@code i}个ID的高位部分为{@code h}时，位向量
+ * 的第{@code h + i}位为1。位向量的长度为{@code n + (u >>> l) + 1}，其中的0将所有ID按高位
+ * 部分划分为若干个桶。</li>
+ * </ul>
+ * 因此每个ID最多占据{@code 2 + ceil(log2(u / n))}个bit，与ID的分布无关。对于同一台主机按
+ * 时间顺序生成的顺序模式的ID，每个ID通常只占据2到3个字节。此外，每256个1和每256个0各记录
+ * 一个采样位置，使得{@link #get(int)}、{@link #rank(long)}和{@link #contains(long)}只需
+ * 扫描位向量中很短的一段，时间复杂度与列表的长度无关。
+ *
+ * <p>ID按照有符号整数的大小比较，因此顺序模式的ID的先后次序就是其生成时间的先后次序。
+ *
+ * @author 胡海星
+ */
+@Immutable
+public class IdList implements Iterable<Long> {
+
+  /**
+   * 每隔多少个1或0记录一个采样位置的以2为底的对数。
+   */
+  private static final int SAMPLE_SHIFT = 8;
+
+  private static final long[] EMPTY = new long[0];
+
+  /**
+   * 列表中ID的个数。
+   */
+  private final int size;
+
+  /**
+   * 列表中最小的ID。
+   */
+  private final long first;
+
+  /**
+   * 列表中最大的ID。
+   */
+  private final long last;
+
+  /**
+   * 每个ID的低位部分所占据的bit数。
+   */
+  private final int lowBits;
+
+  /**
+   * 低位部分的掩码。
+   */
+  private final long lowMask;
+
+  /**
+   * 所有ID的低位部分。
+   */
+  private final long[] lows;
+
+  /**
+   * 以一元编码存放所有ID的高位部分的位向量。
+   */
+  private final long[] highs;
+
+  /**
+   * 位向量的长度。
+   */
+  private final long highLength;
+
+  /**
+   * 位向量中第{@code k * 256}个1的位置。
+   */
+  private final long[] ones;
+
+  /**
+   * 位向量中第{@code k * 256}个0的位置。
+   */
+  private final long[] zeros;
+
+  /**
+   * 构造一个{@link IdList}对象。
+   *
+   * @param ids
+   *     严格递增的ID，不可为{@code null}。
+   * @throws IllegalArgumentException
+   *     若指定的ID不是严格递增的。
+   */
+  public IdList(final long[] ids) {
+    this(requireNonNull("ids", ids), 0, ids.length);
+  }
+
+  /**
+   * 构造一个{@link IdList}对象。
+   *
+   * @param ids
+   *     存放ID的数组，不可为{@code null}。
+   * @param offset
+   *     第一个ID在数组中的下标。
+   * @param length
+   *     ID的个数。
+   * @throws IllegalArgumentException
+   *     若指定的ID不是严格递增的。
+   */
+  public IdList(final long[] ids, final int offset, final int length) {
+    this(length, checkRange(ids, offset, length) ? ids[offset] : 0L,
+        length > 0 ? ids[offset + length - 1] : 0L,
+        Arrays.stream(ids, offset, offset + length).iterator());
+  }
+
+  /**
+   * 从一个迭代器中依次读取ID，构造一个{@link IdList}对象。
+   *
+   * <p>此构造函数不需要将所有的ID先存放在数组中，因此可以直接从
+   * {@link IdStreamDecoder}等来源中构造很长的ID列表。
+   *
+   * @param size
+   *     ID的个数，不可为负数。
+   * @param first
+   *     最小的ID，即迭代器返回的第一个ID。
+   * @param last
+   *     最大的ID，即迭代器返回的最后一个ID。
+   * @param ids
+   *     依次返回严格递增的ID的迭代器，不可为{@code null}。
+   * @throws IllegalArgumentException
+   *     若迭代器返回的ID不是严格递增的，或者与指定的个数、最小值和最大值不符。
+   */
+  public IdList(final int size, final long first, final long last,
+      final PrimitiveIterator.OfLong ids) {
+    requireNonNull("ids", ids);
+    if (size < 0) {
+      throw new IllegalArgumentException("The size of an ID list must not be negative.");
+    }
+    if (size > 0 && first > last) {
+      throw new IllegalArgumentException("The first ID must not be greater than the last ID.");
+    }
+    this.size = size;
+    this.first = (size == 0 ? 0L : first);
+    this.last = (size == 0 ? 0L : last);
+    if (size == 0) {
+      this.lowBits = 0;
+      this.lowMask = 0L;
+      this.lows = EMPTY;
+      this.highs = EMPTY;
+      this.highLength = 0L;
+      this.ones = EMPTY;
+      this.zeros = EMPTY;
+      return;
+    }
+    final long universe = last - first;
+    final long quotient = Long.divideUnsigned(universe, size);
+    this.lowBits = (quotient == 0 ? 0 : Long.SIZE - 1 - Long.numberOfLeadingZeros(quotient));
+    this.lowMask = (1L << lowBits) - 1L;
+    final long buckets = (universe >>> lowBits) + 1;
+    this.highLength = size + buckets;
+    this.lows = new long[(int) (((long) size * lowBits + Long.SIZE - 1) >>> 6)];
+    this.highs = new long[(int) ((highLength + Long.SIZE - 1) >>> 6)];
+    this.ones = new long[(int) (((size - 1L) >>> SAMPLE_SHIFT) + 1)];
+    this.zeros = new long[(int) (((buckets - 1L) >>> SAMPLE_SHIFT) + 1)];
+    encode(ids);
+    sampleZeros();
+  }
+
+  private static boolean checkRange(final long[] ids, final int offset, final int length) {
+    requireNonNull("ids", ids);
+    if (offset < 0 || length < 0 || offset > ids.length - length) {
+      throw new IndexOutOfBoundsException("Invalid range [" + offset + ", "
+          + (offset + length) + ") of an array of length " + ids.length);
+    }
+    return length > 0;
+  }
+
+  private void encode(final PrimitiveIterator.OfLong ids) {
+    long previous = first;
+    for (int i = 0; i < size; ++i) {
+      if (!ids.hasNext()) {
+        throw new IllegalArgumentException("Expect " + size + " IDs but got " + i + ".");
+      }
+      final long id = ids.nextLong();
+      if (i == 0 ? id != first : id <= previous) {
+        throw new IllegalArgumentException("The IDs must be strictly increasing, "
+            + "starting from the first ID: " + id);
+      }
+      if (id > last || (i == size - 1 && id != last)) {
+        throw new IllegalArgumentException("The IDs must end with the last ID: " + id);
+      }
+      final long value = id - first;
+      if (lowBits > 0) {
+        setLow(i, value & lowMask);
+      }
+      final long position = (value >>> lowBits) + i;
+      highs[(int) (position >>> 6)] |= 1L << position;
+      if ((i & ((1 << SAMPLE_SHIFT) - 1)) == 0) {
+        ones[i >>> SAMPLE_SHIFT] = position;
+      }
+      previous = id;
+    }
+    if (ids.hasNext()) {
+      throw new IllegalArgumentException("Expect " + size + " IDs but got more.");
+    }
+  }
+
+  private void sampleZeros() {
+    long count = 0;
+    for (int w = 0; w < highs.length; ++w) {
+      final long word = ~highs[w];
+      final int n = Long.bitCount(word);
+      // 此字中第一个需要采样的0的序号，即不小于count的256的倍数
+      long next = (count + (1L << SAMPLE_SHIFT) - 1) & -(1L << SAMPLE_SHIFT);
+      while (next < count + n) {
+        final long position = ((long) w << 6) + selectInWord(word, (int) (next - count));
+        if (position >= highLength) {
+          return;
+        }
+        zeros[(int) (next >>> SAMPLE_SHIFT)] = position;
+        next += 1L << SAMPLE_SHIFT;
+      }
+      count += n;
+    }
+  }
+
+  private void setLow(final int index, final long low) {
+    final long bit = (long) index * lowBits;
+    final int word = (int) (bit >>> 6);
+    final int shift = (int) (bit & 63);
+    lows[word] |= low << shift;
+    if (shift + lowBits > Long.SIZE) {
+      lows[word + 1] |= low >>> (Long.SIZE - shift);
+    }
+  }
+
+  private long getLow(final int index) {
+    if (lowBits == 0) {
+      return 0L;
+    }
+    final long bit = (long) index * lowBits;
+    final int word = (int) (bit >>> 6);
+    final int shift = (int) (bit & 63);
+    long result = lows[word] >>> shift;
+    if (shift + lowBits > Long.SIZE) {
+      result |= lows[word + 1] << (Long.SIZE - shift);
+    }
+    return result & lowMask;
+  }
+
+  /**
+   * 获取一个64位字中第{@code k}个（从0开始计数）值为1的bit的位置。
+   */
+  private static int selectInWord(final long word, final int k) {
+    long w = word;
+    for (int i = 0; i < k; ++i) {
+      w &= w - 1;
+    }
+    return Long.numberOfTrailingZeros(w);
+  }
+
+  /**
+   * 获取位向量中第{@code k}个（从0开始计数）1的位置。
+   */
+  private long selectOne(final int k) {
+    final long start = ones[k >>> SAMPLE_SHIFT];
+    int remaining = k & ((1 << SAMPLE_SHIFT) - 1);
+    int w = (int) (start >>> 6);
+    long word = highs[w] & (-1L << start);
+    for (;;) {
+      final int n = Long.bitCount(word);
+      if (remaining < n) {
+        return ((long) w << 6) + selectInWord(word, remaining);
+      }
+      remaining -= n;
+      word = highs[++w];
+    }
+  }
+
+  /**
+   * 获取位向量中第{@code k}个（从0开始计数）0的位置。
+   */
+  private long selectZero(final long k) {
+    final long start = zeros[(int) (k >>> SAMPLE_SHIFT)];
+    int remaining = (int) (k & ((1 << SAMPLE_SHIFT) - 1));
+    int w = (int) (start >>> 6);
+    long word = ~highs[w] & (-1L << start);
+    for (;;) {
+      final int n = Long.bitCount(word);
+      if (remaining < n) {
+        return ((long) w << 6) + selectInWord(word, remaining);
+      }
+      remaining -= n;
+      word = ~highs[++w];
+    }
+  }
+
+  /**
+   * 获取高位部分不小于指定值的第一个ID在位向量中的位置。
+   */
+  private long bucketStart(final long high) {
+    return (high == 0 ? 0L : selectZero(high - 1) + 1);
+  }
+
+  private boolean isOne(final long position) {
+    return position < highLength && (highs[(int) (position >>> 6)] & (1L << position)) != 0;
+  }
+
+  /**
+   * 获取此列表中ID的个数。
+   *
+   * @return 此列表中ID的个数。
+   */
+  public final int size() {
+    return size;
+  }
+
+  /**
+   * 判断此列表是否为空。
+   *
+   * @return 若此列表为空则返回{@code true}；否则返回{@code false}。
+   */
+  public final boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * 获取此列表中最小的ID。
+   *
+   * @return 此列表中最小的ID。
+   * @throws NoSuchElementException
+   *     若此列表为空。
+   */
+  public final long getFirst() {
+    if (size == 0) {
+      throw new NoSuchElementException("The ID list is empty.");
+    }
+    return first;
+  }
+
+  /**
+   * 获取此列表中最大的ID。
+   *
+   * @return 此列表中最大的ID。
+   * @throws NoSuchElementException
+   *     若此列表为空。
+   */
+  public final long getLast() {
+    if (size == 0) {
+      throw new NoSuchElementException("The ID list is empty.");
+    }
+    return last;
+  }
+
+  /**
+   * 获取此列表中指定位置的ID。
+   *
+   * @param index
+   *     指定的位置，必须在{@code [0, size())}之间。
+   * @return 此列表中指定位置的ID。
+   * @throws IndexOutOfBoundsException
+   *     若指定的位置超出范围。
+   */
+  public final long get(final int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index out of range: " + index);
+    }
+    final long high = selectOne(index) - index;
+    return first + ((high << lowBits) | getLow(index));
+  }
+
+  /**
+   * 获取此列表中小于指定ID的ID的个数。
+   *
+   * <p>若此列表包含指定的ID，返回值即为该ID在此列表中的位置；否则返回值为将该ID插入此列表
+   * 后它所在的位置。
+   *
+   * @param id
+   *     指定的ID。
+   * @return 此列表中小于指定ID的ID的个数，在{@code [0, size()]}之间。
+   */
+  public final int rank(final long id) {
+    if (size == 0 || id <= first) {
+      return 0;
+    }
+    if (id > last) {
+      return size;
+    }
+    final long value = id - first;
+    final long high = value >>> lowBits;
+    final long low = value & lowMask;
+    long position = bucketStart(high);
+    int index = (int) (position - high);
+    while (isOne(position) && getLow(index) < low) {
+      ++position;
+      ++index;
+    }
+    return index;
+  }
+
+  /**
+   * 判断此列表是否包含指定的ID。
+   *
+   * @param id
+   *     指定的ID。
+   * @return 若此列表包含指定的ID则返回{@code true}；否则返回{@code false}。
+   */
+  public final boolean contains(final long id) {
+    if (size == 0 || id < first || id > last) {
+      return false;
+    }
+    final long value = id - first;
+    final long high = value >>> lowBits;
+    final long low = value & lowMask;
+    long position = bucketStart(high);
+    int index = (int) (position - high);
+    while (isOne(position)) {
+      final long current = getLow(index);
+      if (current >= low) {
+        return current == low;
+      }
+      ++position;
+      ++index;
+    }
+    return false;
+  }
+
+  /**
+   * 获取此列表中所有ID的迭代器。
+   *
+   * @return 依次返回此列表中所有ID的迭代器。
+   */
+  @Override
+  public PrimitiveIterator.OfLong iterator() {
+    return new Iter(0, size);
+  }
+
+  /**
+   * 获取此列表中在指定范围内的所有ID的迭代器。
+   *
+   * @param fromId
+   *     范围内最小的ID。
+   * @param toId
+   *     范围内最大的ID。
+   * @return 依次返回此列表中在{@code [fromId, toId]}之间的所有ID的迭代器。
+   */
+  public PrimitiveIterator.OfLong iterator(final long fromId, final long toId) {
+    if (fromId > toId) {
+      return new Iter(0, 0);
+    }
+    final int from = rank(fromId);
+    final int to = (toId >= last ? size : rank(toId + 1));
+    return new Iter(from, to);
+  }
+
+  /**
+   * 获取此列表中在指定时间戳范围内生成的所有ID的迭代器。
+   *
+   * <p>时间戳范围对应的ID范围由{@link Builder#getIdInterval(long, long)}确定，包括所有主机
+   * 编号和所有序列号。
+   * 只有顺序模式的ID的大小次序与其时间戳的先后次序一致，因此指定的构造器必须为顺序模式。
+   *
+   * @param builder
+   *     生成这些ID的构造器，不可为{@code null}，其生成模式必须为{@link Mode#SEQUENTIAL}。
+   *     只使用其生成模式和时间戳精度，与其主机编号无关。
+   * @param fromTimestamp
+   *     范围内最早的时间戳，根据构造器的时间戳精度从指定的起点开始算起。
+   * @param toTimestamp
+   *     范围内最晚的时间戳，根据构造器的时间戳精度从指定的起点开始算起。
+   * @return 依次返回此列表中时间戳在{@code [fromTimestamp, toTimestamp]}之间的所有ID的
+   *     迭代器。
+   */
+  public PrimitiveIterator.OfLong iterator(final Builder builder, final long fromTimestamp,
+      final long toTimestamp) {
+    requireNonNull("builder", builder);
+    if (builder.getMode() != Mode.SEQUENTIAL) {
+      throw new IllegalArgumentException("Only the IDs of the SEQUENTIAL mode are "
+          + "ordered by their timestamps.");
+    }
+    final long from = Math.max(fromTimestamp, 0L);
+    final long to = Math.min(toTimestamp, builder.getMaxTimestamp());
+    if (from > to) {
+      return new Iter(0, 0);
+    }
+    final IdInterval interval = builder.getIdInterval(from, to);
+    return iterator(interval.getMin(), interval.getMax());
+  }
+
+  /**
+   * 获取此列表占据的内存的近似字节数，不包括对象头。
+   *
+   * @return 此列表占据的内存的近似字节数。
+   */
+  public final long sizeInBytes() {
+    return (long) Long.BYTES * (lows.length + highs.length + ones.length + zeros.length)
+        + 4L * Long.BYTES;
+  }
+
+  /**
+   * 依次返回第{@code [from, to)}个ID的迭代器。
+   */
+  private final class Iter implements PrimitiveIterator.OfLong {
+
+    private int index;
+
+    private final int end;
+
+    /**
+     * 下一个ID在位向量中的位置。
+     */
+    private long position;
+
+    Iter(final int from, final int to) {
+      this.index = from;
+      this.end = Math.max(from, to);
+      this.position = (from < end ? selectOne(from) : 0L);
+    }
+
+    @Override
+    public boolean hasNext() {
+      return index < end;
+    }
+
+    @Override
+    public long nextLong() {
+      if (index >= end) {
+        throw new NoSuchElementException();
+      }
+      int w = (int) (position >>> 6);
+      long word = highs[w] & (-1L << position);
+      while (word == 0) {
+        word = highs[++w];
+      }
+      position = ((long) w << 6) + Long.numberOfTrailingZeros(word);
+      final long high = position - index;
+      final long result = first + ((high << lowBits) | getLow(index));
+      ++position;
+      ++index;
+      return result;
+    }
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if ((o == null) || (getClass() != o.getClass())) {
+      return false;
+    }
+    final IdList other = (IdList) o;
+    return Equality.equals(size, other.size)
+        && Equality.equals(first, other.first)
+        && Equality.equals(last, other.last)
+        && Equality.equals(lows, other.lows)
+        && Equality.equals(highs, other.highs);
+  }
+
+  @Override
+  public int hashCode() {
+    final int multiplier = 7;
+    int result = 3;
+    result = Hash.combine(result, multiplier, size);
+    result = Hash.combine(result, multiplier, first);
+    result = Hash.combine(result, multiplier, last);
+    result = Hash.combine(result, multiplier, lows);
+    result = Hash.combine(result, multiplier, highs);
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return new ToStringBuilder(this)
+        .append("size", size)
+        .append("first", first)
+        .append("last", last)
+        .append("lowBits", lowBits)
+        .toString();
+  }
+}
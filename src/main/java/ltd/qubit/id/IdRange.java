@@ -0,0 +1,193 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import javax.annotation.concurrent.Immutable;
+
+import ltd.qubit.commons.lang.Equality;
+import ltd.qubit.commons.lang.Hash;
+import ltd.qubit.commons.text.tostring.ToStringBuilder;
+
+import static ltd.qubit.commons.lang.Argument.requireNonNull;
+
+/**
+ * 此模型表示一段连续的ID。
+ *
+ * <p>由于序列号位于ID的最低位，同一个时间片内连续的序列号所构成的ID无论在顺序模式还是
+ * 稀疏模式下都是连续的整数，因此只需要记录起始ID和ID的个数即可表示这一段ID。
+ *
+ * @author 胡海星
+ */
+@Immutable
+public class IdRange implements Iterable<Long> {
+
+  /**
+   * 此范围内的第一个ID。
+   */
+  private final long start;
+
+  /**
+   * 此范围内ID的个数。
+   */
+  private final int size;
+
+  /**
+   * 构造一个{@link IdRange}对象。
+   *
+   * @param start
+   *     此范围内的第一个ID。
+   * @param size
+   *     此范围内ID的个数，必须大于0。
+   */
+  public IdRange(final long start, final int size) {
+    if (size <= 0) {
+      throw new IllegalArgumentException("The size of an ID range must be positive.");
+    }
+    this.start = start;
+    this.size = size;
+  }
+
+  /**
+   * 获取此范围内的第一个ID。
+   *
+   * @return 此范围内的第一个ID。
+   */
+  public final long getStart() {
+    return start;
+  }
+
+  /**
+   * 获取此范围内的最后一个ID。
+   *
+   * @return 此范围内的最后一个ID。
+   */
+  public final long getLast() {
+    return start + size - 1;
+  }
+
+  /**
+   * 获取此范围内ID的个数。
+   *
+   * @return 此范围内ID的个数。
+   */
+  public final int size() {
+    return size;
+  }
+
+  /**
+   * 获取此范围内指定位置的ID。
+   *
+   * @param index
+   *     指定的位置，必须在{@code [0, size())}之间。
+   * @return 此范围内指定位置的ID。
+   * @throws IndexOutOfBoundsException
+   *     若指定的位置超出范围。
+   */
+  public final long get(final int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index out of range: " + index);
+    }
+    return start + index;
+  }
+
+  /**
+   * 判断此范围是否包含指定的ID。
+   *
+   * @param id
+   *     指定的ID。
+   * @return 若此范围包含指定的ID则返回{@code true}；否则返回{@code false}。
+   */
+  public final boolean contains(final long id) {
+    return (id - start) >= 0 && (id - start) < size;
+  }
+
+  /**
+   * 将此范围内的所有ID依次写入指定的数组。
+   *
+   * @param array
+   *     目标数组，其长度必须不小于{@link #size()}。
+   * @return 写入的ID的个数。
+   */
+  public final int fill(final long[] array) {
+    return fill(array, 0);
+  }
+
+  /**
+   * 将此范围内的所有ID依次写入指定的数组。
+   *
+   * @param array
+   *     目标数组。
+   * @param offset
+   *     写入的起始位置，从该位置开始的剩余空间必须不小于{@link #size()}。
+   * @return 写入的ID的个数。
+   */
+  public final int fill(final long[] array, final int offset) {
+    requireNonNull("array", array);
+    if (offset < 0 || array.length - offset < size) {
+      throw new IndexOutOfBoundsException("Not enough space in the array.");
+    }
+    for (int i = 0; i < size; ++i) {
+      array[offset + i] = start + i;
+    }
+    return size;
+  }
+
+  @Override
+  public PrimitiveIterator.OfLong iterator() {
+    return new PrimitiveIterator.OfLong() {
+      private int index = 0;
+
+      @Override
+      public boolean hasNext() {
+        return index < size;
+      }
+
+      @Override
+      public long nextLong() {
+        if (index >= size) {
+          throw new NoSuchElementException();
+        }
+        return start + (index++);
+      }
+    };
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if ((o == null) || (getClass() != o.getClass())) {
+      return false;
+    }
+    final IdRange other = (IdRange) o;
+    return Equality.equals(start, other.start)
+        && Equality.equals(size, other.size);
+  }
+
+  @Override
+  public int hashCode() {
+    final int multiplier = 7;
+    int result = 3;
+    result = Hash.combine(result, multiplier, start);
+    result = Hash.combine(result, multiplier, size);
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return new ToStringBuilder(this)
+        .append("start", start)
+        .append("size", size)
+        .toString();
+  }
+}
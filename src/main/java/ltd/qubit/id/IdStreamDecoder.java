@@ -0,0 +1,319 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import ltd.qubit.commons.text.tostring.ToStringBuilder;
+
+import static ltd.qubit.commons.lang.Argument.requireNonNull;
+
+import static ltd.qubit.id.IdStreamFormat.CHANGED;
+import static ltd.qubit.id.IdStreamFormat.FLAG_BITS;
+import static ltd.qubit.id.IdStreamFormat.NEW_TIMESTAMP;
+import static ltd.qubit.id.IdStreamFormat.getVarLong;
+import static ltd.qubit.id.IdStreamFormat.unzigzag;
+
+/**
+ * ID流解码器，读取{@link IdStreamEncoder}写出的ID流。
+ *
+ * <p>解码器可以从通道中按块读取ID流，也可以直接从缓冲区中解码。从缓冲区解码时不复制任何
+ * 数据，因此对于一个内存映射文件的{@link java.nio.MappedByteBuffer}，ID直接从映射的内存
+ * 解码到调用者提供的{@code long[]}中。
+ *
+ * @author 胡海星
+ */
+@NotThreadSafe
+public class IdStreamDecoder implements Closeable {
+
+  private final IdStreamFormat format;
+
+  /**
+   * 源通道；若为{@code null}则从源缓冲区中解码。
+   */
+  private final ReadableByteChannel channel;
+
+  /**
+   * 源缓冲区；若为{@code null}则从源通道中读取。
+   */
+  private final ByteBuffer source;
+
+  /**
+   * 从源通道中读取块头和块体的缓冲区。
+   */
+  private ByteBuffer buffer;
+
+  /**
+   * 当前块的块体。
+   */
+  private ByteBuffer block;
+
+  /**
+   * 当前块中尚未解码的ID的数目。
+   */
+  private int remaining;
+
+  private long lastTimestamp;
+
+  private long lastSequence;
+
+  private long lastHostMode;
+
+  private long idCount;
+
+  private boolean closed;
+
+  /**
+   * 构造一个从通道中读取ID流的解码器，并立即读取流头。
+   *
+   * @param channel
+   *     源通道，不可为{@code null}，例如一个{@link java.nio.channels.FileChannel}。
+   * @throws IOException
+   *     若读取流头时出错，或者流头的格式不正确。
+   */
+  public IdStreamDecoder(final ReadableByteChannel channel) throws IOException {
+    this.channel = requireNonNull("channel", channel);
+    this.source = null;
+    this.buffer = ByteBuffer.allocate(IdStreamFormat.maxBlockBytes(
+        IdStreamFormat.DEFAULT_BLOCK_SIZE));
+    // 缓冲区总是处于可读状态，初始时没有可读的数据
+    buffer.flip();
+    if (!fill(IdStreamFormat.HEADER_SIZE)) {
+      throw new EOFException("Missing ID stream header.");
+    }
+    this.format = readHeader(buffer);
+  }
+
+  /**
+   * 构造一个从缓冲区中解码ID流的解码器，并立即读取流头。
+   *
+   * <p>解码器从缓冲区的当前位置开始读取，并随着解码向后移动缓冲区的位置。
+   *
+   * @param source
+   *     源缓冲区，不可为{@code null}。
+   * @throws IOException
+   *     若流头的格式不正确。
+   */
+  public IdStreamDecoder(final ByteBuffer source) throws IOException {
+    this.channel = null;
+    this.source = requireNonNull("source", source);
+    if (source.remaining() < IdStreamFormat.HEADER_SIZE) {
+      throw new EOFException("Missing ID stream header.");
+    }
+    this.format = readHeader(source);
+  }
+
+  private static IdStreamFormat readHeader(final ByteBuffer buffer) throws IOException {
+    if (buffer.getInt() != IdStreamFormat.MAGIC) {
+      throw new IOException("Not an ID stream.");
+    }
+    final byte version = buffer.get();
+    if (version != IdStreamFormat.VERSION) {
+      throw new IOException("Unsupported ID stream version: " + version);
+    }
+    return new IdStreamFormat(IdStreamFormat.precisionOf(buffer.get()));
+  }
+
+  public final Precision getPrecision() {
+    return format.precision;
+  }
+
+  /**
+   * 获取已经解码的ID的数目。
+   *
+   * @return 已经解码的ID的数目。
+   */
+  public final long getIdCount() {
+    return idCount;
+  }
+
+  /**
+   * 解码若干个ID到数组中。
+   *
+   * @param dst
+   *     存放解码后的ID的数组，不可为{@code null}。
+   * @param offset
+   *     第一个ID在数组中的下标。
+   * @param length
+   *     最多解码的ID的数目。
+   * @return 实际解码的ID的数目；若已到达ID流的末尾，则返回-1。
+   * @throws IOException
+   *     若读取ID流时出错，或者ID流的格式不正确。
+   */
+  public int read(final long[] dst, final int offset, final int length) throws IOException {
+    requireNonNull("dst", dst);
+    if (offset < 0 || length < 0 || offset > dst.length - length) {
+      throw new IndexOutOfBoundsException("Invalid range [" + offset + ", "
+          + (offset + length) + ") of an array of length " + dst.length);
+    }
+    if (closed) {
+      throw new IllegalStateException("The decoder has been closed.");
+    }
+    if (length == 0) {
+      return 0;
+    }
+    int count = 0;
+    while (count < length) {
+      if (remaining == 0 && !nextBlock()) {
+        break;
+      }
+      final int n = Math.min(length - count, remaining);
+      decode(dst, offset + count, n);
+      count += n;
+    }
+    idCount += count;
+    return (count == 0 ? -1 : count);
+  }
+
+  /**
+   * 从当前块中解码指定数目的ID。
+   */
+  private void decode(final long[] dst, final int offset, final int count)
+      throws IOException {
+    final ByteBuffer in = block;
+    long timestamp = lastTimestamp;
+    long sequence = lastSequence;
+    long hostMode = lastHostMode;
+    for (int i = 0; i < count; ++i) {
+      final long token = getVarLong(in);
+      if ((token & NEW_TIMESTAMP) == 0) {
+        sequence += unzigzag(token >>> FLAG_BITS) + 1;
+      } else {
+        timestamp += unzigzag(token >>> FLAG_BITS);
+        sequence = getVarLong(in);
+      }
+      if ((token & CHANGED) != 0) {
+        hostMode = getVarLong(in);
+      }
+      if (hostMode < 0 || (hostMode >>> (Constant.HOST_BITS + Constant.MODE_BITS)) != 0
+          || (timestamp & ~format.timestampMask) != 0
+          || (sequence & ~format.sequenceMask) != 0) {
+        throw new IOException("Corrupted ID stream block.");
+      }
+      dst[offset + i] = format.compose(hostMode, timestamp, sequence);
+    }
+    lastTimestamp = timestamp;
+    lastSequence = sequence;
+    lastHostMode = hostMode;
+    remaining -= count;
+    if (remaining == 0 && in.hasRemaining()) {
+      throw new IOException("Corrupted ID stream block: trailing bytes.");
+    }
+  }
+
+  /**
+   * 读取下一个块。
+   *
+   * @return 若成功读取了下一个块，则返回{@code true}；若已到达ID流的末尾，则返回
+   *     {@code false}。
+   */
+  private boolean nextBlock() throws IOException {
+    final ByteBuffer in;
+    if (channel == null) {
+      in = source;
+      if (!in.hasRemaining()) {
+        return false;
+      }
+      if (in.remaining() < IdStreamFormat.BLOCK_HEADER_SIZE) {
+        throw new EOFException("Truncated ID stream block header.");
+      }
+    } else {
+      if (!fill(IdStreamFormat.BLOCK_HEADER_SIZE)) {
+        if (buffer.hasRemaining()) {
+          throw new EOFException("Truncated ID stream block header.");
+        }
+        return false;
+      }
+      in = buffer;
+    }
+    final int count = in.getInt();
+    final int size = in.getInt();
+    if (count <= 0 || count > IdStreamFormat.MAX_BLOCK_SIZE || size < count
+        || size > IdStreamFormat.maxBlockBytes(count)) {
+      throw new IOException("Corrupted ID stream block header.");
+    }
+    if (channel != null) {
+      if (buffer.capacity() < size) {
+        final ByteBuffer larger = ByteBuffer.allocate(size);
+        larger.put(buffer).flip();
+        buffer = larger;
+      }
+      if (!fill(size)) {
+        throw new EOFException("Truncated ID stream block.");
+      }
+    } else if (in.remaining() < size) {
+      throw new EOFException("Truncated ID stream block.");
+    }
+    // 块体是源缓冲区的一个视图，不复制数据；读取块体时缓冲区可能已被替换
+    final ByteBuffer body = (channel == null ? source : buffer);
+    block = body.slice();
+    block.limit(size);
+    body.position(body.position() + size);
+    remaining = count;
+    lastTimestamp = 0;
+    lastSequence = -1;
+    lastHostMode = -1;
+    return true;
+  }
+
+  /**
+   * 从源通道中读取数据，直到{@link #buffer}中至少有指定数目的字节可读。
+   *
+   * <p>调用前后{@link #buffer}都处于可读状态。
+   *
+   * @return 若读取到了足够的字节，则返回{@code true}；若在此之前到达了通道的末尾，则返回
+   *     {@code false}。
+   */
+  private boolean fill(final int bytes) throws IOException {
+    if (buffer.remaining() >= bytes) {
+      return true;
+    }
+    buffer.compact();
+    try {
+      while (buffer.position() < bytes) {
+        if (channel.read(buffer) < 0) {
+          return false;
+        }
+      }
+      return true;
+    } finally {
+      buffer.flip();
+    }
+  }
+
+  /**
+   * 关闭源通道。
+   *
+   * @throws IOException
+   *     若关闭源通道时出错。
+   */
+  @Override
+  public void close() throws IOException {
+    if (!closed) {
+      closed = true;
+      if (channel != null) {
+        channel.close();
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return new ToStringBuilder(this)
+        .append("precision", format.precision)
+        .append("idCount", idCount)
+        .toString();
+  }
+}
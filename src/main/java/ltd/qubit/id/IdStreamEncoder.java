@@ -0,0 +1,340 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import ltd.qubit.commons.text.tostring.ToStringBuilder;
+
+import static ltd.qubit.commons.lang.Argument.requireNonNull;
+
+import static ltd.qubit.id.IdStreamFormat.CHANGED;
+import static ltd.qubit.id.IdStreamFormat.FLAG_BITS;
+import static ltd.qubit.id.IdStreamFormat.NEW_TIMESTAMP;
+import static ltd.qubit.id.IdStreamFormat.putVarLong;
+import static ltd.qubit.id.IdStreamFormat.zigzag;
+
+/**
+ * ID流编码器，将一串ID压缩后按块写入通道或缓冲区。
+ *
+ * <p>编码器按照{@link Builder}的字段布局拆分每个ID，对时间戳和序列号分别做差分编码，并
+ * 只在主机编号或生成模式改变时才记录它们。对于同一台主机按时间顺序生成的ID，同一时间片内
+ * 连续的ID只占据1个字节，跨越时间片的ID通常占据2到4个字节，而原始的ID占据8个字节。格式
+ * 的细节参见{@link IdStreamFormat}。
+ *
+ * <p>写入的ID先缓存在内存中，凑满一个块后再编码并写出；{@link #flush()}会立即写出当前
+ * 不满的块。同一个流中所有ID的时间戳精度必须相同。
+ *
+ * @author 胡海星
+ */
+@NotThreadSafe
+public class IdStreamEncoder implements Flushable, Closeable {
+
+  /**
+   * 默认的每个块中ID的最大数目。
+   */
+  public static final int DEFAULT_BLOCK_SIZE = IdStreamFormat.DEFAULT_BLOCK_SIZE;
+
+  private final IdStreamFormat format;
+
+  /**
+   * 目标通道；若为{@code null}则写入目标缓冲区。
+   */
+  private final WritableByteChannel channel;
+
+  /**
+   * 目标缓冲区；若为{@code null}则写入目标通道。
+   */
+  private final ByteBuffer target;
+
+  /**
+   * 缓存的尚未编码的ID。
+   */
+  private final long[] pending;
+
+  private int pendingCount;
+
+  /**
+   * 用于编码一个块的缓冲区。
+   */
+  private final ByteBuffer block;
+
+  private long idCount;
+
+  private long byteCount;
+
+  private boolean closed;
+
+  /**
+   * 构造一个将ID流写入通道的编码器，并立即写出流头。
+   *
+   * @param precision
+   *     所有ID的时间戳精度，不可为{@code null}。
+   * @param channel
+   *     目标通道，不可为{@code null}，例如一个{@link java.nio.channels.FileChannel}。
+   * @throws IOException
+   *     若写出流头时出错。
+   */
+  public IdStreamEncoder(final Precision precision, final WritableByteChannel channel)
+      throws IOException {
+    this(precision, channel, DEFAULT_BLOCK_SIZE);
+  }
+
+  /**
+   * 构造一个将ID流写入通道的编码器，并立即写出流头。
+   *
+   * @param precision
+   *     所有ID的时间戳精度，不可为{@code null}。
+   * @param channel
+   *     目标通道，不可为{@code null}。
+   * @param blockSize
+   *     每个块中ID的最大数目，必须在{@code [1, 2^20]}之间。
+   * @throws IOException
+   *     若写出流头时出错。
+   */
+  public IdStreamEncoder(final Precision precision, final WritableByteChannel channel,
+      final int blockSize) throws IOException {
+    this(precision, requireNonNull("channel", channel), null, blockSize);
+    fillHeader();
+    emit();
+  }
+
+  /**
+   * 构造一个将ID流写入缓冲区的编码器，并立即写出流头。
+   *
+   * @param precision
+   *     所有ID的时间戳精度，不可为{@code null}。
+   * @param target
+   *     目标缓冲区，不可为{@code null}；空间不足时抛出{@link BufferOverflowException}。
+   * @param blockSize
+   *     每个块中ID的最大数目，必须在{@code [1, 2^20]}之间。
+   */
+  public IdStreamEncoder(final Precision precision, final ByteBuffer target,
+      final int blockSize) {
+    this(precision, null, requireNonNull("target", target), blockSize);
+    fillHeader();
+    put();
+  }
+
+  private IdStreamEncoder(final Precision precision, final WritableByteChannel channel,
+      final ByteBuffer target, final int blockSize) {
+    this.format = new IdStreamFormat(requireNonNull("precision", precision));
+    if (blockSize <= 0 || blockSize > IdStreamFormat.MAX_BLOCK_SIZE) {
+      throw new IllegalArgumentException("The block size must be in [1, "
+          + IdStreamFormat.MAX_BLOCK_SIZE + "].");
+    }
+    this.channel = channel;
+    this.target = target;
+    this.pending = new long[blockSize];
+    this.block = ByteBuffer.allocate(IdStreamFormat.maxBlockBytes(blockSize));
+  }
+
+  /**
+   * 将流头填入{@link #block}。
+   */
+  private void fillHeader() {
+    block.clear();
+    block.putInt(IdStreamFormat.MAGIC);
+    block.put(IdStreamFormat.VERSION);
+    block.put((byte) format.precision.ordinal());
+    block.flip();
+  }
+
+  public final Precision getPrecision() {
+    return format.precision;
+  }
+
+  public final int getBlockSize() {
+    return pending.length;
+  }
+
+  /**
+   * 获取已经写入的ID的数目。
+   *
+   * @return 已经写入的ID的数目，包括尚未编码的ID。
+   */
+  public final long getIdCount() {
+    return idCount;
+  }
+
+  /**
+   * 获取已经写出的字节数。
+   *
+   * @return 已经写出的字节数，包括流头。
+   */
+  public final long getByteCount() {
+    return byteCount;
+  }
+
+  /**
+   * 写入一个ID。
+   *
+   * @param id
+   *     ID，其时间戳精度必须与此编码器的时间戳精度一致。
+   * @throws IOException
+   *     若写出编码后的块时出错。
+   */
+  public void write(final long id) throws IOException {
+    checkOpen();
+    if (!format.matches(id)) {
+      throw new IllegalArgumentException("The precision of the ID " + id
+          + " is not " + format.precision);
+    }
+    pending[pendingCount++] = id;
+    ++idCount;
+    if (pendingCount == pending.length) {
+      flushBlock();
+    }
+  }
+
+  /**
+   * 写入一批ID。
+   *
+   * @param ids
+   *     存放ID的数组，不可为{@code null}。
+   * @param offset
+   *     第一个ID在数组中的下标。
+   * @param length
+   *     ID的数目。
+   * @throws IOException
+   *     若写出编码后的块时出错。
+   */
+  public void write(final long[] ids, final int offset, final int length) throws IOException {
+    requireNonNull("ids", ids);
+    if (offset < 0 || length < 0 || offset > ids.length - length) {
+      throw new IndexOutOfBoundsException("Invalid range [" + offset + ", "
+          + (offset + length) + ") of an array of length " + ids.length);
+    }
+    for (int i = 0; i < length; ++i) {
+      write(ids[offset + i]);
+    }
+  }
+
+  /**
+   * 立即编码并写出缓存的ID，即使它们不足一个块。
+   *
+   * @throws IOException
+   *     若写出编码后的块时出错。
+   */
+  @Override
+  public void flush() throws IOException {
+    checkOpen();
+    if (pendingCount > 0) {
+      flushBlock();
+    }
+  }
+
+  private void flushBlock() throws IOException {
+    block.clear();
+    block.position(IdStreamFormat.BLOCK_HEADER_SIZE);
+    encodeBlock(pending, pendingCount, block);
+    block.putInt(0, pendingCount);
+    block.putInt(Integer.BYTES, block.position() - IdStreamFormat.BLOCK_HEADER_SIZE);
+    block.flip();
+    pendingCount = 0;
+    emit();
+  }
+
+  /**
+   * 将一批ID编码为块体。
+   */
+  private void encodeBlock(final long[] ids, final int count, final ByteBuffer dst) {
+    long lastTimestamp = 0;
+    long lastSequence = -1;
+    long lastHostMode = -1;
+    for (int i = 0; i < count; ++i) {
+      final long id = ids[i];
+      final long timestamp = format.timestamp(id);
+      final long sequence = id & format.sequenceMask;
+      final long hostMode = format.hostMode(id);
+      final int changed = (hostMode != lastHostMode ? CHANGED : 0);
+      if (timestamp == lastTimestamp) {
+        putVarLong(dst, (zigzag(sequence - lastSequence - 1) << FLAG_BITS) | changed);
+      } else {
+        putVarLong(dst, (zigzag(timestamp - lastTimestamp) << FLAG_BITS)
+            | NEW_TIMESTAMP | changed);
+        putVarLong(dst, sequence);
+      }
+      if (changed != 0) {
+        putVarLong(dst, hostMode);
+      }
+      lastTimestamp = timestamp;
+      lastSequence = sequence;
+      lastHostMode = hostMode;
+    }
+  }
+
+  /**
+   * 将{@link #block}中的数据写出到目标通道或目标缓冲区。
+   */
+  private void emit() throws IOException {
+    if (channel == null) {
+      put();
+      return;
+    }
+    final int size = block.remaining();
+    while (block.hasRemaining()) {
+      channel.write(block);
+    }
+    byteCount += size;
+  }
+
+  /**
+   * 将{@link #block}中的数据写入目标缓冲区。
+   */
+  private void put() {
+    final int size = block.remaining();
+    target.put(block);
+    byteCount += size;
+  }
+
+  private void checkOpen() {
+    if (closed) {
+      throw new IllegalStateException("The encoder has been closed.");
+    }
+  }
+
+  /**
+   * 写出缓存的ID并关闭目标通道。
+   *
+   * @throws IOException
+   *     若写出编码后的块或者关闭目标通道时出错。
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    try {
+      flush();
+    } finally {
+      closed = true;
+      if (channel != null) {
+        channel.close();
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return new ToStringBuilder(this)
+        .append("precision", format.precision)
+        .append("blockSize", pending.length)
+        .append("idCount", idCount)
+        .append("byteCount", byteCount)
+        .toString();
+  }
+}
@@ -0,0 +1,193 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * {@link IdStreamEncoder}和{@link IdStreamDecoder}共用的ID流格式。
+ *
+ * <p>ID流由一个流头和若干个块组成：
+ * <pre><code>
+ *  流头 = [魔数: int] [版本: byte] [时间戳精度: byte]
+ *  块   = [ID数目: int] [块体字节数: int] [块体]
+ * </code></pre>
+ * 每个块独立编码，块体中依次存放各个ID的条目，解码状态在每个块的开头重置。每个条目按照
+ * {@link Builder}的字段布局拆分ID，其中时间戳总是取其未反转的形式，因此稀疏模式的ID
+ * 与顺序模式的ID压缩效果相同。条目的第一个无符号变长整数为标记：
+ * <pre><code>
+ *  标记 = (载荷 &lt;&lt; 2) | (时间戳是否改变 &lt;&lt; 1) | (主机编号或生成模式是否改变)
+ * </code></pre>
+ * 若时间戳未改变，载荷为序列号相对于上一个序列号加1的差值经ZigZag变换后的数值，条目
+ * 到此结束，因此同一时间片内连续的ID只占据1个字节；若时间戳改变，载荷为时间戳的差值经
+ * ZigZag变换后的数值，其后再跟一个存放序列号的无符号变长整数。若主机编号或生成模式改变，
+ * 条目的最后再跟一个存放{@code (生成模式 << 9) | 主机编号}的无符号变长整数。
+ *
+ * @author 胡海星
+ */
+@Immutable
+final class IdStreamFormat implements Constant {
+
+  /**
+   * 流头的魔数，其ASCII表示为{@code "QIDS"}。
+   */
+  static final int MAGIC = 0x51494453;
+
+  /**
+   * 格式的版本号。
+   */
+  static final byte VERSION = 1;
+
+  /**
+   * 流头的字节数。
+   */
+  static final int HEADER_SIZE = Integer.BYTES + 2;
+
+  /**
+   * 块头的字节数。
+   */
+  static final int BLOCK_HEADER_SIZE = 2 * Integer.BYTES;
+
+  /**
+   * 默认的每个块中ID的最大数目。
+   */
+  static final int DEFAULT_BLOCK_SIZE = 4096;
+
+  /**
+   * 每个块中ID的最大数目的上限。
+   */
+  static final int MAX_BLOCK_SIZE = 1 << 20;
+
+  /**
+   * 一个条目的最大字节数：标记最多10个字节，序列号最多4个字节，主机编号和生成模式最多
+   * 2个字节。
+   */
+  static final int MAX_ENTRY_SIZE = 10 + 4 + 2;
+
+  static final int CHANGED = 1;
+
+  static final int NEW_TIMESTAMP = 2;
+
+  static final int FLAG_BITS = 2;
+
+  private static final Precision[] PRECISIONS = Precision.values();
+
+  final Precision precision;
+
+  final int timestampBits;
+
+  final int timestampShift;
+
+  final long timestampMask;
+
+  final int sequenceBits;
+
+  final long sequenceMask;
+
+  final long precisionBit;
+
+  IdStreamFormat(final Precision precision) {
+    this.precision = precision;
+    this.timestampBits = precision.getTimestampBits();
+    this.sequenceBits = precision.getSequenceBits();
+    this.timestampShift = PRECISION_BITS + HOST_BITS + sequenceBits;
+    this.timestampMask = (1L << timestampBits) - 1L;
+    this.sequenceMask = (1L << sequenceBits) - 1L;
+    this.precisionBit = (long) precision.ordinal() << (HOST_BITS + sequenceBits);
+  }
+
+  /**
+   * 获取一个块在编码后的最大字节数，包括块头。
+   */
+  static int maxBlockBytes(final int count) {
+    return BLOCK_HEADER_SIZE + count * MAX_ENTRY_SIZE;
+  }
+
+  static Precision precisionOf(final int ordinal) throws IOException {
+    if (ordinal < 0 || ordinal >= PRECISIONS.length) {
+      throw new IOException("Invalid precision in the ID stream: " + ordinal);
+    }
+    return PRECISIONS[ordinal];
+  }
+
+  /**
+   * 判断ID的时间戳精度比特是否与此格式的时间戳精度一致。
+   */
+  boolean matches(final long id) {
+    return (id & (1L << (HOST_BITS + sequenceBits))) == precisionBit;
+  }
+
+  /**
+   * 获取ID中未反转的时间戳。
+   */
+  long timestamp(final long id) {
+    final long field = (id >>> timestampShift) & timestampMask;
+    return (id < 0 ? Long.reverse(field) >>> (Long.SIZE - timestampBits) : field);
+  }
+
+  /**
+   * 获取ID中的生成模式和主机编号，即{@code (生成模式 << 9) | 主机编号}。
+   */
+  long hostMode(final long id) {
+    return ((id >>> (Long.SIZE - MODE_BITS)) << HOST_BITS)
+        | ((id >>> sequenceBits) & HOST_MAX);
+  }
+
+  /**
+   * 由各个字段组装ID。
+   */
+  long compose(final long hostMode, final long timestamp, final long sequence) {
+    final long mode = hostMode >>> HOST_BITS;
+    final long field = (mode == 0 ? timestamp
+                                  : Long.reverse(timestamp) >>> (Long.SIZE - timestampBits));
+    return (mode << (Long.SIZE - MODE_BITS))
+        | (field << timestampShift)
+        | precisionBit
+        | ((hostMode & HOST_MAX) << sequenceBits)
+        | sequence;
+  }
+
+  static long zigzag(final long value) {
+    return (value << 1) ^ (value >> (Long.SIZE - 1));
+  }
+
+  static long unzigzag(final long value) {
+    return (value >>> 1) ^ -(value & 1L);
+  }
+
+  static void putVarLong(final ByteBuffer buffer, final long value) {
+    long v = value;
+    while ((v & ~0x7FL) != 0) {
+      buffer.put((byte) ((v & 0x7F) | 0x80));
+      v >>>= 7;
+    }
+    buffer.put((byte) v);
+  }
+
+  static long getVarLong(final ByteBuffer buffer) throws IOException {
+    long result = 0;
+    for (int shift = 0; shift < Long.SIZE; shift += 7) {
+      final byte b;
+      try {
+        b = buffer.get();
+      } catch (final BufferUnderflowException e) {
+        throw new IOException("Truncated ID stream block.", e);
+      }
+      result |= (long) (b & 0x7F) << shift;
+      if (b >= 0) {
+        return result;
+      }
+    }
+    throw new IOException("Malformed variable-length integer in the ID stream.");
+  }
+}
@@ -0,0 +1,544 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import javax.annotation.concurrent.Immutable;
+
+import ltd.qubit.commons.text.tostring.ToStringBuilder;
+
+import static ltd.qubit.commons.lang.Argument.requireNonNull;
+
+/**
+ * 批量ID转码器，在不同的生成模式和不同的EPOCH之间转换已经生成的ID。
+ *
+ * <p>转码只改变ID中的生成模式比特和时间戳比特，时间戳精度、主机编号和序列号保持不变。
+ * 对每个ID，转码器取出时间戳比特，若源ID为稀疏模式则将其反转，加上两个EPOCH之间相差的
+ * 时间戳，若目标为稀疏模式则再将其反转，最后与不变的低位比特拼接。整个过程不需要逐个字段
+ * 解析ID再调用{@link Builder#build(long, long)}；主循环中除了几乎从不成立的校验失败分支
+ * 之外没有依赖于数据的分支，便于JIT编译器展开。
+ *
+ * <p>转码是一一映射。为了在迁移大表之后确认映射关系没有被破坏，可以分别计算源数据和目标
+ * 数据的指纹：{@link #fingerprint(long[], int, int)}按照源ID的格式计算指纹，
+ * {@link #inverse()}返回的反向转码器按照目标ID的格式计算指纹，两者应当相等。指纹与ID的
+ * 排列顺序无关，因此可以分块、并行、以任意顺序扫描两张表分别计算后再比较。
+ *
+ * <p>所有源ID的时间戳精度必须是此转码器的精度，生成模式必须是源生成模式。
+ *
+ * @author 胡海星
+ */
+@Immutable
+public class IdTranscoder implements Constant {
+
+  /**
+   * 并行转码时每个任务处理的最小ID数目。
+   */
+  static final int PARALLEL_THRESHOLD = 1 << 16;
+
+  /**
+   * 转码文件时每次映射到内存中的ID数目。
+   */
+  static final int WINDOW_SIZE = 1 << 20;
+
+  private final Precision precision;
+
+  private final Mode sourceMode;
+
+  private final Instant sourceEpoch;
+
+  private final Mode targetMode;
+
+  private final Instant targetEpoch;
+
+  private final transient int timestampBits;
+
+  private final transient int timestampShift;
+
+  private final transient long maxTimestamp;
+
+  /**
+   * 源ID的时间戳加上此数值即为目标ID的时间戳。
+   */
+  private final transient long timestampDelta;
+
+  /**
+   * 源EPOCH距离{@code 1970-01-01T00:00:00Z}的时间戳。
+   */
+  private final transient long sourceEpochTimestamp;
+
+  /**
+   * 生成模式比特和时间戳精度比特的掩码。
+   */
+  private final transient long checkMask;
+
+  /**
+   * 源ID在{@link #checkMask}所覆盖的比特上应有的数值。
+   */
+  private final transient long expected;
+
+  /**
+   * 目标ID的生成模式比特。
+   */
+  private final transient long targetModeBit;
+
+  /**
+   * 时间戳之下的所有比特的掩码，这些比特在转码过程中保持不变。
+   */
+  private final transient long lowMask;
+
+  /**
+   * 在同一个EPOCH下转换生成模式。
+   *
+   * @param precision
+   *     ID的时间戳精度，不可为{@code null}。
+   * @param sourceMode
+   *     源ID的生成模式，不可为{@code null}。
+   * @param targetMode
+   *     目标ID的生成模式，不可为{@code null}。
+   */
+  public IdTranscoder(final Precision precision, final Mode sourceMode,
+      final Mode targetMode) {
+    this(precision, sourceMode, DEFAULT_EPOCH, targetMode, DEFAULT_EPOCH);
+  }
+
+  /**
+   * 构造一个转码器。
+   *
+   * @param precision
+   *     ID的时间戳精度，不可为{@code null}。
+   * @param sourceMode
+   *     源ID的生成模式，不可为{@code null}。
+   * @param sourceEpoch
+   *     源ID的EPOCH，不可为{@code null}。
+   * @param targetMode
+   *     目标ID的生成模式，不可为{@code null}。
+   * @param targetEpoch
+   *     目标ID的EPOCH，不可为{@code null}；两个EPOCH之差必须是时间戳精度的整数倍。
+   */
+  public IdTranscoder(final Precision precision, final Mode sourceMode,
+      final Instant sourceEpoch, final Mode targetMode, final Instant targetEpoch) {
+    this.precision = requireNonNull("precision", precision);
+    this.sourceMode = requireNonNull("sourceMode", sourceMode);
+    this.sourceEpoch = requireNonNull("sourceEpoch", sourceEpoch);
+    this.targetMode = requireNonNull("targetMode", targetMode);
+    this.targetEpoch = requireNonNull("targetEpoch", targetEpoch);
+    final long unit = (precision == Precision.SECOND ? 1000L : 1L);
+    final long difference = sourceEpoch.toEpochMilli() - targetEpoch.toEpochMilli();
+    if (difference % unit != 0) {
+      throw new IllegalArgumentException("The difference between the epochs must be a "
+          + "multiple of the timestamp precision.");
+    }
+    this.timestampBits = precision.getTimestampBits();
+    this.timestampShift = PRECISION_BITS + HOST_BITS + precision.getSequenceBits();
+    this.maxTimestamp = (1L << timestampBits) - 1L;
+    this.timestampDelta = difference / unit;
+    this.sourceEpochTimestamp = Math.floorDiv(sourceEpoch.toEpochMilli(), unit);
+    final int modeShift = timestampShift + timestampBits;
+    final int precisionShift = timestampShift - PRECISION_BITS;
+    this.checkMask = (1L << modeShift) | (1L << precisionShift);
+    this.expected = ((long) sourceMode.ordinal() << modeShift)
+        | ((long) precision.ordinal() << precisionShift);
+    this.targetModeBit = (long) targetMode.ordinal() << modeShift;
+    this.lowMask = (1L << timestampShift) - 1L;
+  }
+
+  public final Precision getPrecision() {
+    return precision;
+  }
+
+  public final Mode getSourceMode() {
+    return sourceMode;
+  }
+
+  public final Instant getSourceEpoch() {
+    return sourceEpoch;
+  }
+
+  public final Mode getTargetMode() {
+    return targetMode;
+  }
+
+  public final Instant getTargetEpoch() {
+    return targetEpoch;
+  }
+
+  /**
+   * 获取反向的转码器，即将目标ID转换回源ID的转码器。
+   *
+   * @return 反向的转码器。
+   */
+  public IdTranscoder inverse() {
+    return new IdTranscoder(precision, targetMode, targetEpoch, sourceMode, sourceEpoch);
+  }
+
+  /**
+   * 转码一个ID。
+   *
+   * @param id
+   *     源ID。
+   * @return 对应的目标ID。
+   * @throws IllegalArgumentException
+   *     若源ID的生成模式或时间戳精度与此转码器不符，或者其时间戳超出目标ID所能表示的范围。
+   */
+  public long transcode(final long id) {
+    final long t = sourceTimestamp(id) + timestampDelta;
+    if (!isValid(id, t)) {
+      throw invalidId(id);
+    }
+    return encode(id, t);
+  }
+
+  /**
+   * 转码数组中的一批ID。
+   *
+   * <p>源数组和目标数组可以是同一个数组，从而原地转码。
+   *
+   * @param source
+   *     存放源ID的数组，不可为{@code null}。
+   * @param sourceOffset
+   *     第一个源ID在源数组中的下标。
+   * @param target
+   *     存放目标ID的数组，不可为{@code null}。
+   * @param targetOffset
+   *     第一个目标ID在目标数组中的下标。
+   * @param length
+   *     ID的数目。
+   * @throws IllegalArgumentException
+   *     若某个源ID的生成模式或时间戳精度与此转码器不符，或者其时间戳超出目标ID所能表示的
+   *     范围；此时目标数组中的内容是不确定的。
+   */
+  public void transcode(final long[] source, final int sourceOffset, final long[] target,
+      final int targetOffset, final int length) {
+    requireNonNull("source", source);
+    requireNonNull("target", target);
+    checkRange(source, sourceOffset, length);
+    checkRange(target, targetOffset, length);
+    for (int i = 0; i < length; ++i) {
+      final long id = source[sourceOffset + i];
+      final long t = sourceTimestamp(id) + timestampDelta;
+      if (!isValid(id, t)) {
+        throw invalidId(id);
+      }
+      target[targetOffset + i] = encode(id, t);
+    }
+  }
+
+  /**
+   * 原地转码数组中的全部ID。
+   *
+   * @param ids
+   *     存放ID的数组，不可为{@code null}。
+   * @throws IllegalArgumentException
+   *     若某个源ID的生成模式或时间戳精度与此转码器不符，或者其时间戳超出目标ID所能表示的
+   *     范围。
+   */
+  public void transcode(final long[] ids) {
+    transcode(ids, 0, ids, 0, ids.length);
+  }
+
+  /**
+   * 利用{@link ForkJoinPool#commonPool()}并行地转码数组中的一批ID。
+   *
+   * <p>参数和异常与{@link #transcode(long[], int, long[], int, int)}相同。
+   */
+  public void parallelTranscode(final long[] source, final int sourceOffset,
+      final long[] target, final int targetOffset, final int length) {
+    requireNonNull("source", source);
+    requireNonNull("target", target);
+    checkRange(source, sourceOffset, length);
+    checkRange(target, targetOffset, length);
+    ForkJoinPool.commonPool().invoke(
+        new TranscodeTask(source, sourceOffset, target, targetOffset, length));
+  }
+
+  /**
+   * 利用{@link ForkJoinPool#commonPool()}并行地原地转码数组中的全部ID。
+   *
+   * @param ids
+   *     存放ID的数组，不可为{@code null}。
+   */
+  public void parallelTranscode(final long[] ids) {
+    parallelTranscode(ids, 0, ids, 0, ids.length);
+  }
+
+  /**
+   * 并行转码的任务，将区间不断二分，直到其长度不超过{@link #PARALLEL_THRESHOLD}。
+   */
+  private final class TranscodeTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long[] source;
+    private final int sourceOffset;
+    private final long[] target;
+    private final int targetOffset;
+    private final int length;
+
+    TranscodeTask(final long[] source, final int sourceOffset, final long[] target,
+        final int targetOffset, final int length) {
+      this.source = source;
+      this.sourceOffset = sourceOffset;
+      this.target = target;
+      this.targetOffset = targetOffset;
+      this.length = length;
+    }
+
+    @Override
+    protected void compute() {
+      if (length <= PARALLEL_THRESHOLD) {
+        transcode(source, sourceOffset, target, targetOffset, length);
+      } else {
+        final int half = length >>> 1;
+        invokeAll(new TranscodeTask(source, sourceOffset, target, targetOffset, half),
+            new TranscodeTask(source, sourceOffset + half, target, targetOffset + half,
+                length - half));
+      }
+    }
+  }
+
+  /**
+   * 转码缓冲区中的ID。
+   *
+   * <p>此函数转码源缓冲区中从当前位置开始的全部ID，并将其写入目标缓冲区的当前位置，两个
+   * 缓冲区的位置都向后移动相应的数目。
+   *
+   * @param source
+   *     存放源ID的缓冲区，不可为{@code null}。
+   * @param target
+   *     存放目标ID的缓冲区，不可为{@code null}，其剩余空间不可小于源缓冲区中剩余的ID数目；
+   *     可以是源缓冲区本身，从而原地转码。
+   * @throws IllegalArgumentException
+   *     若某个源ID的生成模式或时间戳精度与此转码器不符，或者其时间戳超出目标ID所能表示的
+   *     范围。
+   */
+  public void transcode(final LongBuffer source, final LongBuffer target) {
+    requireNonNull("source", source);
+    requireNonNull("target", target);
+    final int length = source.remaining();
+    if (target.remaining() < length) {
+      throw new IllegalArgumentException("The target buffer is too small.");
+    }
+    final int sourcePosition = source.position();
+    final int targetPosition = target.position();
+    for (int i = 0; i < length; ++i) {
+      final long id = source.get(sourcePosition + i);
+      final long t = sourceTimestamp(id) + timestampDelta;
+      if (!isValid(id, t)) {
+        throw invalidId(id);
+      }
+      target.put(targetPosition + i, encode(id, t));
+    }
+    source.position(sourcePosition + length);
+    target.position(targetPosition + length);
+  }
+
+  /**
+   * 转码一个存放ID的二进制文件。
+   *
+   * <p>文件由连续的、按大端字节序存放的长整数组成。源文件和目标文件按窗口依次映射到内存中
+   * 转码，内存占用与文件的大小无关。目标文件若已存在则被覆盖；源文件和目标文件可以是同一个
+   * 文件，从而原地转码。
+   *
+   * @param source
+   *     源文件，不可为{@code null}。
+   * @param target
+   *     目标文件，不可为{@code null}。
+   * @return 转码的ID的数目。
+   * @throws IOException
+   *     若读写文件时出错，或者源文件的大小不是8的整数倍。
+   * @throws IllegalArgumentException
+   *     若某个源ID的生成模式或时间戳精度与此转码器不符，或者其时间戳超出目标ID所能表示的
+   *     范围；此时目标文件中的内容是不确定的。
+   */
+  public long transcode(final Path source, final Path target) throws IOException {
+    requireNonNull("source", source);
+    requireNonNull("target", target);
+    // 通过符号链接或硬链接指向同一个文件时也必须原地转码，否则截断目标文件会清空源文件
+    final boolean inPlace = Files.exists(target) && Files.isSameFile(source, target);
+    try (final FileChannel in = FileChannel.open(source, inPlace
+        ? new StandardOpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE}
+        : new StandardOpenOption[]{StandardOpenOption.READ})) {
+      final long size = in.size();
+      if (size % Long.BYTES != 0) {
+        throw new IOException("The size of the file is not a multiple of 8: " + source);
+      }
+      if (inPlace) {
+        transcode(in, in, size);
+      } else {
+        try (final FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+            StandardOpenOption.WRITE)) {
+          transcode(in, out, size);
+        }
+      }
+      return size / Long.BYTES;
+    }
+  }
+
+  private void transcode(final FileChannel in, final FileChannel out, final long size)
+      throws IOException {
+    final long window = (long) WINDOW_SIZE * Long.BYTES;
+    for (long position = 0; position < size; position += window) {
+      final long length = Math.min(window, size - position);
+      final LongBuffer target = out.map(FileChannel.MapMode.READ_WRITE, position, length)
+          .asLongBuffer();
+      final LongBuffer source = (in == out ? target
+          : in.map(FileChannel.MapMode.READ_ONLY, position, length).asLongBuffer());
+      transcode(source, target);
+    }
+  }
+
+  /**
+   * 按照源ID的格式计算一批ID的指纹。
+   *
+   * <p>指纹只取决于每个ID所表示的绝对时刻、时间戳精度、主机编号和序列号，而与生成模式、
+   * EPOCH以及ID的排列顺序无关。因此对同一批ID，转码前由此转码器计算的指纹等于转码后由
+   * {@link #inverse()}计算的指纹；分块计算的指纹之和等于整体的指纹。
+   *
+   * @param ids
+   *     存放ID的数组，不可为{@code null}。
+   * @param offset
+   *     第一个ID在数组中的下标。
+   * @param length
+   *     ID的数目。
+   * @return 这批ID的指纹。
+   */
+  public long fingerprint(final long[] ids, final int offset, final int length) {
+    requireNonNull("ids", ids);
+    checkRange(ids, offset, length);
+    long result = 0;
+    for (int i = 0; i < length; ++i) {
+      result += hash(ids[offset + i]);
+    }
+    return result;
+  }
+
+  /**
+   * 按照源ID的格式计算一批ID的指纹。
+   *
+   * @param ids
+   *     存放ID的数组，不可为{@code null}。
+   * @return 这批ID的指纹。
+   * @see #fingerprint(long[], int, int)
+   */
+  public long fingerprint(final long[] ids) {
+    return fingerprint(ids, 0, ids.length);
+  }
+
+  /**
+   * 按照源ID的格式计算缓冲区中从当前位置开始的全部ID的指纹，缓冲区的位置不变。
+   *
+   * @param ids
+   *     存放ID的缓冲区，不可为{@code null}。
+   * @return 这批ID的指纹。
+   * @see #fingerprint(long[], int, int)
+   */
+  public long fingerprint(final LongBuffer ids) {
+    requireNonNull("ids", ids);
+    long result = 0;
+    for (int i = ids.position(); i < ids.limit(); ++i) {
+      result += hash(ids.get(i));
+    }
+    return result;
+  }
+
+  /**
+   * 按照源ID的格式计算一个二进制文件中全部ID的指纹。
+   *
+   * @param file
+   *     存放ID的文件，不可为{@code null}，其格式与{@link #transcode(Path, Path)}相同。
+   * @return 这批ID的指纹。
+   * @throws IOException
+   *     若读取文件时出错，或者文件的大小不是8的整数倍。
+   * @see #fingerprint(long[], int, int)
+   */
+  public long fingerprint(final Path file) throws IOException {
+    requireNonNull("file", file);
+    try (final FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+      final long size = in.size();
+      if (size % Long.BYTES != 0) {
+        throw new IOException("The size of the file is not a multiple of 8: " + file);
+      }
+      final long window = (long) WINDOW_SIZE * Long.BYTES;
+      long result = 0;
+      for (long position = 0; position < size; position += window) {
+        final long length = Math.min(window, size - position);
+        result += fingerprint(in.map(FileChannel.MapMode.READ_ONLY, position, length)
+            .asLongBuffer());
+      }
+      return result;
+    }
+  }
+
+  /**
+   * 计算一个ID的指纹，它由该ID所表示的绝对时间戳，以及生成模式比特之外的低位比特决定。
+   */
+  private long hash(final long id) {
+    final long t = sourceTimestamp(id) + sourceEpochTimestamp;
+    return mix(mix(t) + (id & lowMask));
+  }
+
+  /**
+   * 对一个长整数做一次混合，使指纹之和能够敏感地反映任何一个ID的变化。
+   */
+  private static long mix(final long value) {
+    long z = value * 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  private long sourceTimestamp(final long id) {
+    final long field = (id >>> timestampShift) & maxTimestamp;
+    return (sourceMode == Mode.SEQUENTIAL ? field
+                                          : Long.reverse(field) >>> (Long.SIZE - timestampBits));
+  }
+
+  private long encode(final long id, final long timestamp) {
+    final long t = timestamp & maxTimestamp;
+    final long field = (targetMode == Mode.SEQUENTIAL ? t
+                                                      : Long.reverse(t) >>> (Long.SIZE - timestampBits));
+    return targetModeBit | (field << timestampShift) | (id & lowMask);
+  }
+
+  private boolean isValid(final long id, final long timestamp) {
+    return ((id & checkMask) == expected) & (timestamp >= 0) & (timestamp <= maxTimestamp);
+  }
+
+  private IllegalArgumentException invalidId(final long id) {
+    return new IllegalArgumentException("The ID " + id + " cannot be transcoded by " + this);
+  }
+
+  private static void checkRange(final long[] array, final int offset, final int length) {
+    if (offset < 0 || length < 0 || offset > array.length - length) {
+      throw new IndexOutOfBoundsException("Invalid range [" + offset + ", "
+          + (offset + length) + ") of an array of length " + array.length);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return new ToStringBuilder(this)
+        .append("precision", precision)
+        .append("sourceMode", sourceMode)
+        .append("sourceEpoch", sourceEpoch)
+        .append("targetMode", targetMode)
+        .append("targetEpoch", targetEpoch)
+        .toString();
+  }
+}
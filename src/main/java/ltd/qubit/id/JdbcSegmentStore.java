@@ -0,0 +1,216 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.regex.Pattern;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.sql.DataSource;
+
+import ltd.qubit.commons.text.tostring.ToStringBuilder;
+
+import static ltd.qubit.commons.lang.Argument.requireNonNull;
+
+/**
+ * 将已分配的最大ID记录在数据库表中的号段存储。
+ *
+ * <p>号段表的每一行对应一个业务标识，记录该业务已经分配的最大ID：
+ * <pre><code>
+ * CREATE TABLE id_segment (
+ *   name   VARCHAR(64) NOT NULL PRIMARY KEY,
+ *   max_id BIGINT      NOT NULL
+ * )
+ * </code></pre>
+ * 分配号段时在同一个事务中执行{@code UPDATE ... SET max_id = max_id + ?}并读回新的
+ * {@code max_id}，由数据库的行锁保证多个进程分配的号段互不重叠。若该业务标识对应的行
+ * 不存在，则自动插入一行。
+ *
+ * @author 胡海星
+ */
+@ThreadSafe
+public class JdbcSegmentStore implements SegmentStore {
+
+  /**
+   * 默认的号段表名称。
+   */
+  public static final String DEFAULT_TABLE = "id_segment";
+
+  /**
+   * 合法的表名称，表名称会被直接拼接到SQL语句中，因此只允许使用标识符。
+   */
+  private static final Pattern TABLE_PATTERN = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+  /**
+   * 插入新的行时，并发插入导致主键冲突后的最大重试次数。
+   */
+  private static final int MAX_RETRIES = 3;
+
+  /**
+   * 数据源。
+   */
+  private final DataSource dataSource;
+
+  /**
+   * 号段表的名称。
+   */
+  private final String table;
+
+  /**
+   * 业务标识。
+   */
+  private final String name;
+
+  private final String updateSql;
+  private final String selectSql;
+  private final String insertSql;
+
+  /**
+   * 使用默认的号段表构造一个{@link JdbcSegmentStore}对象。
+   *
+   * @param dataSource
+   *     数据源，不可为{@code null}。
+   * @param name
+   *     业务标识，不可为{@code null}。
+   */
+  public JdbcSegmentStore(final DataSource dataSource, final String name) {
+    this(dataSource, DEFAULT_TABLE, name);
+  }
+
+  /**
+   * 构造一个{@link JdbcSegmentStore}对象。
+   *
+   * @param dataSource
+   *     数据源，不可为{@code null}。
+   * @param table
+   *     号段表的名称，不可为{@code null}，只能由字母、数字和下划线组成。
+   * @param name
+   *     业务标识，不可为{@code null}。
+   */
+  public JdbcSegmentStore(final DataSource dataSource, final String table,
+      final String name) {
+    this.dataSource = requireNonNull("dataSource", dataSource);
+    this.table = requireNonNull("table", table);
+    this.name = requireNonNull("name", name);
+    if (!TABLE_PATTERN.matcher(table).matches()) {
+      throw new IllegalArgumentException("Invalid table name: " + table);
+    }
+    this.updateSql = "UPDATE " + table + " SET max_id = max_id + ? WHERE name = ?";
+    this.selectSql = "SELECT max_id FROM " + table + " WHERE name = ?";
+    this.insertSql = "INSERT INTO " + table + " (name, max_id) VALUES (?, 0)";
+  }
+
+  public final DataSource getDataSource() {
+    return dataSource;
+  }
+
+  public final String getTable() {
+    return table;
+  }
+
+  public final String getName() {
+    return name;
+  }
+
+  /**
+   * 若号段表不存在，则创建号段表。
+   *
+   * @throws IOException
+   *     若访问数据库时出错。
+   */
+  public void createTable() throws IOException {
+    try (final Connection connection = dataSource.getConnection();
+         final Statement statement = connection.createStatement()) {
+      statement.execute("CREATE TABLE IF NOT EXISTS " + table
+          + " (name VARCHAR(64) NOT NULL PRIMARY KEY, max_id BIGINT NOT NULL)");
+    } catch (final SQLException e) {
+      throw new IOException("Failed to create the table " + table, e);
+    }
+  }
+
+  @Override
+  public IdRange allocate(final int size) throws IOException {
+    if (size <= 0) {
+      throw new IllegalArgumentException("The size must be positive.");
+    }
+    try (final Connection connection = dataSource.getConnection()) {
+      final boolean autoCommit = connection.getAutoCommit();
+      connection.setAutoCommit(false);
+      try {
+        final long maxId = allocate(connection, size);
+        connection.commit();
+        return new IdRange(maxId - size + 1, size);
+      } catch (final SQLException | RuntimeException e) {
+        connection.rollback();
+        throw e;
+      } finally {
+        connection.setAutoCommit(autoCommit);
+      }
+    } catch (final SQLException e) {
+      throw new IOException("Failed to allocate a segment of " + name, e);
+    }
+  }
+
+  /**
+   * 在当前事务中推进{@code max_id}并读回其新的数值。
+   */
+  private long allocate(final Connection connection, final int size) throws SQLException {
+    for (int retries = 0; ; ++retries) {
+      if (update(connection, size)) {
+        return select(connection);
+      }
+      // 该业务标识对应的行不存在，插入一行后重新尝试；并发插入导致的主键冲突也重新尝试，
+      // 冲突时回滚到保存点，以免某些数据库将整个事务标记为失败
+      final Savepoint savepoint = connection.setSavepoint();
+      try (final PreparedStatement statement = connection.prepareStatement(insertSql)) {
+        statement.setString(1, name);
+        statement.executeUpdate();
+      } catch (final SQLException e) {
+        connection.rollback(savepoint);
+        if (retries >= MAX_RETRIES) {
+          throw e;
+        }
+      }
+    }
+  }
+
+  private boolean update(final Connection connection, final int size) throws SQLException {
+    try (final PreparedStatement statement = connection.prepareStatement(updateSql)) {
+      statement.setLong(1, size);
+      statement.setString(2, name);
+      return statement.executeUpdate() > 0;
+    }
+  }
+
+  private long select(final Connection connection) throws SQLException {
+    try (final PreparedStatement statement = connection.prepareStatement(selectSql)) {
+      statement.setString(1, name);
+      try (final ResultSet rs = statement.executeQuery()) {
+        if (!rs.next()) {
+          throw new SQLException("No segment row for " + name);
+        }
+        return rs.getLong(1);
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return new ToStringBuilder(this)
+        .append("table", table)
+        .append("name", name)
+        .toString();
+  }
+}
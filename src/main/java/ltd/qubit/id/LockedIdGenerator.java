@@ -9,6 +9,8 @@
 package ltd.qubit.id;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -17,7 +19,8 @@ import javax.annotation.concurrent.ThreadSafe;
 /**
  * 通过互斥锁实现的ID生成器。
  *
- * <p>这个类是线程安全的，可以用于多线程环境。
+ * <p>这个类是线程安全的，可以用于多线程环境。此生成器使用{@link ReentrantLock}而非监视器锁，
+ * 并且在释放互斥锁之后才等待下一个时间片，因此在虚拟线程中等待时会让出其载体线程。
  *
  * @author 胡海星
  */
@@ -89,31 +92,153 @@ public class LockedIdGenerator extends AbstractIdGenerator {
   }
 
   /**
-   * 生成下一个ID。
+   * 使用指定的时间戳生成器构造一个ID生成器。
    *
-   * @return 生成的ID。
+   * @param mode
+   *     该ID生成器的生成模式，不可为{@code null}。
+   * @param host
+   *     该ID生成器的主机编号，必须在 {@code [0, 512)} 之间。
+   * @param timer
+   *     该ID生成器使用的时间戳生成器，不可为{@code null}。
+   */
+  public LockedIdGenerator(final Mode mode, final long host, final Timer timer) {
+    super(mode, host, timer);
+    this.lock = new ReentrantLock();
+  }
+
+  /**
+   * 分配下一个时间戳和序列号。
+   *
+   * <p>当前时间片的序列号耗尽时，先释放互斥锁再等待进入下一个时间片，从而不会阻塞
+   * 其他线程，也不会使其他线程的截止时刻失效。
+   *
+   * @param deadline
+   *     截止时刻，以{@link System#nanoTime()}为基准。
+   * @param interruptible
+   *     等待过程中是否响应中断。
+   * @return
+   *     打包后的时间戳和序列号；若在截止时刻之前未能分配则返回{@link #EXHAUSTED}。
+   * @throws InterruptedException
+   *     若{@code interruptible}为{@code true}且当前线程在等待过程中被中断。
+   */
+  @Override
+  protected final long next(final long deadline, final boolean interruptible)
+      throws InterruptedException {
+    while (true) {
+      final long timestamp;
+      acquire(interruptible);
+      try {
+        timestamp = timer.now();
+        if (timestamp != lastTimestamp) {
+          // 本次调用和上次调用不在同一个时间片内，重置序号计数器
+          recordSliceSwitch(lastTimestamp, sequence, timestamp);
+          lastTimestamp = timestamp;
+          sequence = 0;
+          return pack(timestamp, 0);
+        } else if (sequence < maxSequence) {
+          // 本次调用和上次调用在同一个时间片内，增加序号计数器
+          return pack(timestamp, ++sequence);
+        }
+        // 序号超出上界，释放互斥锁后等待进入下一个时间片
+      } finally {
+        lock.unlock();
+      }
+      if (!awaitNextSlice(timestamp, deadline, interruptible)) {
+        return EXHAUSTED;
+      }
+    }
+  }
+
+  /**
+   * 获取互斥锁。
+   *
+   * <p>先通过{@link Lock#tryLock()}尝试获取互斥锁，未发生竞争时与直接加锁的开销相同；只有
+   * 发生竞争时才会计时，并将等待的时间记录到运行指标中。
+   *
+   * @param interruptible
+   *     等待过程中是否响应中断。
+   * @throws InterruptedException
+   *     若{@code interruptible}为{@code true}且当前线程已经被中断，或者在等待过程中被中断。
    */
-  public final long generate() {
-    final long maxSequence = builder.getMaxSequence();
-    long timestamp;
-    long seq;
+  private void acquire(final boolean interruptible) throws InterruptedException {
+    if (!interruptible) {
+      acquireUninterruptibly();
+      return;
+    }
+    if (Thread.interrupted()) {
+      throw new InterruptedException();
+    }
+    if (lock.tryLock()) {
+      return;
+    }
+    final IdGeneratorMetrics m = getMetrics();
+    final long start = (m == null ? 0L : System.nanoTime());
+    lock.lockInterruptibly();
+    if (m != null) {
+      m.onLockWait(System.nanoTime() - start);
+    }
+  }
+
+  private void acquireUninterruptibly() {
+    if (lock.tryLock()) {
+      return;
+    }
+    final IdGeneratorMetrics m = getMetrics();
+    final long start = (m == null ? 0L : System.nanoTime());
     lock.lock();
-    try {
-      timestamp = timer.now();
-      if (timestamp == lastTimestamp) { // 本次调用和上次调用在同一个时间片内，增加序号计数器
-        seq = ++sequence;
-        if (sequence > maxSequence) {
-          // 序号超出上界，等待进入下一个时间片
-          timestamp = timer.waitForNext(timestamp);
-          seq = sequence = 0;
+    if (m != null) {
+      m.onLockWait(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * 一次性预留指定数目的连续ID。
+   *
+   * <p>在每个时间片内只需要获取一次互斥锁即可预留该时间片内剩余的连续序列号。
+   *
+   * @param count
+   *     需要预留的ID的数目，必须大于0。
+   * @return
+   *     预留的ID范围列表，当预留的ID跨越了时间片的边界时，结果会被拆分为多个范围。
+   * @throws SequenceExhaustedException
+   *     若当前时间片的序列号耗尽，而序列号耗尽策略放弃等待。
+   */
+  @Override
+  public final List<IdRange> reserve(final int count) {
+    if (count <= 0) {
+      throw new IllegalArgumentException("The count must be positive.");
+    }
+    final List<IdRange> result = new ArrayList<>(1);
+    long remaining = count;
+    while (remaining > 0) {
+      final long timestamp;
+      long first = -1;
+      long n = 0;
+      acquireUninterruptibly();
+      try {
+        timestamp = timer.now();
+        if (timestamp != lastTimestamp) {  // 本次调用和上次调用不在同一个时间片内，从0开始预留
+          recordSliceSwitch(lastTimestamp, sequence, timestamp);
+          first = 0;
+        } else if (sequence < maxSequence) { // 本次调用和上次调用在同一个时间片内，从下一个序号开始预留
+          first = sequence + 1;
         }
-      } else {  // 本次调用和上次调用不在同一个时间片内，重置序号计数器
-        seq = sequence = 0;
+        if (first >= 0) {
+          n = Math.min(remaining, maxSequence - first + 1);
+          sequence = first + n - 1;
+          lastTimestamp = timestamp;
+        }
+      } finally {
+        lock.unlock();
+      }
+      if (first < 0) {
+        // 序号超出上界，等待进入下一个时间片后重头尝试
+        awaitNextSlice(timestamp);
+        continue;
       }
-      lastTimestamp = timestamp;
-    } finally {
-      lock.unlock();
+      result.add(new IdRange(builder.build(timestamp, first), (int) n));
+      remaining -= n;
     }
-    return builder.build(timestamp, seq);
+    return result;
   }
 }
@@ -0,0 +1,192 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import ltd.qubit.commons.text.tostring.ToStringBuilder;
+
+/**
+ * 以2的幂为桶边界的非负整数直方图。
+ *
+ * <p>数值{@code v}落入第{@code 64 - numberOfLeadingZeros(v)}个桶，即第0个桶只包含0，第
+ * {@code k}个桶包含{@code [2^(k-1), 2^k)}之间的数值。每个桶都是一个{@link LongAdder}，
+ * 多个线程同时记录时不会竞争同一个缓存行，记录一个数值只需要一次位运算和一次分段累加。
+ * 分位数的相对误差不超过2倍，足以用于观察等待时间的数量级和序列号的利用率。
+ *
+ * @author 胡海星
+ */
+@ThreadSafe
+public class LongHistogram {
+
+  /**
+   * 桶的数目。
+   */
+  public static final int BUCKETS = Long.SIZE;
+
+  private final LongAdder[] buckets;
+
+  private final LongAdder sum = new LongAdder();
+
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+  /**
+   * 构造一个空的直方图。
+   */
+  public LongHistogram() {
+    buckets = new LongAdder[BUCKETS];
+    for (int i = 0; i < BUCKETS; ++i) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * 获取指定数值所在的桶的下标。
+   *
+   * @param value
+   *     指定的数值，负数按0处理。
+   * @return 该数值所在的桶的下标。
+   */
+  public static int bucketOf(final long value) {
+    return (value <= 0 ? 0 : Long.SIZE - Long.numberOfLeadingZeros(value));
+  }
+
+  /**
+   * 获取指定的桶中数值的上界。
+   *
+   * @param bucket
+   *     桶的下标。
+   * @return 该桶中最大的数值。
+   */
+  public static long upperBoundOf(final int bucket) {
+    return (bucket >= Long.SIZE - 1 ? Long.MAX_VALUE : (1L << bucket) - 1L);
+  }
+
+  /**
+   * 记录一个数值。
+   *
+   * @param value
+   *     待记录的数值，负数按0处理。
+   */
+  public void record(final long value) {
+    final long v = Math.max(value, 0L);
+    buckets[bucketOf(v)].increment();
+    sum.add(v);
+    max.accumulate(v);
+  }
+
+  /**
+   * 获取已记录的数值的个数。
+   *
+   * @return 已记录的数值的个数。
+   */
+  public long getCount() {
+    long result = 0;
+    for (final LongAdder bucket : buckets) {
+      result += bucket.sum();
+    }
+    return result;
+  }
+
+  /**
+   * 获取已记录的数值之和。
+   *
+   * @return 已记录的数值之和。
+   */
+  public long getSum() {
+    return sum.sum();
+  }
+
+  /**
+   * 获取已记录的最大的数值。
+   *
+   * @return 已记录的最大的数值；若没有记录任何数值则返回0。
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * 获取已记录的数值的平均值。
+   *
+   * @return 已记录的数值的平均值；若没有记录任何数值则返回0。
+   */
+  public double getMean() {
+    final long count = getCount();
+    return (count == 0 ? 0.0 : (double) getSum() / count);
+  }
+
+  /**
+   * 获取指定分位数的近似值。
+   *
+   * @param quantile
+   *     分位数，在{@code [0, 1]}之间。
+   * @return 该分位数所在的桶的上界，但不超过已记录的最大值；若没有记录任何数值则返回0。
+   */
+  public long getQuantile(final double quantile) {
+    if (quantile < 0 || quantile > 1) {
+      throw new IllegalArgumentException("The quantile must be in [0, 1].");
+    }
+    final long[] counts = getBucketCounts();
+    long total = 0;
+    for (final long count : counts) {
+      total += count;
+    }
+    if (total == 0) {
+      return 0L;
+    }
+    final long rank = Math.max(1L, (long) Math.ceil(quantile * total));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; ++i) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min(upperBoundOf(i), getMax());
+      }
+    }
+    return getMax();
+  }
+
+  /**
+   * 获取各个桶中数值的个数。
+   *
+   * @return 长度为{@link #BUCKETS}的数组，第{@code k}个元素为第{@code k}个桶中数值的个数。
+   */
+  public long[] getBucketCounts() {
+    final long[] result = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; ++i) {
+      result[i] = buckets[i].sum();
+    }
+    return result;
+  }
+
+  /**
+   * 清空此直方图。
+   *
+   * <p>与其他线程的并发记录之间没有原子性，清空期间记录的数值可能部分丢失。
+   */
+  public void reset() {
+    for (final LongAdder bucket : buckets) {
+      bucket.reset();
+    }
+    sum.reset();
+    max.reset();
+  }
+
+  @Override
+  public String toString() {
+    return new ToStringBuilder(this)
+        .append("count", getCount())
+        .append("mean", getMean())
+        .append("max", getMax())
+        .toString();
+  }
+}
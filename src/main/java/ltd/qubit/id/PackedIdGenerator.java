@@ -0,0 +1,310 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * 通过单个原子长整数实现的ID生成器。
+ *
+ * <p>此生成器将时间戳和序列号打包存放在同一个长整数中：
+ * <pre><code>
+ *  [时间戳] [序列号]
+ * </code></pre>
+ * 从而只需对一个长整数做CAS操作即可生成ID，生成每个ID时都不需要分配新的对象。该长整数
+ * 前后都填充了一个缓存行大小的空间，以避免和其他变量发生伪共享。
+ *
+ * <p>此外，此生成器会缓存当前时间片对应的时间戳比特（稀疏模式下为反序后的时间戳），
+ * 同一个时间片内构造ID时无需重复计算。
+ *
+ * <p>这个类是线程安全的，可以用于多线程环境。
+ *
+ * @author 胡海星
+ */
+@ThreadSafe
+public class PackedIdGenerator extends AbstractIdGenerator {
+
+  /**
+   * 填充的长整数个数，8个长整数正好占据一个64字节的缓存行。
+   */
+  private static final int PADDING = 8;
+
+  /**
+   * 打包后的状态在数组中的下标。
+   */
+  private static final int STATE = PADDING;
+
+  /**
+   * 存放打包后的时间戳和序列号的数组，仅使用位于中间的一个元素，其余元素用于填充。
+   */
+  private final AtomicLongArray state;
+
+  /**
+   * 缓存的当前时间片的时间戳比特。
+   */
+  private volatile EncodedSlice cache;
+
+  /**
+   * 在新的时间片中为被放行的等待线程领取连续序列号的回调。
+   */
+  private final SliceBarrier.Claimer claimer = this::claim;
+
+  /**
+   * 构造默认的ID生成器。
+   */
+  public PackedIdGenerator() {
+    this(DEFAULT_MODE, DEFAULT_PRECISION, 0L, DEFAULT_EPOCH);
+  }
+
+  /**
+   * 构造一个ID生成器。
+   *
+   * @param mode
+   *     该ID生成器的生成模式，不可为{@code null}。
+   * @param precision
+   *     该ID生成器的时间戳精度，不可为{@code null}。
+   */
+  public PackedIdGenerator(final Mode mode, final Precision precision) {
+    this(mode, precision, 0L, DEFAULT_EPOCH);
+  }
+
+  /**
+   * 构造一个ID生成器。
+   *
+   * @param host
+   *     该ID生成器的主机编号，必须在 {@code [0, 512)} 之间。
+   * @param epoch
+   *     时间戳起点。
+   */
+  public PackedIdGenerator(final long host, final Instant epoch) {
+    this(DEFAULT_MODE, DEFAULT_PRECISION, host, epoch);
+  }
+
+  /**
+   * 构造一个ID生成器。
+   *
+   * @param mode
+   *     该ID生成器的生成模式，不可为{@code null}。
+   * @param precision
+   *     该ID生成器的时间戳精度，不可为{@code null}。
+   * @param host
+   *     该ID生成器的主机编号，必须在 {@code [0, 512)} 之间。
+   */
+  public PackedIdGenerator(final Mode mode, final Precision precision, final long host) {
+    this(mode, precision, host, DEFAULT_EPOCH);
+  }
+
+  /**
+   * 构造一个ID生成器。
+   *
+   * @param mode
+   *     该ID生成器的生成模式，不可为{@code null}。
+   * @param precision
+   *     该ID生成器的时间戳精度，不可为{@code null}。
+   * @param host
+   *     该ID生成器的主机编号，必须在 {@code [0, 512)} 之间。
+   * @param epoch
+   *     时间戳起点。
+   */
+  public PackedIdGenerator(final Mode mode, final Precision precision, final long host,
+      final Instant epoch) {
+    super(mode, precision, host, epoch);
+    this.state = new AtomicLongArray(2 * PADDING + 1);
+    this.cache = new EncodedSlice(0L, builder.encodeTimestamp(0L));
+  }
+
+  /**
+   * 使用指定的时间戳生成器构造一个ID生成器。
+   *
+   * @param mode
+   *     该ID生成器的生成模式，不可为{@code null}。
+   * @param host
+   *     该ID生成器的主机编号，必须在 {@code [0, 512)} 之间。
+   * @param timer
+   *     该ID生成器使用的时间戳生成器，不可为{@code null}。
+   */
+  public PackedIdGenerator(final Mode mode, final long host, final Timer timer) {
+    super(mode, host, timer);
+    this.state = new AtomicLongArray(2 * PADDING + 1);
+    this.cache = new EncodedSlice(0L, builder.encodeTimestamp(0L));
+  }
+
+  /**
+   * 分配下一个时间戳和序列号。
+   *
+   * <p>由于此生成器的状态本身就是打包后的时间戳和序列号，CAS成功后直接返回新的状态。
+   *
+   * @param deadline
+   *     截止时刻，以{@link System#nanoTime()}为基准。
+   * @param interruptible
+   *     等待过程中是否响应中断。
+   * @return
+   *     打包后的时间戳和序列号；若在截止时刻之前未能分配则返回{@link #EXHAUSTED}。
+   * @throws InterruptedException
+   *     若{@code interruptible}为{@code true}且当前线程在等待过程中被中断。
+   */
+  @Override
+  protected final long next(final long deadline, final boolean interruptible)
+      throws InterruptedException {
+    int retries = 0;
+    while (true) {
+      final long current = state.get(STATE);
+      final long timestamp = timer.now();
+      final long sequence;
+      if (timestamp == (current >> sequenceBits)) {
+        // 本次调用和上次调用在同一个时间片内，增加序号计数器
+        sequence = (current & maxSequence) + 1;
+        if (sequence > maxSequence) {
+          // 序号超出上界，等待进入下一个时间片；若未能直接分配到序列号则重头尝试
+          final long ticket = awaitTicket(timestamp, deadline, interruptible, claimer);
+          if (ticket != RETRY) {
+            return ticket;
+          }
+          continue;
+        }
+      } else {
+        // 本次调用和上次调用不在同一个时间片内，重置序号计数器
+        sequence = 0;
+      }
+      final long next = pack(timestamp, sequence);
+      if (state.compareAndSet(STATE, current, next)) {
+        // 运行到这里表明前面的操作没有被其他线程打断
+        recordCasRetries(retries);
+        if (sequence == 0) {
+          recordSliceSwitch(current >> sequenceBits, current & maxSequence, timestamp);
+        }
+        return next;
+      }
+      // 否则，重头尝试
+      ++retries;
+    }
+  }
+
+  /**
+   * 在当前时间片中通过一次CAS操作领取至多指定数目的连续序列号。
+   *
+   * <p>此函数从不等待，若当前时间片剩余的序列号不足{@code count}个，则只领取剩余的序列号。
+   *
+   * @param count
+   *     需要领取的序列号的数目。
+   * @return
+   *     打包后的时间戳和第一个序列号；若当前时间片已经没有剩余的序列号则返回
+   *     {@link #EXHAUSTED}。
+   */
+  final long claim(final int count) {
+    while (true) {
+      final long current = state.get(STATE);
+      final long timestamp = timer.now();
+      final long first = (timestamp == (current >> sequenceBits)
+                          ? (current & maxSequence) + 1 : 0);
+      if (first > maxSequence) {
+        return EXHAUSTED;
+      }
+      final long n = Math.min(count, maxSequence - first + 1);
+      if (state.compareAndSet(STATE, current, pack(timestamp, first + n - 1))) {
+        if (first == 0) {
+          recordSliceSwitch(current >> sequenceBits, current & maxSequence, timestamp);
+        }
+        return pack(timestamp, first);
+      }
+    }
+  }
+
+  /**
+   * 一次性预留指定数目的连续ID。
+   *
+   * <p>在每个时间片内只需要一次CAS操作即可预留该时间片内剩余的连续序列号。
+   *
+   * @param count
+   *     需要预留的ID的数目，必须大于0。
+   * @return
+   *     预留的ID范围列表，当预留的ID跨越了时间片的边界时，结果会被拆分为多个范围。
+   * @throws SequenceExhaustedException
+   *     若当前时间片的序列号耗尽，而序列号耗尽策略放弃等待。
+   */
+  @Override
+  public final List<IdRange> reserve(final int count) {
+    if (count <= 0) {
+      throw new IllegalArgumentException("The count must be positive.");
+    }
+    final List<IdRange> result = new ArrayList<>(1);
+    long remaining = count;
+    while (remaining > 0) {
+      final long current = state.get(STATE);
+      final long timestamp = timer.now();
+      final long first;
+      if (timestamp == (current >> sequenceBits)) {
+        // 本次调用和上次调用在同一个时间片内，从下一个序号开始预留
+        first = (current & maxSequence) + 1;
+        if (first > maxSequence) {
+          // 序号超出上界，等待进入下一个时间片后重头尝试
+          awaitNextSlice(timestamp);
+          continue;
+        }
+      } else {
+        // 本次调用和上次调用不在同一个时间片内，从0开始预留
+        first = 0;
+      }
+      final long n = Math.min(remaining, maxSequence - first + 1);
+      final long last = first + n - 1;
+      if (state.compareAndSet(STATE, current, pack(timestamp, last))) {
+        if (first == 0) {
+          recordSliceSwitch(current >> sequenceBits, current & maxSequence, timestamp);
+        }
+        result.add(new IdRange(build(timestamp, first), (int) n));
+        remaining -= n;
+      }
+      // 否则，重头尝试
+    }
+    return result;
+  }
+
+  /**
+   * 利用缓存的时间戳比特构造ID。
+   *
+   * <p>只有在进入新的时间片时才会重新计算时间戳比特，并分配一个新的缓存对象。
+   */
+  @Override
+  protected final long build(final long timestamp, final long sequence) {
+    EncodedSlice slice = cache;
+    if (slice.timestamp != timestamp) {
+      slice = new EncodedSlice(timestamp, builder.encodeTimestamp(timestamp));
+      cache = slice;
+    }
+    return builder.buildEncoded(slice.encoded, sequence);
+  }
+
+  /**
+   * 缓存的时间片。
+   */
+  @Immutable
+  private static final class EncodedSlice {
+
+    /**
+     * 该时间片对应的时间戳。
+     */
+    final long timestamp;
+
+    /**
+     * 该时间戳在ID中所占据的比特。
+     */
+    final long encoded;
+
+    EncodedSlice(final long timestamp, final long encoded) {
+      this.timestamp = timestamp;
+      this.encoded = encoded;
+    }
+  }
+}
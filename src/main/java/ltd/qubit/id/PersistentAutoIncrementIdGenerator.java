@@ -0,0 +1,326 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import ltd.qubit.commons.text.tostring.ToStringBuilder;
+
+import static ltd.qubit.commons.lang.Argument.requireNonNull;
+
+/**
+ * 可持久化的自增ID生成器。
+ *
+ * <p>此生成器和{@link AutoIncrementIdGenerator}一样生成从1开始顺序递增的ID，但会把已经
+ * 预留的最大ID（即高水位）记录在一个内存映射的小文件中。ID按块预留：只有当生成的ID超出
+ * 当前的高水位时，才把高水位推进一个块的大小并调用{@link MappedByteBuffer#force()}
+ * 将其写入磁盘；块内的ID只需对一个原子长整数做一次自增操作，持久化的代价每个块只需付出
+ * 一次。
+ *
+ * <p>进程重新启动后，生成器从文件中记录的高水位之后继续生成ID。由于高水位总是在其覆盖的
+ * ID被返回之前写入磁盘，即使进程崩溃，重启后也不会生成重复的ID；代价是崩溃前已经预留
+ * 但尚未使用的ID将被跳过。
+ *
+ * <p>高水位是文件中一个按8字节对齐的长整数，其写入不会被撕裂。同一个文件同时只能被一个
+ * 生成器打开；使用完毕后应调用{@link #close()}释放文件。
+ *
+ * @author 胡海星
+ */
+@ThreadSafe
+public class PersistentAutoIncrementIdGenerator implements IdGenerator, Closeable {
+
+  /**
+   * 默认的块大小。
+   */
+  public static final int DEFAULT_BLOCK_SIZE = 10000;
+
+  /**
+   * 文件的魔数，用于识别文件格式，其ASCII表示为{@code "QUBITHWM"}。
+   */
+  static final long MAGIC = 0x515542495448574DL;
+
+  /**
+   * 魔数在文件中的偏移量。
+   */
+  static final int MAGIC_OFFSET = 0;
+
+  /**
+   * 高水位在文件中的偏移量。
+   */
+  static final int HIGH_WATER_MARK_OFFSET = Long.BYTES;
+
+  /**
+   * 文件的大小。
+   */
+  static final int FILE_SIZE = 2 * Long.BYTES;
+
+  /**
+   * 存放高水位的文件。
+   */
+  private final Path file;
+
+  /**
+   * 每次预留的块大小。
+   */
+  private final int blockSize;
+
+  /**
+   * 打开的文件通道。
+   */
+  private final FileChannel channel;
+
+  /**
+   * 防止其他进程同时打开同一个文件的文件锁。
+   */
+  private final FileLock fileLock;
+
+  /**
+   * 映射到文件的缓冲区。
+   */
+  private final MappedByteBuffer buffer;
+
+  /**
+   * 保护高水位推进过程的互斥锁。
+   */
+  private final Lock lock = new ReentrantLock();
+
+  /**
+   * 上一个生成的ID。
+   */
+  private final AtomicLong lastId;
+
+  /**
+   * 已经写入磁盘的高水位，不大于此数值的ID都可以直接返回。
+   */
+  private volatile long highWaterMark;
+
+  /**
+   * 使用默认的块大小构造一个ID生成器。
+   *
+   * @param file
+   *     存放高水位的文件，不可为{@code null}；若文件不存在则自动创建。
+   * @throws IOException
+   *     若无法打开或创建该文件，该文件的格式不正确，或者该文件已被其他生成器打开。
+   */
+  public PersistentAutoIncrementIdGenerator(final Path file) throws IOException {
+    this(file, DEFAULT_BLOCK_SIZE);
+  }
+
+  /**
+   * 构造一个ID生成器。
+   *
+   * @param file
+   *     存放高水位的文件，不可为{@code null}；若文件不存在则自动创建。
+   * @param blockSize
+   *     每次预留的块大小，必须大于0。
+   * @throws IOException
+   *     若无法打开或创建该文件，该文件的格式不正确，或者该文件已被其他生成器打开。
+   */
+  public PersistentAutoIncrementIdGenerator(final Path file, final int blockSize)
+      throws IOException {
+    this.file = requireNonNull("file", file);
+    if (blockSize <= 0) {
+      throw new IllegalArgumentException("The block size must be positive.");
+    }
+    this.blockSize = blockSize;
+    this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      this.fileLock = lockFile(channel, file);
+      final long size = channel.size();
+      if (size != 0 && size != FILE_SIZE) {
+        throw new IOException("Invalid high-water mark file: " + file);
+      }
+      this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+      if (size == 0) {
+        buffer.putLong(HIGH_WATER_MARK_OFFSET, 0L);
+        buffer.putLong(MAGIC_OFFSET, MAGIC);
+        buffer.force();
+      } else if (buffer.getLong(MAGIC_OFFSET) != MAGIC
+          || buffer.getLong(HIGH_WATER_MARK_OFFSET) < 0) {
+        throw new IOException("Invalid high-water mark file: " + file);
+      }
+    } catch (final IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+    this.highWaterMark = buffer.getLong(HIGH_WATER_MARK_OFFSET);
+    this.lastId = new AtomicLong(highWaterMark);
+  }
+
+  private static FileLock lockFile(final FileChannel channel, final Path file)
+      throws IOException {
+    final FileLock result;
+    try {
+      result = channel.tryLock();
+    } catch (final OverlappingFileLockException e) {
+      throw new IOException("The file is already in use: " + file, e);
+    }
+    if (result == null) {
+      throw new IOException("The file is already in use: " + file);
+    }
+    return result;
+  }
+
+  public final Path getFile() {
+    return file;
+  }
+
+  public final int getBlockSize() {
+    return blockSize;
+  }
+
+  /**
+   * 获取已经写入磁盘的高水位。
+   *
+   * @return 已经写入磁盘的高水位，重新启动后生成的ID都大于此数值。
+   */
+  public final long getHighWaterMark() {
+    return highWaterMark;
+  }
+
+  @Override
+  public Mode getMode() {
+    return Mode.SEQUENTIAL;
+  }
+
+  @Override
+  public Precision getPrecision() {
+    return null;
+  }
+
+  @Override
+  public long generate() {
+    final long id = lastId.incrementAndGet();
+    if (id > highWaterMark) {
+      // 超出了已经写入磁盘的高水位，推进高水位后才能返回
+      ensureReserved(id);
+    }
+    return id;
+  }
+
+  @Override
+  public List<IdRange> reserve(final int count) {
+    if (count <= 0) {
+      throw new IllegalArgumentException("The count must be positive.");
+    }
+    final long start = lastId.getAndAdd(count) + 1;
+    final long last = start + count - 1;
+    if (last > highWaterMark) {
+      ensureReserved(last);
+    }
+    return Collections.singletonList(new IdRange(start, count));
+  }
+
+  /**
+   * 重置此生成器，使其重新从1开始生成ID。
+   *
+   * <p>文件中的高水位也会被重置为0。此函数不能和其他生成ID的调用并发执行。
+   */
+  @Override
+  public void reset() {
+    lock.lock();
+    try {
+      writeHighWaterMark(0L);
+      lastId.set(0L);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * 推进高水位，直到其不小于指定的ID。
+   *
+   * <p>多个线程可能同时超出高水位，只有第一个获得互斥锁的线程负责写入磁盘，其余的线程
+   * 获得互斥锁后会发现高水位已经被推进。
+   *
+   * @param id
+   *     需要被高水位覆盖的ID。
+   * @throws UncheckedIOException
+   *     若无法将高水位写入磁盘。
+   */
+  private void ensureReserved(final long id) {
+    lock.lock();
+    try {
+      final long current = highWaterMark;
+      if (id > current) {
+        // 按块推进高水位，使得一次写入能够覆盖该ID
+        final long blocks = (id - current + blockSize - 1) / blockSize;
+        writeHighWaterMark(current + blocks * blockSize);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * 将高水位写入磁盘，调用者必须持有互斥锁。
+   *
+   * @param value
+   *     新的高水位。
+   * @throws UncheckedIOException
+   *     若无法将高水位写入磁盘。
+   */
+  private void writeHighWaterMark(final long value) {
+    if (!channel.isOpen()) {
+      throw new IllegalStateException("The generator has been closed.");
+    }
+    buffer.putLong(HIGH_WATER_MARK_OFFSET, value);
+    buffer.force();
+    // 只有写入磁盘之后才能公开新的高水位
+    highWaterMark = value;
+  }
+
+  /**
+   * 释放文件锁并关闭文件。
+   *
+   * <p>关闭后的生成器在超出高水位时会抛出{@link IllegalStateException}。
+   *
+   * @throws IOException
+   *     若关闭文件时出错。
+   */
+  @Override
+  public void close() throws IOException {
+    lock.lock();
+    try {
+      if (channel.isOpen()) {
+        buffer.force();
+        fileLock.release();
+        channel.close();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return new ToStringBuilder(this)
+        .append("file", file)
+        .append("blockSize", blockSize)
+        .append("lastId", lastId.get())
+        .append("highWaterMark", highWaterMark)
+        .toString();
+  }
+}
@@ -0,0 +1,484 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import ltd.qubit.commons.text.tostring.ToStringBuilder;
+
+import static ltd.qubit.commons.lang.Argument.requireNonNull;
+
+/**
+ * 基于号段的ID生成器。
+ *
+ * <p>此生成器从{@link SegmentStore}按号段批量分配ID，生成的ID是严格递增的、稠密的长整数，
+ * 适合用作短小的主键。生成器持有当前号段，并在当前号段被消耗了
+ * {@link #PREFETCH_RATIO}之后，由一个后台线程异步地从存储中预取下一个号段（双缓冲），
+ * 因此只要存储的响应时间短于一个号段的消耗时间，调用者就无需等待存储。当前号段内的ID
+ * 只需对一个原子长整数做一次自增操作。
+ *
+ * <p>号段的大小会根据观测到的消耗速度自动调整：预取时根据当前号段被消耗的速度估算下一个
+ * 号段的大小，使每个号段大约能够使用{@code targetLifetime}的时间；每次调整最多加倍或
+ * 减半，并被限制在{@code [minSegmentSize, maxSegmentSize]}之间。
+ *
+ * <p>进程重启后，尚未使用完的号段中剩余的ID将被跳过。使用完毕后应调用{@link #close()}
+ * 结束后台线程。
+ *
+ * @author 胡海星
+ */
+@ThreadSafe
+public class SegmentIdGenerator implements IdGenerator, AutoCloseable {
+
+  /**
+   * 当前号段被消耗的比例达到此数值时开始预取下一个号段。
+   */
+  public static final double PREFETCH_RATIO = 0.1;
+
+  /**
+   * 默认的最小号段大小。
+   */
+  public static final int DEFAULT_MIN_SEGMENT_SIZE = 1000;
+
+  /**
+   * 默认的最大号段大小。
+   */
+  public static final int DEFAULT_MAX_SEGMENT_SIZE = 1_000_000;
+
+  /**
+   * 默认的号段目标使用时间。
+   */
+  public static final Duration DEFAULT_TARGET_LIFETIME = Duration.ofMinutes(15);
+
+  /**
+   * 号段存储。
+   */
+  private final SegmentStore store;
+
+  /**
+   * 最小号段大小。
+   */
+  private final int minSegmentSize;
+
+  /**
+   * 最大号段大小。
+   */
+  private final int maxSegmentSize;
+
+  /**
+   * 每个号段的目标使用时间，单位为纳秒。
+   */
+  private final long targetLifetime;
+
+  /**
+   * 预取号段的后台线程。
+   */
+  private final ExecutorService prefetcher;
+
+  /**
+   * 保护号段切换和预取过程的互斥锁。
+   */
+  private final Lock lock = new ReentrantLock();
+
+  /**
+   * 当前号段；尚未分配任何号段时为一个空号段。
+   */
+  private volatile Segment current;
+
+  /**
+   * 正在预取或已经预取的下一个号段。
+   */
+  @GuardedBy("lock")
+  private CompletableFuture<Segment> pending;
+
+  /**
+   * 下一次预取的号段大小。
+   */
+  @GuardedBy("lock")
+  private int segmentSize;
+
+  /**
+   * 从存储中分配号段的次数。
+   */
+  private final AtomicLong allocations = new AtomicLong();
+
+  /**
+   * 调用者因为下一个号段尚未就绪而等待的次数。
+   */
+  private final AtomicLong waits = new AtomicLong();
+
+  /**
+   * 使用默认的参数构造一个ID生成器。
+   *
+   * @param store
+   *     号段存储，不可为{@code null}。
+   */
+  public SegmentIdGenerator(final SegmentStore store) {
+    this(store, DEFAULT_MIN_SEGMENT_SIZE, DEFAULT_MAX_SEGMENT_SIZE, DEFAULT_TARGET_LIFETIME);
+  }
+
+  /**
+   * 构造一个ID生成器。
+   *
+   * @param store
+   *     号段存储，不可为{@code null}。
+   * @param minSegmentSize
+   *     最小号段大小，也是第一个号段的大小，必须大于0。
+   * @param maxSegmentSize
+   *     最大号段大小，不可小于{@code minSegmentSize}。
+   * @param targetLifetime
+   *     每个号段的目标使用时间，不可为{@code null}，必须大于0。
+   */
+  public SegmentIdGenerator(final SegmentStore store, final int minSegmentSize,
+      final int maxSegmentSize, final Duration targetLifetime) {
+    this.store = requireNonNull("store", store);
+    requireNonNull("targetLifetime", targetLifetime);
+    if (minSegmentSize <= 0) {
+      throw new IllegalArgumentException("The minimum segment size must be positive.");
+    }
+    if (maxSegmentSize < minSegmentSize) {
+      throw new IllegalArgumentException("The maximum segment size must not be less "
+          + "than the minimum segment size.");
+    }
+    if (targetLifetime.isNegative() || targetLifetime.isZero()) {
+      throw new IllegalArgumentException("The target lifetime must be positive.");
+    }
+    this.minSegmentSize = minSegmentSize;
+    this.maxSegmentSize = maxSegmentSize;
+    this.targetLifetime = targetLifetime.toNanos();
+    this.segmentSize = minSegmentSize;
+    this.current = new Segment(0L, 0);
+    this.prefetcher = Executors.newSingleThreadExecutor((runnable) -> {
+      final Thread thread = new Thread(runnable, "SegmentIdGenerator-prefetcher");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  public final SegmentStore getStore() {
+    return store;
+  }
+
+  public final int getMinSegmentSize() {
+    return minSegmentSize;
+  }
+
+  public final int getMaxSegmentSize() {
+    return maxSegmentSize;
+  }
+
+  public final Duration getTargetLifetime() {
+    return Duration.ofNanos(targetLifetime);
+  }
+
+  /**
+   * 获取下一次预取的号段大小。
+   *
+   * @return 下一次预取的号段大小。
+   */
+  public final int getSegmentSize() {
+    lock.lock();
+    try {
+      return segmentSize;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * 获取从存储中分配号段的次数。
+   *
+   * @return 从存储中分配号段的次数。
+   */
+  public final long getAllocations() {
+    return allocations.get();
+  }
+
+  /**
+   * 获取调用者因为下一个号段尚未就绪而等待存储的次数。
+   *
+   * @return 调用者等待存储的次数，包括分配第一个号段时的等待。
+   */
+  public final long getWaits() {
+    return waits.get();
+  }
+
+  @Override
+  public Mode getMode() {
+    return Mode.SEQUENTIAL;
+  }
+
+  @Override
+  public Precision getPrecision() {
+    return null;
+  }
+
+  /**
+   * 生成下一个ID。
+   *
+   * @return 生成的ID。
+   * @throws UncheckedIOException
+   *     若当前号段已经耗尽，而从存储中分配下一个号段时出错。
+   */
+  @Override
+  public long generate() {
+    while (true) {
+      final Segment segment = current;
+      final long id = segment.next.getAndIncrement();
+      if (id < segment.end) {
+        if (id == segment.threshold) {
+          // 只有恰好取得阈值的线程负责触发预取
+          prefetch(segment, id);
+        }
+        return id;
+      }
+      // 当前号段已经耗尽，切换到下一个号段后重头尝试
+      switchFrom(segment);
+    }
+  }
+
+  /**
+   * 一次性预留指定数目的连续ID。
+   *
+   * @param count
+   *     需要预留的ID的数目，必须大于0。
+   * @return
+   *     预留的ID范围列表，当预留的ID跨越了号段的边界时，结果会被拆分为多个范围。
+   * @throws UncheckedIOException
+   *     若从存储中分配号段时出错。
+   */
+  @Override
+  public List<IdRange> reserve(final int count) {
+    if (count <= 0) {
+      throw new IllegalArgumentException("The count must be positive.");
+    }
+    final List<IdRange> result = new ArrayList<>(1);
+    int remaining = count;
+    while (remaining > 0) {
+      final Segment segment = current;
+      final long first = segment.next.getAndAdd(remaining);
+      if (first < segment.end) {
+        final int n = (int) Math.min(remaining, segment.end - first);
+        if (first <= segment.threshold && segment.threshold < first + n) {
+          prefetch(segment, segment.threshold);
+        }
+        result.add(new IdRange(first, n));
+        remaining -= n;
+        if (remaining == 0) {
+          break;
+        }
+      }
+      // 当前号段已经耗尽，切换到下一个号段后继续预留
+      switchFrom(segment);
+    }
+    return result;
+  }
+
+  /**
+   * 重置此生成器。
+   *
+   * <p>由于已经分配的号段不能被再次使用，此函数只会丢弃当前号段和已经预取的号段，之后
+   * 生成的ID将来自从存储中重新分配的号段，并且仍然大于此前生成的所有ID。
+   */
+  @Override
+  public void reset() {
+    lock.lock();
+    try {
+      current = new Segment(0L, 0);
+      pending = null;
+      segmentSize = minSegmentSize;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * 在当前号段的消耗达到阈值时，异步地预取下一个号段。
+   *
+   * @param segment
+   *     消耗达到阈值的号段。
+   * @param id
+   *     触发预取的ID。
+   */
+  private void prefetch(final Segment segment, final long id) {
+    lock.lock();
+    try {
+      if (current == segment && pending == null) {
+        segmentSize = adapt(segment, id);
+        pending = submit(segmentSize);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * 根据号段的消耗速度计算下一个号段的大小。
+   *
+   * @param segment
+   *     当前号段。
+   * @param id
+   *     触发预取的ID。
+   * @return 下一个号段的大小。
+   */
+  @GuardedBy("lock")
+  private int adapt(final Segment segment, final long id) {
+    final long consumed = id - segment.start + 1;
+    final long elapsed = Math.max(1L, System.nanoTime() - segment.activated);
+    // 按当前的消耗速度，使下一个号段的使用时间接近目标使用时间
+    final double estimated = (double) consumed * targetLifetime / elapsed;
+    final double bounded = Math.max(segment.size / 2.0, Math.min(segment.size * 2.0, estimated));
+    return (int) Math.max(minSegmentSize, Math.min(maxSegmentSize, bounded));
+  }
+
+  /**
+   * 提交一个预取号段的任务。
+   *
+   * <p>预取任务由单个后台线程按照提交的顺序执行，因此先提交的任务分配到的号段总是小于
+   * 后提交的任务分配到的号段。
+   */
+  @GuardedBy("lock")
+  private CompletableFuture<Segment> submit(final int size) {
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        final IdRange range = store.allocate(size);
+        allocations.incrementAndGet();
+        return new Segment(range.getStart(), range.size());
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }, prefetcher);
+  }
+
+  /**
+   * 从已经耗尽的号段切换到下一个号段。
+   *
+   * <p>若下一个号段尚未预取，则立即提交预取任务；若下一个号段尚未就绪，则等待其就绪。
+   *
+   * @param segment
+   *     已经耗尽的号段。
+   * @throws UncheckedIOException
+   *     若从存储中分配下一个号段时出错。
+   */
+  private void switchFrom(final Segment segment) {
+    lock.lock();
+    try {
+      if (current != segment) {
+        // 其他线程已经完成了切换
+        return;
+      }
+      CompletableFuture<Segment> future = pending;
+      if (future == null) {
+        future = submit(segmentSize);
+      }
+      pending = null;
+      if (!future.isDone()) {
+        waits.incrementAndGet();
+      }
+      final Segment next;
+      try {
+        next = future.join();
+      } catch (final CompletionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw e;
+      }
+      next.activated = System.nanoTime();
+      current = next;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * 结束预取号段的后台线程。
+   */
+  @Override
+  public void close() {
+    prefetcher.shutdownNow();
+  }
+
+  @Override
+  public String toString() {
+    return new ToStringBuilder(this)
+        .append("store", store)
+        .append("minSegmentSize", minSegmentSize)
+        .append("maxSegmentSize", maxSegmentSize)
+        .append("targetLifetime", getTargetLifetime())
+        .append("current", current)
+        .toString();
+  }
+
+  /**
+   * 号段。
+   */
+  private static final class Segment {
+
+    /**
+     * 号段中的第一个ID。
+     */
+    final long start;
+
+    /**
+     * 号段中最后一个ID的下一个数值。
+     */
+    final long end;
+
+    /**
+     * 号段中ID的个数。
+     */
+    final int size;
+
+    /**
+     * 取得此ID的线程负责触发预取。
+     */
+    final long threshold;
+
+    /**
+     * 下一个待分配的ID，可能超出{@link #end}。
+     */
+    final AtomicLong next;
+
+    /**
+     * 此号段成为当前号段的时刻，以{@link System#nanoTime()}为基准。
+     */
+    volatile long activated;
+
+    Segment(final long start, final int size) {
+      this.start = start;
+      this.end = start + size;
+      this.size = size;
+      this.threshold = (size == 0 ? Long.MIN_VALUE : start + (long) (size * PREFETCH_RATIO));
+      this.next = new AtomicLong(start);
+    }
+
+    @Override
+    public String toString() {
+      return new ToStringBuilder(this)
+          .append("start", start)
+          .append("end", end)
+          .append("next", next.get())
+          .toString();
+    }
+  }
+}
@@ -0,0 +1,34 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.io.IOException;
+
+/**
+ * 号段存储接口，为{@link SegmentIdGenerator}持久地分配号段。
+ *
+ * <p>每次分配的号段都必须大于此前从同一个存储分配的所有号段，即使分配号段的进程在
+ * 分配之后崩溃，该号段也不能被再次分配。
+ *
+ * @author 胡海星
+ */
+public interface SegmentStore {
+
+  /**
+   * 分配一个新的号段。
+   *
+   * @param size
+   *     号段中ID的个数，必须大于0。
+   * @return
+   *     新分配的号段，其中的ID大于此前分配的所有ID。
+   * @throws IOException
+   *     若访问存储时出错。
+   */
+  IdRange allocate(int size) throws IOException;
+}
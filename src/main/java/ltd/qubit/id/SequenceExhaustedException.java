@@ -0,0 +1,24 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+/**
+ * 当时间片内的序列号耗尽，而序列号耗尽策略放弃等待时抛出此异常。
+ *
+ * @author 胡海星
+ * @see StandardExhaustionPolicy#FAIL_FAST
+ */
+public class SequenceExhaustedException extends IllegalStateException {
+
+  private static final long serialVersionUID = 5079470137562846563L;
+
+  public SequenceExhaustedException() {
+    super("The sequence of the current time slice is exhausted.");
+  }
+}
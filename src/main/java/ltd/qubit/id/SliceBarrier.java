@@ -0,0 +1,351 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * 在时间片边界统一唤醒等待线程的序列号耗尽策略。
+ *
+ * <p>当某个时间片的序列号耗尽时，所有等待的线程都挂起在同一个属于该时间片的屏障上，
+ * 而不是各自轮询计时器。屏障创建时根据计时器计算出距离时间片边界的纳秒数，由一个共享的
+ * 调度线程在边界时刻放行所有等待的线程，因此每个等待线程只会被唤醒一次。
+ *
+ * <p>如果ID生成器在等待时提供了{@link Claimer}，调度线程在放行前会通过一次CAS操作在新的
+ * 时间片中为所有等待线程领取一段连续的序列号，并按照线程到达屏障的先后顺序依次分配，
+ * 从而避免被放行的线程在时间片边界再次争抢序列号。在放行之前已经超时或被中断的线程不会
+ * 被计入，也不会占用新的时间片中的序列号。
+ *
+ * <p>每个{@link SliceBarrier}对象只能被一个ID生成器使用。
+ *
+ * @author 胡海星
+ */
+@ThreadSafe
+public class SliceBarrier implements ExhaustionPolicy {
+
+  /**
+   * 表示在截止时刻之前屏障未被放行。
+   */
+  public static final long TIMEOUT = -1L;
+
+  /**
+   * 表示屏障已被放行，但没有分配到序列号，调用者应重新尝试生成ID。
+   */
+  public static final long RETRY = -2L;
+
+  /**
+   * 计时器尚未进入下一个时间片时，再次尝试放行屏障的间隔，单位为纳秒。
+   */
+  private static final long RESCHEDULE_NANOS = 100_000L;
+
+  /**
+   * 所有屏障共享的调度线程。
+   */
+  private static final ScheduledExecutorService SCHEDULER =
+      Executors.newSingleThreadScheduledExecutor((runnable) -> {
+        final Thread thread = new Thread(runnable, "SliceBarrier-scheduler");
+        thread.setDaemon(true);
+        return thread;
+      });
+
+  /**
+   * 在新的时间片中一次性领取连续序列号的回调接口。
+   */
+  @FunctionalInterface
+  public interface Claimer {
+
+    /**
+     * 在当前时间片中通过一次原子操作领取至多{@code count}个连续的序列号。
+     *
+     * <p>若当前时间片剩余的序列号不足{@code count}个，则领取剩余的全部序列号。
+     *
+     * @param count
+     *     需要领取的序列号的数目。
+     * @return
+     *     打包后的时间戳和第一个序列号，其低位为序列号，高位为时间戳；若当前时间片已经
+     *     没有剩余的序列号，则返回负数。
+     */
+    long claim(int count);
+  }
+
+  /**
+   * 当前的屏障。
+   */
+  private final AtomicReference<Generation> current = new AtomicReference<>();
+
+  /**
+   * 屏障被放行的次数。
+   */
+  private final AtomicLong releases = new AtomicLong();
+
+  /**
+   * 被放行时直接分配到序列号的线程数。
+   */
+  private final AtomicLong handOffs = new AtomicLong();
+
+  /**
+   * 获取屏障被放行的次数。
+   *
+   * @return 屏障被放行的次数。
+   */
+  public final long getReleases() {
+    return releases.get();
+  }
+
+  /**
+   * 获取被放行时直接分配到序列号的线程数。
+   *
+   * @return 被放行时直接分配到序列号的线程数。
+   */
+  public final long getHandOffs() {
+    return handOffs.get();
+  }
+
+  @Override
+  public boolean awaitNext(final Timer timer, final long lastTimestamp,
+      final long deadline) throws InterruptedException {
+    return await(timer, lastTimestamp, deadline, true, null) != TIMEOUT;
+  }
+
+  /**
+   * 等待屏障被放行，并领取新的时间片中的序列号。
+   *
+   * @param timer
+   *     ID生成器所使用的计时器。
+   * @param lastTimestamp
+   *     序列号已经耗尽的时间片的时间戳。
+   * @param deadline
+   *     截止时刻，以{@link System#nanoTime()}为基准；若为{@link #NO_DEADLINE}则表示
+   *     没有截止时刻。
+   * @param interruptible
+   *     是否响应中断；若不响应中断，等待结束后会恢复当前线程的中断状态。
+   * @param claimer
+   *     在新的时间片中领取连续序列号的回调。
+   * @return
+   *     分配给当前线程的打包后的时间戳和序列号；若在截止时刻之前屏障未被放行则返回
+   *     {@link #TIMEOUT}；若屏障已被放行但没有分配到序列号则返回{@link #RETRY}。若当前
+   *     线程在超时或被中断时已经被正在放行的屏障计入，则仍然返回分配给它的序列号，并保留
+   *     其中断状态。
+   * @throws InterruptedException
+   *     若{@code interruptible}为{@code true}且当前线程在等待过程中被中断。
+   */
+  public long awaitTicket(final Timer timer, final long lastTimestamp,
+      final long deadline, final boolean interruptible, final Claimer claimer)
+      throws InterruptedException {
+    return await(timer, lastTimestamp, deadline, interruptible, claimer);
+  }
+
+  private long await(final Timer timer, final long lastTimestamp, final long deadline,
+      final boolean interruptible, final Claimer claimer) throws InterruptedException {
+    Generation generation;
+    Waiter waiter;
+    while (true) {
+      generation = current.get();
+      if (generation == null || generation.timestamp != lastTimestamp) {
+        if (timer.now() != lastTimestamp) {
+          // 已经离开了指定的时间片
+          return RETRY;
+        }
+        final Generation created = new Generation(timer, lastTimestamp, claimer);
+        if (!current.compareAndSet(generation, created)) {
+          continue;
+        }
+        created.schedule();
+        generation = created;
+      }
+      // 在加入屏障之前检查截止时刻，已经超时的线程不应占用新的时间片中的序列号
+      if (deadline != NO_DEADLINE && deadline - System.nanoTime() <= 0) {
+        return TIMEOUT;
+      }
+      waiter = generation.join();
+      if (waiter != null) {
+        break;
+      }
+      // 该屏障已经关闭，说明边界已经过去，检查计时器后重头尝试
+      if (timer.now() != lastTimestamp) {
+        return RETRY;
+      }
+      current.compareAndSet(generation, null);
+    }
+    final long ticket = generation.await(waiter, deadline, interruptible);
+    if (ticket >= 0) {
+      handOffs.incrementAndGet();
+    }
+    return ticket;
+  }
+
+  /**
+   * 等待在屏障上的线程。
+   */
+  private static final class Waiter {
+
+    /**
+     * 线程正在等待，尚未被放行的屏障计入。
+     */
+    static final int WAITING = 0;
+
+    /**
+     * 线程已被放行的屏障计入，将获得分配的序列号。
+     */
+    static final int COUNTED = 1;
+
+    /**
+     * 线程已经超时或被中断，放弃了等待。
+     */
+    static final int CANCELLED = 2;
+
+    final Thread thread = Thread.currentThread();
+
+    final AtomicInteger state = new AtomicInteger(WAITING);
+
+    /**
+     * 分配给该线程的打包后的时间戳和序列号，或者{@link #RETRY}。
+     *
+     * <p>对此字段的写操作发生在对{@link Generation#released}的写操作之前。
+     */
+    long ticket = RETRY;
+  }
+
+  /**
+   * 属于某个时间片的屏障。
+   */
+  private final class Generation {
+
+    /**
+     * 该屏障所等待的时间片的时间戳。
+     */
+    final long timestamp;
+
+    final Timer timer;
+
+    final Claimer claimer;
+
+    /**
+     * 按照到达的先后顺序排列的等待在该屏障上的线程。
+     */
+    final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 该屏障是否已经关闭，关闭后不再接受新的等待线程。
+     */
+    volatile boolean closed;
+
+    /**
+     * 该屏障是否已被放行。
+     */
+    volatile boolean released;
+
+    Generation(final Timer timer, final long timestamp, final Claimer claimer) {
+      this.timer = timer;
+      this.timestamp = timestamp;
+      this.claimer = claimer;
+    }
+
+    Waiter join() {
+      if (closed) {
+        return null;
+      }
+      final Waiter waiter = new Waiter();
+      waiters.add(waiter);
+      // 在关闭之后才加入队列的线程不会被计入，被放行后将得到RETRY
+      return waiter;
+    }
+
+    void schedule() {
+      final long millis = timer.getEpochMillis(timestamp + 1) - timer.getClock().millis();
+      final long nanos = Math.max(RESCHEDULE_NANOS, TimeUnit.MILLISECONDS.toNanos(millis));
+      SCHEDULER.schedule(this::release, nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void release() {
+      if (timer.now() == timestamp) {
+        // 计时器尚未进入下一个时间片
+        SCHEDULER.schedule(this::release, RESCHEDULE_NANOS, TimeUnit.NANOSECONDS);
+        return;
+      }
+      closed = true;
+      final List<Waiter> counted = new ArrayList<>();
+      for (final Waiter waiter : waiters) {
+        // 已经超时或被中断的线程不计入，不会为其领取序列号
+        if (waiter.state.compareAndSet(Waiter.WAITING, Waiter.COUNTED)) {
+          counted.add(waiter);
+        }
+      }
+      try {
+        if (claimer != null && !counted.isEmpty()) {
+          final long state = claimer.claim(counted.size());
+          if (state >= 0) {
+            final long maxSequence = (1L << timer.getPrecision().getSequenceBits()) - 1;
+            final int granted = (int) Math.min(counted.size(),
+                maxSequence - (state & maxSequence) + 1);
+            for (int i = 0; i < granted; ++i) {
+              // 同一个时间片内的序列号位于低位，因此可以直接在打包后的状态上加上偏移量
+              counted.get(i).ticket = state + i;
+            }
+          }
+        }
+      } finally {
+        released = true;
+        releases.incrementAndGet();
+        for (final Waiter waiter : waiters) {
+          LockSupport.unpark(waiter.thread);
+        }
+      }
+    }
+
+    long await(final Waiter waiter, final long deadline, final boolean interruptible)
+        throws InterruptedException {
+      long until = deadline;
+      boolean interrupted = false;
+      try {
+        while (!released) {
+          if (until == NO_DEADLINE) {
+            LockSupport.park(this);
+          } else {
+            final long remaining = until - System.nanoTime();
+            if (remaining <= 0) {
+              if (waiter.state.compareAndSet(Waiter.WAITING, Waiter.CANCELLED)) {
+                return TIMEOUT;
+              }
+              // 已被计入，屏障正在放行，等待放行后领取分配的序列号
+              until = NO_DEADLINE;
+              continue;
+            }
+            LockSupport.parkNanos(this, remaining);
+          }
+          if (Thread.interrupted()) {
+            if (interruptible
+                && waiter.state.compareAndSet(Waiter.WAITING, Waiter.CANCELLED)) {
+              throw new InterruptedException();
+            }
+            interrupted = true;
+          }
+        }
+        return waiter.ticket;
+      } finally {
+        waiters.remove(waiter);
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+}
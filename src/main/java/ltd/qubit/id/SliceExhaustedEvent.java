@@ -0,0 +1,37 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * ID生成器的当前时间片的序列号耗尽的JFR事件。
+ *
+ * <p>每个遇到序列号耗尽的调用都会产生一个此事件，其持续时间为0。随后若需要按照序列号耗尽
+ * 策略等待下一个时间片，还会产生一个{@link TimerWaitEvent}；若计时器能够直接推进到下一个
+ * 时间片则不会等待。{@link #waitingThreads}包括当前线程在内。
+ *
+ * @author 胡海星
+ */
+@Name(SliceExhaustedEvent.NAME)
+@Label("ID Slice Exhausted")
+@Description("An ID generator used up the sequence numbers of the current time slice")
+public final class SliceExhaustedEvent extends AbstractIdEvent {
+
+  /**
+   * 此事件的名称。
+   */
+  public static final String NAME = "ltd.qubit.id.SliceExhausted";
+
+  @Label("Host")
+  @Description("The host number of the ID generator")
+  long host;
+}
@@ -0,0 +1,112 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 此枚举定义了标准的序列号耗尽策略。
+ *
+ * @author 胡海星
+ */
+public enum StandardExhaustionPolicy implements ExhaustionPolicy {
+
+  /**
+   * 休眠策略。
+   *
+   * <p>每次休眠{@link Precision#getWaitDuration()}毫秒后重新检查计时器，直到离开当前
+   * 时间片。对于秒级精度，等待的线程最多会在时间片边界之后{@code 500 ms}才被唤醒。
+   */
+  SLEEP {
+    @Override
+    public boolean awaitNext(final Timer timer, final long lastTimestamp,
+        final long deadline) throws InterruptedException {
+      final long waitDuration = timer.getPrecision().getWaitDuration();
+      while (timer.now() == lastTimestamp) {
+        long millis = waitDuration;
+        if (deadline != NO_DEADLINE) {
+          final long remaining = deadline - System.nanoTime();
+          if (remaining <= 0) {
+            return false;
+          }
+          millis = Math.min(millis, TimeUnit.NANOSECONDS.toMillis(remaining) + 1);
+        }
+        Thread.sleep(millis);
+      }
+      return true;
+    }
+  },
+
+  /**
+   * 自旋策略。
+   *
+   * <p>通过{@link Thread#onSpinWait()}忙等待直到离开当前时间片。此策略的唤醒延迟最小，
+   * 但在等待期间会占用CPU，适合毫秒精度等时间片很短的场合。
+   */
+  SPIN {
+    @Override
+    public boolean awaitNext(final Timer timer, final long lastTimestamp,
+        final long deadline) throws InterruptedException {
+      while (timer.now() == lastTimestamp) {
+        if (Thread.interrupted()) {
+          throw new InterruptedException();
+        }
+        if (deadline != NO_DEADLINE && deadline - System.nanoTime() <= 0) {
+          return false;
+        }
+        Thread.onSpinWait();
+      }
+      return true;
+    }
+  },
+
+  /**
+   * 挂起策略。
+   *
+   * <p>根据当前时间片的结束时刻计算需要等待的时间，通过{@link LockSupport#parkNanos(long)}
+   * 将当前线程挂起到时间片的边界。这是ID生成器的默认策略。
+   */
+  PARK {
+    @Override
+    public boolean awaitNext(final Timer timer, final long lastTimestamp,
+        final long deadline) throws InterruptedException {
+      final long boundary = timer.getEpochMillis(lastTimestamp + 1);
+      while (timer.now() == lastTimestamp) {
+        if (Thread.interrupted()) {
+          throw new InterruptedException();
+        }
+        final long millis = Math.max(1L, boundary - timer.getClock().millis());
+        long nanos = TimeUnit.MILLISECONDS.toNanos(millis);
+        if (deadline != NO_DEADLINE) {
+          final long remaining = deadline - System.nanoTime();
+          if (remaining <= 0) {
+            return false;
+          }
+          nanos = Math.min(nanos, remaining);
+        }
+        LockSupport.parkNanos(this, nanos);
+      }
+      return true;
+    }
+  },
+
+  /**
+   * 立即失败策略。
+   *
+   * <p>不做任何等待，由调用者自行决定如何处理序列号耗尽的情况。
+   */
+  FAIL_FAST {
+    @Override
+    public boolean awaitNext(final Timer timer, final long lastTimestamp,
+        final long deadline) {
+      return timer.now() != lastTimestamp;
+    }
+  },
+}
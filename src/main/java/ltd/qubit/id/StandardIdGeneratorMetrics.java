@@ -0,0 +1,328 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import ltd.qubit.commons.text.tostring.ToStringBuilder;
+
+import static ltd.qubit.commons.lang.Argument.requireNonNull;
+
+/**
+ * {@link IdGeneratorMetrics}的默认实现。
+ *
+ * <p>所有计数器都是{@link LongAdder}，所有分布都记录在{@link LongHistogram}中，多个线程同时
+ * 回调时不会竞争同一个缓存行。此对象可以通过{@link #register(String)}注册为平台MBean服务器
+ * 中的JMX MBean，其管理接口为{@link IdGeneratorMetricsMXBean}；同一个对象也可以同时设置给
+ * 多个ID生成器，此时各项指标为这些ID生成器的总和。
+ *
+ * <pre><code>
+ * StandardIdGeneratorMetrics metrics = new StandardIdGeneratorMetrics();
+ * generator.setMetrics(metrics);
+ * metrics.register("order-id");
+ * </code></pre>
+ *
+ * @author 胡海星
+ */
+@ThreadSafe
+public class StandardIdGeneratorMetrics implements IdGeneratorMetrics,
+    IdGeneratorMetricsMXBean {
+
+  /**
+   * 注册的MBean的域名。
+   */
+  public static final String JMX_DOMAIN = "ltd.qubit.id";
+
+  private final LongAdder casRetries = new LongAdder();
+
+  private final LongHistogram lockWaits = new LongHistogram();
+
+  private final LongAdder exhausted = new LongAdder();
+
+  private final LongHistogram waits = new LongHistogram();
+
+  private final LongAdder waitFailures = new LongAdder();
+
+  /**
+   * 各个时间片中已经分配的序列号的数目的分布。
+   */
+  private final LongHistogram slices = new LongHistogram();
+
+  private volatile long sliceCapacity;
+
+  private final LongAdder clockRegressions = new LongAdder();
+
+  /**
+   * 各个预借的时间片超前于真实时间戳的时间片数目的分布。
+   */
+  private final LongHistogram borrowLeads = new LongHistogram();
+
+  /**
+   * 最近一次进入的时间片超前于真实时间戳的时间片数目。
+   */
+  private volatile long borrowLead;
+
+  private volatile ObjectName objectName;
+
+  @Override
+  public void onCasRetries(final int retries) {
+    casRetries.add(retries);
+  }
+
+  @Override
+  public void onLockWait(final long nanos) {
+    lockWaits.record(nanos);
+  }
+
+  @Override
+  public void onExhausted() {
+    exhausted.increment();
+  }
+
+  @Override
+  public void onWait(final long nanos, final boolean passed) {
+    waits.record(nanos);
+    if (!passed) {
+      waitFailures.increment();
+    }
+  }
+
+  @Override
+  public void onSliceClosed(final long used, final long capacity) {
+    slices.record(used);
+    if (sliceCapacity != capacity) {
+      sliceCapacity = capacity;
+    }
+  }
+
+  @Override
+  public void onClockRegression(final long lastTimestamp, final long timestamp) {
+    clockRegressions.increment();
+  }
+
+  @Override
+  public void onBorrowLead(final long lead) {
+    if (lead > 0) {
+      borrowLeads.record(lead);
+    }
+    if (borrowLead != lead) {
+      borrowLead = lead;
+    }
+  }
+
+  @Override
+  public long getCasRetries() {
+    return casRetries.sum();
+  }
+
+  @Override
+  public long getLockWaitCount() {
+    return lockWaits.getCount();
+  }
+
+  @Override
+  public long getLockWaitNanos() {
+    return lockWaits.getSum();
+  }
+
+  @Override
+  public long getMaxLockWaitNanos() {
+    return lockWaits.getMax();
+  }
+
+  @Override
+  public long getExhaustedCount() {
+    return exhausted.sum();
+  }
+
+  @Override
+  public long getWaitCount() {
+    return waits.getCount();
+  }
+
+  @Override
+  public long getWaitFailureCount() {
+    return waitFailures.sum();
+  }
+
+  @Override
+  public long getWaitNanos() {
+    return waits.getSum();
+  }
+
+  @Override
+  public long getWaitNanosP99() {
+    return waits.getQuantile(0.99);
+  }
+
+  @Override
+  public long getMaxWaitNanos() {
+    return waits.getMax();
+  }
+
+  @Override
+  public long getSliceCount() {
+    return slices.getCount();
+  }
+
+  @Override
+  public long getSliceCapacity() {
+    return sliceCapacity;
+  }
+
+  @Override
+  public double getMeanSequenceUtilization() {
+    final long capacity = sliceCapacity;
+    return (capacity == 0 ? 0.0 : slices.getMean() / capacity);
+  }
+
+  @Override
+  public double getSequenceUtilizationP99() {
+    final long capacity = sliceCapacity;
+    return (capacity == 0 ? 0.0 : Math.min(1.0, (double) slices.getQuantile(0.99) / capacity));
+  }
+
+  @Override
+  public long getClockRegressionCount() {
+    return clockRegressions.sum();
+  }
+
+  @Override
+  public long getBorrowedSliceCount() {
+    return borrowLeads.getCount();
+  }
+
+  @Override
+  public long getBorrowLead() {
+    return borrowLead;
+  }
+
+  @Override
+  public long getMaxBorrowLead() {
+    return borrowLeads.getMax();
+  }
+
+  /**
+   * 获取等待互斥锁的纳秒数的分布。
+   *
+   * @return 等待互斥锁的纳秒数的分布。
+   */
+  public final LongHistogram getLockWaitHistogram() {
+    return lockWaits;
+  }
+
+  /**
+   * 获取序列号耗尽后等待进入下一个时间片的纳秒数的分布。
+   *
+   * @return 等待的纳秒数的分布。
+   */
+  public final LongHistogram getWaitHistogram() {
+    return waits;
+  }
+
+  /**
+   * 获取各个时间片中已经分配的序列号的数目的分布。
+   *
+   * @return 各个时间片中已经分配的序列号的数目的分布。
+   */
+  public final LongHistogram getSliceHistogram() {
+    return slices;
+  }
+
+  @Override
+  public void reset() {
+    casRetries.reset();
+    lockWaits.reset();
+    exhausted.reset();
+    waits.reset();
+    waitFailures.reset();
+    slices.reset();
+    clockRegressions.reset();
+    borrowLeads.reset();
+    borrowLead = 0;
+  }
+
+  /**
+   * 将此对象注册为平台MBean服务器中的MBean。
+   *
+   * @param name
+   *     MBean的名称，不可为{@code null}，通常为ID生成器的用途。注册的对象名为
+   *     {@code ltd.qubit.id:type=IdGeneratorMetrics,name=<name>}。
+   * @return 注册的对象名。
+   * @throws IllegalStateException
+   *     若此对象已经注册，或者注册失败，例如同名的MBean已经存在。
+   */
+  public synchronized ObjectName register(final String name) {
+    requireNonNull("name", name);
+    if (objectName != null) {
+      throw new IllegalStateException("The metrics has already been registered as "
+          + objectName);
+    }
+    try {
+      final ObjectName result = new ObjectName(JMX_DOMAIN + ":type=IdGeneratorMetrics,name="
+          + ObjectName.quote(name));
+      final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      server.registerMBean(this, result);
+      objectName = result;
+      return result;
+    } catch (final JMException e) {
+      throw new IllegalStateException("Failed to register the metrics: " + name, e);
+    }
+  }
+
+  /**
+   * 从平台MBean服务器中注销此对象；若此对象尚未注册则不做任何事情。
+   *
+   * @throws IllegalStateException
+   *     若注销失败。
+   */
+  public synchronized void unregister() {
+    if (objectName == null) {
+      return;
+    }
+    try {
+      ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+    } catch (final JMException e) {
+      throw new IllegalStateException("Failed to unregister the metrics: " + objectName, e);
+    } finally {
+      objectName = null;
+    }
+  }
+
+  /**
+   * 获取此对象注册的对象名。
+   *
+   * @return 此对象注册的对象名；若尚未注册则返回{@code null}。
+   */
+  public final ObjectName getObjectName() {
+    return objectName;
+  }
+
+  @Override
+  public String toString() {
+    return new ToStringBuilder(this)
+        .append("casRetries", getCasRetries())
+        .append("lockWaitCount", getLockWaitCount())
+        .append("exhaustedCount", getExhaustedCount())
+        .append("waitCount", getWaitCount())
+        .append("waitFailureCount", getWaitFailureCount())
+        .append("sliceCount", getSliceCount())
+        .append("meanSequenceUtilization", getMeanSequenceUtilization())
+        .append("clockRegressionCount", getClockRegressionCount())
+        .append("borrowedSliceCount", getBorrowedSliceCount())
+        .append("borrowLead", getBorrowLead())
+        .toString();
+  }
+}
@@ -0,0 +1,260 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import ltd.qubit.commons.text.tostring.ToStringBuilder;
+
+/**
+ * 分条的自增ID生成器，适合多线程频繁生成ID的场合。
+ *
+ * <p>{@link AutoIncrementIdGenerator}在每次生成ID时都要对同一个原子长整数做自增操作，
+ * 多线程频繁调用时所有处理器核都在争用同一个缓存行。此生成器仿照
+ * {@link java.util.concurrent.atomic.LongAdder}，把计数器分为多个单元，每个单元各自占据
+ * 一个缓存行。每个单元从全局的块计数器一次领取一个大小为{@code chunkSize}的块，之后在
+ * 块内通过CAS操作依次分配ID，只有块用完时才需要访问全局计数器。调用线程根据线程编号
+ * 选择单元。
+ *
+ * <p>不同的块互不重叠，因此生成的ID仍然是唯一的正整数；但不同的线程从不同的块中分配
+ * ID，因此不再保证全局递增，只保证同一个线程生成的ID依次递增。在单个线程中使用时，
+ * 此生成器和{@link AutoIncrementIdGenerator}一样生成从1开始的连续ID。当两个线程同时
+ * 为同一个单元领取新的块时，编号较小的块中剩余的ID被跳过。
+ *
+ * @author 胡海星
+ */
+@ThreadSafe
+public class StripedAutoIncrementIdGenerator implements IdGenerator {
+
+  /**
+   * 默认的块大小。
+   */
+  public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+  /**
+   * 最大的单元数目。
+   */
+  public static final int MAX_CELL_COUNT = 1 << 16;
+
+  /**
+   * 填充的长整数个数，8个长整数正好占据一个64字节的缓存行。
+   */
+  private static final int PADDING = 8;
+
+  /**
+   * 每个单元的块大小，必须是2的幂。
+   */
+  private final int chunkSize;
+
+  /**
+   * 单元状态中用于记录块内已分配ID数目的比特数，比块大小的比特数多一位，从而能够表示
+   * 块已经用完的状态。
+   */
+  private final int usedBits;
+
+  /**
+   * 用于从单元状态中提取块内已分配ID数目的掩码。
+   */
+  private final long usedMask;
+
+  /**
+   * 单元数目减一，单元数目是2的幂。
+   */
+  private final int cellMask;
+
+  /**
+   * 全局的块计数器，记录已经领取的块的数目。
+   */
+  private final AtomicLong chunks = new AtomicLong();
+
+  /**
+   * 各个单元的状态，每个单元占据一个缓存行。
+   *
+   * <p>单元的状态由块的编号和块内已分配ID的数目打包而成：
+   * <pre><code>
+   *  [块编号] [已分配数目]
+   * </code></pre>
+   * 块编号为{@code c}、已分配数目为{@code u}时，下一个ID为{@code c * chunkSize + u + 1}。
+   */
+  private final AtomicLongArray cells;
+
+  /**
+   * 使用默认的块大小和单元数目构造一个ID生成器。
+   *
+   * <p>单元数目为不小于可用处理器数目两倍的2的幂。
+   */
+  public StripedAutoIncrementIdGenerator() {
+    this(DEFAULT_CHUNK_SIZE, 2 * Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * 构造一个ID生成器。
+   *
+   * @param chunkSize
+   *     每个单元一次领取的块大小，必须是2的幂。
+   * @param cellCount
+   *     单元数目，必须大于0，会被向上取整为2的幂。
+   */
+  public StripedAutoIncrementIdGenerator(final int chunkSize, final int cellCount) {
+    if (chunkSize <= 0 || Integer.bitCount(chunkSize) != 1) {
+      throw new IllegalArgumentException("The chunk size must be a power of 2.");
+    }
+    if (cellCount <= 0 || cellCount > MAX_CELL_COUNT) {
+      throw new IllegalArgumentException("The cell count must be in [1, "
+          + MAX_CELL_COUNT + "].");
+    }
+    final int cellNumber = (cellCount == 1 ? 1 : Integer.highestOneBit(cellCount - 1) << 1);
+    this.chunkSize = chunkSize;
+    this.usedBits = Integer.numberOfTrailingZeros(chunkSize) + 1;
+    this.usedMask = (1L << usedBits) - 1;
+    this.cellMask = cellNumber - 1;
+    this.cells = new AtomicLongArray((cellNumber + 1) * PADDING);
+    resetCells();
+  }
+
+  public final int getChunkSize() {
+    return chunkSize;
+  }
+
+  /**
+   * 获取单元数目。
+   *
+   * @return 单元数目，总是2的幂。
+   */
+  public final int getCellCount() {
+    return cellMask + 1;
+  }
+
+  @Override
+  public Mode getMode() {
+    return Mode.SEQUENTIAL;
+  }
+
+  @Override
+  public Precision getPrecision() {
+    return null;
+  }
+
+  @Override
+  public long generate() {
+    final int index = cellIndex();
+    while (true) {
+      final long state = cells.get(index);
+      final long used = state & usedMask;
+      if (used < chunkSize) {
+        // 当前块还有剩余的ID，在块内分配
+        if (cells.compareAndSet(index, state, state + 1)) {
+          return (state >>> usedBits) * chunkSize + used + 1;
+        }
+        // 否则，重头尝试
+      } else {
+        // 当前块已经用完，从全局计数器领取一个新的块，并分配其中的第一个ID
+        final long chunk = chunks.getAndIncrement();
+        if (install(index, state, chunk)) {
+          return chunk * chunkSize + 1;
+        }
+        // 否则，其他线程已经为该单元领取了更新的块，从该单元中重头尝试
+      }
+    }
+  }
+
+  /**
+   * 将新领取的块安装到指定的单元中。
+   *
+   * <p>单元中的块编号只会增大，从而保证同一个线程生成的ID依次递增：若其他线程已经为该
+   * 单元安装了编号更大的块，则放弃本次领取的块；否则替换单元中的块，被替换的块中剩余的
+   * ID被跳过。
+   *
+   * @param index
+   *     单元在数组中的下标。
+   * @param state
+   *     领取新的块之前读取到的单元状态。
+   * @param chunk
+   *     新领取的块的编号。
+   * @return
+   *     若安装成功，并且新的块中的第一个ID已经分配给当前线程，则返回{@code true}；
+   *     否则返回{@code false}。
+   */
+  private boolean install(final int index, final long state, final long chunk) {
+    final long installed = (chunk << usedBits) | 1;
+    long current = state;
+    while (!cells.compareAndSet(index, current, installed)) {
+      current = cells.get(index);
+      if ((current >>> usedBits) > chunk) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * 一次性预留指定数目的连续ID。
+   *
+   * <p>预留的ID直接从全局计数器领取若干个连续的块，不经过各个单元；最后一个块中剩余的
+   * ID被跳过。
+   *
+   * @param count
+   *     需要预留的ID的数目，必须大于0。
+   * @return
+   *     只包含一个范围的列表。
+   */
+  @Override
+  public List<IdRange> reserve(final int count) {
+    if (count <= 0) {
+      throw new IllegalArgumentException("The count must be positive.");
+    }
+    final long n = (count + chunkSize - 1L) / chunkSize;
+    final long start = chunks.getAndAdd(n) * chunkSize + 1;
+    return Collections.singletonList(new IdRange(start, count));
+  }
+
+  /**
+   * 重置此生成器，使其重新从1开始生成ID。
+   *
+   * <p>与{@link AutoIncrementIdGenerator#reset()}一样，此函数不能和其他生成ID的调用并发
+   * 执行。
+   */
+  @Override
+  public void reset() {
+    chunks.set(0);
+    resetCells();
+  }
+
+  /**
+   * 将所有单元置为块已经用完的状态。
+   */
+  private void resetCells() {
+    for (int i = 0; i <= cellMask; ++i) {
+      cells.set((i + 1) * PADDING, chunkSize);
+    }
+  }
+
+  /**
+   * 获取当前线程所使用的单元在数组中的下标。
+   */
+  private int cellIndex() {
+    // 对线程编号做一次混合，使相邻编号的线程均匀地分布到各个单元
+    final long h = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+    return ((int) (h >>> 32) & cellMask) * PADDING + PADDING;
+  }
+
+  @Override
+  public String toString() {
+    return new ToStringBuilder(this)
+        .append("chunkSize", chunkSize)
+        .append("cellCount", getCellCount())
+        .append("chunks", chunks.get())
+        .toString();
+  }
+}
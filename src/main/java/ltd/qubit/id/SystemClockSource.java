@@ -0,0 +1,37 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * 通过{@link System#currentTimeMillis()}获取当前时刻的时钟源。
+ *
+ * @author 胡海星
+ */
+@Immutable
+public final class SystemClockSource implements ClockSource {
+
+  /**
+   * 此类的唯一实例。
+   */
+  public static final SystemClockSource INSTANCE = new SystemClockSource();
+
+  private SystemClockSource() {}
+
+  @Override
+  public long millis() {
+    return System.currentTimeMillis();
+  }
+
+  @Override
+  public String toString() {
+    return "SystemClockSource";
+  }
+}
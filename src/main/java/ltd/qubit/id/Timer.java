@@ -9,6 +9,8 @@
 package ltd.qubit.id;
 
 import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 import javax.annotation.concurrent.Immutable;
 
@@ -28,6 +30,20 @@ public class Timer implements Constant {
 
   static final int MILLIS_PER_SECOND = 1000;
 
+  /**
+   * 用乘法和移位代替除以{@link #MILLIS_PER_SECOND}时所用的乘数。
+   *
+   * <p>对于任意非负的长整数{@code x}，
+   * {@code Math.multiplyHigh(x, DIVIDE_BY_1000_MULTIPLIER) >>> DIVIDE_BY_1000_SHIFT}
+   * 都等于{@code x / 1000}。
+   */
+  private static final long DIVIDE_BY_1000_MULTIPLIER = 0x20C49BA5E353F7CFL;
+
+  /**
+   * 用乘法和移位代替除以{@link #MILLIS_PER_SECOND}时所用的移位位数。
+   */
+  private static final int DIVIDE_BY_1000_SHIFT = 7;
+
   /**
    * 时间戳精度。
    */
@@ -49,11 +65,21 @@ public class Timer implements Constant {
   private final transient long divisor;
 
   /**
-   * 当同一个时间片内的序列号超出允许范围后，需要休眠一段时间等待下一个时间片。
+   * 时钟源。
+   */
+  protected final ClockSource clock;
+
+  /**
+   * 构造一个{@link Timer}对象，使用系统时钟作为时钟源。
    *
-   * <p>此字段记录预先计算好的休眠时间，单位为毫秒。
+   * @param precision
+   *     时间戳精度。
+   * @param epoch
+   *     时间戳计算起点。
    */
-  private final transient long waitDuration;
+  public Timer(final Precision precision, final Instant epoch) {
+    this(precision, epoch, SystemClockSource.INSTANCE);
+  }
 
   /**
    * 构造一个{@link Timer}对象。
@@ -62,13 +88,15 @@ public class Timer implements Constant {
    *     时间戳精度。
    * @param epoch
    *     时间戳计算起点。
+   * @param clock
+   *     时钟源。
    */
-  public Timer(final Precision precision, final Instant epoch) {
+  public Timer(final Precision precision, final Instant epoch, final ClockSource clock) {
     this.precision = requireNonNull("precision", precision);
     this.epoch = requireNonNull("epoch", epoch);
+    this.clock = requireNonNull("clock", clock);
     this.minuend = epoch.toEpochMilli();
     this.divisor = (precision == Precision.SECOND ? MILLIS_PER_SECOND : 1L);
-    this.waitDuration = precision.getWaitDuration();
   }
 
   public final Precision getPrecision() {
@@ -79,32 +107,59 @@ public class Timer implements Constant {
     return epoch;
   }
 
+  public final ClockSource getClock() {
+    return clock;
+  }
+
   /**
    * 获取当前时间戳。
    *
    * @return 当前的时间戳数值，按照预设的精度从预设的起点开始计算。
    */
-  public final long now() {
-    return (System.currentTimeMillis() - minuend) / divisor;
+  public long now() {
+    return getTimestamp(clock.millis());
+  }
+
+  /**
+   * 尝试在不等待的情况下离开指定的时间片。
+   *
+   * <p>当某个时间片的序列号耗尽时，ID生成器在等待之前会先调用此函数。默认实现直接返回
+   * {@link #now()}；逻辑时钟可以覆盖此函数，把逻辑时间戳推进到下一个时间片，从而避免等待。
+   *
+   * @param lastTimestamp
+   *     序列号已经耗尽的时间片的时间戳。
+   * @return 调用此函数之后的当前时间戳。
+   */
+  public long advance(final long lastTimestamp) {
+    return now();
   }
 
   /**
-   * 休眠当前线程，直到进入下一个时间片。
+   * 挂起当前线程，直到进入下一个时间片。
+   *
+   * <p>此函数根据时间片的结束时刻计算需要等待的时间，通过
+   * {@link LockSupport#parkNanos(Object, long)}将当前线程挂起到时间片的边界，而不是以
+   * 固定的间隔轮询。挂起的虚拟线程会让出其载体线程。等待过程不响应中断，但会保留当前
+   * 线程的中断状态。
    *
    * @param lastTimestamp
    *     上一个时间片的时间戳。
    * @return 等待结束后新时间片的时间戳
    */
   public long waitForNext(final long lastTimestamp) {
+    final long boundary = getEpochMillis(lastTimestamp + 1);
+    boolean interrupted = false;
     long timestamp = now();
     while (timestamp == lastTimestamp) {
-      try {
-        Thread.sleep(waitDuration);
-      } catch (final InterruptedException e) {
-        Thread.currentThread().interrupt();
-      }
+      // 若中断状态未被清除，parkNanos()会立即返回，从而退化为忙等待
+      interrupted |= Thread.interrupted();
+      final long millis = Math.max(1L, boundary - clock.millis());
+      LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(millis));
       timestamp = now();
     }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
     return timestamp;
   }
 
@@ -116,8 +171,7 @@ public class Timer implements Constant {
    * @return 该时间戳对应的真实时刻。
    */
   public Instant getInstant(final long timestamp) {
-    final long milli = timestamp * divisor + minuend;
-    return Instant.ofEpochMilli(milli);
+    return Instant.ofEpochMilli(getEpochMillis(timestamp));
   }
 
   /**
@@ -128,8 +182,38 @@ public class Timer implements Constant {
    * @return 该时刻对应的时间戳。
    */
   public long getTimestamp(final Instant instant) {
-    final long milli = instant.toEpochMilli();
-    return (milli - minuend) / divisor;
+    return getTimestamp(instant.toEpochMilli());
+  }
+
+  /**
+   * 获取指定的时刻对应的时间戳。
+   *
+   * <p>当精度为秒时，此函数用乘法和移位代替64位除法。
+   *
+   * @param epochMillis
+   *     指定的时刻距离{@code 1970-01-01T00:00:00Z}的毫秒数。
+   * @return 该时刻对应的时间戳。
+   */
+  public final long getTimestamp(final long epochMillis) {
+    final long elapsed = epochMillis - minuend;
+    if (divisor == 1L) {
+      return elapsed;
+    } else if (elapsed >= 0) {
+      return Math.multiplyHigh(elapsed, DIVIDE_BY_1000_MULTIPLIER) >>> DIVIDE_BY_1000_SHIFT;
+    } else {
+      return elapsed / divisor;
+    }
+  }
+
+  /**
+   * 获取指定的时间戳对应的时间片的起始时刻。
+   *
+   * @param timestamp
+   *     指定的时间戳。
+   * @return 该时间戳对应的时间片的起始时刻距离{@code 1970-01-01T00:00:00Z}的毫秒数。
+   */
+  public final long getEpochMillis(final long timestamp) {
+    return timestamp * divisor + minuend;
   }
 
   @Override
@@ -143,9 +227,9 @@ public class Timer implements Constant {
     final Timer other = (Timer) o;
     return Equality.equals(minuend, other.minuend)
         && Equality.equals(divisor, other.divisor)
-        && Equality.equals(waitDuration, other.waitDuration)
         && Equality.equals(precision, other.precision)
-        && Equality.equals(epoch, other.epoch);
+        && Equality.equals(epoch, other.epoch)
+        && Equality.equals(clock, other.clock);
   }
 
   @Override
@@ -156,7 +240,7 @@ public class Timer implements Constant {
     result = Hash.combine(result, multiplier, epoch);
     result = Hash.combine(result, multiplier, minuend);
     result = Hash.combine(result, multiplier, divisor);
-    result = Hash.combine(result, multiplier, waitDuration);
+    result = Hash.combine(result, multiplier, clock);
     return result;
   }
 
@@ -165,6 +249,7 @@ public class Timer implements Constant {
     return new ToStringBuilder(this)
         .append("precision", precision)
         .append("epoch", epoch)
+        .append("clock", clock)
         .toString();
   }
 }
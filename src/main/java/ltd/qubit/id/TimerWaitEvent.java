@@ -0,0 +1,45 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * ID生成器在序列号耗尽后等待计时器进入下一个时间片的JFR事件。
+ *
+ * <p>事件的持续时间为按照序列号耗尽策略或{@link SliceBarrier}挂起当前线程的时间。若计时器
+ * 能够直接推进到下一个时间片，则不会产生此事件。默认只记录超过{@code 10 ms}的等待，可以在
+ * 录制配置中修改{@value #NAME}的{@code threshold}。
+ *
+ * @author 胡海星
+ */
+@Name(TimerWaitEvent.NAME)
+@Label("ID Timer Wait")
+@Description("An ID generator waited for the timer to enter the next time slice "
+    + "after the sequence numbers of the current slice were exhausted")
+@Threshold("10 ms")
+public final class TimerWaitEvent extends AbstractIdEvent {
+
+  /**
+   * 此事件的名称。
+   */
+  public static final String NAME = "ltd.qubit.id.TimerWait";
+
+  @Label("Host")
+  @Description("The host number of the ID generator")
+  long host;
+
+  @Label("Passed")
+  @Description("Whether the generator entered the next time slice, rather than "
+      + "reaching its deadline or being rejected by the exhaustion policy")
+  boolean passed;
+}
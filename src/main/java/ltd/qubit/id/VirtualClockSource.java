@@ -0,0 +1,108 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import ltd.qubit.commons.text.tostring.ToStringBuilder;
+
+/**
+ * 由调用者手动推进的虚拟时钟源，用于测试和模拟。
+ *
+ * <p>此时钟源维护两个数值：以纳秒为单位的真实流逝时间，和时钟相对真实时间的偏移量。
+ * {@link #advance(long, TimeUnit)}模拟时间的正常流逝；{@link #step(long)}模拟时钟的跳变，
+ * 例如NTP校时导致的时钟向前或向后调整。{@link #millis()}返回两者之和。
+ *
+ * @author 胡海星
+ */
+@ThreadSafe
+public class VirtualClockSource implements ClockSource {
+
+  private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+  /**
+   * 真实流逝的时间，即从{@code 1970-01-01T00:00:00Z}开始的纳秒数。
+   */
+  private final AtomicLong nanos;
+
+  /**
+   * 时钟相对真实时间的偏移量，单位为毫秒。
+   */
+  private final AtomicLong offset = new AtomicLong();
+
+  /**
+   * 构造一个{@link VirtualClockSource}对象。
+   *
+   * @param startMillis
+   *     初始时刻距离{@code 1970-01-01T00:00:00Z}的毫秒数。
+   */
+  public VirtualClockSource(final long startMillis) {
+    this.nanos = new AtomicLong(startMillis * NANOS_PER_MILLI);
+  }
+
+  @Override
+  public long millis() {
+    return Math.floorDiv(nanos.get(), NANOS_PER_MILLI) + offset.get();
+  }
+
+  /**
+   * 获取真实流逝的时间。
+   *
+   * @return 从{@code 1970-01-01T00:00:00Z}开始真实流逝的纳秒数，不受{@link #step(long)}的影响。
+   */
+  public long getRealNanos() {
+    return nanos.get();
+  }
+
+  /**
+   * 获取时钟相对真实时间的偏移量。
+   *
+   * @return 时钟相对真实时间的偏移量，单位为毫秒。
+   */
+  public long getOffset() {
+    return offset.get();
+  }
+
+  /**
+   * 模拟时间的正常流逝。
+   *
+   * @param duration
+   *     流逝的时间，不可为负数。
+   * @param unit
+   *     流逝的时间的单位。
+   * @return 流逝之后的真实时间，单位为纳秒。
+   */
+  public long advance(final long duration, final TimeUnit unit) {
+    if (duration < 0) {
+      throw new IllegalArgumentException("The duration must not be negative.");
+    }
+    return nanos.addAndGet(unit.toNanos(duration));
+  }
+
+  /**
+   * 模拟时钟的跳变。
+   *
+   * @param deltaMillis
+   *     时钟调整的幅度，单位为毫秒；正数表示向前调整，负数表示向后调整。
+   */
+  public void step(final long deltaMillis) {
+    offset.addAndGet(deltaMillis);
+  }
+
+  @Override
+  public String toString() {
+    return new ToStringBuilder(this)
+        .append("realNanos", nanos.get())
+        .append("offset", offset.get())
+        .toString();
+  }
+}
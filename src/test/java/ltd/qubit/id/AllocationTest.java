@@ -0,0 +1,164 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.function.LongSupplier;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.management.ThreadMXBean;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import static ltd.qubit.id.Mode.SEQUENTIAL;
+import static ltd.qubit.id.Mode.SPREAD;
+import static ltd.qubit.id.Precision.SECOND;
+
+/**
+ * 测试热点路径上的内存分配。
+ *
+ * <p>每个被测的方法先预热，再连续调用数百万次，通过
+ * {@link ThreadMXBean#getThreadAllocatedBytes(long)}统计当前线程分配的字节数，并断言平均
+ * 每次调用分配的字节数不超过预算。预算为0的方法允许总共分配不超过
+ * {@link #ZERO_BUDGET_SLACK}个字节，以容忍与被测方法无关的偶发分配，例如每个时间片只分配
+ * 一次的缓存对象。
+ *
+ * <p>为了避免同一个时间片中的序列号耗尽而进入等待，所有生成器都使用秒精度，且每个生成器
+ * 只生成{@code WARMUP_CALLS + MEASURED_CALLS}个ID，少于一个时间片的容量。
+ *
+ * @author Haixing Hu
+ */
+public class AllocationTest {
+
+  private static final int WARMUP_CALLS = 200_000;
+
+  private static final int MEASURED_CALLS = 2_000_000;
+
+  private static final long ZERO_BUDGET_SLACK = 4096;
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private ThreadMXBean bean;
+
+  private long sink;
+
+  private void setUp() {
+    final java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    assumeTrue(threadBean instanceof ThreadMXBean,
+        "com.sun.management.ThreadMXBean is not available");
+    bean = (ThreadMXBean) threadBean;
+    assumeTrue(bean.isThreadAllocatedMemorySupported(),
+        "Thread allocated memory measurement is not supported");
+    bean.setThreadAllocatedMemoryEnabled(true);
+  }
+
+  private long allocatedBytes() {
+    return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  /**
+   * 测量指定操作平均每次调用分配的字节数，并断言不超过预算。
+   *
+   * @param name
+   *     操作的名称。
+   * @param budget
+   *     平均每次调用允许分配的字节数。
+   * @param operation
+   *     被测的操作。
+   */
+  private void assertAllocation(final String name, final long budget,
+      final LongSupplier operation) {
+    if (bean == null) {
+      setUp();
+    }
+    for (int i = 0; i < WARMUP_CALLS; ++i) {
+      sink ^= operation.getAsLong();
+    }
+    // 测量本身的开销
+    final long baselineStart = allocatedBytes();
+    final long baseline = allocatedBytes() - baselineStart;
+    final long start = allocatedBytes();
+    for (int i = 0; i < MEASURED_CALLS; ++i) {
+      sink ^= operation.getAsLong();
+    }
+    final long allocated = Math.max(0L, allocatedBytes() - start - baseline);
+    final double perCall = (double) allocated / MEASURED_CALLS;
+    logger.info("{}: {} bytes in {} calls, {} bytes/call (budget {})", name, allocated,
+        MEASURED_CALLS, String.format("%.3f", perCall), budget);
+    if (budget == 0) {
+      assertTrue(allocated <= ZERO_BUDGET_SLACK,
+          name + " should not allocate, but allocated " + allocated + " bytes");
+    } else {
+      assertTrue(perCall <= budget,
+          name + " allocated " + perCall + " bytes/call, exceeding the budget " + budget);
+    }
+  }
+
+  @Test
+  public void testGenerate() throws Exception {
+    // AtomicIdGenerator通过CAS替换不可变的TimeSlice对象，每次调用分配一个对象
+    assertAllocation("AtomicIdGenerator.generate", 32,
+        new AtomicIdGenerator(SEQUENTIAL, SECOND)::generate);
+    assertAllocation("LockedIdGenerator.generate", 0,
+        new LockedIdGenerator(SEQUENTIAL, SECOND)::generate);
+    assertAllocation("PackedIdGenerator.generate", 0,
+        new PackedIdGenerator(SEQUENTIAL, SECOND)::generate);
+    assertAllocation("PackedIdGenerator.generate(SPREAD)", 0,
+        new PackedIdGenerator(SPREAD, SECOND)::generate);
+    assertAllocation("BorrowAheadIdGenerator.generate", 0,
+        new BorrowAheadIdGenerator(SEQUENTIAL, SECOND)::generate);
+    assertAllocation("AutoIncrementIdGenerator.generate", 0,
+        new AutoIncrementIdGenerator()::generate);
+    try (final CachedIdGenerator generator = new CachedIdGenerator(SEQUENTIAL, SECOND)) {
+      assertAllocation("CachedIdGenerator.generate", 0, generator::generate);
+    }
+  }
+
+  @Test
+  public void testBuilder() {
+    for (final Mode mode : Mode.values()) {
+      final Builder builder = new Builder(mode, SECOND, 1L);
+      final long id = builder.build(12345L, 678L);
+      assertAllocation("Builder.build(" + mode + ")", 0,
+          () -> builder.build(12345L, 678L));
+      assertAllocation("Builder.extractMode(" + mode + ")", 0,
+          () -> builder.extractMode(id).ordinal());
+      assertAllocation("Builder.extractTimestamp(" + mode + ")", 0,
+          () -> builder.extractTimestamp(id));
+      assertAllocation("Builder.extractPrecision(" + mode + ")", 0,
+          () -> builder.extractPrecision(id).ordinal());
+      assertAllocation("Builder.extractHost(" + mode + ")", 0,
+          () -> builder.extractHost(id));
+      assertAllocation("Builder.extractSequence(" + mode + ")", 0,
+          () -> builder.extractSequence(id));
+    }
+  }
+
+  @Test
+  public void testTimer() {
+    final Instant epoch = Instant.parse("2018-12-01T00:00:00.00Z");
+    for (final Precision precision : Precision.values()) {
+      assertAllocation("Timer.now(" + precision + ")", 0,
+          new Timer(precision, epoch)::now);
+      assertAllocation("HybridLogicalTimer.now(" + precision + ")", 0,
+          new HybridLogicalTimer(precision, epoch)::now);
+      final CachedTimer cached = new CachedTimer(precision, epoch);
+      try {
+        assertAllocation("CachedTimer.now(" + precision + ")", 0, cached::now);
+      } finally {
+        cached.close();
+      }
+    }
+  }
+}
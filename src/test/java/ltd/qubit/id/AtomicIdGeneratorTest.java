@@ -9,12 +9,15 @@
 package ltd.qubit.id;
 
 import java.time.Instant;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 
 import ltd.qubit.commons.random.RandomBeanGenerator;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import static ltd.qubit.id.Mode.SEQUENTIAL;
 import static ltd.qubit.id.Mode.SPREAD;
@@ -77,25 +80,54 @@ public class AtomicIdGeneratorTest extends Benchmark implements Constant {
   }
 
   @Test
-  public void singleThreadBenchmark_1() {
+  public void testReserve() {
+    final AtomicIdGenerator generator = new AtomicIdGenerator(SEQUENTIAL, MILLISECOND);
+    final Builder builder = generator.getBuilder();
+    final int count = 10000;
+    final List<IdRange> ranges = generator.reserve(count);
+    // 毫秒精度下每个时间片最多只有4096个序列号，因此结果必然被拆分
+    assertTrue(ranges.size() >= 3);
+    int total = 0;
+    long last = generator.generate(generator.getEpoch(), 0) - 1;
+    for (final IdRange range : ranges) {
+      assertTrue(range.getStart() > last);
+      final long timestamp = builder.extractTimestamp(range.getStart());
+      assertEquals(timestamp, builder.extractTimestamp(range.getLast()));
+      assertEquals(builder.extractSequence(range.getStart()) + range.size() - 1,
+          builder.extractSequence(range.getLast()));
+      last = range.getLast();
+      total += range.size();
+    }
+    assertEquals(count, total);
+    assertTrue(generator.generate() > last);
+    assertThrows(IllegalArgumentException.class, () -> generator.reserve(0));
+  }
+
+  @Test
+  public void testExhaustionPolicy() throws Exception {
+    new GeneratorPolicyTester((timer) -> new AtomicIdGenerator(SEQUENTIAL, 0L, timer)).testAll();
+  }
+
+  @Test
+  public void singleThreadBenchmark_1() throws Exception {
     final AtomicIdGenerator generator = new AtomicIdGenerator(SEQUENTIAL, SECOND);
     singleThreadBenchmarkImpl(TOTAL_ID_COUNT, generator);
   }
 
   @Test
-  public void singleThreadBenchmark_2() {
+  public void singleThreadBenchmark_2() throws Exception {
     final AtomicIdGenerator generator = new AtomicIdGenerator(SPREAD, SECOND);
     singleThreadBenchmarkImpl(TOTAL_ID_COUNT, generator);
   }
 
   @Test
-  public void singleThreadBenchmark_3() {
+  public void singleThreadBenchmark_3() throws Exception {
     final AtomicIdGenerator generator = new AtomicIdGenerator(SEQUENTIAL, MILLISECOND);
     singleThreadBenchmarkImpl(TOTAL_ID_COUNT, generator);
   }
 
   @Test
-  public void singleThreadBenchmark_4() {
+  public void singleThreadBenchmark_4() throws Exception {
     final AtomicIdGenerator generator = new AtomicIdGenerator(SPREAD, MILLISECOND);
     singleThreadBenchmarkImpl(TOTAL_ID_COUNT, generator);
   }
@@ -123,4 +155,21 @@ public class AtomicIdGeneratorTest extends Benchmark implements Constant {
     final AtomicIdGenerator generator = new AtomicIdGenerator(SPREAD, MILLISECOND);
     multiThreadBenchmarkImpl(TOTAL_ID_COUNT, TOTAL_THREAD_COUNT, generator);
   }
+
+  @Test
+  public void virtualThreadBenchmark_1() throws Exception {
+    for (final int threadCount : VIRTUAL_THREAD_COUNTS) {
+      final AtomicIdGenerator generator = new AtomicIdGenerator(SEQUENTIAL, MILLISECOND);
+      virtualThreadBenchmarkImpl(TOTAL_ID_COUNT, threadCount, generator);
+    }
+  }
+
+  @Test
+  public void virtualThreadBenchmark_2() throws Exception {
+    for (final int threadCount : VIRTUAL_THREAD_COUNTS) {
+      final AtomicIdGenerator generator = new AtomicIdGenerator(SEQUENTIAL, MILLISECOND);
+      generator.setExhaustionPolicy(StandardExhaustionPolicy.PARK);
+      virtualThreadBenchmarkImpl(TOTAL_ID_COUNT, threadCount, generator);
+    }
+  }
 }
@@ -8,6 +8,9 @@
 ////////////////////////////////////////////////////////////////////////////////
 package ltd.qubit.id;
 
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -29,9 +32,26 @@ public class AutoIncrementIdGeneratorTest extends Benchmark implements Constant
     }
   }
 
+  @Test
+  public void testReserve() {
+    final IdGenerator generator = new AutoIncrementIdGenerator();
+    assertEquals(1, generator.generate());
+    final List<IdRange> ranges = generator.reserve(MAX);
+    assertEquals(1, ranges.size());
+    assertEquals(2, ranges.get(0).getStart());
+    assertEquals(MAX + 1, ranges.get(0).getLast());
+    assertEquals(MAX + 2, generator.generate());
+  }
+
+  @Test
+  public void testTryGenerate() throws Exception {
+    final IdGenerator generator = new AutoIncrementIdGenerator();
+    assertEquals(1, generator.tryGenerate().getAsLong());
+    assertEquals(2, generator.generate(1, TimeUnit.MILLISECONDS));
+  }
 
   @Test
-  public void singleThreadBenchmark() {
+  public void singleThreadBenchmark() throws Exception {
     final IdGenerator generator = new AutoIncrementIdGenerator();
     singleThreadBenchmarkImpl(TOTAL_ID_COUNT, generator);
   }
@@ -8,18 +8,15 @@
 ////////////////////////////////////////////////////////////////////////////////
 package ltd.qubit.id;
 
-import java.util.HashSet;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import ltd.qubit.commons.math.LongBit;
-
 import static java.lang.System.currentTimeMillis;
 
-import static org.junit.jupiter.api.Assertions.assertFalse;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 import static ltd.qubit.commons.lang.ClassUtils.getShortClassName;
 import static ltd.qubit.commons.util.HumanReadable.formatDuration;
@@ -29,57 +26,32 @@ public class Benchmark {
 
   protected static final int TOTAL_THREAD_COUNT = 100;
   protected static final int TOTAL_ID_COUNT = 5000000;
+  protected static final int[] VIRTUAL_THREAD_COUNTS = {100000, 1000000};
 
   private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
   private void assertNoDuplicated(final IdGenerator generator,
-      final long[] values) {
-    logger.info("Checking generated IDs ....");
-    final HashSet<Long> set = new HashSet<>();
-    long last = 0;
-    final long start = currentTimeMillis();
-    for (final long id : values) {
-      assertFalse(set.contains(id),
-          "The ID " + id + " should not have been generated.");
-      set.add(id);
-      if (generator.getMode() == Mode.SEQUENTIAL) {
-        assertTrue(LongBit.compare(last, id) < 0, "The sequential generator "
-            + "should generate sequential IDs: last = " + last
-            + ", id = " + id);
-        last = id;
-      }
-    }
-    final long end = currentTimeMillis();
-    final String time = formatDuration(end - start, TimeUnit.MILLISECONDS);
-    logger.info("Finished in {}. No duplicated found.", time);
-  }
-
-  private void assertNoDuplicated(final IdGenerator generator,
-      final BenchmarkThread[] threads) {
+      final long[]... values) throws Exception {
     logger.info("Checking generated IDs ....");
-    final HashSet<Long> set = new HashSet<>();
+    final boolean sequential = (generator.getMode() == Mode.SEQUENTIAL);
     final long start = currentTimeMillis();
-    for (final BenchmarkThread thread : threads) {
-      final long[] values = thread.getValues();
-      long last = 0;
-      for (final long id : values) {
-        assertFalse(set.contains(id));
-        set.add(id);
-        if (generator.getMode() == Mode.SEQUENTIAL) {
-          assertTrue(LongBit.compare(last, id) < 0, "The sequential generator "
-              + "should generate sequential IDs: last = " + last
-              + ", id = " + id);
-          last = id;
-        }
+    final IdVerifier.Report report;
+    try (final IdVerifier verifier = new IdVerifier()) {
+      for (final long[] ids : values) {
+        verifier.add(ids, sequential);
       }
+      report = verifier.verify();
     }
+    assertEquals(0, report.getDuplicates(), report.toString());
+    assertEquals(0, report.getOrderViolations(), "The sequential generator "
+        + "should generate sequential IDs: " + report);
     final long end = currentTimeMillis();
     final String time = formatDuration(end - start, TimeUnit.MILLISECONDS);
     logger.info("Finished in {}. No duplicated found.", time);
   }
 
   protected void singleThreadBenchmarkImpl(final int count,
-      final IdGenerator generator) {
+      final IdGenerator generator) throws Exception {
     final long[] values = new long[count];
     final String generatorName = getShortClassName(generator.getClass());
     logger.info("Generating {} IDs in a single thread with {}({}, {}) ...",
@@ -117,6 +89,54 @@ public class Benchmark {
     final String time = formatDuration(end - start, TimeUnit.MILLISECONDS);
     logger.info("Finished in {}. Average speed is {}/s.", time,
         ((long) totalIdCount * MILLIS_PER_SECOND / (end - start)));
-    assertNoDuplicated(generator, threads);
+    final long[][] values = new long[threadCount][];
+    for (int i = 0; i < threadCount; ++i) {
+      values[i] = threads[i].getValues();
+    }
+    assertNoDuplicated(generator, values);
+  }
+
+  protected void virtualThreadBenchmarkImpl(final int totalIdCount,
+      final int threadCount, final IdGenerator generator) throws Exception {
+    assumeTrue(VirtualThreads.isSupported(), "Virtual threads are not supported.");
+    final int count = totalIdCount / threadCount;
+    final long[][] values = new long[threadCount][count];
+    final Thread[] threads = new Thread[threadCount];
+    final String generatorName = getShortClassName(generator.getClass());
+    final int carriers = VirtualThreads.getParallelism();
+    logger.info("Generating {} IDs in {} virtual threads on {} carriers with {}({}, {})...",
+        totalIdCount, threadCount, carriers, generatorName, generator.getMode(),
+        generator.getPrecision());
+    final long cpuStart = VirtualThreads.getProcessCpuTime();
+    final long start = System.nanoTime();
+    for (int i = 0; i < threadCount; ++i) {
+      final long[] ids = values[i];
+      threads[i] = VirtualThreads.start(() -> {
+        for (int j = 0; j < ids.length; ++j) {
+          ids[j] = generator.generate();
+        }
+      });
+    }
+    for (int i = 0; i < threadCount; ++i) {
+      threads[i].join();
+    }
+    final long elapsed = System.nanoTime() - start;
+    final long cpu = VirtualThreads.getProcessCpuTime() - cpuStart;
+    final String time = formatDuration(TimeUnit.NANOSECONDS.toMillis(elapsed),
+        TimeUnit.MILLISECONDS);
+    logger.info("Finished in {}. Average speed is {}/s. Carrier utilization is {}%.",
+        time, ((long) count * threadCount * TimeUnit.SECONDS.toNanos(1) / elapsed),
+        (cpuStart < 0 ? "N/A" : String.format("%.1f", 100.0 * cpu / elapsed / carriers)));
+    assertNoDuplicated(generator, values);
+  }
+
+  protected void compareBenchmarkImpl(final int totalIdCount,
+      final int threadCount, final IdGenerator... generators) throws Exception {
+    for (final IdGenerator generator : generators) {
+      singleThreadBenchmarkImpl(totalIdCount, generator);
+    }
+    for (final IdGenerator generator : generators) {
+      multiThreadBenchmarkImpl(totalIdCount, threadCount, generator);
+    }
   }
 }
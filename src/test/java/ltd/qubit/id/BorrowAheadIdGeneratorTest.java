@@ -0,0 +1,146 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import static ltd.qubit.id.Mode.SEQUENTIAL;
+import static ltd.qubit.id.Mode.SPREAD;
+import static ltd.qubit.id.Precision.MILLISECOND;
+import static ltd.qubit.id.Precision.SECOND;
+
+/**
+ * Unit test of the {@link BorrowAheadIdGenerator} class.
+ *
+ * @author Haixing Hu
+ */
+public class BorrowAheadIdGeneratorTest extends Benchmark implements Constant {
+
+  private static final Instant EPOCH = Instant.ofEpochMilli(0L);
+
+  @Test
+  public void testConstructor() {
+    final BorrowAheadIdGenerator generator = new BorrowAheadIdGenerator(SPREAD,
+        SECOND, 7L, EPOCH, 3);
+    assertEquals(SPREAD, generator.getMode());
+    assertEquals(SECOND, generator.getPrecision());
+    assertEquals(7L, generator.getHost());
+    assertEquals(EPOCH, generator.getEpoch());
+    assertEquals(3, generator.getMaxLead());
+    assertThrows(IllegalArgumentException.class,
+        () -> new BorrowAheadIdGenerator(SPREAD, SECOND, 7L, EPOCH, -1));
+  }
+
+  @Test
+  public void testBorrowAhead() throws Exception {
+    final AtomicLong millis = new AtomicLong(1000L);
+    final Timer timer = new Timer(MILLISECOND, EPOCH, millis::get);
+    final BorrowAheadIdGenerator generator = new BorrowAheadIdGenerator(SEQUENTIAL,
+        1L, timer, 2);
+    final Builder builder = generator.getBuilder();
+    final int perSlice = (int) builder.getMaxSequence() + 1;
+    long last = 0;
+    // 消耗当前时间片以及预借的两个时间片
+    for (int i = 0; i < 3 * perSlice; ++i) {
+      final long id = generator.generate();
+      assertTrue(id > last);
+      assertEquals(1000L + i / perSlice, builder.extractTimestamp(id));
+      last = id;
+    }
+    assertEquals(2L, generator.getLead());
+    assertEquals(2L, generator.getBorrowedSlices());
+    // 超前的时间片数目已达上限，必须等待真实时间前进
+    final long[] result = new long[1];
+    final Thread thread = new Thread(() -> result[0] = generator.generate());
+    thread.start();
+    thread.join(100);
+    assertTrue(thread.isAlive());
+    millis.set(1001L);
+    thread.join(5000);
+    assertFalse(thread.isAlive());
+    assertTrue(result[0] > last);
+    assertEquals(1003L, builder.extractTimestamp(result[0]));
+    assertEquals(2L, generator.getLead());
+    // 真实时间超过逻辑时间后，逻辑时间戳随之同步
+    millis.set(2000L);
+    assertEquals(0L, generator.getLead());
+    final long id = generator.generate();
+    assertEquals(2000L, builder.extractTimestamp(id));
+    assertEquals(0L, builder.extractSequence(id));
+  }
+
+  @Test
+  public void testClockRegression() {
+    final AtomicLong millis = new AtomicLong(1000L);
+    final Timer timer = new Timer(MILLISECOND, EPOCH, millis::get);
+    final BorrowAheadIdGenerator generator = new BorrowAheadIdGenerator(SEQUENTIAL,
+        1L, timer, 2);
+    final long first = generator.generate();
+    millis.set(990L);
+    final long second = generator.generate();
+    assertTrue(second > first);
+    assertEquals(10L, generator.getLead());
+  }
+
+  @Test
+  public void testReserve() {
+    final AtomicLong millis = new AtomicLong(1000L);
+    final Timer timer = new Timer(MILLISECOND, EPOCH, millis::get);
+    final BorrowAheadIdGenerator generator = new BorrowAheadIdGenerator(SEQUENTIAL,
+        1L, timer, 2);
+    final Builder builder = generator.getBuilder();
+    final List<IdRange> ranges = generator.reserve(10000);
+    assertEquals(3, ranges.size());
+    assertEquals(4096, ranges.get(0).size());
+    assertEquals(4096, ranges.get(1).size());
+    assertEquals(10000 - 2 * 4096, ranges.get(2).size());
+    assertEquals(1002L, builder.extractTimestamp(ranges.get(2).getLast()));
+    assertEquals(2L, generator.getLead());
+  }
+
+  @Test
+  public void testExhaustionPolicy() throws Exception {
+    // 不允许预借时，行为与其他ID生成器相同
+    new GeneratorPolicyTester((timer) -> new BorrowAheadIdGenerator(SEQUENTIAL, 0L,
+        timer, 0)).testAll();
+  }
+
+  @Test
+  public void singleThreadBenchmark_1() throws Exception {
+    final BorrowAheadIdGenerator generator = new BorrowAheadIdGenerator(SEQUENTIAL, SECOND);
+    singleThreadBenchmarkImpl(TOTAL_ID_COUNT, generator);
+  }
+
+  @Test
+  public void singleThreadBenchmark_2() throws Exception {
+    final BorrowAheadIdGenerator generator = new BorrowAheadIdGenerator(SPREAD, MILLISECOND);
+    singleThreadBenchmarkImpl(TOTAL_ID_COUNT, generator);
+  }
+
+  @Test
+  public void multitheadBenchmark_1() throws Exception {
+    final BorrowAheadIdGenerator generator = new BorrowAheadIdGenerator(SEQUENTIAL, SECOND);
+    multiThreadBenchmarkImpl(TOTAL_ID_COUNT, TOTAL_THREAD_COUNT, generator);
+  }
+
+  @Test
+  public void multitheadBenchmark_2() throws Exception {
+    final BorrowAheadIdGenerator generator = new BorrowAheadIdGenerator(SPREAD, MILLISECOND);
+    multiThreadBenchmarkImpl(TOTAL_ID_COUNT, TOTAL_THREAD_COUNT, generator);
+  }
+}
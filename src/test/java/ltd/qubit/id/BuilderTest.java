@@ -8,11 +8,19 @@
 ////////////////////////////////////////////////////////////////////////////////
 package ltd.qubit.id;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+
 import org.junit.jupiter.api.Test;
 
 import ltd.qubit.commons.random.RandomBeanGenerator;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * {@link Builder}的单元测试。
@@ -179,4 +187,92 @@ public class BuilderTest implements Constant {
       assertEquals((1L << precision.getSequenceBits()) - 1L, builder.getMaxSequence());
     }
   }
+
+  private static boolean contains(final List<IdInterval> intervals, final long id) {
+    return intervals.stream().anyMatch(x -> x.contains(id));
+  }
+
+  @Test
+  public void testIdInterval() {
+    final Random random = new Random(1);
+    for (final Mode mode : Mode.values()) {
+      for (final Precision precision : Precision.values()) {
+        final Builder builder = new Builder(mode, precision, 317L);
+        final long maxTimestamp = builder.getMaxTimestamp();
+        final long[][] ranges = {{0, 0}, {0, 100}, {maxTimestamp - 100, maxTimestamp},
+            {1000000, 1000000}, {1000000, 1060000}, {1 << 20, (1 << 20) + 999},
+            {(1 << 20) - 1, (1 << 20) + 1}};
+        for (final long[] range : ranges) {
+          final long from = range[0];
+          final long to = range[1];
+          final IdInterval interval = builder.getIdInterval(from, to);
+          final List<IdInterval> intervals = builder.getIdIntervals(from, to);
+          // 区间的端点恰好是时间段内可以生成的最小和最大的ID
+          long min = Long.MAX_VALUE;
+          long max = Long.MIN_VALUE;
+          for (long t = from; t <= to; ++t) {
+            min = Math.min(min, builder.getMinId(t));
+            max = Math.max(max, builder.getMaxId(t));
+          }
+          assertEquals(new IdInterval(min, max), interval);
+          assertEquals(intervals.get(0).getMin(), min);
+          assertEquals(intervals.get(intervals.size() - 1).getMax(), max);
+          for (int i = 1; i < intervals.size(); ++i) {
+            assertTrue(intervals.get(i - 1).getMax() < intervals.get(i).getMin() - 1);
+          }
+          if (mode == Mode.SEQUENTIAL) {
+            assertEquals(1, intervals.size());
+          } else {
+            assertEquals(to - from + 1, intervals.size());
+          }
+          for (int i = 0; i < 1000; ++i) {
+            final Builder other = new Builder(mode, precision, random.nextInt(512));
+            final long t = from + (long) (random.nextDouble() * (to - from + 1));
+            final long sequence = (long) (random.nextDouble() * (builder.getMaxSequence() + 1));
+            final long id = other.build(t, sequence);
+            assertTrue(interval.contains(id));
+            assertTrue(contains(intervals, id));
+            if (from > 0) {
+              assertFalse(contains(intervals, other.build(from - 1, sequence)));
+            }
+            if (to < maxTimestamp) {
+              assertFalse(contains(intervals, other.build(to + 1, sequence)));
+            }
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testSpreadIntervalLimit() {
+    final Builder builder = new Builder(Mode.SPREAD, Precision.SECOND, 1L);
+    assertEquals(1 << 20, builder.getIdIntervals(0, (1 << 20) - 1).size());
+    assertThrows(IllegalArgumentException.class,
+        () -> builder.getIdIntervals(0, 1 << 20));
+  }
+
+  @Test
+  public void testIdIntervalOfInstants() {
+    final Instant epoch = Instant.parse("2020-01-01T00:00:00Z");
+    final Timer timer = new Timer(Precision.MILLISECOND, epoch);
+    final Builder builder = new Builder(Mode.SEQUENTIAL, Precision.MILLISECOND, 7L);
+    final Instant from = Instant.parse("2024-03-01T10:00:00Z");
+    final Instant to = Instant.parse("2024-03-01T10:59:59.999Z");
+    final IdInterval interval = builder.getIdInterval(timer, from, to);
+    assertEquals(builder.getMinId(timer.getTimestamp(from)), interval.getMin());
+    assertEquals(builder.getMaxId(timer.getTimestamp(to)), interval.getMax());
+    assertEquals(List.of(interval), builder.getIdIntervals(timer, from, to));
+    // 早于起点的部分被截掉
+    assertEquals(builder.getMinId(0), builder.getIdInterval(timer,
+        epoch.minusSeconds(10), epoch.plusSeconds(1)).getMin());
+    assertNull(builder.getIdInterval(timer, epoch.minusSeconds(10), epoch.minusSeconds(1)));
+    assertTrue(builder.getIdIntervals(timer, epoch.minusSeconds(10),
+        epoch.minusSeconds(1)).isEmpty());
+    assertThrows(IllegalArgumentException.class,
+        () -> builder.getIdInterval(timer, to, from));
+    assertThrows(IllegalArgumentException.class, () -> builder.getIdInterval(
+        new Timer(Precision.SECOND, epoch), from, to));
+    assertThrows(IllegalArgumentException.class, () -> builder.getIdInterval(2, 1));
+  }
 }
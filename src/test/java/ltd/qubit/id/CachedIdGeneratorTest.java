@@ -0,0 +1,177 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import static ltd.qubit.id.BufferRejectionPolicy.DIRECT;
+import static ltd.qubit.id.BufferRejectionPolicy.FAIL;
+import static ltd.qubit.id.BufferRejectionPolicy.WAIT;
+import static ltd.qubit.id.Mode.SEQUENTIAL;
+import static ltd.qubit.id.Mode.SPREAD;
+import static ltd.qubit.id.Precision.MILLISECOND;
+import static ltd.qubit.id.Precision.SECOND;
+
+/**
+ * Unit test of the {@link CachedIdGenerator} class.
+ *
+ * @author Haixing Hu
+ */
+public class CachedIdGeneratorTest extends Benchmark {
+
+  private static final Instant EPOCH = Instant.ofEpochMilli(0L);
+
+  private static Timer frozenTimer() {
+    return new Timer(MILLISECOND, EPOCH, () -> 1000L);
+  }
+
+  @Test
+  public void testConstructor() {
+    final Timer timer = frozenTimer();
+    assertThrows(IllegalArgumentException.class,
+        () -> new CachedIdGenerator(SEQUENTIAL, 0L, timer, 1000, 10, WAIT));
+    assertThrows(IllegalArgumentException.class,
+        () -> new CachedIdGenerator(SEQUENTIAL, 0L, timer, 1024, 1024, WAIT));
+    assertThrows(IllegalArgumentException.class,
+        () -> new CachedIdGenerator(SEQUENTIAL, 0L, timer, 1024, -1, WAIT));
+    final CachedIdGenerator generator = new CachedIdGenerator(SPREAD, 3L, timer,
+        1024, 256, DIRECT);
+    assertEquals(SPREAD, generator.getMode());
+    assertEquals(MILLISECOND, generator.getPrecision());
+    assertEquals(3L, generator.getBuilder().getHost());
+    assertEquals(1024, generator.getBufferSize());
+    assertEquals(256, generator.getThreshold());
+    assertEquals(DIRECT, generator.getRejectionPolicy());
+    assertTrue(generator.isRunning());
+    generator.close();
+    assertFalse(generator.isRunning());
+  }
+
+  @Test
+  public void testCloseWithStalledClock() throws Exception {
+    // 冻结的时钟下，后台线程在填满4096个ID之后一直等待下一个时间片
+    final CachedIdGenerator generator = new CachedIdGenerator(SEQUENTIAL, 0L,
+        frozenTimer(), 1024, 512, WAIT);
+    for (int i = 0; i < 4096; ++i) {
+      generator.generate();
+    }
+    assertTrue(generator.isRunning());
+    final long start = System.nanoTime();
+    generator.close();
+    assertFalse(generator.isRunning());
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+    assertThrows(IllegalStateException.class, generator::generate);
+  }
+
+  @Test
+  public void testGenerate() {
+    try (final CachedIdGenerator generator = new CachedIdGenerator(SEQUENTIAL, 0L,
+        new Timer(MILLISECOND, EPOCH), 1024, 512, WAIT)) {
+      final Set<Long> ids = new HashSet<>();
+      long last = Long.MIN_VALUE;
+      for (int i = 0; i < 100000; ++i) {
+        final long id = generator.generate();
+        assertTrue(ids.add(id));
+        assertTrue(id > last);
+        last = id;
+      }
+      assertTrue(generator.getRefills() > 0);
+      assertTrue(generator.getFillLevel() <= generator.getBufferSize());
+    }
+  }
+
+  @Test
+  public void testRejectionPolicy() throws Exception {
+    // 冻结的时钟下只能生成一个时间片内的4096个ID
+    try (final CachedIdGenerator generator = new CachedIdGenerator(SEQUENTIAL, 0L,
+        frozenTimer(), 1024, 512, FAIL)) {
+      final Set<Long> ids = new HashSet<>();
+      final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (ids.size() < 4096 && System.nanoTime() < deadline) {
+        final OptionalLong id = generator.tryGenerate();
+        if (id.isPresent()) {
+          assertTrue(ids.add(id.getAsLong()));
+        } else {
+          Thread.sleep(1);
+        }
+      }
+      assertEquals(4096, ids.size());
+      assertFalse(generator.tryGenerate().isPresent());
+      assertThrows(IllegalStateException.class, generator::generate);
+      assertThrows(IllegalStateException.class,
+          () -> generator.generate(10, TimeUnit.MILLISECONDS));
+      assertTrue(generator.getRejections() > 0);
+      assertEquals(0, generator.getFillLevel());
+    }
+    try (final CachedIdGenerator generator = new CachedIdGenerator(SEQUENTIAL, 0L,
+        frozenTimer(), 1024, 512, WAIT)) {
+      for (int i = 0; i < 4096; ++i) {
+        generator.generate();
+      }
+      assertFalse(generator.tryGenerate().isPresent());
+      assertThrows(TimeoutException.class,
+          () -> generator.generate(10, TimeUnit.MILLISECONDS));
+    }
+  }
+
+  @Test
+  public void testReserve() {
+    try (final CachedIdGenerator generator = new CachedIdGenerator(SEQUENTIAL, MILLISECOND)) {
+      final Set<Long> ids = new HashSet<>();
+      for (final IdRange range : generator.reserve(10000)) {
+        for (final long id : range) {
+          assertTrue(ids.add(id));
+        }
+      }
+      for (int i = 0; i < 10000; ++i) {
+        assertTrue(ids.add(generator.generate()));
+      }
+    }
+  }
+
+  @Test
+  public void singleThreadBenchmark_1() throws Exception {
+    try (final CachedIdGenerator generator = new CachedIdGenerator(SEQUENTIAL, SECOND)) {
+      singleThreadBenchmarkImpl(TOTAL_ID_COUNT, generator);
+    }
+  }
+
+  @Test
+  public void singleThreadBenchmark_2() throws Exception {
+    try (final CachedIdGenerator generator = new CachedIdGenerator(SPREAD, MILLISECOND)) {
+      singleThreadBenchmarkImpl(TOTAL_ID_COUNT, generator);
+    }
+  }
+
+  @Test
+  public void multitheadBenchmark_1() throws Exception {
+    try (final CachedIdGenerator generator = new CachedIdGenerator(SEQUENTIAL, SECOND)) {
+      multiThreadBenchmarkImpl(TOTAL_ID_COUNT, TOTAL_THREAD_COUNT, generator);
+    }
+  }
+
+  @Test
+  public void multitheadBenchmark_2() throws Exception {
+    try (final CachedIdGenerator generator = new CachedIdGenerator(SPREAD, MILLISECOND)) {
+      multiThreadBenchmarkImpl(TOTAL_ID_COUNT, TOTAL_THREAD_COUNT, generator);
+    }
+  }
+}
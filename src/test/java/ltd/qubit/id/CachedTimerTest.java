@@ -0,0 +1,92 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import static ltd.qubit.id.Mode.SEQUENTIAL;
+import static ltd.qubit.id.Precision.MILLISECOND;
+import static ltd.qubit.id.Precision.SECOND;
+
+/**
+ * Unit test of the {@link CachedTimer} class.
+ *
+ * @author Haixing Hu
+ */
+public class CachedTimerTest extends TimerBenchmark {
+
+  @Test
+  public void testNow() throws Exception {
+    try (final CachedTimer timer = new CachedTimer(MILLISECOND, Constant.DEFAULT_EPOCH)) {
+      final Timer precise = new Timer(MILLISECOND, Constant.DEFAULT_EPOCH);
+      assertTrue(timer.isRunning());
+      for (int i = 0; i < 10; ++i) {
+        final long expected = precise.now();
+        // 允许缓存的时间戳有一定的滞后
+        assertTrue(Math.abs(expected - timer.now()) <= 50,
+            "expected = " + expected + ", cached = " + timer.now());
+        Thread.sleep(5);
+      }
+    }
+  }
+
+  @Test
+  public void testTicking() throws Exception {
+    final long[] millis = {10_000L};
+    final CachedTimer timer = new CachedTimer(SECOND, Instant.ofEpochMilli(0L),
+        () -> millis[0], 1L);
+    try {
+      assertEquals(10L, timer.now());
+      millis[0] = 12_500L;
+      final long deadline = System.currentTimeMillis() + 5000;
+      while (timer.now() != 12L && System.currentTimeMillis() < deadline) {
+        Thread.sleep(1);
+      }
+      assertEquals(12L, timer.now());
+    } finally {
+      timer.close();
+    }
+    assertFalse(timer.isRunning());
+  }
+
+  @Test
+  public void testConstructor() {
+    assertThrows(IllegalArgumentException.class, () -> new CachedTimer(SECOND,
+        Constant.DEFAULT_EPOCH, SystemClockSource.INSTANCE, 0L));
+  }
+
+  @Test
+  public void testGenerator() {
+    try (final CachedTimer timer = new CachedTimer(MILLISECOND, Constant.DEFAULT_EPOCH)) {
+      final AtomicIdGenerator generator = new AtomicIdGenerator(SEQUENTIAL, 3L, timer);
+      assertEquals(MILLISECOND, generator.getPrecision());
+      assertEquals(3L, generator.getHost());
+      long last = generator.generate();
+      for (int i = 0; i < 100000; ++i) {
+        final long id = generator.generate();
+        assertTrue(id > last);
+        last = id;
+      }
+    }
+  }
+
+  @Test
+  public void nowBenchmark() {
+    try (final CachedTimer timer = new CachedTimer(SECOND, Constant.DEFAULT_EPOCH)) {
+      nowBenchmarkImpl(timer);
+    }
+  }
+}
@@ -0,0 +1,356 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import ltd.qubit.commons.lang.Equality;
+import ltd.qubit.commons.lang.Hash;
+import ltd.qubit.commons.text.tostring.ToStringBuilder;
+
+/**
+ * 在虚拟时间中确定性地模拟ID生成器在时钟异常和序列号耗尽时的行为。
+ *
+ * <p>模拟在单个线程中进行：请求按照固定的间隔发起，每次调用消耗固定的虚拟时间；
+ * 时钟跳变和请求突发按照{@link ClockTrace}在指定的时刻发生。序列号耗尽时，生成器调用
+ * 模拟的等待策略，该策略不会真正休眠，而是按照对应的{@link StandardExhaustionPolicy}的
+ * 唤醒方式推进虚拟时间，因此同样的输入总是得到同样的结果。
+ *
+ * <p>模拟报告以下指标：等待的总时间和单次调用的最长等待时间、等待策略的唤醒次数及其中
+ * 没有进入下一个时间片的无效唤醒次数、生成循环中多出的时钟读取次数（单线程模拟中没有CAS
+ * 竞争，这一数值反映了序列号耗尽后的重试）、重复的ID数目以及违反单调性的次数。
+ *
+ * @author Haixing Hu
+ */
+public class ClockSimulator {
+
+  /**
+   * 模拟开始的时刻，距离{@code 1970-01-01T00:00:00Z}的毫秒数。
+   */
+  public static final long START_MILLIS = 1_000_000_000_000L;
+
+  /**
+   * 模拟的等待方式。
+   */
+  public enum WaitStrategy {
+
+    /**
+     * 模拟{@link StandardExhaustionPolicy#SLEEP}，每次休眠时间戳精度对应的固定时间。
+     */
+    SLEEP,
+
+    /**
+     * 模拟{@link StandardExhaustionPolicy#SPIN}，每次自旋消耗{@link #SPIN_NANOS}纳秒。
+     */
+    SPIN,
+
+    /**
+     * 模拟{@link StandardExhaustionPolicy#PARK}，每次挂起到按照时钟计算出的时间片边界。
+     */
+    PARK,
+  }
+
+  /**
+   * 模拟的每次自旋消耗的时间，单位为纳秒。
+   */
+  public static final long SPIN_NANOS = 1_000L;
+
+  private final Precision precision;
+
+  private final Function<ClockSource, Timer> timerFactory;
+
+  private final Function<Timer, AbstractIdGenerator> generatorFactory;
+
+  private final WaitStrategy waitStrategy;
+
+  // 以下为模拟过程中的状态，模拟在单个线程中进行
+  private VirtualClockSource clock;
+  private long start;
+  private List<ClockTrace.Event> steps;
+  private int nextStep;
+  private boolean inPolicy;
+  private long generatorReads;
+  private long stallNanos;
+  private long wakeUps;
+  private long wastedWakeUps;
+
+  /**
+   * 构造一个{@link ClockSimulator}对象。
+   *
+   * @param precision
+   *     时间戳精度。
+   * @param timerFactory
+   *     根据时钟源创建时间戳生成器的函数，例如{@code (c) -> new Timer(p, epoch, c)}。
+   * @param generatorFactory
+   *     根据时间戳生成器创建ID生成器的函数。
+   * @param waitStrategy
+   *     模拟的等待方式。
+   */
+  public ClockSimulator(final Precision precision,
+      final Function<ClockSource, Timer> timerFactory,
+      final Function<Timer, AbstractIdGenerator> generatorFactory,
+      final WaitStrategy waitStrategy) {
+    this.precision = precision;
+    this.timerFactory = timerFactory;
+    this.generatorFactory = generatorFactory;
+    this.waitStrategy = waitStrategy;
+  }
+
+  /**
+   * 运行一次模拟。
+   *
+   * @param trace
+   *     时钟轨迹。
+   * @param durationMillis
+   *     模拟的持续时间，单位为毫秒。
+   * @param intervalNanos
+   *     正常情况下两次请求之间的间隔，单位为纳秒。
+   * @param callCostNanos
+   *     每次调用消耗的时间，单位为纳秒。
+   * @return 模拟的结果。
+   * @throws Exception
+   *     若校验生成的ID时出错。
+   */
+  public Report run(final ClockTrace trace, final long durationMillis,
+      final long intervalNanos, final long callCostNanos) throws Exception {
+    clock = new VirtualClockSource(START_MILLIS);
+    start = clock.getRealNanos();
+    steps = new ArrayList<>();
+    final List<ClockTrace.Event> bursts = new ArrayList<>();
+    for (final ClockTrace.Event event : trace.getEvents()) {
+      (event.type == ClockTrace.Type.STEP ? steps : bursts).add(event);
+    }
+    nextStep = 0;
+    int nextBurst = 0;
+    inPolicy = false;
+    generatorReads = 0;
+    stallNanos = 0;
+    wakeUps = 0;
+    wastedWakeUps = 0;
+    final ClockSource countingClock = () -> {
+      if (!inPolicy) {
+        ++generatorReads;
+      }
+      return clock.millis();
+    };
+    final Timer timer = timerFactory.apply(countingClock);
+    if (timer.getPrecision() != precision) {
+      throw new IllegalArgumentException("The timer must use the precision " + precision);
+    }
+    final AbstractIdGenerator generator = generatorFactory.apply(timer);
+    generator.setExhaustionPolicy(new SimulatedPolicy());
+    final boolean sequential = (generator.getMode() == Mode.SEQUENTIAL);
+    final long end = start + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+    long nextCall = start;
+    long calls = 0;
+    long maxStallNanos = 0;
+    try (final IdVerifier verifier = new IdVerifier()) {
+      final IdVerifier.Recorder recorder = verifier.newRecorder(sequential);
+      while (true) {
+        long count = 1;
+        final long burstTime = (nextBurst < bursts.size()
+                                ? timeOf(bursts.get(nextBurst)) : Long.MAX_VALUE);
+        if (burstTime <= nextCall && burstTime < end) {
+          advanceTo(burstTime);
+          count = bursts.get(nextBurst++).value;
+        } else if (nextCall < end) {
+          advanceTo(nextCall);
+          nextCall += intervalNanos;
+        } else {
+          break;
+        }
+        for (long i = 0; i < count; ++i) {
+          final long stallBefore = stallNanos;
+          recorder.record(generator.generate());
+          maxStallNanos = Math.max(maxStallNanos, stallNanos - stallBefore);
+          advanceTo(clock.getRealNanos() + callCostNanos);
+          ++calls;
+        }
+      }
+      final IdVerifier.Report verified = verifier.verify();
+      return new Report(calls, stallNanos, maxStallNanos, wakeUps, wastedWakeUps,
+          generatorReads - calls, verified.getDuplicates(), verified.getOrderViolations());
+    }
+  }
+
+  private long timeOf(final ClockTrace.Event event) {
+    return start + TimeUnit.MILLISECONDS.toNanos(event.at);
+  }
+
+  /**
+   * 把真实时间推进到指定的时刻，并依次应用途中发生的时钟跳变。
+   */
+  private void advanceTo(final long realNanos) {
+    while (nextStep < steps.size()) {
+      final ClockTrace.Event step = steps.get(nextStep);
+      final long time = timeOf(step);
+      if (time > realNanos) {
+        break;
+      }
+      if (time > clock.getRealNanos()) {
+        clock.advance(time - clock.getRealNanos(), TimeUnit.NANOSECONDS);
+      }
+      clock.step(step.value);
+      ++nextStep;
+    }
+    if (realNanos > clock.getRealNanos()) {
+      clock.advance(realNanos - clock.getRealNanos(), TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * 在虚拟时间中模拟等待的序列号耗尽策略。
+   */
+  private final class SimulatedPolicy implements ExhaustionPolicy {
+
+    @Override
+    public boolean awaitNext(final Timer timer, final long lastTimestamp,
+        final long deadline) {
+      inPolicy = true;
+      try {
+        final long boundary = timer.getEpochMillis(lastTimestamp + 1);
+        while (timer.now() == lastTimestamp) {
+          final long nanos;
+          switch (waitStrategy) {
+            case SLEEP:
+              nanos = TimeUnit.MILLISECONDS.toNanos(precision.getWaitDuration());
+              break;
+            case SPIN:
+              nanos = SPIN_NANOS;
+              break;
+            case PARK:
+            default:
+              nanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1L, boundary - clock.millis()));
+              break;
+          }
+          advanceTo(clock.getRealNanos() + nanos);
+          stallNanos += nanos;
+          ++wakeUps;
+          if (timer.now() == lastTimestamp) {
+            ++wastedWakeUps;
+          }
+        }
+        return true;
+      } finally {
+        inPolicy = false;
+      }
+    }
+  }
+
+  /**
+   * 模拟的结果。
+   */
+  public static final class Report {
+
+    private final long calls;
+    private final long stallNanos;
+    private final long maxStallNanos;
+    private final long wakeUps;
+    private final long wastedWakeUps;
+    private final long retries;
+    private final long duplicates;
+    private final long orderViolations;
+
+    Report(final long calls, final long stallNanos, final long maxStallNanos,
+        final long wakeUps, final long wastedWakeUps, final long retries,
+        final long duplicates, final long orderViolations) {
+      this.calls = calls;
+      this.stallNanos = stallNanos;
+      this.maxStallNanos = maxStallNanos;
+      this.wakeUps = wakeUps;
+      this.wastedWakeUps = wastedWakeUps;
+      this.retries = retries;
+      this.duplicates = duplicates;
+      this.orderViolations = orderViolations;
+    }
+
+    public long getCalls() {
+      return calls;
+    }
+
+    public long getStallNanos() {
+      return stallNanos;
+    }
+
+    public long getMaxStallNanos() {
+      return maxStallNanos;
+    }
+
+    public long getWakeUps() {
+      return wakeUps;
+    }
+
+    public long getWastedWakeUps() {
+      return wastedWakeUps;
+    }
+
+    public long getRetries() {
+      return retries;
+    }
+
+    public long getDuplicates() {
+      return duplicates;
+    }
+
+    public long getOrderViolations() {
+      return orderViolations;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if ((o == null) || (getClass() != o.getClass())) {
+        return false;
+      }
+      final Report other = (Report) o;
+      return Equality.equals(calls, other.calls)
+          && Equality.equals(stallNanos, other.stallNanos)
+          && Equality.equals(maxStallNanos, other.maxStallNanos)
+          && Equality.equals(wakeUps, other.wakeUps)
+          && Equality.equals(wastedWakeUps, other.wastedWakeUps)
+          && Equality.equals(retries, other.retries)
+          && Equality.equals(duplicates, other.duplicates)
+          && Equality.equals(orderViolations, other.orderViolations);
+    }
+
+    @Override
+    public int hashCode() {
+      final int multiplier = 7;
+      int result = 3;
+      result = Hash.combine(result, multiplier, calls);
+      result = Hash.combine(result, multiplier, stallNanos);
+      result = Hash.combine(result, multiplier, maxStallNanos);
+      result = Hash.combine(result, multiplier, wakeUps);
+      result = Hash.combine(result, multiplier, wastedWakeUps);
+      result = Hash.combine(result, multiplier, retries);
+      result = Hash.combine(result, multiplier, duplicates);
+      result = Hash.combine(result, multiplier, orderViolations);
+      return result;
+    }
+
+    @Override
+    public String toString() {
+      return new ToStringBuilder(this)
+          .append("calls", calls)
+          .append("stallNanos", stallNanos)
+          .append("maxStallNanos", maxStallNanos)
+          .append("wakeUps", wakeUps)
+          .append("wastedWakeUps", wastedWakeUps)
+          .append("retries", retries)
+          .append("duplicates", duplicates)
+          .append("orderViolations", orderViolations)
+          .toString();
+    }
+  }
+}
@@ -0,0 +1,184 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import static ltd.qubit.id.ClockSimulator.WaitStrategy.PARK;
+import static ltd.qubit.id.ClockSimulator.WaitStrategy.SLEEP;
+import static ltd.qubit.id.ClockSimulator.WaitStrategy.SPIN;
+import static ltd.qubit.id.Mode.SEQUENTIAL;
+import static ltd.qubit.id.Precision.MILLISECOND;
+import static ltd.qubit.id.Precision.SECOND;
+
+/**
+ * Unit test of the {@link ClockSimulator} class.
+ *
+ * @author Haixing Hu
+ */
+public class ClockSimulatorTest {
+
+  private static final Instant EPOCH = Instant.ofEpochMilli(0L);
+
+  private static final long INTERVAL_NANOS = 1_000L;
+
+  private static final long CALL_COST_NANOS = 100L;
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private static Function<ClockSource, Timer> timer(final Precision precision) {
+    return (clock) -> new Timer(precision, EPOCH, clock);
+  }
+
+  private static Function<ClockSource, Timer> hybridTimer(final Precision precision) {
+    return (clock) -> new HybridLogicalTimer(precision, EPOCH, clock,
+        HybridLogicalTimer.DEFAULT_MAX_DRIFT);
+  }
+
+  private static List<Function<Timer, AbstractIdGenerator>> generators() {
+    return List.of((t) -> new AtomicIdGenerator(SEQUENTIAL, 0L, t),
+        (t) -> new LockedIdGenerator(SEQUENTIAL, 0L, t));
+  }
+
+  private ClockSimulator.Report run(final Function<ClockSource, Timer> timer,
+      final Function<Timer, AbstractIdGenerator> generator,
+      final ClockSimulator.WaitStrategy strategy, final Precision precision,
+      final ClockTrace trace, final long durationMillis) throws Exception {
+    final ClockSimulator simulator = new ClockSimulator(precision, timer, generator, strategy);
+    final ClockSimulator.Report report = simulator.run(trace, durationMillis,
+        INTERVAL_NANOS, CALL_COST_NANOS);
+    logger.info("{} {}: {}", precision, strategy, report);
+    return report;
+  }
+
+  @Test
+  public void testParse() {
+    final ClockTrace trace = ClockTrace.parse("# a recorded trace\n"
+        + "100 step -20\n"
+        + "\n"
+        + "50 burst 5000   # burst before the step\n"
+        + "200 smear 10 2\n");
+    final List<ClockTrace.Event> events = trace.getEvents();
+    assertEquals(4, events.size());
+    assertEquals(50L, events.get(0).at);
+    assertEquals(ClockTrace.Type.BURST, events.get(0).type);
+    assertEquals(5000L, events.get(0).value);
+    assertEquals(-20L, events.get(1).value);
+    assertEquals(200L, events.get(2).at);
+    assertEquals(205L, events.get(3).at);
+    assertEquals(1L, events.get(3).value);
+    assertThrows(IllegalArgumentException.class, () -> ClockTrace.parse("1 jump 2"));
+  }
+
+  @Test
+  public void testDeterministic() throws Exception {
+    final ClockTrace trace = new ClockTrace().burst(10, 10000).step(30, -5).step(60, 7);
+    for (final Function<Timer, AbstractIdGenerator> generator : generators()) {
+      final ClockSimulator.Report first = run(timer(MILLISECOND), generator, SLEEP,
+          MILLISECOND, trace, 100);
+      final ClockSimulator.Report second = run(timer(MILLISECOND), generator, SLEEP,
+          MILLISECOND, trace, 100);
+      assertEquals(first, second);
+    }
+  }
+
+  @Test
+  public void testForwardStep() throws Exception {
+    final ClockTrace trace = new ClockTrace().step(50, 1000);
+    for (final Function<Timer, AbstractIdGenerator> generator : generators()) {
+      final ClockSimulator.Report report = run(timer(MILLISECOND), generator, PARK,
+          MILLISECOND, trace, 100);
+      assertEquals(100_000, report.getCalls());
+      assertEquals(0, report.getDuplicates(), report.toString());
+      assertEquals(0, report.getOrderViolations(), report.toString());
+      assertEquals(0, report.getStallNanos(), report.toString());
+    }
+  }
+
+  @Test
+  public void testBackwardStep() throws Exception {
+    final ClockTrace trace = new ClockTrace().step(100, -20);
+    for (final Function<Timer, AbstractIdGenerator> generator : generators()) {
+      // 普通的计时器在时钟回拨后重置序列号，重复生成ID
+      final ClockSimulator.Report plain = run(timer(MILLISECOND), generator, PARK,
+          MILLISECOND, trace, 200);
+      assertTrue(plain.getDuplicates() > 0, plain.toString());
+      assertTrue(plain.getOrderViolations() > 0, plain.toString());
+      // 混合逻辑时钟在逻辑时间片上继续递增序列号，既不重复也不停顿
+      final ClockSimulator.Report hybrid = run(hybridTimer(MILLISECOND), generator, PARK,
+          MILLISECOND, trace, 200);
+      assertEquals(0, hybrid.getDuplicates(), hybrid.toString());
+      assertEquals(0, hybrid.getOrderViolations(), hybrid.toString());
+      assertEquals(0, hybrid.getStallNanos(), hybrid.toString());
+    }
+  }
+
+  @Test
+  public void testSmear() throws Exception {
+    // 平滑调整只会拉长或缩短某些毫秒，时钟读数不会减小，因此不会产生重复的ID
+    final ClockTrace backward = new ClockTrace().smear(100, 1000, -100);
+    final ClockTrace forward = new ClockTrace().smear(100, 1000, 100);
+    for (final Function<Timer, AbstractIdGenerator> generator : generators()) {
+      for (final ClockTrace trace : List.of(backward, forward)) {
+        final ClockSimulator.Report report = run(timer(MILLISECOND), generator, PARK,
+            MILLISECOND, trace, 1500);
+        assertEquals(1_500_000, report.getCalls());
+        assertEquals(0, report.getDuplicates(), report.toString());
+        assertEquals(0, report.getOrderViolations(), report.toString());
+      }
+    }
+  }
+
+  @Test
+  public void testBurst() throws Exception {
+    final long perSlice = new Builder(SEQUENTIAL, MILLISECOND, 0L).getMaxSequence() + 1;
+    final ClockTrace trace = new ClockTrace().burst(10, 3 * perSlice);
+    for (final Function<Timer, AbstractIdGenerator> generator : generators()) {
+      final ClockSimulator.Report park = run(timer(MILLISECOND), generator, PARK,
+          MILLISECOND, trace, 50);
+      final ClockSimulator.Report sleep = run(timer(MILLISECOND), generator, SLEEP,
+          MILLISECOND, trace, 50);
+      final ClockSimulator.Report spin = run(timer(MILLISECOND), generator, SPIN,
+          MILLISECOND, trace, 50);
+      for (final ClockSimulator.Report report : List.of(park, sleep, spin)) {
+        assertTrue(report.getStallNanos() > 0, report.toString());
+        assertTrue(report.getWakeUps() > 0, report.toString());
+        assertEquals(0, report.getDuplicates(), report.toString());
+        assertEquals(0, report.getOrderViolations(), report.toString());
+      }
+      assertEquals(0, park.getWastedWakeUps(), park.toString());
+      assertTrue(spin.getWastedWakeUps() > park.getWastedWakeUps(), spin.toString());
+    }
+  }
+
+  @Test
+  public void testSecondPrecisionBurst() throws Exception {
+    final long perSlice = new Builder(SEQUENTIAL, SECOND, 0L).getMaxSequence() + 1;
+    final ClockTrace trace = new ClockTrace().burst(100, perSlice + 10);
+    for (final Function<Timer, AbstractIdGenerator> generator : generators()) {
+      final ClockSimulator.Report sleep = run(timer(SECOND), generator, SLEEP, SECOND,
+          trace, 200);
+      final ClockSimulator.Report park = run(timer(SECOND), generator, PARK, SECOND,
+          trace, 200);
+      // 休眠的粒度为500毫秒，可能越过时间片的边界，而挂起到边界的等待时间最短
+      assertTrue(park.getMaxStallNanos() <= sleep.getMaxStallNanos(), park + " vs " + sleep);
+      assertEquals(0, park.getWastedWakeUps(), park.toString());
+    }
+  }
+}
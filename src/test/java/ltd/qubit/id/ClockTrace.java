@@ -0,0 +1,179 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 模拟中使用的时钟轨迹，描述时钟跳变和请求突发在何时发生。
+ *
+ * <p>所有时刻都以模拟开始后真实流逝的毫秒数表示。轨迹可以通过代码构造，也可以从文本中
+ * 解析，文本的每一行描述一个事件，{@code #}之后的内容为注释：
+ * <pre><code>
+ *   &lt;时刻&gt; step &lt;调整幅度&gt;            # 时钟跳变，单位为毫秒，可为负数
+ *   &lt;时刻&gt; smear &lt;持续时间&gt; &lt;总幅度&gt;  # 在持续时间内均匀地逐毫秒调整时钟
+ *   &lt;时刻&gt; burst &lt;请求数&gt;              # 在该时刻一次性发起指定数目的请求
+ * </code></pre>
+ *
+ * @author Haixing Hu
+ */
+public class ClockTrace {
+
+  /**
+   * 事件的类型。
+   */
+  public enum Type {
+
+    /**
+     * 时钟跳变，{@link Event#value}为调整幅度，单位为毫秒。
+     */
+    STEP,
+
+    /**
+     * 请求突发，{@link Event#value}为请求数。
+     */
+    BURST,
+  }
+
+  /**
+   * 轨迹中的事件。
+   */
+  public static final class Event {
+
+    public final long at;
+
+    public final Type type;
+
+    public final long value;
+
+    Event(final long at, final Type type, final long value) {
+      this.at = at;
+      this.type = type;
+      this.value = value;
+    }
+
+    @Override
+    public String toString() {
+      return at + " " + type + " " + value;
+    }
+  }
+
+  private final List<Event> events = new ArrayList<>();
+
+  /**
+   * 添加一次时钟跳变。
+   *
+   * @param atMillis
+   *     发生的时刻。
+   * @param deltaMillis
+   *     调整幅度，正数表示向前调整，负数表示向后调整。
+   * @return 此对象。
+   */
+  public ClockTrace step(final long atMillis, final long deltaMillis) {
+    events.add(new Event(atMillis, Type.STEP, deltaMillis));
+    return this;
+  }
+
+  /**
+   * 添加一次时钟平滑调整，例如闰秒的平滑处理。
+   *
+   * <p>平滑调整被展开为{@code |totalMillis|}次幅度为1毫秒的跳变，均匀分布在持续时间内。
+   * 每次跳变都发生在整毫秒的时刻，因此时钟的读数不会减小，只是某些毫秒被拉长（或被跳过），
+   * 与按比例减慢（或加快）时钟的效果相同。
+   *
+   * @param atMillis
+   *     开始的时刻。
+   * @param durationMillis
+   *     持续时间，必须大于0。
+   * @param totalMillis
+   *     总调整幅度，正数表示向前调整，负数表示向后调整。
+   * @return 此对象。
+   */
+  public ClockTrace smear(final long atMillis, final long durationMillis,
+      final long totalMillis) {
+    if (durationMillis <= 0) {
+      throw new IllegalArgumentException("The duration must be positive.");
+    }
+    final long steps = Math.abs(totalMillis);
+    final long sign = Long.signum(totalMillis);
+    for (long i = 0; i < steps; ++i) {
+      events.add(new Event(atMillis + i * durationMillis / steps, Type.STEP, sign));
+    }
+    return this;
+  }
+
+  /**
+   * 添加一次请求突发。
+   *
+   * @param atMillis
+   *     发生的时刻。
+   * @param count
+   *     一次性发起的请求数。
+   * @return 此对象。
+   */
+  public ClockTrace burst(final long atMillis, final long count) {
+    events.add(new Event(atMillis, Type.BURST, count));
+    return this;
+  }
+
+  /**
+   * 获取按照时刻排序的所有事件。
+   *
+   * @return 按照时刻排序的所有事件，同一时刻的事件保持添加的顺序。
+   */
+  public List<Event> getEvents() {
+    final List<Event> result = new ArrayList<>(events);
+    result.sort(Comparator.comparingLong((e) -> e.at));
+    return Collections.unmodifiableList(result);
+  }
+
+  /**
+   * 从文本中解析时钟轨迹。
+   *
+   * @param text
+   *     描述时钟轨迹的文本。
+   * @return 解析得到的时钟轨迹。
+   */
+  public static ClockTrace parse(final String text) {
+    final ClockTrace trace = new ClockTrace();
+    int lineNo = 0;
+    for (final String rawLine : text.split("\\R")) {
+      ++lineNo;
+      final int comment = rawLine.indexOf('#');
+      final String line = (comment >= 0 ? rawLine.substring(0, comment) : rawLine).trim();
+      if (line.isEmpty()) {
+        continue;
+      }
+      final String[] parts = line.split("\\s+");
+      try {
+        final long at = Long.parseLong(parts[0]);
+        switch (parts[1]) {
+          case "step":
+            trace.step(at, Long.parseLong(parts[2]));
+            break;
+          case "smear":
+            trace.smear(at, Long.parseLong(parts[2]), Long.parseLong(parts[3]));
+            break;
+          case "burst":
+            trace.burst(at, Long.parseLong(parts[2]));
+            break;
+          default:
+            throw new IllegalArgumentException("Unknown event: " + parts[1]);
+        }
+      } catch (final RuntimeException e) {
+        throw new IllegalArgumentException("Invalid trace at line " + lineNo + ": "
+            + rawLine, e);
+      }
+    }
+    return trace;
+  }
+}
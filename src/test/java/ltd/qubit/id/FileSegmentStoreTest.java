@@ -0,0 +1,70 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of the {@link FileSegmentStore} class.
+ *
+ * @author Haixing Hu
+ */
+public class FileSegmentStoreTest {
+
+  private static Path createFile() throws IOException {
+    final Path file = Files.createTempFile("segment-", ".hwm");
+    Files.delete(file);
+    file.toFile().deleteOnExit();
+    return file;
+  }
+
+  @Test
+  public void testAllocate() throws Exception {
+    final Path file = createFile();
+    try (final FileSegmentStore store = new FileSegmentStore(file)) {
+      assertEquals(file, store.getFile());
+      assertEquals(new IdRange(1, 100), store.allocate(100));
+      assertEquals(new IdRange(101, 50), store.allocate(50));
+      assertThrows(IllegalArgumentException.class, () -> store.allocate(0));
+      assertThrows(IOException.class, () -> new FileSegmentStore(file));
+    }
+    // 重新打开后从已分配的最大ID之后继续分配
+    try (final FileSegmentStore store = new FileSegmentStore(file)) {
+      assertEquals(new IdRange(151, 10), store.allocate(10));
+    }
+  }
+
+  @Test
+  public void testSegmentIdGenerator() throws Exception {
+    final Path file = createFile();
+    long last = 0;
+    try (final FileSegmentStore store = new FileSegmentStore(file);
+         final SegmentIdGenerator generator = new SegmentIdGenerator(store, 100, 1000,
+             Duration.ofMinutes(1))) {
+      for (int i = 0; i < 10000; ++i) {
+        last = generator.generate();
+        assertEquals(i + 1, last);
+      }
+    }
+    try (final FileSegmentStore store = new FileSegmentStore(file);
+         final SegmentIdGenerator generator = new SegmentIdGenerator(store)) {
+      // 重新启动后生成的ID大于此前生成的所有ID
+      assertTrue(generator.generate() > last);
+    }
+  }
+}
@@ -0,0 +1,124 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.time.Instant;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 测试ID生成器在序列号耗尽时的行为。
+ *
+ * @author Haixing Hu
+ */
+public class GeneratorPolicyTester {
+
+  private static final Instant EPOCH = Instant.ofEpochMilli(0L);
+
+  private final AtomicLong millis = new AtomicLong(1000L);
+
+  private final AbstractIdGenerator generator;
+
+  public GeneratorPolicyTester(final Function<Timer, AbstractIdGenerator> factory) {
+    this.generator = factory.apply(new Timer(Precision.MILLISECOND, EPOCH, millis::get));
+  }
+
+  private void exhaust() {
+    final long perSlice = generator.getBuilder().getMaxSequence() + 1;
+    final long timestamp = generator.getTimer().now();
+    for (long i = 0; i < perSlice; ++i) {
+      final OptionalLong id = generator.tryGenerate();
+      assertTrue(id.isPresent());
+      assertEquals(timestamp, generator.getBuilder().extractTimestamp(id.getAsLong()));
+      assertEquals(i, generator.getBuilder().extractSequence(id.getAsLong()));
+    }
+  }
+
+  public void testTryGenerate() {
+    millis.set(1000L);
+    exhaust();
+    assertFalse(generator.tryGenerate().isPresent());
+    millis.set(1001L);
+    final OptionalLong id = generator.tryGenerate();
+    assertTrue(id.isPresent());
+    assertEquals(1001L, generator.getBuilder().extractTimestamp(id.getAsLong()));
+  }
+
+  public void testGenerateWithTimeout() throws Exception {
+    millis.set(2000L);
+    exhaust();
+    for (final StandardExhaustionPolicy policy : StandardExhaustionPolicy.values()) {
+      generator.setExhaustionPolicy(policy);
+      assertThrows(TimeoutException.class,
+          () -> generator.generate(10, TimeUnit.MILLISECONDS), policy.name());
+    }
+    generator.setExhaustionPolicy(StandardExhaustionPolicy.PARK);
+    final Thread ticker = new Thread(() -> {
+      try {
+        Thread.sleep(20);
+      } catch (final InterruptedException e) {
+        return;
+      }
+      millis.set(2001L);
+    });
+    ticker.start();
+    final long id = generator.generate(10, TimeUnit.SECONDS);
+    ticker.join();
+    assertEquals(2001L, generator.getBuilder().extractTimestamp(id));
+  }
+
+  public void testInterrupt() {
+    millis.set(3000L);
+    exhaust();
+    generator.setExhaustionPolicy(StandardExhaustionPolicy.PARK);
+    Thread.currentThread().interrupt();
+    assertThrows(InterruptedException.class,
+        () -> generator.generate(10, TimeUnit.SECONDS));
+    assertFalse(Thread.interrupted());
+    // generate() 不响应中断，但会保留中断状态
+    final Thread ticker = new Thread(() -> {
+      try {
+        Thread.sleep(20);
+      } catch (final InterruptedException e) {
+        return;
+      }
+      millis.set(3001L);
+    });
+    ticker.start();
+    Thread.currentThread().interrupt();
+    final long id = generator.generate();
+    assertTrue(Thread.interrupted());
+    assertEquals(3001L, generator.getBuilder().extractTimestamp(id));
+  }
+
+  public void testFailFast() {
+    millis.set(4000L);
+    exhaust();
+    generator.setExhaustionPolicy(StandardExhaustionPolicy.FAIL_FAST);
+    assertThrows(SequenceExhaustedException.class, generator::generate);
+    assertThrows(SequenceExhaustedException.class, () -> generator.reserve(1));
+    millis.set(4001L);
+    assertEquals(4001L, generator.getBuilder().extractTimestamp(generator.generate()));
+  }
+
+  public void testAll() throws Exception {
+    testTryGenerate();
+    testGenerateWithTimeout();
+    testInterrupt();
+    testFailFast();
+  }
+}
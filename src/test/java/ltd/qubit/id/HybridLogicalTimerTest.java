@@ -0,0 +1,107 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of the {@link HybridLogicalTimer} class.
+ *
+ * @author Haixing Hu
+ */
+public class HybridLogicalTimerTest {
+
+  private static final Instant EPOCH = Instant.ofEpochMilli(0L);
+
+  @Test
+  public void testConstructor() {
+    final HybridLogicalTimer timer = new HybridLogicalTimer(Precision.SECOND, EPOCH,
+        () -> 0L, Duration.ofSeconds(3));
+    assertEquals(3L, timer.getMaxDrift());
+    assertThrows(IllegalArgumentException.class,
+        () -> new HybridLogicalTimer(Precision.SECOND, EPOCH, () -> 0L,
+            Duration.ofSeconds(-1)));
+  }
+
+  @Test
+  public void testNowNeverGoesBackwards() {
+    final AtomicLong millis = new AtomicLong(1000L);
+    final HybridLogicalTimer timer = new HybridLogicalTimer(Precision.MILLISECOND, EPOCH,
+        millis::get, Duration.ofMillis(10));
+    assertEquals(1000L, timer.now());
+    assertEquals(0L, timer.getDrift());
+    millis.set(900L);
+    assertEquals(1000L, timer.now());
+    assertEquals(100L, timer.getDrift());
+    assertEquals(100L, timer.getPeakDrift());
+    millis.set(1001L);
+    assertEquals(1001L, timer.now());
+    assertEquals(0L, timer.getDrift());
+    assertEquals(100L, timer.getPeakDrift());
+  }
+
+  @Test
+  public void testAdvance() {
+    final AtomicLong millis = new AtomicLong(1000L);
+    final HybridLogicalTimer timer = new HybridLogicalTimer(Precision.MILLISECOND, EPOCH,
+        millis::get, Duration.ofMillis(3));
+    assertEquals(1000L, timer.now());
+    assertEquals(1001L, timer.advance(1000L));
+    assertEquals(1002L, timer.advance(1001L));
+    assertEquals(1003L, timer.advance(1002L));
+    // the drift would exceed the maximum drift
+    assertEquals(1003L, timer.advance(1003L));
+    assertEquals(3L, timer.getDrift());
+    // a stale slice does not advance the timer
+    assertEquals(1003L, timer.advance(1000L));
+    millis.set(1001L);
+    assertEquals(1004L, timer.advance(1003L));
+  }
+
+  @Test
+  public void testRollback() {
+    testRollback((timer) -> new AtomicIdGenerator(Mode.SEQUENTIAL, 0L, timer));
+    testRollback((timer) -> new LockedIdGenerator(Mode.SEQUENTIAL, 0L, timer));
+    testRollback((timer) -> new PackedIdGenerator(Mode.SEQUENTIAL, 0L, timer));
+  }
+
+  private void testRollback(final Function<Timer, AbstractIdGenerator> factory) {
+    final AtomicLong millis = new AtomicLong(1000L);
+    final HybridLogicalTimer timer = new HybridLogicalTimer(Precision.MILLISECOND, EPOCH,
+        millis::get, Duration.ofMillis(100));
+    final AbstractIdGenerator generator = factory.apply(timer);
+    generator.setExhaustionPolicy(StandardExhaustionPolicy.FAIL_FAST);
+    final Builder builder = generator.getBuilder();
+    final long perSlice = builder.getMaxSequence() + 1;
+    final Set<Long> ids = new HashSet<>();
+    for (int i = 0; i < 10; ++i) {
+      assertTrue(ids.add(generator.generate()));
+    }
+    // the wall clock steps backwards by 50 ms
+    millis.set(950L);
+    for (long i = 10; i < 2 * perSlice; ++i) {
+      final long id = generator.generate();
+      assertTrue(ids.add(id), "duplicated ID: " + id);
+    }
+    // the exhausted slice was continued on the logical clock instead of stalling
+    assertEquals(1001L, timer.now());
+    assertEquals(51L, timer.getDrift());
+  }
+}
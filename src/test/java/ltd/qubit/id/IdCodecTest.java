@@ -0,0 +1,189 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of the {@link IdCodec} class and its subclasses.
+ *
+ * @author Haixing Hu
+ */
+public class IdCodecTest {
+
+  private static final IdCodec[] CODECS = {
+      HexIdCodec.INSTANCE,
+      Base32IdCodec.INSTANCE,
+      Base62IdCodec.INSTANCE,
+  };
+
+  private static final int COUNT = 100000;
+
+  private static long[] createIds() {
+    final Random random = new Random(1);
+    final long[] ids = new long[COUNT];
+    ids[0] = 0L;
+    ids[1] = -1L;
+    ids[2] = Long.MIN_VALUE;
+    ids[3] = Long.MAX_VALUE;
+    ids[4] = 1L;
+    for (int i = 5; i < COUNT; ++i) {
+      ids[i] = random.nextLong() >>> random.nextInt(64);
+    }
+    return ids;
+  }
+
+  @Test
+  public void testWidth() {
+    assertEquals(16, HexIdCodec.INSTANCE.width());
+    assertEquals(13, Base32IdCodec.INSTANCE.width());
+    assertEquals(11, Base62IdCodec.INSTANCE.width());
+  }
+
+  @Test
+  public void testKnownValues() {
+    assertEquals("0123456789abcdef", HexIdCodec.INSTANCE.encode(0x0123456789ABCDEFL));
+    assertEquals("ffffffffffffffff", HexIdCodec.INSTANCE.encode(-1L));
+    assertEquals("0000000000000", Base32IdCodec.INSTANCE.encode(0L));
+    assertEquals("FZZZZZZZZZZZZ", Base32IdCodec.INSTANCE.encode(-1L));
+    assertEquals("000000000000Z", Base32IdCodec.INSTANCE.encode(31L));
+    assertEquals("0000000000010", Base32IdCodec.INSTANCE.encode(32L));
+    assertEquals("00000000000", Base62IdCodec.INSTANCE.encode(0L));
+    assertEquals("0000000000z", Base62IdCodec.INSTANCE.encode(61L));
+    assertEquals("00000000010", Base62IdCodec.INSTANCE.encode(62L));
+    assertEquals("LygHa16AHYF", Base62IdCodec.INSTANCE.encode(-1L));
+  }
+
+  @Test
+  public void testRoundTrip() {
+    final long[] ids = createIds();
+    for (final IdCodec codec : CODECS) {
+      final int width = codec.width();
+      final byte[] bytes = new byte[width + 1];
+      final char[] chars = new char[width + 1];
+      final ByteBuffer heap = ByteBuffer.allocate(width);
+      final ByteBuffer direct = ByteBuffer.allocateDirect(width);
+      for (final long id : ids) {
+        assertEquals(width + 1, codec.encode(id, bytes, 1));
+        assertEquals(width + 1, codec.encode(id, chars, 1));
+        codec.encode(id, heap.clear());
+        codec.encode(id, direct.clear());
+        final String str = codec.encode(id);
+        assertEquals(str, new String(bytes, 1, width, StandardCharsets.US_ASCII));
+        assertEquals(str, new String(chars, 1, width));
+        assertArrayEquals(heap.array(), Arrays.copyOfRange(bytes, 1, width + 1));
+        direct.flip();
+        assertEquals(str, StandardCharsets.US_ASCII.decode(direct).toString());
+        assertEquals(id, codec.decode(bytes, 1));
+        assertEquals(id, codec.decode(chars, 1));
+        assertEquals(id, codec.decode(str));
+        assertEquals(id, codec.decode(heap.flip()));
+        assertEquals(id, codec.decode(direct.flip()));
+        assertEquals(width, direct.position());
+      }
+    }
+  }
+
+  @Test
+  public void testOrder() {
+    final long[] ids = createIds();
+    for (final IdCodec codec : CODECS) {
+      final String[] strings = new String[COUNT];
+      for (int i = 0; i < COUNT; ++i) {
+        strings[i] = codec.encode(ids[i]);
+      }
+      Arrays.sort(strings);
+      final long[] sorted = ids.clone();
+      Arrays.sort(sorted);
+      // 按无符号整数排序：负数排在最后
+      final int negatives = (int) Arrays.stream(sorted).filter(x -> x < 0).count();
+      final long[] unsigned = new long[COUNT];
+      System.arraycopy(sorted, negatives, unsigned, 0, COUNT - negatives);
+      System.arraycopy(sorted, 0, unsigned, COUNT - negatives, negatives);
+      for (int i = 0; i < COUNT; ++i) {
+        assertEquals(unsigned[i], codec.decode(strings[i]));
+      }
+    }
+  }
+
+  @Test
+  public void testSequentialIdsSortByTime() {
+    final Builder builder = new Builder(Mode.SEQUENTIAL, Precision.MILLISECOND, 317L);
+    for (final IdCodec codec : CODECS) {
+      String last = "";
+      for (long t = 1000000; t < 1000100; ++t) {
+        for (long s = 0; s < 4096; s += 97) {
+          final String current = codec.encode(builder.build(t, s));
+          assertTrue(current.compareTo(last) > 0);
+          last = current;
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testBulk() {
+    final long[] ids = createIds();
+    for (final IdCodec codec : CODECS) {
+      final byte[] bytes = new byte[COUNT * codec.width() + 3];
+      assertEquals(bytes.length, codec.encode(ids, 0, COUNT, bytes, 3));
+      final long[] decoded = new long[COUNT + 1];
+      codec.decode(bytes, 3, decoded, 1, COUNT);
+      assertArrayEquals(ids, Arrays.copyOfRange(decoded, 1, COUNT + 1));
+      assertThrows(IndexOutOfBoundsException.class,
+          () -> codec.encode(ids, 0, COUNT, bytes, 4));
+    }
+  }
+
+  @Test
+  public void testCrockfordAliases() {
+    final Base32IdCodec codec = Base32IdCodec.INSTANCE;
+    final long id = codec.decode("0123456789ABC");
+    assertEquals(id, codec.decode("O123456789abc"));
+    assertEquals(id, codec.decode("oi23456789AbC"));
+    assertEquals(id, codec.decode("0L23456789aBc"));
+    assertEquals(HexIdCodec.INSTANCE.decode("00000000deadbeef"),
+        HexIdCodec.INSTANCE.decode("00000000DEADBEEF"));
+  }
+
+  @Test
+  public void testInvalid() {
+    assertThrows(NumberFormatException.class, () -> HexIdCodec.INSTANCE.decode("0"));
+    assertThrows(NumberFormatException.class,
+        () -> HexIdCodec.INSTANCE.decode("000000000000000g"));
+    assertThrows(NumberFormatException.class,
+        () -> Base32IdCodec.INSTANCE.decode("000000000000U"));
+    // 超出64位无符号整数的范围
+    assertThrows(NumberFormatException.class,
+        () -> Base32IdCodec.INSTANCE.decode("G000000000000"));
+    assertThrows(NumberFormatException.class,
+        () -> Base62IdCodec.INSTANCE.decode("LygHa16AHYG"));
+    assertThrows(NumberFormatException.class,
+        () -> Base62IdCodec.INSTANCE.decode("zzzzzzzzzzz"));
+    assertThrows(NumberFormatException.class,
+        () -> Base62IdCodec.INSTANCE.decode("0000000000é"));
+    assertThrows(NumberFormatException.class,
+        () -> Base62IdCodec.INSTANCE.decode(new byte[]{'0', '0', '0', '0', '0', '0', '0',
+            '0', '0', '0', (byte) 0xC3}, 0));
+    assertThrows(IndexOutOfBoundsException.class,
+        () -> Base62IdCodec.INSTANCE.encode(1L, new byte[10], 0));
+    assertThrows(IndexOutOfBoundsException.class,
+        () -> HexIdCodec.INSTANCE.decode(new char[16], 1));
+  }
+}
@@ -0,0 +1,245 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.nio.LongBuffer;
+import java.time.Instant;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of the {@link IdDecoder} class.
+ *
+ * @author Haixing Hu
+ */
+public class IdDecoderTest implements Constant {
+
+  private static final int COUNT = 100000;
+
+  private static final long NOW = Instant.parse("2024-06-01T00:00:00Z").toEpochMilli();
+
+  private static final long ONE_YEAR = 365L * 24 * 3600 * 1000;
+
+  private static final long SECOND_HOST = 317L;
+
+  private static final long MILLISECOND_HOST = 5L;
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private static IdDecoder createDecoder() {
+    return new IdDecoder().setClock(() -> NOW);
+  }
+
+  private static long generate(final Builder builder, final Timer timer, final Random random,
+      final long[] expectedMillis, final long[] expectedSequences, final int index) {
+    final long millis = NOW - (long) (random.nextDouble() * ONE_YEAR);
+    final long timestamp = timer.getTimestamp(millis);
+    final long sequence = random.nextLong() & builder.getMaxSequence();
+    expectedMillis[index] = timer.getEpochMillis(timestamp);
+    expectedSequences[index] = sequence;
+    return builder.build(timestamp, sequence);
+  }
+
+  @Test
+  public void testDecodeFixedPrecision() {
+    final Random random = new Random(1);
+    for (final Mode mode : Mode.values()) {
+      for (final Precision precision : Precision.values()) {
+        final Builder builder = new Builder(mode, precision, SECOND_HOST);
+        final Timer timer = new Timer(precision, DEFAULT_EPOCH);
+        final long[] ids = new long[COUNT];
+        final long[] millis = new long[COUNT];
+        final long[] sequences = new long[COUNT];
+        for (int i = 0; i < COUNT; ++i) {
+          ids[i] = generate(builder, timer, random, millis, sequences, i);
+        }
+        final IdDecoder decoder = createDecoder().setPrecision(precision);
+        final DecodedIds result = new DecodedIds(COUNT);
+        assertEquals(0, decoder.decode(ids, result));
+        assertEquals(COUNT, result.size());
+        for (int i = 0; i < COUNT; ++i) {
+          assertEquals(millis[i], result.getTimestampColumn()[i]);
+          assertEquals(timer.getEpochMillis(builder.extractTimestamp(ids[i])),
+              result.getTimestamp(i).toEpochMilli());
+          assertEquals(builder.extractMode(ids[i]), result.getMode(i));
+          assertEquals(builder.extractPrecision(ids[i]), result.getPrecision(i));
+          assertEquals(builder.extractHost(ids[i]), result.getHost(i));
+          assertEquals(builder.extractSequence(ids[i]), result.getSequence(i));
+          assertEquals(sequences[i], result.getSequence(i));
+          assertEquals(0, result.getFlags(i));
+        }
+      }
+    }
+  }
+
+  /**
+   * 随机生成的混合了两种精度和两种模式的ID。
+   */
+  private static final class MixedIds {
+    final long[] ids = new long[COUNT];
+    final long[] millis = new long[COUNT];
+    final long[] sequences = new long[COUNT];
+    final Builder[] sources = new Builder[COUNT];
+
+    MixedIds(final long seed) {
+      final Random random = new Random(seed);
+      final Builder[] builders = {
+          new Builder(Mode.SEQUENTIAL, Precision.SECOND, SECOND_HOST),
+          new Builder(Mode.SPREAD, Precision.SECOND, SECOND_HOST),
+          new Builder(Mode.SEQUENTIAL, Precision.MILLISECOND, MILLISECOND_HOST),
+          new Builder(Mode.SPREAD, Precision.MILLISECOND, MILLISECOND_HOST),
+      };
+      for (int i = 0; i < COUNT; ++i) {
+        final Builder builder = builders[random.nextInt(builders.length)];
+        final Timer timer = new Timer(builder.getPrecision(), DEFAULT_EPOCH);
+        ids[i] = generate(builder, timer, random, millis, sequences, i);
+        sources[i] = builder;
+      }
+    }
+  }
+
+  @Test
+  public void testDecodeMixedPrecision() {
+    final MixedIds mixed = new MixedIds(2);
+    final long[] ids = mixed.ids;
+    final long[] millis = mixed.millis;
+    final long[] sequences = mixed.sequences;
+    final Builder[] sources = mixed.sources;
+    final IdDecoder decoder = createDecoder().setKnownHosts(SECOND_HOST, MILLISECOND_HOST);
+    final DecodedIds result = new DecodedIds(COUNT);
+    assertEquals(0, decoder.decode(ids, result));
+    int ambiguous = 0;
+    for (int i = 0; i < COUNT; ++i) {
+      if ((result.getFlags(i) & DecodedIds.FLAG_AMBIGUOUS) != 0) {
+        // 有歧义的ID按照优先的精度解析
+        assertEquals(Precision.SECOND, result.getPrecision(i));
+        ++ambiguous;
+        continue;
+      }
+      assertEquals(0, result.getFlags(i));
+      assertEquals(sources[i].getMode(), result.getMode(i));
+      assertEquals(sources[i].getPrecision(), result.getPrecision(i));
+      assertEquals(sources[i].getHost(), result.getHost(i));
+      assertEquals(millis[i], result.getTimestampColumn()[i]);
+      assertEquals(sequences[i], result.getSequence(i));
+    }
+    logger.info("Ambiguous IDs: {} / {}", ambiguous, COUNT);
+    assertTrue(ambiguous <= COUNT / 500, "too many ambiguous IDs: " + ambiguous);
+  }
+
+  @Test
+  public void testDecodeMixedPrecisionWithPinnedPrecision() {
+    final MixedIds mixed = new MixedIds(3);
+    final DecodedIds result = new DecodedIds(COUNT);
+    // 先不固定精度解码一遍，确保下面的比较覆盖了有歧义的ID
+    final IdDecoder decoder = createDecoder().setKnownHosts(SECOND_HOST, MILLISECOND_HOST);
+    decoder.decode(mixed.ids, result);
+    int ambiguous = 0;
+    for (int i = 0; i < COUNT; ++i) {
+      if ((result.getFlags(i) & DecodedIds.FLAG_AMBIGUOUS) != 0) {
+        ++ambiguous;
+      }
+    }
+    assertTrue(ambiguous > 0);
+    // 固定精度后，该精度的每个ID都必须被精确地解码，且不会被标记为有歧义
+    for (final Precision precision : Precision.values()) {
+      decoder.setPrecision(precision);
+      decoder.decode(mixed.ids, result);
+      int decoded = 0;
+      for (int i = 0; i < COUNT; ++i) {
+        assertEquals(0, result.getFlags(i) & DecodedIds.FLAG_AMBIGUOUS);
+        if (mixed.sources[i].getPrecision() != precision) {
+          continue;
+        }
+        assertEquals(0, result.getFlags(i));
+        assertEquals(precision, result.getPrecision(i));
+        assertEquals(mixed.sources[i].getMode(), result.getMode(i));
+        assertEquals(mixed.sources[i].getHost(), result.getHost(i));
+        assertEquals(mixed.millis[i], result.getTimestampColumn()[i]);
+        assertEquals(mixed.sequences[i], result.getSequence(i));
+        ++decoded;
+      }
+      assertTrue(decoded > COUNT / 3);
+    }
+  }
+
+  @Test
+  public void testValidate() {
+    final Builder builder = new Builder(Mode.SEQUENTIAL, Precision.SECOND, SECOND_HOST);
+    final Timer timer = new Timer(Precision.SECOND, DEFAULT_EPOCH);
+    final long now = timer.getTimestamp(NOW);
+    final long[] ids = {
+        builder.build(now, 1),
+        builder.build(now + 1, 2),
+        builder.build(now + 10, 3),
+        new Builder(Mode.SEQUENTIAL, Precision.SECOND, 1L).build(now, 4),
+    };
+    final IdDecoder decoder = createDecoder()
+        .setPrecision(Precision.SECOND)
+        .setKnownHosts(SECOND_HOST)
+        .setMaxClockSkew(1000);
+    final DecodedIds result = new DecodedIds(ids.length);
+    assertEquals(2, decoder.decode(ids, result));
+    assertEquals(0, result.getFlags(0));
+    assertEquals(0, result.getFlags(1));
+    assertEquals(DecodedIds.FLAG_FUTURE, result.getFlags(2));
+    assertEquals(DecodedIds.FLAG_UNKNOWN_HOST, result.getFlags(3));
+    // 按照毫秒精度的格式解析时，时间戳精度比特为序列号的第21位
+    decoder.setPrecision(Precision.MILLISECOND).setAllHostsKnown();
+    decoder.decode(new long[]{builder.build(now, 1L << 21)}, result);
+    assertEquals(1, result.size());
+    assertTrue((result.getFlags(0) & DecodedIds.FLAG_INVALID_PRECISION) != 0);
+  }
+
+  @Test
+  public void testDecodeBuffer() {
+    final Builder builder = new Builder(Mode.SPREAD, Precision.MILLISECOND, MILLISECOND_HOST);
+    final Timer timer = new Timer(Precision.MILLISECOND, DEFAULT_EPOCH);
+    final long timestamp = timer.getTimestamp(NOW);
+    final LongBuffer buffer = LongBuffer.allocate(1000);
+    for (int i = 0; i < buffer.capacity(); ++i) {
+      buffer.put(builder.build(timestamp, i));
+    }
+    buffer.flip();
+    final IdDecoder decoder = createDecoder().setPrecision(Precision.MILLISECOND);
+    final DecodedIds result = new DecodedIds(300);
+    int sequence = 0;
+    while (buffer.hasRemaining()) {
+      assertEquals(0, decoder.decode(buffer, result));
+      assertEquals(Math.min(300, 1000 - sequence), result.size());
+      for (int i = 0; i < result.size(); ++i) {
+        assertEquals(timer.getEpochMillis(timestamp), result.getTimestampColumn()[i]);
+        assertEquals(sequence++, result.getSequence(i));
+      }
+    }
+    assertEquals(1000, sequence);
+    assertEquals(1000, buffer.position());
+  }
+
+  @Test
+  public void testInvalidArguments() {
+    final IdDecoder decoder = createDecoder();
+    final DecodedIds result = new DecodedIds(10);
+    assertThrows(IllegalArgumentException.class, () -> new DecodedIds(0));
+    assertThrows(IllegalArgumentException.class, () -> decoder.decode(new long[11], result));
+    assertThrows(IndexOutOfBoundsException.class,
+        () -> decoder.decode(new long[10], 5, 6, result));
+    assertThrows(IllegalArgumentException.class, () -> decoder.setKnownHosts(512L));
+    assertThrows(IllegalArgumentException.class, () -> decoder.setMaxClockSkew(-1));
+    decoder.decode(new long[5], result);
+    assertThrows(IndexOutOfBoundsException.class, () -> result.getHost(5));
+  }
+}
@@ -0,0 +1,259 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of the {@link SliceExhaustedEvent}, {@link ClockRegressionEvent} and
+ * {@link TimerWaitEvent} classes.
+ *
+ * @author Haixing Hu
+ */
+public class IdEventTest {
+
+  private static final Instant EPOCH = Instant.parse("2020-01-01T00:00:00Z");
+
+  private static final long START = EPOCH.toEpochMilli() + 1000L;
+
+  private static final long HOST = 3L;
+
+  interface Action {
+    void run() throws Exception;
+  }
+
+  /**
+   * 以0为阈值录制指定的动作产生的所有ID事件。
+   */
+  private static List<RecordedEvent> record(final Action action) throws Exception {
+    final Path file = Files.createTempFile("id-event-test", ".jfr");
+    try (final Recording recording = new Recording()) {
+      recording.enable(SliceExhaustedEvent.NAME);
+      recording.enable(ClockRegressionEvent.NAME);
+      recording.enable(TimerWaitEvent.NAME).withThreshold(Duration.ZERO);
+      recording.start();
+      action.run();
+      recording.stop();
+      recording.dump(file);
+      final List<RecordedEvent> result = new ArrayList<>();
+      for (final RecordedEvent event : RecordingFile.readAllEvents(file)) {
+        if (event.getEventType().getName().startsWith("ltd.qubit.id.")) {
+          result.add(event);
+        }
+      }
+      return result;
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  private static List<RecordedEvent> filter(final List<RecordedEvent> events,
+      final String name) {
+    final List<RecordedEvent> result = new ArrayList<>();
+    for (final RecordedEvent event : events) {
+      if (event.getEventType().getName().equals(name)) {
+        result.add(event);
+      }
+    }
+    return result;
+  }
+
+  private static void awaitTimedWaiting(final Thread thread) throws InterruptedException {
+    while (thread.getState() != Thread.State.TIMED_WAITING) {
+      Thread.sleep(1);
+    }
+  }
+
+  @Test
+  public void testSliceExhausted() throws Exception {
+    for (final boolean locked : new boolean[]{false, true}) {
+      final VirtualClockSource clock = new VirtualClockSource(START);
+      final Timer timer = new Timer(Precision.MILLISECOND, EPOCH, clock);
+      final AbstractIdGenerator generator = (locked
+          ? new LockedIdGenerator(Mode.SEQUENTIAL, HOST, timer)
+          : new AtomicIdGenerator(Mode.SEQUENTIAL, HOST, timer));
+      generator.setExhaustionPolicy(StandardExhaustionPolicy.FAIL_FAST);
+      final List<RecordedEvent> events = record(() -> {
+        for (int i = 0; i < 4096; ++i) {
+          generator.generate();
+        }
+        assertThrows(SequenceExhaustedException.class, generator::generate);
+      });
+      assertEquals(2, events.size());
+      final RecordedEvent exhausted = filter(events, SliceExhaustedEvent.NAME).get(0);
+      assertEquals(timer.now(), exhausted.getLong("timestamp"));
+      assertEquals(HOST, exhausted.getLong("host"));
+      assertEquals("MILLISECOND", exhausted.getString("precision"));
+      assertEquals(1, exhausted.getInt("waitingThreads"));
+      assertEquals(Duration.ZERO, exhausted.getDuration());
+      final RecordedEvent wait = filter(events, TimerWaitEvent.NAME).get(0);
+      assertEquals(timer.now(), wait.getLong("timestamp"));
+      assertEquals(HOST, wait.getLong("host"));
+      assertEquals(1, wait.getInt("waitingThreads"));
+      assertFalse(wait.getBoolean("passed"));
+    }
+  }
+
+  @Test
+  public void testWaitingThreads() throws Exception {
+    final VirtualClockSource clock = new VirtualClockSource(START);
+    final Timer timer = new Timer(Precision.SECOND, EPOCH, clock);
+    final AtomicIdGenerator generator = new AtomicIdGenerator(Mode.SEQUENTIAL, HOST, timer);
+    generator.setExhaustionPolicy(StandardExhaustionPolicy.PARK);
+    final long timestamp = timer.now();
+    final long maxSequence = generator.getBuilder().getMaxSequence();
+    final List<RecordedEvent> events = record(() -> {
+      generator.reserve((int) (maxSequence + 1));
+      final Thread first = new Thread(generator::generate);
+      first.start();
+      awaitTimedWaiting(first);
+      final Thread second = new Thread(generator::generate);
+      second.start();
+      awaitTimedWaiting(second);
+      clock.advance(1, TimeUnit.SECONDS);
+      first.join();
+      second.join();
+    });
+    assertEquals(4, events.size());
+    assertEquals(2, filter(events, SliceExhaustedEvent.NAME).size());
+    final Set<Integer> waiting = new HashSet<>();
+    for (final RecordedEvent event : filter(events, TimerWaitEvent.NAME)) {
+      assertEquals(timestamp, event.getLong("timestamp"));
+      assertEquals(HOST, event.getLong("host"));
+      assertEquals("SECOND", event.getString("precision"));
+      assertTrue(event.getBoolean("passed"));
+      assertTrue(event.getDuration().toNanos() > 0);
+      waiting.add(event.getInt("waitingThreads"));
+    }
+    assertEquals(Set.of(1, 2), waiting);
+  }
+
+  @Test
+  public void testClockRegression() throws Exception {
+    for (int kind = 0; kind < 3; ++kind) {
+      final VirtualClockSource clock = new VirtualClockSource(START);
+      final Timer timer = new Timer(Precision.MILLISECOND, EPOCH, clock);
+      final AbstractIdGenerator generator;
+      switch (kind) {
+        case 0:
+          generator = new AtomicIdGenerator(Mode.SEQUENTIAL, HOST, timer);
+          break;
+        case 1:
+          generator = new PackedIdGenerator(Mode.SEQUENTIAL, HOST, timer);
+          break;
+        default:
+          generator = new LockedIdGenerator(Mode.SEQUENTIAL, HOST, timer);
+          break;
+      }
+      final StandardIdGeneratorMetrics metrics = new StandardIdGeneratorMetrics();
+      generator.setMetrics(metrics);
+      final long last = timer.now();
+      final List<RecordedEvent> events = record(() -> {
+        generator.generate();
+        clock.advance(1, TimeUnit.MILLISECONDS);
+        generator.generate();
+        clock.step(-5);
+        generator.generate();
+        generator.generate();
+      });
+      assertEquals(1, events.size(), generator.getClass().getSimpleName());
+      final RecordedEvent event = events.get(0);
+      assertEquals(ClockRegressionEvent.NAME, event.getEventType().getName());
+      assertEquals(last + 1, event.getLong("lastTimestamp"));
+      assertEquals(last - 4, event.getLong("timestamp"));
+      assertEquals(5, event.getLong("regression"));
+      assertEquals(HOST, event.getLong("host"));
+      assertEquals(0, event.getInt("waitingThreads"));
+      assertEquals(1, metrics.getClockRegressionCount());
+    }
+  }
+
+  @Test
+  public void testTimerWait() throws Exception {
+    for (final boolean barrier : new boolean[]{false, true}) {
+      final VirtualClockSource clock = new VirtualClockSource(START);
+      final Timer timer = new Timer(Precision.MILLISECOND, EPOCH, clock);
+      final AtomicIdGenerator generator = new AtomicIdGenerator(Mode.SEQUENTIAL, HOST, timer);
+      generator.setExhaustionPolicy(barrier ? new SliceBarrier() : StandardExhaustionPolicy.PARK);
+      final long timestamp = timer.now();
+      final List<RecordedEvent> events = record(() -> {
+        generator.reserve(4096);
+        final Thread waiter = new Thread(generator::generate);
+        waiter.start();
+        while (waiter.getState() == Thread.State.RUNNABLE
+            || waiter.getState() == Thread.State.NEW) {
+          Thread.sleep(1);
+        }
+        clock.advance(1, TimeUnit.MILLISECONDS);
+        waiter.join();
+      });
+      final List<RecordedEvent> waits = filter(events, TimerWaitEvent.NAME);
+      assertEquals(1, waits.size());
+      final RecordedEvent event = waits.get(0);
+      assertEquals(timestamp, event.getLong("timestamp"));
+      assertEquals(HOST, event.getLong("host"));
+      assertEquals("MILLISECOND", event.getString("precision"));
+      assertEquals(1, event.getInt("waitingThreads"));
+      assertTrue(event.getBoolean("passed"));
+      assertTrue(event.getDuration().toNanos() > 0);
+      assertEquals(1, filter(events, SliceExhaustedEvent.NAME).size());
+    }
+  }
+
+  @Test
+  public void testAdvanceWithoutWait() throws Exception {
+    final VirtualClockSource clock = new VirtualClockSource(START);
+    final Timer timer = new HybridLogicalTimer(Precision.MILLISECOND, EPOCH, clock,
+        Duration.ofSeconds(1));
+    final AtomicIdGenerator generator = new AtomicIdGenerator(Mode.SEQUENTIAL, HOST, timer);
+    final List<RecordedEvent> events = record(() -> {
+      generator.reserve(4096);
+      generator.generate();
+    });
+    // the logical timer moves to the next slice, so nothing waits
+    assertEquals(1, events.size());
+    assertEquals(SliceExhaustedEvent.NAME, events.get(0).getEventType().getName());
+    assertEquals(HOST, events.get(0).getLong("host"));
+  }
+
+  @Test
+  public void testDisabled() {
+    assertFalse(new SliceExhaustedEvent().isEnabled());
+    assertFalse(new TimerWaitEvent().isEnabled());
+    final VirtualClockSource clock = new VirtualClockSource(START);
+    final Timer timer = new Timer(Precision.MILLISECOND, EPOCH, clock);
+    final AtomicIdGenerator generator = new AtomicIdGenerator(Mode.SEQUENTIAL, HOST, timer);
+    generator.setExhaustionPolicy(StandardExhaustionPolicy.FAIL_FAST);
+    for (int i = 0; i < 4096; ++i) {
+      generator.generate();
+    }
+    assertThrows(SequenceExhaustedException.class, generator::generate);
+    clock.step(-5);
+    generator.generate();
+  }
+}
@@ -0,0 +1,77 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of the {@link IdInterval} class.
+ *
+ * @author Haixing Hu
+ */
+public class IdIntervalTest {
+
+  private static void verifySplit(final IdInterval interval, final int count) {
+    final List<IdInterval> parts = interval.split(count);
+    assertTrue(parts.size() >= 1 && parts.size() <= count);
+    assertEquals(interval.getMin(), parts.get(0).getMin());
+    assertEquals(interval.getMax(), parts.get(parts.size() - 1).getMax());
+    long minSpan = -1L;
+    long maxSpan = 0L;
+    for (int i = 0; i < parts.size(); ++i) {
+      final IdInterval part = parts.get(i);
+      if (i > 0) {
+        assertEquals(parts.get(i - 1).getMax() + 1, part.getMin());
+      }
+      if (Long.compareUnsigned(part.getSpan(), minSpan) < 0) {
+        minSpan = part.getSpan();
+      }
+      if (Long.compareUnsigned(part.getSpan(), maxSpan) > 0) {
+        maxSpan = part.getSpan();
+      }
+    }
+    assertTrue(maxSpan - minSpan <= 1);
+  }
+
+  @Test
+  public void testSplit() {
+    verifySplit(new IdInterval(0, 99), 10);
+    verifySplit(new IdInterval(0, 99), 7);
+    verifySplit(new IdInterval(5, 7), 10);
+    assertEquals(3, new IdInterval(5, 7).split(10).size());
+    verifySplit(new IdInterval(-100, 100), 3);
+    verifySplit(new IdInterval(Long.MIN_VALUE, Long.MAX_VALUE), 1);
+    verifySplit(new IdInterval(Long.MIN_VALUE, Long.MAX_VALUE), 16);
+    verifySplit(new IdInterval(Long.MIN_VALUE, Long.MAX_VALUE), 1000);
+    verifySplit(new IdInterval(Long.MAX_VALUE, Long.MAX_VALUE), 4);
+    final Builder builder = new Builder(Mode.SEQUENTIAL, Precision.MILLISECOND, 0L);
+    final IdInterval day = builder.getIdInterval(1000000L, 1000000L + 86400000L - 1);
+    final List<IdInterval> parts = day.split(24);
+    // 顺序模式下等分ID区间即等分时间段；最后一个时间戳的区间不含另一种精度的ID，
+    // 因此各个子区间的边界可能提前1毫秒
+    for (int i = 0; i < parts.size(); ++i) {
+      final long expected = 1000000L + i * 3600000L;
+      final long actual = builder.extractTimestamp(parts.get(i).getMin());
+      assertTrue(actual == expected || actual == expected - 1);
+    }
+  }
+
+  @Test
+  public void testInvalidArguments() {
+    assertThrows(IllegalArgumentException.class, () -> new IdInterval(1, 0));
+    assertThrows(IllegalArgumentException.class, () -> new IdInterval(0, 1).split(0));
+    assertTrue(new IdInterval(-1, 1).contains(0));
+  }
+}
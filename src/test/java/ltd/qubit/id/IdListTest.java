@@ -0,0 +1,197 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of the {@link IdList} class.
+ *
+ * @author Haixing Hu
+ */
+public class IdListTest {
+
+  private static final int COUNT = 1000000;
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  /**
+   * 模拟若干台主机按时间顺序生成的顺序模式的ID，每个时间片平均生成数个ID。
+   */
+  private static long[] createIds(final Precision precision, final int count) {
+    final Random random = new Random(1);
+    final Builder builder = new Builder(Mode.SEQUENTIAL, precision, 0L);
+    final long[] ids = new long[count];
+    long timestamp = 100000000L;
+    for (int i = 0; i < count; ) {
+      final int n = Math.min(count - i, 1 + random.nextInt(8));
+      for (int j = 0; j < n; ++j) {
+        builder.setHost(random.nextInt(4));
+        ids[i++] = builder.build(timestamp, random.nextInt(1 << 10));
+      }
+      timestamp += 1 + random.nextInt(2);
+    }
+    Arrays.sort(ids);
+    int n = 0;
+    for (int i = 0; i < count; ++i) {
+      if (n == 0 || ids[i] != ids[n - 1]) {
+        ids[n++] = ids[i];
+      }
+    }
+    return Arrays.copyOf(ids, n);
+  }
+
+  private static long[] toArray(final PrimitiveIterator.OfLong iterator) {
+    final long[] result = new long[COUNT];
+    int n = 0;
+    while (iterator.hasNext()) {
+      result[n++] = iterator.nextLong();
+    }
+    assertThrows(NoSuchElementException.class, iterator::nextLong);
+    return Arrays.copyOf(result, n);
+  }
+
+  private static void verify(final long[] ids) {
+    final IdList list = new IdList(ids);
+    assertEquals(ids.length, list.size());
+    assertArrayEquals(ids, toArray(list.iterator()));
+    for (int i = 0; i < ids.length; ++i) {
+      assertEquals(ids[i], list.get(i));
+      assertEquals(i, list.rank(ids[i]));
+      assertTrue(list.contains(ids[i]));
+      if (ids[i] != Long.MIN_VALUE && (i == 0 || ids[i - 1] != ids[i] - 1)) {
+        assertEquals(i, list.rank(ids[i] - 1));
+        assertFalse(list.contains(ids[i] - 1));
+      }
+    }
+  }
+
+  @Test
+  public void testRandomAccess() {
+    for (final Precision precision : Precision.values()) {
+      verify(createIds(precision, COUNT));
+    }
+  }
+
+  @Test
+  public void testEdgeCases() {
+    verify(new long[0]);
+    verify(new long[]{0L});
+    verify(new long[]{Long.MIN_VALUE, Long.MAX_VALUE});
+    verify(new long[]{Long.MIN_VALUE, -1L, 0L, 1L, Long.MAX_VALUE});
+    final long[] dense = new long[10000];
+    for (int i = 0; i < dense.length; ++i) {
+      dense[i] = 12345L + i;
+    }
+    verify(dense);
+    final Random random = new Random(3);
+    final long[] sparse = random.longs(10000).sorted().distinct().toArray();
+    verify(sparse);
+    final IdList empty = new IdList(new long[0]);
+    assertTrue(empty.isEmpty());
+    assertEquals(0, empty.rank(42L));
+    assertFalse(empty.contains(0L));
+    assertThrows(NoSuchElementException.class, empty::getFirst);
+    final IdList list = new IdList(sparse);
+    assertEquals(0, list.rank(Long.MIN_VALUE));
+    assertEquals(sparse.length - 1, list.rank(sparse[sparse.length - 1]));
+    assertEquals(sparse[0], list.getFirst());
+    assertEquals(sparse[sparse.length - 1], list.getLast());
+  }
+
+  @Test
+  public void testRangeIterator() {
+    final long[] ids = createIds(Precision.MILLISECOND, 100000);
+    final IdList list = new IdList(ids);
+    final Random random = new Random(2);
+    for (int k = 0; k < 1000; ++k) {
+      final long from = ids[random.nextInt(ids.length)] + random.nextInt(3) - 1;
+      final long to = ids[random.nextInt(ids.length)] + random.nextInt(3) - 1;
+      final long[] expected = Arrays.stream(ids).filter(x -> x >= from && x <= to).toArray();
+      assertArrayEquals(expected, toArray(list.iterator(from, to)));
+    }
+    assertArrayEquals(ids, toArray(list.iterator(Long.MIN_VALUE, Long.MAX_VALUE)));
+    assertEquals(0, toArray(list.iterator(1L, 0L)).length);
+  }
+
+  @Test
+  public void testTimeRangeIterator() {
+    for (final Precision precision : Precision.values()) {
+      final long[] ids = createIds(precision, 100000);
+      final IdList list = new IdList(ids);
+      final Builder builder = new Builder(Mode.SEQUENTIAL, precision, 0L);
+      final long first = builder.extractTimestamp(ids[0]);
+      final long last = builder.extractTimestamp(ids[ids.length - 1]);
+      final Random random = new Random(4);
+      for (int k = 0; k < 100; ++k) {
+        final long from = first + random.nextInt((int) (last - first));
+        final long to = from + random.nextInt(100);
+        final long[] expected = Arrays.stream(ids).filter(x -> {
+          final long t = builder.extractTimestamp(x);
+          return t >= from && t <= to;
+        }).toArray();
+        assertArrayEquals(expected, toArray(list.iterator(builder, from, to)));
+      }
+      assertArrayEquals(ids, toArray(list.iterator(builder, -1L, Long.MAX_VALUE)));
+      assertThrows(IllegalArgumentException.class, () -> list.iterator(
+          new Builder(Mode.SPREAD, precision, 0L), first, last));
+    }
+  }
+
+  @Test
+  public void testCompression() {
+    final long[] ids = createIds(Precision.MILLISECOND, COUNT);
+    final IdList list = new IdList(ids);
+    final double bytesPerId = (double) list.sizeInBytes() / ids.length;
+    logger.info("IdList: {} IDs, {} bytes/ID", ids.length, String.format("%.2f", bytesPerId));
+    assertTrue(bytesPerId >= 2.0 && bytesPerId <= 3.0, "bytes/ID out of [2, 3]: " + bytesPerId);
+  }
+
+  @Test
+  public void testInvalidArguments() {
+    assertThrows(IllegalArgumentException.class, () -> new IdList(new long[]{2L, 1L}));
+    assertThrows(IllegalArgumentException.class, () -> new IdList(new long[]{1L, 1L}));
+    assertThrows(IndexOutOfBoundsException.class, () -> new IdList(new long[2], 1, 2));
+    assertThrows(IllegalArgumentException.class,
+        () -> new IdList(3, 1L, 3L, Arrays.stream(new long[]{1L, 2L}).iterator()));
+    assertThrows(IllegalArgumentException.class,
+        () -> new IdList(2, 1L, 3L, Arrays.stream(new long[]{1L, 2L}).iterator()));
+    final IdList list = new IdList(new long[]{1L, 2L, 3L});
+    assertThrows(IndexOutOfBoundsException.class, () -> list.get(3));
+    assertThrows(IndexOutOfBoundsException.class, () -> list.get(-1));
+    assertEquals(list, new IdList(3, 1L, 3L, Arrays.stream(new long[]{1L, 2L, 3L}).iterator()));
+  }
+
+  @Test
+  public void testEqualsAndHashCode() {
+    final long[] ids = createIds(Precision.MILLISECOND, 1000);
+    final IdList list = new IdList(ids);
+    final IdList copy = new IdList(ids.clone());
+    assertEquals(list, copy);
+    assertEquals(list.hashCode(), copy.hashCode());
+    final long[] changed = ids.clone();
+    changed[500] = changed[499] + 1;
+    assertFalse(list.equals(new IdList(changed)));
+    assertFalse(list.equals(new IdList(ids, 0, ids.length - 1)));
+    assertFalse(list.equals(null));
+  }
+}
@@ -0,0 +1,119 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.util.List;
+import java.util.PrimitiveIterator;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of the {@link IdRange} class.
+ *
+ * @author Haixing Hu
+ */
+public class IdRangeTest {
+
+  /**
+   * 依次返回给定的ID，只实现了{@link IdGenerator}的必需函数。
+   */
+  private static class ArrayIdGenerator implements IdGenerator {
+    private final long[] ids;
+    private int index;
+
+    ArrayIdGenerator(final long... ids) {
+      this.ids = ids;
+    }
+
+    @Override
+    public Mode getMode() {
+      return Mode.SEQUENTIAL;
+    }
+
+    @Override
+    public Precision getPrecision() {
+      return null;
+    }
+
+    @Override
+    public long generate() {
+      return ids[index++];
+    }
+
+    @Override
+    public void reset() {
+      index = 0;
+    }
+  }
+
+  @Test
+  public void testConstructor() {
+    final IdRange range = new IdRange(100L, 5);
+    assertEquals(100L, range.getStart());
+    assertEquals(104L, range.getLast());
+    assertEquals(5, range.size());
+    assertThrows(IllegalArgumentException.class, () -> new IdRange(100L, 0));
+    assertThrows(IllegalArgumentException.class, () -> new IdRange(100L, -1));
+  }
+
+  @Test
+  public void testGetAndContains() {
+    final IdRange range = new IdRange(-3L, 5);
+    for (int i = 0; i < 5; ++i) {
+      assertEquals(-3L + i, range.get(i));
+      assertTrue(range.contains(-3L + i));
+    }
+    assertFalse(range.contains(-4L));
+    assertFalse(range.contains(2L));
+    assertThrows(IndexOutOfBoundsException.class, () -> range.get(5));
+    assertThrows(IndexOutOfBoundsException.class, () -> range.get(-1));
+  }
+
+  @Test
+  public void testFill() {
+    final IdRange range = new IdRange(10L, 3);
+    final long[] array = new long[5];
+    assertEquals(3, range.fill(array, 1));
+    assertArrayEquals(new long[]{0L, 10L, 11L, 12L, 0L}, array);
+    assertThrows(IndexOutOfBoundsException.class, () -> range.fill(array, 3));
+  }
+
+  @Test
+  public void testIterator() {
+    final IdRange range = new IdRange(10L, 3);
+    final PrimitiveIterator.OfLong iter = range.iterator();
+    long expected = 10L;
+    while (iter.hasNext()) {
+      assertEquals(expected++, iter.nextLong());
+    }
+    assertEquals(13L, expected);
+  }
+
+  @Test
+  public void testDefaultReserve() {
+    final IdGenerator generator = new ArrayIdGenerator(5L, 6L, 7L, 10L, 11L, 3L);
+    final List<IdRange> ranges = generator.reserve(6);
+    assertEquals(3, ranges.size());
+    assertEquals(5L, ranges.get(0).getStart());
+    assertEquals(3, ranges.get(0).size());
+    assertEquals(10L, ranges.get(1).getStart());
+    assertEquals(2, ranges.get(1).size());
+    assertEquals(3L, ranges.get(2).getStart());
+    assertEquals(1, ranges.get(2).size());
+    generator.reset();
+    assertEquals(1, generator.reserve(1).size());
+    assertThrows(IllegalArgumentException.class, () -> generator.reserve(0));
+  }
+}
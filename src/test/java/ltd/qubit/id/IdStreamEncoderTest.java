@@ -0,0 +1,203 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of the {@link IdStreamEncoder} and {@link IdStreamDecoder} classes.
+ *
+ * @author Haixing Hu
+ */
+public class IdStreamEncoderTest {
+
+  private static final int COUNT = 1000000;
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  /**
+   * 模拟同一台主机按时间顺序生成的ID：每个时间片生成若干个连续的ID，时间戳偶尔跳过几个
+   * 时间片，主机编号偶尔改变。
+   */
+  static long[] createIds(final Mode mode, final Precision precision, final int count) {
+    final Random random = new Random(1);
+    Builder builder = new Builder(mode, precision, 317L);
+    final long[] ids = new long[count];
+    long timestamp = 100000000L;
+    long sequence = 0;
+    for (int i = 0; i < count; ++i) {
+      if (random.nextInt(100) == 0) {
+        timestamp += 1 + random.nextInt(3);
+        sequence = 0;
+      }
+      if (random.nextInt(10000) == 0) {
+        builder = new Builder(mode, precision, random.nextInt(512));
+      }
+      ids[i] = builder.build(timestamp, sequence++);
+    }
+    return ids;
+  }
+
+  private static long[] decodeAll(final IdStreamDecoder decoder, final int count)
+      throws IOException {
+    final long[] result = new long[count];
+    int n = 0;
+    int read;
+    while ((read = decoder.read(result, n, Math.min(777, count - n))) > 0) {
+      n += read;
+    }
+    assertEquals(count, n);
+    assertEquals(-1, decoder.read(new long[1], 0, 1));
+    return result;
+  }
+
+  @Test
+  public void testRoundTripBuffer() throws IOException {
+    for (final Mode mode : Mode.values()) {
+      for (final Precision precision : Precision.values()) {
+        final long[] ids = createIds(mode, precision, COUNT);
+        final ByteBuffer buffer = ByteBuffer.allocate(COUNT * Long.BYTES);
+        final IdStreamEncoder encoder = new IdStreamEncoder(precision, buffer, 1000);
+        encoder.write(ids, 0, COUNT);
+        encoder.close();
+        assertEquals(COUNT, encoder.getIdCount());
+        assertEquals(buffer.position(), encoder.getByteCount());
+        final double ratio = (double) COUNT * Long.BYTES / encoder.getByteCount();
+        logger.info("{} {}: {} bytes/ID, ratio {}x", mode, precision,
+            String.format("%.2f", (double) encoder.getByteCount() / COUNT),
+            String.format("%.1f", ratio));
+        // SPREAD模式的ID按照未反转的时间戳编码，压缩效果与SEQUENTIAL模式相同；每个ID
+        // 至少占用1个字节，因此压缩比不可能超过8倍
+        assertTrue(ratio >= 4.0 && ratio <= 8.0, "compression ratio out of [4, 8]: " + ratio);
+        buffer.flip();
+        final IdStreamDecoder decoder = new IdStreamDecoder(buffer);
+        assertEquals(precision, decoder.getPrecision());
+        assertArrayEquals(ids, decodeAll(decoder, COUNT));
+        assertEquals(COUNT, decoder.getIdCount());
+        assertEquals(buffer.limit(), buffer.position());
+      }
+    }
+  }
+
+  @Test
+  public void testRoundTripFile() throws IOException {
+    final long[] ids = createIds(Mode.SPREAD, Precision.MILLISECOND, COUNT);
+    final Path file = Files.createTempFile("ids-", ".bin");
+    file.toFile().deleteOnExit();
+    try (final IdStreamEncoder encoder = new IdStreamEncoder(Precision.MILLISECOND,
+        FileChannel.open(file, StandardOpenOption.WRITE))) {
+      for (final long id : ids) {
+        encoder.write(id);
+      }
+    }
+    try (final IdStreamDecoder decoder = new IdStreamDecoder(
+        FileChannel.open(file, StandardOpenOption.READ))) {
+      assertArrayEquals(ids, decodeAll(decoder, COUNT));
+    }
+    // 直接从内存映射的文件中解码
+    try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+          channel.size());
+      assertArrayEquals(ids, decodeAll(new IdStreamDecoder(mapped), COUNT));
+    }
+  }
+
+  @Test
+  public void testUnorderedIds() throws IOException {
+    final Random random = new Random(2);
+    final long[] ids = createIds(Mode.SEQUENTIAL, Precision.SECOND, 10000);
+    for (int i = 0; i < ids.length; ++i) {
+      final int j = random.nextInt(ids.length);
+      final long t = ids[i];
+      ids[i] = ids[j];
+      ids[j] = t;
+    }
+    ids[0] = new Builder(Mode.SEQUENTIAL, Precision.SECOND, 0).build(0, 0);
+    ids[1] = new Builder(Mode.SPREAD, Precision.SECOND, 511).build((1L << 31) - 1,
+        (1L << 22) - 1);
+    final ByteBuffer buffer = ByteBuffer.allocate(ids.length * 16 + 100);
+    final IdStreamEncoder encoder = new IdStreamEncoder(Precision.SECOND, buffer, 100);
+    encoder.write(ids, 0, ids.length);
+    encoder.flush();
+    buffer.flip();
+    assertArrayEquals(ids, decodeAll(new IdStreamDecoder(buffer), ids.length));
+  }
+
+  @Test
+  public void testFlush() throws IOException {
+    final long[] ids = createIds(Mode.SEQUENTIAL, Precision.MILLISECOND, 10);
+    final ByteBuffer buffer = ByteBuffer.allocate(1000);
+    final IdStreamEncoder encoder = new IdStreamEncoder(Precision.MILLISECOND, buffer, 100);
+    encoder.write(ids, 0, 5);
+    assertEquals(6, buffer.position());
+    encoder.flush();
+    encoder.write(ids, 5, 5);
+    encoder.flush();
+    encoder.flush();
+    final ByteBuffer copy = buffer.duplicate().flip();
+    assertArrayEquals(ids, decodeAll(new IdStreamDecoder(copy), 10));
+    encoder.close();
+    assertThrows(IllegalStateException.class, () -> encoder.write(ids[0]));
+  }
+
+  @Test
+  public void testInvalidArguments() throws IOException {
+    final ByteBuffer buffer = ByteBuffer.allocate(100);
+    assertThrows(IllegalArgumentException.class,
+        () -> new IdStreamEncoder(Precision.SECOND, buffer, 0));
+    final IdStreamEncoder encoder = new IdStreamEncoder(Precision.SECOND, buffer, 100);
+    final long id = new Builder(Mode.SEQUENTIAL, Precision.MILLISECOND, 1).build(1, 1);
+    assertThrows(IllegalArgumentException.class, () -> encoder.write(id));
+    final long[] ids = createIds(Mode.SEQUENTIAL, Precision.SECOND, 100);
+    encoder.write(ids, 0, 99);
+    assertThrows(BufferOverflowException.class, () -> encoder.write(ids[99]));
+  }
+
+  @Test
+  public void testCorruptedStream() throws IOException {
+    final long[] ids = createIds(Mode.SEQUENTIAL, Precision.SECOND, 1000);
+    final ByteBuffer buffer = ByteBuffer.allocate(100000);
+    final IdStreamEncoder encoder = new IdStreamEncoder(Precision.SECOND, buffer, 100);
+    encoder.write(ids, 0, ids.length);
+    encoder.flush();
+    buffer.flip();
+    final byte[] bytes = Arrays.copyOf(buffer.array(), buffer.limit());
+    // 错误的魔数
+    final byte[] badMagic = bytes.clone();
+    badMagic[0] = 0;
+    assertThrows(IOException.class, () -> new IdStreamDecoder(ByteBuffer.wrap(badMagic)));
+    // 截断的块
+    final ByteBuffer truncated = ByteBuffer.wrap(bytes, 0, bytes.length - 1);
+    final IdStreamDecoder decoder = new IdStreamDecoder(truncated);
+    assertThrows(IOException.class, () -> decodeAll(decoder, ids.length));
+    // 块中的ID数目与块体不符
+    final byte[] badCount = bytes.clone();
+    badCount[IdStreamFormat.HEADER_SIZE + 3] = 101;
+    assertThrows(IOException.class,
+        () -> decodeAll(new IdStreamDecoder(ByteBuffer.wrap(badCount)), ids.length));
+  }
+}
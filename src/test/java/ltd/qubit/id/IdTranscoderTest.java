@@ -0,0 +1,210 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit test of the {@link IdTranscoder} class.
+ *
+ * @author Haixing Hu
+ */
+public class IdTranscoderTest implements Constant {
+
+  private static final int COUNT = 100000;
+
+  private static final long HOST = 317L;
+
+  private static final Instant NEW_EPOCH = Instant.parse("2024-01-01T00:00:00Z");
+
+  private static long[] createTimestamps(final Random random, final Precision precision,
+      final Instant epoch) {
+    final Timer timer = new Timer(precision, epoch);
+    final long now = timer.getTimestamp(Instant.parse("2024-06-01T00:00:00Z").toEpochMilli());
+    final long[] result = new long[COUNT];
+    for (int i = 0; i < COUNT; ++i) {
+      // 时间戳需要同时在两个EPOCH下都可表示
+      result[i] = now - (long) (random.nextDouble() * (now - timer.getTimestamp(
+          NEW_EPOCH.toEpochMilli())));
+    }
+    return result;
+  }
+
+  @Test
+  public void testTranscodeMode() {
+    final Random random = new Random(1);
+    for (final Precision precision : Precision.values()) {
+      final long[] timestamps = createTimestamps(random, precision, DEFAULT_EPOCH);
+      for (final Mode source : Mode.values()) {
+        for (final Mode target : Mode.values()) {
+          final Builder sourceBuilder = new Builder(source, precision, HOST);
+          final Builder targetBuilder = new Builder(target, precision, HOST);
+          final long[] ids = new long[COUNT];
+          final long[] expected = new long[COUNT];
+          for (int i = 0; i < COUNT; ++i) {
+            final long sequence = random.nextLong() & sourceBuilder.getMaxSequence();
+            ids[i] = sourceBuilder.build(timestamps[i], sequence);
+            expected[i] = targetBuilder.build(timestamps[i], sequence);
+          }
+          final IdTranscoder transcoder = new IdTranscoder(precision, source, target);
+          final long[] actual = new long[COUNT];
+          transcoder.transcode(ids, 0, actual, 0, COUNT);
+          assertArrayEquals(expected, actual);
+          assertEquals(expected[0], transcoder.transcode(ids[0]));
+          assertEquals(transcoder.fingerprint(ids), transcoder.inverse().fingerprint(actual));
+          transcoder.inverse().transcode(actual);
+          assertArrayEquals(ids, actual);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testTranscodeEpoch() {
+    final Random random = new Random(2);
+    for (final Precision precision : Precision.values()) {
+      final long[] timestamps = createTimestamps(random, precision, DEFAULT_EPOCH);
+      final Timer oldTimer = new Timer(precision, DEFAULT_EPOCH);
+      final Timer newTimer = new Timer(precision, NEW_EPOCH);
+      final Builder sourceBuilder = new Builder(Mode.SEQUENTIAL, precision, HOST);
+      final Builder targetBuilder = new Builder(Mode.SPREAD, precision, HOST);
+      final long[] ids = new long[COUNT];
+      final long[] expected = new long[COUNT];
+      for (int i = 0; i < COUNT; ++i) {
+        final long millis = oldTimer.getEpochMillis(timestamps[i]);
+        ids[i] = sourceBuilder.build(timestamps[i], i & 4095);
+        expected[i] = targetBuilder.build(newTimer.getTimestamp(millis), i & 4095);
+      }
+      final IdTranscoder transcoder = new IdTranscoder(precision, Mode.SEQUENTIAL,
+          DEFAULT_EPOCH, Mode.SPREAD, NEW_EPOCH);
+      final long fingerprint = transcoder.fingerprint(ids);
+      transcoder.parallelTranscode(ids);
+      assertArrayEquals(expected, ids);
+      assertEquals(fingerprint, transcoder.inverse().fingerprint(ids));
+    }
+  }
+
+  @Test
+  public void testParallelTranscode() {
+    final Random random = new Random(3);
+    final int count = 10 * IdTranscoder.PARALLEL_THRESHOLD + 7;
+    final Builder builder = new Builder(Mode.SPREAD, Precision.MILLISECOND, HOST);
+    final long[] ids = new long[count];
+    for (int i = 0; i < count; ++i) {
+      ids[i] = builder.build(random.nextLong() & builder.getMaxTimestamp(), i & 4095);
+    }
+    final IdTranscoder transcoder = new IdTranscoder(Precision.MILLISECOND, Mode.SPREAD,
+        Mode.SEQUENTIAL);
+    final long[] sequential = new long[count];
+    final long[] parallel = new long[count];
+    transcoder.transcode(ids, 0, sequential, 0, count);
+    transcoder.parallelTranscode(ids, 0, parallel, 0, count);
+    assertArrayEquals(sequential, parallel);
+  }
+
+  @Test
+  public void testTranscodeFile() throws IOException {
+    final Builder builder = new Builder(Mode.SEQUENTIAL, Precision.SECOND, HOST);
+    final int count = 2 * IdTranscoder.WINDOW_SIZE + 3;
+    final Path source = Files.createTempFile("ids-", ".bin");
+    final Path target = Files.createTempFile("ids-", ".bin");
+    source.toFile().deleteOnExit();
+    target.toFile().deleteOnExit();
+    final ByteBuffer bytes = ByteBuffer.allocate(count * Long.BYTES);
+    final LongBuffer ids = bytes.asLongBuffer();
+    for (int i = 0; i < count; ++i) {
+      ids.put(builder.build(100000 + i / 1000, i));
+    }
+    Files.write(source, bytes.array());
+    final IdTranscoder transcoder = new IdTranscoder(Precision.SECOND, Mode.SEQUENTIAL,
+        Mode.SPREAD);
+    final long fingerprint = transcoder.fingerprint(source);
+    assertEquals(count, transcoder.transcode(source, target));
+    assertEquals(fingerprint, transcoder.inverse().fingerprint(target));
+    final LongBuffer result = ByteBuffer.wrap(Files.readAllBytes(target)).asLongBuffer();
+    assertEquals(count, result.remaining());
+    for (int i = 0; i < count; i += 9973) {
+      assertEquals(transcoder.transcode(ids.get(i)), result.get(i));
+    }
+    // 原地转码回原来的格式
+    assertEquals(count, transcoder.inverse().transcode(target, target));
+    assertArrayEquals(Files.readAllBytes(source), Files.readAllBytes(target));
+    // 通过硬链接指向同一个文件时同样原地转码，而不是先截断目标文件
+    final Path link = target.resolveSibling(target.getFileName() + ".link");
+    Files.createLink(link, target);
+    link.toFile().deleteOnExit();
+    assertEquals(count, transcoder.transcode(target, link));
+    assertEquals(count * Long.BYTES, Files.size(target));
+    assertEquals(fingerprint, transcoder.inverse().fingerprint(target));
+    assertEquals(transcoder.transcode(ids.get(0)),
+        ByteBuffer.wrap(Files.readAllBytes(target)).asLongBuffer().get(0));
+  }
+
+  @Test
+  public void testFingerprintDetectsChanges() {
+    final Builder builder = new Builder(Mode.SEQUENTIAL, Precision.MILLISECOND, HOST);
+    final IdTranscoder transcoder = new IdTranscoder(Precision.MILLISECOND,
+        Mode.SEQUENTIAL, Mode.SPREAD);
+    final long[] ids = new long[1000];
+    for (int i = 0; i < ids.length; ++i) {
+      ids[i] = builder.build(1000000 + i, i);
+    }
+    final long[] transcoded = ids.clone();
+    transcoder.transcode(transcoded);
+    final IdTranscoder inverse = transcoder.inverse();
+    assertEquals(transcoder.fingerprint(ids), inverse.fingerprint(transcoded));
+    // 顺序无关
+    final long first = transcoded[0];
+    transcoded[0] = transcoded[999];
+    transcoded[999] = first;
+    assertEquals(transcoder.fingerprint(ids), inverse.fingerprint(transcoded));
+    // 分块计算的指纹之和等于整体的指纹
+    assertEquals(transcoder.fingerprint(ids),
+        transcoder.fingerprint(ids, 0, 300) + transcoder.fingerprint(ids, 300, 700));
+    // 丢失或者改变一个ID都会改变指纹
+    assertNotEquals(transcoder.fingerprint(ids), inverse.fingerprint(transcoded, 0, 999));
+    transcoded[500] ^= 1L;
+    assertNotEquals(transcoder.fingerprint(ids), inverse.fingerprint(transcoded));
+  }
+
+  @Test
+  public void testInvalidIds() {
+    final IdTranscoder transcoder = new IdTranscoder(Precision.SECOND, Mode.SEQUENTIAL,
+        Mode.SPREAD);
+    final long spread = new Builder(Mode.SPREAD, Precision.SECOND, HOST).build(100, 1);
+    final long millisecond = new Builder(Mode.SEQUENTIAL, Precision.MILLISECOND, HOST)
+        .build(1L << 20, 1);
+    assertThrows(IllegalArgumentException.class, () -> transcoder.transcode(spread));
+    assertThrows(IllegalArgumentException.class,
+        () -> transcoder.transcode(new long[]{1L << 32, spread}));
+    assertThrows(IllegalArgumentException.class, () -> transcoder.transcode(millisecond));
+    // 时间戳超出新的EPOCH所能表示的范围
+    final IdTranscoder shifted = new IdTranscoder(Precision.SECOND, Mode.SEQUENTIAL,
+        DEFAULT_EPOCH, Mode.SEQUENTIAL, NEW_EPOCH);
+    final long old = new Builder(Mode.SEQUENTIAL, Precision.SECOND, HOST).build(100, 1);
+    assertThrows(IllegalArgumentException.class, () -> shifted.transcode(old));
+    assertThrows(IllegalArgumentException.class, () -> new IdTranscoder(Precision.SECOND,
+        Mode.SEQUENTIAL, DEFAULT_EPOCH, Mode.SPREAD, NEW_EPOCH.plusMillis(1)));
+    assertThrows(IndexOutOfBoundsException.class,
+        () -> transcoder.transcode(new long[2], 1, new long[2], 0, 2));
+  }
+}
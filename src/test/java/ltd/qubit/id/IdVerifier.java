@@ -0,0 +1,397 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ltd.qubit.commons.math.LongBit;
+
+/**
+ * 校验大量ID的唯一性和顺序性。
+ *
+ * <p>ID被收集到固定大小的基本类型数组中，每个数组填满后交给后台线程用
+ * {@link Arrays#parallelSort(long[], int, int)}排序，排好序的数组要么保留在堆内存中，要么
+ * 写入临时文件并通过内存映射保留在堆外；校验时对所有排好序的数组做多路归并，相邻的相等
+ * 元素即为重复的ID。等待排序的数组最多有{@value #MAX_PENDING_SORTS}个，超出时由提交
+ * 数组的线程自己排序，因此溢出到磁盘时堆内存只需要容纳正在填充、等待排序和正在排序的
+ * 数组，可以校验数十亿个ID。
+ *
+ * <p>顺序性在收集时检查：对于同一个线程按照生成顺序记录的ID，要求它们在
+ * {@link LongBit#compare(long, long)}的意义下严格递增。
+ *
+ * @author Haixing Hu
+ */
+public class IdVerifier implements AutoCloseable {
+
+  /**
+   * 默认的每个数组中ID的数目。
+   */
+  public static final int DEFAULT_CHUNK_SIZE = 1 << 22;
+
+  /**
+   * 每个数组中ID的最大数目，受单个内存映射区域不超过2GB的限制。
+   */
+  public static final int MAX_CHUNK_SIZE = 1 << 27;
+
+  /**
+   * 等待后台线程排序的数组的最大数目。
+   */
+  public static final int MAX_PENDING_SORTS = 2;
+
+  private final int chunkSize;
+
+  private final Path spillDir;
+
+  private final ExecutorService sorter;
+
+  private final List<Future<LongBuffer>> runs = new ArrayList<>();
+
+  private final List<Recorder> recorders = new ArrayList<>();
+
+  private final List<Path> files = new ArrayList<>();
+
+  private final AtomicLong count = new AtomicLong();
+
+  private final AtomicLong orderViolations = new AtomicLong();
+
+  private volatile String firstOrderViolation;
+
+  /**
+   * 构造一个在堆内存中保存ID的{@link IdVerifier}。
+   */
+  public IdVerifier() {
+    this(DEFAULT_CHUNK_SIZE, null);
+  }
+
+  /**
+   * 构造一个{@link IdVerifier}。
+   *
+   * @param chunkSize
+   *     每个数组中ID的数目，必须在{@code [1, MAX_CHUNK_SIZE]}之间。
+   * @param spillDir
+   *     存放排好序的数组的目录；若为{@code null}则把排好序的数组保留在堆内存中。
+   */
+  public IdVerifier(final int chunkSize, final Path spillDir) {
+    if (chunkSize <= 0 || chunkSize > MAX_CHUNK_SIZE) {
+      throw new IllegalArgumentException("Invalid chunk size: " + chunkSize);
+    }
+    this.chunkSize = chunkSize;
+    this.spillDir = spillDir;
+    this.sorter = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(MAX_PENDING_SORTS), (runnable) -> {
+          final Thread thread = new Thread(runnable, "IdVerifier-sorter");
+          thread.setDaemon(true);
+          return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+  }
+
+  /**
+   * 获取已经收集的ID的数目。
+   *
+   * @return 已经收集的ID的数目。
+   */
+  public long getCount() {
+    return count.get();
+  }
+
+  /**
+   * 创建一个记录器，用于在一个线程中按照生成顺序记录ID。
+   *
+   * @param checkOrder
+   *     是否检查记录的ID严格递增。
+   * @return 新创建的记录器，只能在一个线程中使用。
+   */
+  public synchronized Recorder newRecorder(final boolean checkOrder) {
+    final Recorder recorder = new Recorder(checkOrder);
+    recorders.add(recorder);
+    return recorder;
+  }
+
+  /**
+   * 收集一个数组中按照生成顺序排列的ID。
+   *
+   * <p>此函数会接管该数组，并在排序时修改其内容。
+   *
+   * @param ids
+   *     按照生成顺序排列的ID。
+   * @param checkOrder
+   *     是否检查这些ID严格递增。
+   */
+  public void add(final long[] ids, final boolean checkOrder) {
+    if (checkOrder) {
+      for (int i = 1; i < ids.length; ++i) {
+        checkOrder(ids[i - 1], ids[i]);
+      }
+    }
+    submit(ids, ids.length);
+  }
+
+  private void checkOrder(final long last, final long id) {
+    if (LongBit.compare(last, id) >= 0) {
+      if (orderViolations.getAndIncrement() == 0) {
+        firstOrderViolation = "last = " + last + ", id = " + id;
+      }
+    }
+  }
+
+  private synchronized void submit(final long[] ids, final int length) {
+    if (length == 0) {
+      return;
+    }
+    count.addAndGet(length);
+    runs.add(sorter.submit(() -> sort(ids, length)));
+  }
+
+  private LongBuffer sort(final long[] ids, final int length) throws IOException {
+    Arrays.parallelSort(ids, 0, length);
+    if (spillDir == null) {
+      return LongBuffer.wrap(ids, 0, length).slice();
+    }
+    final Path file = Files.createTempFile(spillDir, "ids-", ".bin");
+    synchronized (files) {
+      files.add(file);
+    }
+    try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      final LongBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+          (long) length * Long.BYTES).asLongBuffer();
+      buffer.put(ids, 0, length);
+      buffer.flip();
+      return buffer;
+    }
+  }
+
+  /**
+   * 校验所有已经收集的ID。
+   *
+   * <p>调用此函数之前，所有使用记录器的线程都必须已经结束。
+   *
+   * @return 校验结果。
+   * @throws Exception
+   *     若排序或读取数据时出错。
+   */
+  public synchronized Report verify() throws Exception {
+    for (final Recorder recorder : recorders) {
+      recorder.flush();
+    }
+    final LongBuffer[] sorted = new LongBuffer[runs.size()];
+    for (int i = 0; i < sorted.length; ++i) {
+      sorted[i] = runs.get(i).get();
+    }
+    final Merger merger = new Merger(sorted);
+    long duplicates = 0;
+    long firstDuplicate = 0;
+    long merged = 0;
+    if (merger.hasNext()) {
+      long last = merger.next();
+      merged = 1;
+      while (merger.hasNext()) {
+        final long id = merger.next();
+        ++merged;
+        if (id == last) {
+          if (duplicates++ == 0) {
+            firstDuplicate = id;
+          }
+        }
+        last = id;
+      }
+    }
+    return new Report(merged, duplicates, firstDuplicate, orderViolations.get(),
+        firstOrderViolation);
+  }
+
+  @Override
+  public void close() throws IOException {
+    sorter.shutdownNow();
+    synchronized (files) {
+      for (final Path file : files) {
+        Files.deleteIfExists(file);
+      }
+      files.clear();
+    }
+  }
+
+  /**
+   * 在一个线程中按照生成顺序记录ID的记录器。
+   */
+  public final class Recorder {
+
+    private final boolean checkOrder;
+
+    private long[] buffer = new long[chunkSize];
+
+    private int size = 0;
+
+    private long last;
+
+    private boolean started = false;
+
+    private Recorder(final boolean checkOrder) {
+      this.checkOrder = checkOrder;
+    }
+
+    /**
+     * 记录一个ID。
+     *
+     * @param id
+     *     待记录的ID。
+     */
+    public void record(final long id) {
+      if (checkOrder && started) {
+        checkOrder(last, id);
+      }
+      last = id;
+      started = true;
+      buffer[size++] = id;
+      if (size == buffer.length) {
+        flush();
+      }
+    }
+
+    /**
+     * 把已经记录的ID交给后台线程排序。
+     */
+    public void flush() {
+      if (size > 0) {
+        submit(buffer, size);
+        buffer = new long[chunkSize];
+        size = 0;
+      }
+    }
+  }
+
+  /**
+   * 对多个排好序的缓冲区做多路归并，使用以基本类型数组实现的二叉堆。
+   */
+  private static final class Merger {
+
+    private final LongBuffer[] runs;
+
+    private final int[] heap;
+
+    private int heapSize;
+
+    Merger(final LongBuffer[] runs) {
+      this.runs = runs;
+      this.heap = new int[runs.length];
+      for (int i = 0; i < runs.length; ++i) {
+        if (runs[i].hasRemaining()) {
+          heap[heapSize++] = i;
+        }
+      }
+      for (int i = heapSize / 2 - 1; i >= 0; --i) {
+        siftDown(i);
+      }
+    }
+
+    boolean hasNext() {
+      return heapSize > 0;
+    }
+
+    long next() {
+      final LongBuffer run = runs[heap[0]];
+      final long result = run.get();
+      if (!run.hasRemaining()) {
+        heap[0] = heap[--heapSize];
+      }
+      siftDown(0);
+      return result;
+    }
+
+    private long head(final int index) {
+      final LongBuffer run = runs[heap[index]];
+      return run.get(run.position());
+    }
+
+    private void siftDown(int index) {
+      while (true) {
+        final int left = 2 * index + 1;
+        if (left >= heapSize) {
+          return;
+        }
+        int smallest = left;
+        if (left + 1 < heapSize && head(left + 1) < head(left)) {
+          smallest = left + 1;
+        }
+        if (head(index) <= head(smallest)) {
+          return;
+        }
+        final int tmp = heap[index];
+        heap[index] = heap[smallest];
+        heap[smallest] = tmp;
+        index = smallest;
+      }
+    }
+  }
+
+  /**
+   * 校验结果。
+   */
+  public static final class Report {
+
+    private final long count;
+    private final long duplicates;
+    private final long firstDuplicate;
+    private final long orderViolations;
+    private final String firstOrderViolation;
+
+    Report(final long count, final long duplicates, final long firstDuplicate,
+        final long orderViolations, final String firstOrderViolation) {
+      this.count = count;
+      this.duplicates = duplicates;
+      this.firstDuplicate = firstDuplicate;
+      this.orderViolations = orderViolations;
+      this.firstOrderViolation = firstOrderViolation;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public long getDuplicates() {
+      return duplicates;
+    }
+
+    public long getOrderViolations() {
+      return orderViolations;
+    }
+
+    public boolean isValid() {
+      return duplicates == 0 && orderViolations == 0;
+    }
+
+    @Override
+    public String toString() {
+      final StringBuilder builder = new StringBuilder();
+      builder.append(count).append(" IDs, ").append(duplicates).append(" duplicated");
+      if (duplicates > 0) {
+        builder.append(" (first: ").append(firstDuplicate).append(")");
+      }
+      builder.append(", ").append(orderViolations).append(" out of order");
+      if (orderViolations > 0) {
+        builder.append(" (first: ").append(firstOrderViolation).append(")");
+      }
+      return builder.toString();
+    }
+  }
+}
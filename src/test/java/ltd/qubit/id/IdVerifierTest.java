@@ -0,0 +1,160 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.lang.System.currentTimeMillis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import static ltd.qubit.commons.util.HumanReadable.formatDuration;
+
+/**
+ * Unit test of the {@link IdVerifier} class.
+ *
+ * <p>{@link #multiHostBenchmark()}通过以下系统属性调整规模：
+ * {@code id.verify.count}为生成的ID总数（默认为两千万，可设置为数十亿），
+ * {@code id.verify.hosts}为模拟的主机数（默认为4），
+ * {@code id.verify.threads}为每台主机的线程数（默认为4），
+ * {@code id.verify.spill}为存放临时文件的目录（默认不溢出到磁盘）。
+ *
+ * @author Haixing Hu
+ */
+public class IdVerifierTest {
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  @Test
+  public void testConstructor() {
+    assertThrows(IllegalArgumentException.class, () -> new IdVerifier(0, null));
+    assertThrows(IllegalArgumentException.class,
+        () -> new IdVerifier(IdVerifier.MAX_CHUNK_SIZE + 1, null));
+  }
+
+  @Test
+  public void testUnique() throws Exception {
+    try (final IdVerifier verifier = new IdVerifier(7, null)) {
+      final IdVerifier.Recorder r1 = verifier.newRecorder(true);
+      final IdVerifier.Recorder r2 = verifier.newRecorder(true);
+      for (long i = 0; i < 100; ++i) {
+        r1.record(2 * i);
+        r2.record(2 * i + 1);
+      }
+      verifier.add(new long[]{-5L, -3L, -1L}, true);
+      final IdVerifier.Report report = verifier.verify();
+      assertTrue(report.isValid(), report.toString());
+      assertEquals(203, report.getCount());
+      assertEquals(203, verifier.getCount());
+    }
+  }
+
+  @Test
+  public void testDuplicated() throws Exception {
+    try (final IdVerifier verifier = new IdVerifier(4, null)) {
+      final IdVerifier.Recorder r1 = verifier.newRecorder(false);
+      final IdVerifier.Recorder r2 = verifier.newRecorder(false);
+      for (long i = 0; i < 10; ++i) {
+        r1.record(i);
+        r2.record(i + 9);
+      }
+      final IdVerifier.Report report = verifier.verify();
+      assertFalse(report.isValid());
+      assertEquals(1, report.getDuplicates(), report.toString());
+      assertEquals(0, report.getOrderViolations());
+    }
+  }
+
+  @Test
+  public void testOrder() throws Exception {
+    try (final IdVerifier verifier = new IdVerifier(3, null)) {
+      final IdVerifier.Recorder recorder = verifier.newRecorder(true);
+      recorder.record(1L);
+      recorder.record(2L);
+      recorder.record(3L);
+      // the violation spans the boundary of two chunks
+      recorder.record(3L);
+      recorder.record(-1L);
+      final IdVerifier.Report report = verifier.verify();
+      assertEquals(1, report.getDuplicates(), report.toString());
+      // -1 is the largest value in the unsigned order of LongBit.compare()
+      assertEquals(1, report.getOrderViolations(), report.toString());
+    }
+  }
+
+  @Test
+  public void testSpill() throws Exception {
+    final Path dir = Files.createTempDirectory("id-verifier");
+    try (final IdVerifier verifier = new IdVerifier(1000, dir)) {
+      final IdVerifier.Recorder recorder = verifier.newRecorder(true);
+      for (long i = 0; i < 10500; ++i) {
+        recorder.record(i);
+      }
+      recorder.record(10499L);
+      final IdVerifier.Report report = verifier.verify();
+      assertEquals(10501, report.getCount());
+      assertEquals(1, report.getDuplicates());
+      assertEquals(1, report.getOrderViolations());
+    } finally {
+      Files.delete(dir);
+    }
+  }
+
+  @Test
+  public void multiHostBenchmark() throws Exception {
+    final long total = Long.getLong("id.verify.count", 20_000_000L);
+    final int hosts = Integer.getInteger("id.verify.hosts", 4);
+    final int threadsPerHost = Integer.getInteger("id.verify.threads", 4);
+    final String spill = System.getProperty("id.verify.spill");
+    final long perThread = total / ((long) hosts * threadsPerHost);
+    final Thread[] threads = new Thread[hosts * threadsPerHost];
+    logger.info("Generating {} IDs on {} hosts with {} threads each ...",
+        perThread * threads.length, hosts, threadsPerHost);
+    try (final IdVerifier verifier = new IdVerifier(IdVerifier.DEFAULT_CHUNK_SIZE,
+        (spill == null ? null : Path.of(spill)))) {
+      for (int h = 0; h < hosts; ++h) {
+        final IdGenerator generator = new AtomicIdGenerator(Mode.SEQUENTIAL,
+            Precision.SECOND, h);
+        for (int t = 0; t < threadsPerHost; ++t) {
+          final IdVerifier.Recorder recorder = verifier.newRecorder(true);
+          threads[h * threadsPerHost + t] = new Thread(() -> {
+            for (long i = 0; i < perThread; ++i) {
+              recorder.record(generator.generate());
+            }
+          });
+        }
+      }
+      final long start = currentTimeMillis();
+      for (final Thread thread : threads) {
+        thread.start();
+      }
+      for (final Thread thread : threads) {
+        thread.join();
+      }
+      final long generated = currentTimeMillis();
+      logger.info("Generated in {}.", formatDuration(generated - start,
+          TimeUnit.MILLISECONDS));
+      final IdVerifier.Report report = verifier.verify();
+      final long end = currentTimeMillis();
+      logger.info("Verified in {}: {}", formatDuration(end - generated,
+          TimeUnit.MILLISECONDS), report);
+      assertEquals(perThread * threads.length, report.getCount());
+      assertTrue(report.isValid(), report.toString());
+    }
+  }
+}
@@ -0,0 +1,116 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit test of the {@link JdbcSegmentStore} class, using an embedded H2 database.
+ *
+ * @author Haixing Hu
+ */
+public class JdbcSegmentStoreTest {
+
+  private static final AtomicInteger DATABASE_COUNT = new AtomicInteger();
+
+  private static JdbcDataSource createDataSource() {
+    final JdbcDataSource result = new JdbcDataSource();
+    // 每个测试使用一个独立的内存数据库，最后一个连接关闭后数据库仍然保留
+    result.setURL("jdbc:h2:mem:segment" + DATABASE_COUNT.incrementAndGet()
+        + ";DB_CLOSE_DELAY=-1");
+    return result;
+  }
+
+  @Test
+  public void testAllocate() throws Exception {
+    final JdbcDataSource dataSource = createDataSource();
+    final JdbcSegmentStore store = new JdbcSegmentStore(dataSource, "order");
+    store.createTable();
+    store.createTable();
+    assertEquals(JdbcSegmentStore.DEFAULT_TABLE, store.getTable());
+    // 业务标识对应的行不存在时自动插入
+    assertEquals(new IdRange(1, 100), store.allocate(100));
+    assertEquals(new IdRange(101, 50), store.allocate(50));
+    // 不同的业务标识互不影响
+    final JdbcSegmentStore other = new JdbcSegmentStore(dataSource, "user");
+    assertEquals(new IdRange(1, 10), other.allocate(10));
+    // 同一个业务标识的另一个存储对象（例如另一个进程）从已分配的最大ID之后继续分配
+    final JdbcSegmentStore another = new JdbcSegmentStore(dataSource, "order");
+    assertEquals(new IdRange(151, 10), another.allocate(10));
+    assertThrows(IllegalArgumentException.class, () -> store.allocate(0));
+  }
+
+  @Test
+  public void testInvalidTable() {
+    final JdbcDataSource dataSource = createDataSource();
+    assertThrows(IllegalArgumentException.class,
+        () -> new JdbcSegmentStore(dataSource, "id_segment; DROP TABLE x", "order"));
+    final JdbcSegmentStore store = new JdbcSegmentStore(dataSource, "missing", "order");
+    assertThrows(IOException.class, () -> store.allocate(10));
+  }
+
+  @Test
+  public void testConcurrentAllocate() throws Exception {
+    final JdbcDataSource dataSource = createDataSource();
+    new JdbcSegmentStore(dataSource, "order").createTable();
+    final int threads = 8;
+    final int rounds = 50;
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      final List<Future<List<IdRange>>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; ++i) {
+        futures.add(executor.submit(() -> {
+          final JdbcSegmentStore store = new JdbcSegmentStore(dataSource, "order");
+          final List<IdRange> ranges = new ArrayList<>();
+          for (int j = 0; j < rounds; ++j) {
+            ranges.add(store.allocate(10));
+          }
+          return ranges;
+        }));
+      }
+      final boolean[] used = new boolean[threads * rounds * 10 + 1];
+      for (final Future<List<IdRange>> future : futures) {
+        for (final IdRange range : future.get()) {
+          for (final long id : range) {
+            assertFalse(used[(int) id], "Duplicated ID: " + id);
+            used[(int) id] = true;
+          }
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testSegmentIdGenerator() throws Exception {
+    final JdbcSegmentStore store = new JdbcSegmentStore(createDataSource(), "order");
+    store.createTable();
+    try (final SegmentIdGenerator generator = new SegmentIdGenerator(store, 100, 1000,
+        Duration.ofMinutes(1))) {
+      for (int i = 0; i < 10000; ++i) {
+        assertEquals(i + 1, generator.generate());
+      }
+    }
+  }
+}
@@ -9,12 +9,15 @@
 package ltd.qubit.id;
 
 import java.time.Instant;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 
 import ltd.qubit.commons.random.RandomBeanGenerator;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import static ltd.qubit.id.Mode.SEQUENTIAL;
 import static ltd.qubit.id.Precision.MILLISECOND;
@@ -70,26 +73,55 @@ public class LockedIdGeneratorTest extends Benchmark implements Constant {
   }
 
   @Test
-  public void singleThreadBenchmark_1() {
+  public void testReserve() {
+    final LockedIdGenerator generator = new LockedIdGenerator(SEQUENTIAL, MILLISECOND);
+    final Builder builder = generator.getBuilder();
+    final int count = 10000;
+    final List<IdRange> ranges = generator.reserve(count);
+    // 毫秒精度下每个时间片最多只有4096个序列号，因此结果必然被拆分
+    assertTrue(ranges.size() >= 3);
+    int total = 0;
+    long last = generator.generate(generator.getEpoch(), 0) - 1;
+    for (final IdRange range : ranges) {
+      assertTrue(range.getStart() > last);
+      final long timestamp = builder.extractTimestamp(range.getStart());
+      assertEquals(timestamp, builder.extractTimestamp(range.getLast()));
+      assertEquals(builder.extractSequence(range.getStart()) + range.size() - 1,
+          builder.extractSequence(range.getLast()));
+      last = range.getLast();
+      total += range.size();
+    }
+    assertEquals(count, total);
+    assertTrue(generator.generate() > last);
+    assertThrows(IllegalArgumentException.class, () -> generator.reserve(0));
+  }
+
+  @Test
+  public void testExhaustionPolicy() throws Exception {
+    new GeneratorPolicyTester((timer) -> new LockedIdGenerator(SEQUENTIAL, 0L, timer)).testAll();
+  }
+
+  @Test
+  public void singleThreadBenchmark_1() throws Exception {
     final LockedIdGenerator generator = new LockedIdGenerator(SEQUENTIAL, SECOND);
     singleThreadBenchmarkImpl(TOTAL_ID_COUNT, generator);
   }
 
   @Test
-  public void singleThreadBenchmark_2() {
+  public void singleThreadBenchmark_2() throws Exception {
     final LockedIdGenerator generator = new LockedIdGenerator(Mode.SPREAD,
         SECOND);
     singleThreadBenchmarkImpl(TOTAL_ID_COUNT, generator);
   }
 
   @Test
-  public void singleThreadBenchmark_3() {
+  public void singleThreadBenchmark_3() throws Exception {
     final LockedIdGenerator generator = new LockedIdGenerator(SEQUENTIAL, MILLISECOND);
     singleThreadBenchmarkImpl(TOTAL_ID_COUNT, generator);
   }
 
   @Test
-  public void singleThreadBenchmark_4() {
+  public void singleThreadBenchmark_4() throws Exception {
     final LockedIdGenerator generator = new LockedIdGenerator(Mode.SPREAD, MILLISECOND);
     singleThreadBenchmarkImpl(TOTAL_ID_COUNT, generator);
   }
@@ -117,4 +149,21 @@ public class LockedIdGeneratorTest extends Benchmark implements Constant {
     final LockedIdGenerator generator = new LockedIdGenerator(Mode.SPREAD, MILLISECOND);
     multiThreadBenchmarkImpl(TOTAL_ID_COUNT, TOTAL_THREAD_COUNT, generator);
   }
+
+  @Test
+  public void virtualThreadBenchmark_1() throws Exception {
+    for (final int threadCount : VIRTUAL_THREAD_COUNTS) {
+      final LockedIdGenerator generator = new LockedIdGenerator(SEQUENTIAL, MILLISECOND);
+      virtualThreadBenchmarkImpl(TOTAL_ID_COUNT, threadCount, generator);
+    }
+  }
+
+  @Test
+  public void virtualThreadBenchmark_2() throws Exception {
+    for (final int threadCount : VIRTUAL_THREAD_COUNTS) {
+      final LockedIdGenerator generator = new LockedIdGenerator(SEQUENTIAL, MILLISECOND);
+      generator.setExhaustionPolicy(StandardExhaustionPolicy.PARK);
+      virtualThreadBenchmarkImpl(TOTAL_ID_COUNT, threadCount, generator);
+    }
+  }
 }
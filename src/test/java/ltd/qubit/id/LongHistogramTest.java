@@ -0,0 +1,80 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit test of the {@link LongHistogram} class.
+ *
+ * @author Haixing Hu
+ */
+public class LongHistogramTest {
+
+  @Test
+  public void testBuckets() {
+    assertEquals(0, LongHistogram.bucketOf(0));
+    assertEquals(0, LongHistogram.bucketOf(-5));
+    assertEquals(1, LongHistogram.bucketOf(1));
+    assertEquals(2, LongHistogram.bucketOf(2));
+    assertEquals(2, LongHistogram.bucketOf(3));
+    assertEquals(13, LongHistogram.bucketOf(4096));
+    assertEquals(63, LongHistogram.bucketOf(Long.MAX_VALUE));
+    assertEquals(4095, LongHistogram.upperBoundOf(12));
+    assertEquals(Long.MAX_VALUE, LongHistogram.upperBoundOf(63));
+  }
+
+  @Test
+  public void testRecord() {
+    final LongHistogram histogram = new LongHistogram();
+    assertEquals(0, histogram.getQuantile(0.5));
+    assertEquals(0.0, histogram.getMean());
+    for (int i = 1; i <= 1000; ++i) {
+      histogram.record(i);
+    }
+    assertEquals(1000, histogram.getCount());
+    assertEquals(500500, histogram.getSum());
+    assertEquals(1000, histogram.getMax());
+    assertEquals(500.5, histogram.getMean(), 1e-9);
+    // 中位数500位于 [256, 512) 桶中，近似值为该桶的上界
+    assertEquals(511, histogram.getQuantile(0.5));
+    assertEquals(1000, histogram.getQuantile(0.99));
+    assertEquals(1, histogram.getQuantile(0.0));
+    final long[] counts = histogram.getBucketCounts();
+    assertEquals(LongHistogram.BUCKETS, counts.length);
+    // [512, 1024) 桶中有 512 ~ 1000 共489个数值
+    assertEquals(489, counts[10]);
+    assertThrows(IllegalArgumentException.class, () -> histogram.getQuantile(1.5));
+    histogram.reset();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getMax());
+  }
+
+  @Test
+  public void testConcurrentRecord() {
+    final LongHistogram histogram = new LongHistogram();
+    IntStream.range(0, 8).parallel().forEach(t -> {
+      for (int i = 0; i < 100000; ++i) {
+        histogram.record(i & 1023);
+      }
+    });
+    long expected = 0;
+    for (int i = 0; i < 100000; ++i) {
+      expected += i & 1023;
+    }
+    assertEquals(800000, histogram.getCount());
+    assertEquals(8 * expected, histogram.getSum());
+    assertEquals(1023, histogram.getMax());
+  }
+}
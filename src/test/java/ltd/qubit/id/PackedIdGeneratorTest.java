@@ -0,0 +1,169 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import ltd.qubit.commons.random.RandomBeanGenerator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import static ltd.qubit.id.Mode.SEQUENTIAL;
+import static ltd.qubit.id.Mode.SPREAD;
+import static ltd.qubit.id.Precision.MILLISECOND;
+import static ltd.qubit.id.Precision.SECOND;
+
+/**
+ * Unit test of the {@link PackedIdGenerator} class.
+ *
+ * @author Haixing Hu
+ */
+public class PackedIdGeneratorTest extends Benchmark implements Constant {
+
+  private static final int TEST_COUNT = 100;
+
+  @Test
+  public void testConstructor() {
+    final RandomBeanGenerator random = new RandomBeanGenerator();
+    for (int i = 0; i < TEST_COUNT; ++i) {
+      final Mode mode = random.nextObject(Mode.class);
+      final Precision precision = random.nextObject(Precision.class);
+      final long host = random.nextLong(HOST_MIN, HOST_MAX);
+      final long epochMilli = random.nextLong();
+      final Instant epoch = Instant.ofEpochMilli(epochMilli);
+      final PackedIdGenerator generator = new PackedIdGenerator(mode, precision,
+          host, epoch);
+      assertEquals(mode, generator.getMode());
+      assertEquals(precision, generator.getPrecision());
+      assertEquals(host, generator.getHost());
+      assertEquals(epoch, generator.getEpoch());
+    }
+  }
+
+  @Test
+  public void testGenerateSpecified() {
+    final RandomBeanGenerator random = new RandomBeanGenerator();
+    for (int i = 0; i < TEST_COUNT; ++i) {
+      final Mode mode = random.nextObject(Mode.class);
+      final Precision precision = random.nextObject(Precision.class);
+      final long host = random.nextLong(HOST_MIN, HOST_MAX);
+      final Instant epoch = Instant.now();
+      final PackedIdGenerator generator = new PackedIdGenerator(mode, precision, host, epoch);
+      final Builder builder = generator.getBuilder();
+      final Timer timer = generator.getTimer();
+      final long timestamp = random.nextLong(0, builder.getMaxTimestamp() + 1);
+      final Instant instant = timer.getInstant(timestamp);
+      final long sequence = random.nextLong(0, builder.getMaxSequence() + 1);
+      final long id = generator.generate(instant, sequence);
+      assertEquals(mode, builder.extractMode(id));
+      assertEquals(timestamp, builder.extractTimestamp(id));
+      assertEquals(precision, builder.extractPrecision(id));
+      assertEquals(host, builder.extractHost(id));
+      assertEquals(sequence, builder.extractSequence(id));
+    }
+  }
+
+  @Test
+  public void testReserve() {
+    final PackedIdGenerator generator = new PackedIdGenerator(SEQUENTIAL, MILLISECOND);
+    final Builder builder = generator.getBuilder();
+    final int count = 10000;
+    final List<IdRange> ranges = generator.reserve(count);
+    // 毫秒精度下每个时间片最多只有4096个序列号，因此结果必然被拆分
+    assertTrue(ranges.size() >= 3);
+    int total = 0;
+    long last = generator.generate(generator.getEpoch(), 0) - 1;
+    for (final IdRange range : ranges) {
+      assertTrue(range.getStart() > last);
+      final long timestamp = builder.extractTimestamp(range.getStart());
+      assertEquals(timestamp, builder.extractTimestamp(range.getLast()));
+      assertEquals(builder.extractSequence(range.getStart()) + range.size() - 1,
+          builder.extractSequence(range.getLast()));
+      last = range.getLast();
+      total += range.size();
+    }
+    assertEquals(count, total);
+    assertTrue(generator.generate() > last);
+    assertThrows(IllegalArgumentException.class, () -> generator.reserve(0));
+  }
+
+  @Test
+  public void testExhaustionPolicy() throws Exception {
+    new GeneratorPolicyTester((timer) -> new PackedIdGenerator(SEQUENTIAL, 0L, timer)).testAll();
+  }
+
+  @Test
+  public void singleThreadBenchmark_1() throws Exception {
+    final PackedIdGenerator generator = new PackedIdGenerator(SEQUENTIAL, SECOND);
+    singleThreadBenchmarkImpl(TOTAL_ID_COUNT, generator);
+  }
+
+  @Test
+  public void singleThreadBenchmark_2() throws Exception {
+    final PackedIdGenerator generator = new PackedIdGenerator(SPREAD, SECOND);
+    singleThreadBenchmarkImpl(TOTAL_ID_COUNT, generator);
+  }
+
+  @Test
+  public void singleThreadBenchmark_3() throws Exception {
+    final PackedIdGenerator generator = new PackedIdGenerator(SEQUENTIAL, MILLISECOND);
+    singleThreadBenchmarkImpl(TOTAL_ID_COUNT, generator);
+  }
+
+  @Test
+  public void singleThreadBenchmark_4() throws Exception {
+    final PackedIdGenerator generator = new PackedIdGenerator(SPREAD, MILLISECOND);
+    singleThreadBenchmarkImpl(TOTAL_ID_COUNT, generator);
+  }
+
+  @Test
+  public void multitheadBenchmark_1() throws Exception {
+    final PackedIdGenerator generator = new PackedIdGenerator(SEQUENTIAL, SECOND);
+    multiThreadBenchmarkImpl(TOTAL_ID_COUNT, TOTAL_THREAD_COUNT, generator);
+  }
+
+  @Test
+  public void multitheadBenchmark_2() throws Exception {
+    final PackedIdGenerator generator = new PackedIdGenerator(SPREAD, SECOND);
+    multiThreadBenchmarkImpl(TOTAL_ID_COUNT, TOTAL_THREAD_COUNT, generator);
+  }
+
+  @Test
+  public void multitheadBenchmark_3() throws Exception {
+    final PackedIdGenerator generator = new PackedIdGenerator(SEQUENTIAL, MILLISECOND);
+    multiThreadBenchmarkImpl(TOTAL_ID_COUNT, TOTAL_THREAD_COUNT, generator);
+  }
+
+  @Test
+  public void multitheadBenchmark_4() throws Exception {
+    final PackedIdGenerator generator = new PackedIdGenerator(SPREAD, MILLISECOND);
+    multiThreadBenchmarkImpl(TOTAL_ID_COUNT, TOTAL_THREAD_COUNT, generator);
+  }
+
+  @Test
+  public void compareBenchmark_1() throws Exception {
+    compareBenchmarkImpl(TOTAL_ID_COUNT, TOTAL_THREAD_COUNT,
+        new PackedIdGenerator(SEQUENTIAL, SECOND),
+        new AtomicIdGenerator(SEQUENTIAL, SECOND),
+        new LockedIdGenerator(SEQUENTIAL, SECOND));
+  }
+
+  @Test
+  public void compareBenchmark_2() throws Exception {
+    compareBenchmarkImpl(TOTAL_ID_COUNT, TOTAL_THREAD_COUNT,
+        new PackedIdGenerator(SPREAD, MILLISECOND),
+        new AtomicIdGenerator(SPREAD, MILLISECOND),
+        new LockedIdGenerator(SPREAD, MILLISECOND));
+  }
+}
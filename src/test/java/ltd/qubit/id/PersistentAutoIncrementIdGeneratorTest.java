@@ -0,0 +1,163 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit test of the {@link PersistentAutoIncrementIdGenerator} class.
+ *
+ * @author Haixing Hu
+ */
+public class PersistentAutoIncrementIdGeneratorTest extends Benchmark {
+
+  private static final int MAX = 10000;
+
+  private static final int BLOCK_SIZE = 100;
+
+  private static Path createFile() throws IOException {
+    final Path file = Files.createTempFile("id-", ".hwm");
+    Files.delete(file);
+    file.toFile().deleteOnExit();
+    return file;
+  }
+
+  @Test
+  public void testGenerate() throws Exception {
+    final Path file = createFile();
+    try (final PersistentAutoIncrementIdGenerator generator =
+             new PersistentAutoIncrementIdGenerator(file, BLOCK_SIZE)) {
+      assertEquals(0, generator.getHighWaterMark());
+      for (int i = 0; i < MAX; ++i) {
+        assertEquals(i + 1, generator.generate());
+        assertEquals((i / BLOCK_SIZE + 1) * BLOCK_SIZE, generator.getHighWaterMark());
+      }
+    }
+    assertEquals(PersistentAutoIncrementIdGenerator.FILE_SIZE, Files.size(file));
+  }
+
+  @Test
+  public void testResume() throws Exception {
+    final Path file = createFile();
+    try (final PersistentAutoIncrementIdGenerator generator =
+             new PersistentAutoIncrementIdGenerator(file, BLOCK_SIZE)) {
+      for (int i = 0; i < 150; ++i) {
+        generator.generate();
+      }
+      assertEquals(200, generator.getHighWaterMark());
+    }
+    // 重新启动后从上一次预留的块之后继续生成
+    try (final PersistentAutoIncrementIdGenerator generator =
+             new PersistentAutoIncrementIdGenerator(file, BLOCK_SIZE)) {
+      assertEquals(200, generator.getHighWaterMark());
+      assertEquals(201, generator.generate());
+      assertEquals(300, generator.getHighWaterMark());
+    }
+    // 块大小改变后仍然从文件中记录的高水位之后继续生成
+    try (final PersistentAutoIncrementIdGenerator generator =
+             new PersistentAutoIncrementIdGenerator(file, 7)) {
+      assertEquals(301, generator.generate());
+      assertEquals(307, generator.getHighWaterMark());
+    }
+  }
+
+  @Test
+  public void testReserve() throws Exception {
+    try (final PersistentAutoIncrementIdGenerator generator =
+             new PersistentAutoIncrementIdGenerator(createFile(), BLOCK_SIZE)) {
+      assertEquals(1, generator.generate());
+      final List<IdRange> ranges = generator.reserve(MAX);
+      assertEquals(1, ranges.size());
+      assertEquals(2, ranges.get(0).getStart());
+      assertEquals(MAX + 1, ranges.get(0).getLast());
+      // 一次写入即可覆盖跨越多个块的范围
+      assertEquals(MAX + BLOCK_SIZE, generator.getHighWaterMark());
+      assertEquals(MAX + 2, generator.generate());
+      assertThrows(IllegalArgumentException.class, () -> generator.reserve(0));
+    }
+  }
+
+  @Test
+  public void testReset() throws Exception {
+    final Path file = createFile();
+    try (final PersistentAutoIncrementIdGenerator generator =
+             new PersistentAutoIncrementIdGenerator(file, BLOCK_SIZE)) {
+      for (int i = 0; i < MAX; ++i) {
+        generator.generate();
+      }
+      generator.reset();
+      assertEquals(0, generator.getHighWaterMark());
+      assertEquals(1, generator.generate());
+    }
+    try (final PersistentAutoIncrementIdGenerator generator =
+             new PersistentAutoIncrementIdGenerator(file, BLOCK_SIZE)) {
+      assertEquals(BLOCK_SIZE + 1, generator.generate());
+    }
+  }
+
+  @Test
+  public void testInvalidArguments() throws Exception {
+    final Path file = createFile();
+    assertThrows(IllegalArgumentException.class,
+        () -> new PersistentAutoIncrementIdGenerator(file, 0));
+    Files.write(file, new byte[]{1, 2, 3});
+    assertThrows(IOException.class, () -> new PersistentAutoIncrementIdGenerator(file));
+    Files.write(file, new byte[PersistentAutoIncrementIdGenerator.FILE_SIZE]);
+    assertThrows(IOException.class, () -> new PersistentAutoIncrementIdGenerator(file));
+  }
+
+  @Test
+  public void testFileInUse() throws Exception {
+    final Path file = createFile();
+    try (final PersistentAutoIncrementIdGenerator generator =
+             new PersistentAutoIncrementIdGenerator(file, BLOCK_SIZE)) {
+      generator.generate();
+      assertThrows(IOException.class, () -> new PersistentAutoIncrementIdGenerator(file));
+    }
+    try (final PersistentAutoIncrementIdGenerator generator =
+             new PersistentAutoIncrementIdGenerator(file, BLOCK_SIZE)) {
+      assertEquals(BLOCK_SIZE + 1, generator.generate());
+    }
+  }
+
+  @Test
+  public void testClosed() throws Exception {
+    final PersistentAutoIncrementIdGenerator generator =
+        new PersistentAutoIncrementIdGenerator(createFile(), BLOCK_SIZE);
+    generator.generate();
+    generator.close();
+    generator.close();
+    assertEquals(2, generator.generate());
+    assertThrows(IllegalStateException.class, () -> generator.reserve(BLOCK_SIZE));
+  }
+
+  @Test
+  public void singleThreadBenchmark() throws Exception {
+    try (final PersistentAutoIncrementIdGenerator generator =
+             new PersistentAutoIncrementIdGenerator(createFile())) {
+      singleThreadBenchmarkImpl(TOTAL_ID_COUNT, generator);
+    }
+  }
+
+  @Test
+  public void multitheadBenchmark() throws Exception {
+    try (final PersistentAutoIncrementIdGenerator generator =
+             new PersistentAutoIncrementIdGenerator(createFile())) {
+      multiThreadBenchmarkImpl(TOTAL_ID_COUNT, TOTAL_THREAD_COUNT, generator);
+    }
+  }
+}
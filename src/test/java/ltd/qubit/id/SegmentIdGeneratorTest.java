@@ -0,0 +1,223 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of the {@link SegmentIdGenerator} class.
+ *
+ * @author Haixing Hu
+ */
+public class SegmentIdGeneratorTest extends Benchmark {
+
+  private static final int MIN_SIZE = 100;
+
+  private static final int MAX_SIZE = 1600;
+
+  private static final int MAX = 100000;
+
+  /**
+   * 在内存中分配号段的存储，记录每次分配的号段大小。
+   */
+  private static final class MemoryStore implements SegmentStore {
+
+    final AtomicLong maxId = new AtomicLong();
+    final AtomicInteger calls = new AtomicInteger();
+    final AtomicInteger lastSize = new AtomicInteger();
+
+    @Override
+    public IdRange allocate(final int size) throws IOException {
+      calls.incrementAndGet();
+      lastSize.set(size);
+      return new IdRange(maxId.getAndAdd(size) + 1, size);
+    }
+  }
+
+  @Test
+  public void testGenerate() {
+    final MemoryStore store = new MemoryStore();
+    try (final SegmentIdGenerator generator = new SegmentIdGenerator(store, MIN_SIZE,
+        MAX_SIZE, Duration.ofMinutes(15))) {
+      assertEquals(Mode.SEQUENTIAL, generator.getMode());
+      for (int i = 0; i < MAX; ++i) {
+        assertEquals(i + 1, generator.generate());
+      }
+      assertEquals(store.calls.get(), generator.getAllocations());
+    }
+  }
+
+  @Test
+  public void testPrefetch() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    final AtomicLong maxId = new AtomicLong();
+    final AtomicInteger calls = new AtomicInteger();
+    final SegmentStore store = (size) -> {
+      if (calls.incrementAndGet() > 1) {
+        try {
+          release.await();
+        } catch (final InterruptedException e) {
+          throw new IOException(e);
+        }
+      }
+      return new IdRange(maxId.getAndAdd(size) + 1, size);
+    };
+    try (final SegmentIdGenerator generator = new SegmentIdGenerator(store, MIN_SIZE,
+        MIN_SIZE, Duration.ofMinutes(15))) {
+      assertEquals(1, generator.generate());
+      assertEquals(1, calls.get());
+      final long waits = generator.getWaits();
+      // 消耗达到10%时开始预取下一个号段
+      final int threshold = (int) (MIN_SIZE * SegmentIdGenerator.PREFETCH_RATIO) + 1;
+      for (int i = 2; i <= threshold; ++i) {
+        assertEquals(i, generator.generate());
+      }
+      final long deadline = System.currentTimeMillis() + 5000;
+      while (calls.get() < 2 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(1);
+      }
+      assertEquals(2, calls.get());
+      release.countDown();
+      while (generator.getAllocations() < 2 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(1);
+      }
+      // 下一个号段已经就绪，切换号段时无需等待存储
+      for (int i = threshold + 1; i <= MIN_SIZE + 1; ++i) {
+        assertEquals(i, generator.generate());
+      }
+      assertEquals(waits, generator.getWaits());
+    }
+  }
+
+  @Test
+  public void testAdaptiveSegmentSize() {
+    final MemoryStore store = new MemoryStore();
+    // 目标使用时间很长，号段大小逐次加倍直到最大值
+    try (final SegmentIdGenerator generator = new SegmentIdGenerator(store, MIN_SIZE,
+        MAX_SIZE, Duration.ofHours(1))) {
+      int last = generator.getSegmentSize();
+      for (int i = 0; i < MAX; ++i) {
+        generator.generate();
+        final int size = generator.getSegmentSize();
+        assertTrue(size >= last && size <= 2 * last, size + " after " + last);
+        last = size;
+      }
+      assertEquals(MAX_SIZE, last);
+    }
+    // 目标使用时间很短，号段大小保持为最小值
+    try (final SegmentIdGenerator generator = new SegmentIdGenerator(store, MIN_SIZE,
+        MAX_SIZE, Duration.ofNanos(1))) {
+      for (int i = 0; i < MAX; ++i) {
+        generator.generate();
+      }
+      assertEquals(MIN_SIZE, generator.getSegmentSize());
+      assertEquals(MIN_SIZE, store.lastSize.get());
+    }
+  }
+
+  @Test
+  public void testReserve() {
+    final MemoryStore store = new MemoryStore();
+    try (final SegmentIdGenerator generator = new SegmentIdGenerator(store, MIN_SIZE,
+        MIN_SIZE, Duration.ofMinutes(15))) {
+      assertEquals(1, generator.generate());
+      final List<IdRange> ranges = generator.reserve(250);
+      assertEquals(3, ranges.size());
+      assertEquals(2, ranges.get(0).getStart());
+      assertEquals(99, ranges.get(0).size());
+      assertEquals(101, ranges.get(1).getStart());
+      assertEquals(100, ranges.get(1).size());
+      assertEquals(201, ranges.get(2).getStart());
+      assertEquals(251, ranges.get(2).getLast());
+      assertEquals(252, generator.generate());
+      assertThrows(IllegalArgumentException.class, () -> generator.reserve(0));
+    }
+  }
+
+  @Test
+  public void testStoreFailure() {
+    final AtomicBoolean failing = new AtomicBoolean(true);
+    final MemoryStore memory = new MemoryStore();
+    final SegmentStore store = (size) -> {
+      if (failing.get()) {
+        throw new IOException("unavailable");
+      }
+      return memory.allocate(size);
+    };
+    try (final SegmentIdGenerator generator = new SegmentIdGenerator(store, MIN_SIZE,
+        MIN_SIZE, Duration.ofMinutes(15))) {
+      assertThrows(UncheckedIOException.class, generator::generate);
+      failing.set(false);
+      assertEquals(1, generator.generate());
+    }
+  }
+
+  @Test
+  public void testReset() {
+    final MemoryStore store = new MemoryStore();
+    try (final SegmentIdGenerator generator = new SegmentIdGenerator(store, MIN_SIZE,
+        MIN_SIZE, Duration.ofMinutes(15))) {
+      long last = 0;
+      for (int i = 0; i < 150; ++i) {
+        last = generator.generate();
+      }
+      generator.reset();
+      // 已经分配的号段不会被再次使用
+      assertTrue(generator.generate() > last);
+    }
+  }
+
+  @Test
+  public void testInvalidArguments() {
+    final MemoryStore store = new MemoryStore();
+    assertThrows(IllegalArgumentException.class,
+        () -> new SegmentIdGenerator(store, 0, MAX_SIZE, Duration.ofMinutes(1)));
+    assertThrows(IllegalArgumentException.class,
+        () -> new SegmentIdGenerator(store, MAX_SIZE, MIN_SIZE, Duration.ofMinutes(1)));
+    assertThrows(IllegalArgumentException.class,
+        () -> new SegmentIdGenerator(store, MIN_SIZE, MAX_SIZE, Duration.ZERO));
+  }
+
+  @Test
+  public void singleThreadBenchmark() throws Exception {
+    try (final SegmentIdGenerator generator = new SegmentIdGenerator(new MemoryStore())) {
+      singleThreadBenchmarkImpl(TOTAL_ID_COUNT, generator);
+    }
+  }
+
+  @Test
+  public void multitheadBenchmark() throws Exception {
+    try (final SegmentIdGenerator generator = new SegmentIdGenerator(new MemoryStore())) {
+      multiThreadBenchmarkImpl(TOTAL_ID_COUNT, TOTAL_THREAD_COUNT, generator);
+    }
+  }
+
+  @Test
+  public void testMultiThread() throws Exception {
+    final MemoryStore store = new MemoryStore();
+    try (final SegmentIdGenerator generator = new SegmentIdGenerator(store, MIN_SIZE,
+        MAX_SIZE, Duration.ofMillis(1))) {
+      multiThreadBenchmarkImpl(MAX, 8, generator);
+    }
+  }
+}
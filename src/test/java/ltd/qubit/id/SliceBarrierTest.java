@@ -0,0 +1,170 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import static ltd.qubit.id.ExhaustionPolicy.NO_DEADLINE;
+
+/**
+ * Unit test of the {@link SliceBarrier} class.
+ *
+ * @author Haixing Hu
+ */
+public class SliceBarrierTest {
+
+  private static final Instant EPOCH = Instant.ofEpochMilli(0L);
+
+  private static final int THREAD_COUNT = 8;
+
+  @Test
+  public void testAwaitNext() throws Exception {
+    final AtomicLong millis = new AtomicLong(1000L);
+    final Timer timer = new Timer(Precision.MILLISECOND, EPOCH, millis::get);
+    final SliceBarrier barrier = new SliceBarrier();
+    final AtomicInteger passed = new AtomicInteger();
+    final Thread[] threads = new Thread[THREAD_COUNT];
+    for (int i = 0; i < THREAD_COUNT; ++i) {
+      threads[i] = new Thread(() -> {
+        try {
+          if (barrier.awaitNext(timer, 1000L, NO_DEADLINE)) {
+            passed.incrementAndGet();
+          }
+        } catch (final InterruptedException e) {
+          // ignore
+        }
+      });
+      threads[i].start();
+    }
+    Thread.sleep(50);
+    assertEquals(0, passed.get());
+    millis.set(1001L);
+    for (final Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(THREAD_COUNT, passed.get());
+    assertEquals(1, barrier.getReleases());
+    assertEquals(0, barrier.getHandOffs());
+    // the slice has already passed
+    assertTrue(barrier.awaitNext(timer, 1000L, NO_DEADLINE));
+  }
+
+  @Test
+  public void testDeadline() throws Exception {
+    final Timer timer = new Timer(Precision.MILLISECOND, EPOCH, () -> 1000L);
+    final SliceBarrier barrier = new SliceBarrier();
+    final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+    assertFalse(barrier.awaitNext(timer, 1000L, deadline));
+    assertTrue(System.nanoTime() >= deadline);
+  }
+
+  @Test
+  public void testInterrupt() {
+    final Timer timer = new Timer(Precision.MILLISECOND, EPOCH, () -> 1000L);
+    final SliceBarrier barrier = new SliceBarrier();
+    Thread.currentThread().interrupt();
+    assertThrows(InterruptedException.class,
+        () -> barrier.awaitNext(timer, 1000L, NO_DEADLINE));
+    assertFalse(Thread.interrupted());
+  }
+
+  @Test
+  public void testHandOff() throws Exception {
+    testHandOff((timer) -> new AtomicIdGenerator(Mode.SEQUENTIAL, 0L, timer));
+    testHandOff((timer) -> new PackedIdGenerator(Mode.SEQUENTIAL, 0L, timer));
+  }
+
+  private void testHandOff(final Function<Timer, AbstractIdGenerator> factory)
+      throws Exception {
+    final AtomicLong millis = new AtomicLong(1000L);
+    final AbstractIdGenerator generator = factory.apply(
+        new Timer(Precision.MILLISECOND, EPOCH, millis::get));
+    final SliceBarrier barrier = new SliceBarrier();
+    generator.setExhaustionPolicy(barrier);
+    final Builder builder = generator.getBuilder();
+    final long perSlice = builder.getMaxSequence() + 1;
+    for (long i = 0; i < perSlice; ++i) {
+      generator.generate();
+    }
+    final Set<Long> ids = new ConcurrentSkipListSet<>();
+    final Thread[] threads = new Thread[THREAD_COUNT];
+    for (int i = 0; i < THREAD_COUNT; ++i) {
+      threads[i] = new Thread(() -> ids.add(generator.generate()));
+      threads[i].start();
+    }
+    // 首次序列号耗尽时会初始化JFR事件类，不能假定固定的时间内所有线程都已到达屏障
+    for (final Thread thread : threads) {
+      while (thread.getState() != Thread.State.WAITING) {
+        Thread.sleep(1);
+      }
+    }
+    assertTrue(ids.isEmpty());
+    millis.set(1001L);
+    for (final Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(THREAD_COUNT, ids.size());
+    final Set<Long> sequences = new TreeSet<>();
+    for (final long id : ids) {
+      assertEquals(1001L, builder.extractTimestamp(id));
+      sequences.add(builder.extractSequence(id));
+    }
+    for (long i = 0; i < THREAD_COUNT; ++i) {
+      assertTrue(sequences.contains(i), "missing sequence " + i);
+    }
+    assertEquals(1, barrier.getReleases());
+    assertTrue(barrier.getHandOffs() > 0);
+    // the next ID continues after the handed-off block
+    assertEquals(THREAD_COUNT, builder.extractSequence(generator.generate()));
+  }
+
+  @Test
+  public void testTimeoutDoesNotConsumeSequence() throws Exception {
+    final AtomicLong millis = new AtomicLong(1000L);
+    final AtomicIdGenerator generator = new AtomicIdGenerator(Mode.SEQUENTIAL, 0L,
+        new Timer(Precision.MILLISECOND, EPOCH, millis::get));
+    final SliceBarrier barrier = new SliceBarrier();
+    generator.setExhaustionPolicy(barrier);
+    final Builder builder = generator.getBuilder();
+    final long perSlice = builder.getMaxSequence() + 1;
+    for (long i = 0; i < perSlice; ++i) {
+      generator.generate();
+    }
+    assertFalse(generator.tryGenerate().isPresent());
+    assertThrows(TimeoutException.class,
+        () -> generator.generate(10, TimeUnit.MILLISECONDS));
+    final AtomicLong id = new AtomicLong(-1L);
+    final Thread thread = new Thread(() -> id.set(generator.generate()));
+    thread.start();
+    while (thread.getState() != Thread.State.WAITING) {
+      Thread.sleep(1);
+    }
+    millis.set(1001L);
+    thread.join();
+    assertEquals(1001L, builder.extractTimestamp(id.get()));
+    // the timed-out callers did not take any sequence of the new slice
+    assertEquals(0L, builder.extractSequence(id.get()));
+    assertEquals(1, barrier.getHandOffs());
+  }
+}
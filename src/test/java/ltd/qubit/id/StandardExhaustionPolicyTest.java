@@ -0,0 +1,103 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import static ltd.qubit.id.ExhaustionPolicy.NO_DEADLINE;
+import static ltd.qubit.id.StandardExhaustionPolicy.FAIL_FAST;
+import static ltd.qubit.id.StandardExhaustionPolicy.PARK;
+import static ltd.qubit.id.StandardExhaustionPolicy.SLEEP;
+import static ltd.qubit.id.StandardExhaustionPolicy.SPIN;
+
+/**
+ * Unit test of the {@link StandardExhaustionPolicy} class.
+ *
+ * @author Haixing Hu
+ */
+public class StandardExhaustionPolicyTest {
+
+  private static final Instant EPOCH = Instant.ofEpochMilli(0L);
+
+  @Test
+  public void testAwaitNext() throws Exception {
+    for (final StandardExhaustionPolicy policy : new StandardExhaustionPolicy[]{SLEEP, SPIN, PARK}) {
+      final AtomicLong millis = new AtomicLong(1000L);
+      final Timer timer = new Timer(Precision.MILLISECOND, EPOCH, millis::get);
+      final Thread ticker = new Thread(() -> {
+        try {
+          Thread.sleep(20);
+        } catch (final InterruptedException e) {
+          return;
+        }
+        millis.set(1001L);
+      });
+      ticker.start();
+      assertTrue(policy.awaitNext(timer, 1000L, NO_DEADLINE), policy.name());
+      ticker.join();
+    }
+  }
+
+  @Test
+  public void testDeadline() throws Exception {
+    for (final StandardExhaustionPolicy policy : StandardExhaustionPolicy.values()) {
+      final Timer timer = new Timer(Precision.SECOND, EPOCH, () -> 1000L);
+      final long start = System.nanoTime();
+      final long deadline = start + TimeUnit.MILLISECONDS.toNanos(10);
+      assertFalse(policy.awaitNext(timer, 1L, deadline), policy.name());
+      assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1), policy.name());
+      assertTrue(policy.awaitNext(timer, 0L, deadline), policy.name());
+    }
+  }
+
+  @Test
+  public void testInterrupt() {
+    for (final StandardExhaustionPolicy policy : new StandardExhaustionPolicy[]{SLEEP, SPIN, PARK}) {
+      final Timer timer = new Timer(Precision.SECOND, EPOCH, () -> 1000L);
+      Thread.currentThread().interrupt();
+      assertThrows(InterruptedException.class,
+          () -> policy.awaitNext(timer, 1L, NO_DEADLINE), policy.name());
+      assertFalse(Thread.interrupted());
+    }
+  }
+
+  @Test
+  public void testFailFast() throws Exception {
+    final Timer timer = new Timer(Precision.SECOND, EPOCH, () -> 1000L);
+    assertFalse(FAIL_FAST.awaitNext(timer, 1L, NO_DEADLINE));
+    assertTrue(FAIL_FAST.awaitNext(timer, 0L, NO_DEADLINE));
+  }
+
+  @Test
+  public void testDefaultPolicy() {
+    final Timer timer = new Timer(Precision.SECOND, EPOCH, System::currentTimeMillis);
+    final AtomicIdGenerator generator = new AtomicIdGenerator(Mode.SEQUENTIAL, 0L, timer);
+    assertSame(PARK, generator.getExhaustionPolicy());
+    final Builder builder = generator.getBuilder();
+    final List<IdRange> ranges = generator.reserve((int) builder.getMaxSequence() + 1);
+    final long last = ranges.get(ranges.size() - 1).getLast();
+    final long timestamp = builder.extractTimestamp(last);
+    final long id = generator.generate();
+    final long woken = System.currentTimeMillis();
+    assertTrue(builder.extractTimestamp(id) > timestamp);
+    // SLEEP would wake up to 500 ms after the boundary of a one-second slice
+    assertTrue(woken - timer.getEpochMillis(timestamp + 1) < 200,
+        "woken " + (woken - timer.getEpochMillis(timestamp + 1)) + " ms after the boundary");
+  }
+}
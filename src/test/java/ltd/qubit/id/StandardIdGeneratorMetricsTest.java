@@ -0,0 +1,252 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit test of the {@link StandardIdGeneratorMetrics} class.
+ *
+ * @author Haixing Hu
+ */
+public class StandardIdGeneratorMetricsTest {
+
+  private static final Instant EPOCH = Instant.parse("2020-01-01T00:00:00Z");
+
+  private static final long START = EPOCH.toEpochMilli() + 1000L;
+
+  /**
+   * 在指定的线程读取时钟时将其挂起，直到被放行的时钟源。
+   *
+   * <p>ID生成器在持有互斥锁或者读取了旧的时间片之后才读取时钟，因此可以借此确定性地制造
+   * 锁竞争和CAS失败。
+   */
+  private static final class BlockingClockSource implements ClockSource {
+
+    private final VirtualClockSource delegate = new VirtualClockSource(START);
+
+    private final CountDownLatch entered = new CountDownLatch(1);
+
+    private final CountDownLatch released = new CountDownLatch(1);
+
+    private volatile Thread blocked;
+
+    @Override
+    public long millis() {
+      if (Thread.currentThread() == blocked) {
+        blocked = null;
+        entered.countDown();
+        try {
+          released.await();
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      return delegate.millis();
+    }
+  }
+
+  private static void awaitParked(final Thread thread) throws InterruptedException {
+    while (thread.getState() != Thread.State.WAITING) {
+      Thread.sleep(1);
+    }
+  }
+
+  @Test
+  public void testExhaustionAndUtilization() {
+    for (final boolean locked : new boolean[]{false, true}) {
+      final VirtualClockSource clock = new VirtualClockSource(START);
+      final Timer timer = new Timer(Precision.MILLISECOND, EPOCH, clock);
+      final AbstractIdGenerator generator = (locked
+          ? new LockedIdGenerator(Mode.SEQUENTIAL, 1L, timer)
+          : new AtomicIdGenerator(Mode.SEQUENTIAL, 1L, timer));
+      generator.setExhaustionPolicy(StandardExhaustionPolicy.FAIL_FAST);
+      final StandardIdGeneratorMetrics metrics = new StandardIdGeneratorMetrics();
+      generator.setMetrics(metrics);
+      for (int i = 0; i < 4096; ++i) {
+        generator.generate();
+      }
+      assertThrows(SequenceExhaustedException.class, generator::generate);
+      assertEquals(1, metrics.getExhaustedCount());
+      assertEquals(1, metrics.getWaitCount());
+      assertEquals(1, metrics.getWaitFailureCount());
+      assertEquals(0, metrics.getSliceCount());
+      clock.advance(1, TimeUnit.MILLISECONDS);
+      for (int i = 0; i < 1024; ++i) {
+        generator.generate();
+      }
+      clock.advance(1, TimeUnit.MILLISECONDS);
+      generator.reserve(10);
+      assertEquals(2, metrics.getSliceCount());
+      assertEquals(4096, metrics.getSliceCapacity());
+      assertEquals((4096 + 1024) / 2.0 / 4096, metrics.getMeanSequenceUtilization(), 1e-9);
+      assertEquals(1.0, metrics.getSequenceUtilizationP99(), 1e-3);
+      assertEquals(0, metrics.getCasRetries());
+      assertEquals(0, metrics.getLockWaitCount());
+      metrics.reset();
+      assertEquals(0, metrics.getExhaustedCount());
+      assertEquals(0, metrics.getSliceCount());
+    }
+  }
+
+  @Test
+  public void testLockWait() throws InterruptedException {
+    final BlockingClockSource clock = new BlockingClockSource();
+    final LockedIdGenerator generator = new LockedIdGenerator(Mode.SEQUENTIAL, 1L,
+        new Timer(Precision.MILLISECOND, EPOCH, clock));
+    final StandardIdGeneratorMetrics metrics = new StandardIdGeneratorMetrics();
+    generator.setMetrics(metrics);
+    final Thread owner = new Thread(generator::generate);
+    clock.blocked = owner;
+    owner.start();
+    clock.entered.await();
+    final Thread waiter = new Thread(generator::generate);
+    waiter.start();
+    awaitParked(waiter);
+    clock.released.countDown();
+    owner.join();
+    waiter.join();
+    assertEquals(1, metrics.getLockWaitCount());
+    assertTrue(metrics.getLockWaitNanos() > 0);
+    assertEquals(metrics.getLockWaitNanos(), metrics.getMaxLockWaitNanos());
+  }
+
+  @Test
+  public void testCasRetries() throws InterruptedException {
+    for (int kind = 0; kind < 3; ++kind) {
+      final BlockingClockSource clock = new BlockingClockSource();
+      final Timer timer = new Timer(Precision.MILLISECOND, EPOCH, clock);
+      final AbstractIdGenerator generator;
+      switch (kind) {
+        case 0:
+          generator = new AtomicIdGenerator(Mode.SEQUENTIAL, 1L, timer);
+          break;
+        case 1:
+          generator = new PackedIdGenerator(Mode.SEQUENTIAL, 1L, timer);
+          break;
+        default:
+          generator = new BorrowAheadIdGenerator(Mode.SEQUENTIAL, 1L, timer,
+              BorrowAheadIdGenerator.DEFAULT_MAX_LEAD);
+          break;
+      }
+      final StandardIdGeneratorMetrics metrics = new StandardIdGeneratorMetrics();
+      generator.setMetrics(metrics);
+      final Thread slow = new Thread(generator::generate);
+      clock.blocked = slow;
+      slow.start();
+      clock.entered.await();
+      // 另一个线程先完成CAS，被挂起的线程恢复后CAS失败一次
+      generator.generate();
+      clock.released.countDown();
+      slow.join();
+      assertEquals(1, metrics.getCasRetries(), generator.getClass().getSimpleName());
+    }
+  }
+
+  @Test
+  public void testBorrowLead() {
+    final VirtualClockSource clock = new VirtualClockSource(START);
+    final Timer timer = new Timer(Precision.MILLISECOND, EPOCH, clock);
+    final BorrowAheadIdGenerator generator = new BorrowAheadIdGenerator(Mode.SEQUENTIAL,
+        1L, timer, 2);
+    final StandardIdGeneratorMetrics metrics = new StandardIdGeneratorMetrics();
+    generator.setMetrics(metrics);
+    // 消耗当前时间片以及预借的两个时间片
+    for (int i = 0; i < 3 * 4096; ++i) {
+      generator.generate();
+    }
+    assertEquals(2, metrics.getBorrowedSliceCount());
+    assertEquals(2, metrics.getBorrowLead());
+    assertEquals(2, metrics.getMaxBorrowLead());
+    assertEquals(2, metrics.getSliceCount());
+    assertEquals(1.0, metrics.getMeanSequenceUtilization(), 1e-9);
+    // 真实时间超过逻辑时间后，逻辑时间戳随之同步
+    clock.advance(1, TimeUnit.SECONDS);
+    generator.generate();
+    assertEquals(0, metrics.getBorrowLead());
+    assertEquals(3, metrics.getSliceCount());
+    // 跨越两个时间片的预留同样会预借时间片
+    generator.reserve(2 * 4096);
+    assertEquals(4, metrics.getBorrowedSliceCount());
+    assertEquals(2, metrics.getBorrowLead());
+    assertEquals(5, metrics.getSliceCount());
+    assertEquals(generator.getBorrowedSlices(), metrics.getBorrowedSliceCount());
+    assertEquals(0, metrics.getCasRetries());
+    metrics.reset();
+    assertEquals(0, metrics.getBorrowedSliceCount());
+    assertEquals(0, metrics.getBorrowLead());
+  }
+
+  @Test
+  public void testDisabled() {
+    final AtomicInteger calls = new AtomicInteger();
+    final IdGeneratorMetrics counting = new IdGeneratorMetrics() {
+      @Override
+      public void onExhausted() {
+        calls.incrementAndGet();
+      }
+
+      @Override
+      public void onSliceClosed(final long used, final long capacity) {
+        calls.incrementAndGet();
+      }
+    };
+    final VirtualClockSource clock = new VirtualClockSource(START);
+    final AtomicIdGenerator generator = new AtomicIdGenerator(Mode.SEQUENTIAL, 1L,
+        new Timer(Precision.MILLISECOND, EPOCH, clock));
+    generator.setExhaustionPolicy(StandardExhaustionPolicy.FAIL_FAST);
+    generator.setMetrics(counting);
+    generator.generate();
+    clock.advance(1, TimeUnit.MILLISECONDS);
+    generator.generate();
+    assertEquals(1, calls.get());
+    generator.setMetrics(null);
+    assertNull(generator.getMetrics());
+    for (int i = 0; i < 4095; ++i) {
+      generator.generate();
+    }
+    assertFalse(generator.tryGenerate().isPresent());
+    assertEquals(1, calls.get());
+  }
+
+  @Test
+  public void testJmx() throws Exception {
+    final StandardIdGeneratorMetrics metrics = new StandardIdGeneratorMetrics();
+    metrics.onExhausted();
+    metrics.onWait(1000L, true);
+    final ObjectName name = metrics.register("test-" + System.nanoTime());
+    try {
+      final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      assertEquals(1L, server.getAttribute(name, "ExhaustedCount"));
+      assertEquals(1000L, server.getAttribute(name, "MaxWaitNanos"));
+      server.invoke(name, "reset", null, null);
+      assertEquals(0L, server.getAttribute(name, "WaitCount"));
+      assertThrows(IllegalStateException.class, () -> metrics.register("another"));
+    } finally {
+      metrics.unregister();
+    }
+    assertNull(metrics.getObjectName());
+    assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+  }
+}
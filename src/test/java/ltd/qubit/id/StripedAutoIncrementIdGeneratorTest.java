@@ -0,0 +1,111 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit test of the {@link StripedAutoIncrementIdGenerator} class.
+ *
+ * @author Haixing Hu
+ */
+public class StripedAutoIncrementIdGeneratorTest extends Benchmark {
+
+  private static final int MAX = 10000;
+
+  private static final int CHUNK_SIZE = 64;
+
+  private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+
+  @Test
+  public void testGenerate() {
+    final IdGenerator generator = new StripedAutoIncrementIdGenerator(CHUNK_SIZE, 4);
+    // 在单个线程中使用时和AutoIncrementIdGenerator一样生成连续的ID
+    for (int i = 0; i < MAX; ++i) {
+      assertEquals(i + 1, generator.generate());
+    }
+  }
+
+  @Test
+  public void testReserve() {
+    final IdGenerator generator = new StripedAutoIncrementIdGenerator(CHUNK_SIZE, 4);
+    assertEquals(1, generator.generate());
+    final List<IdRange> ranges = generator.reserve(100);
+    assertEquals(1, ranges.size());
+    assertEquals(CHUNK_SIZE + 1, ranges.get(0).getStart());
+    assertEquals(100, ranges.get(0).size());
+    assertEquals(2, generator.generate());
+    assertThrows(IllegalArgumentException.class, () -> generator.reserve(0));
+  }
+
+  @Test
+  public void testTryGenerate() throws Exception {
+    final IdGenerator generator = new StripedAutoIncrementIdGenerator();
+    assertEquals(1, generator.tryGenerate().getAsLong());
+    assertEquals(2, generator.generate(1, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void testReset() {
+    final IdGenerator generator = new StripedAutoIncrementIdGenerator(CHUNK_SIZE, 4);
+    for (int i = 0; i < MAX; ++i) {
+      assertEquals(i + 1, generator.generate());
+    }
+    generator.reset();
+    for (int i = 0; i < MAX; ++i) {
+      assertEquals(i + 1, generator.generate());
+    }
+  }
+
+  @Test
+  public void testConstructor() {
+    assertEquals(8, new StripedAutoIncrementIdGenerator(CHUNK_SIZE, 5).getCellCount());
+    assertEquals(1, new StripedAutoIncrementIdGenerator(CHUNK_SIZE, 1).getCellCount());
+    assertThrows(IllegalArgumentException.class,
+        () -> new StripedAutoIncrementIdGenerator(100, 4));
+    assertThrows(IllegalArgumentException.class,
+        () -> new StripedAutoIncrementIdGenerator(CHUNK_SIZE, 0));
+    assertThrows(IllegalArgumentException.class, () -> new StripedAutoIncrementIdGenerator(
+        CHUNK_SIZE, StripedAutoIncrementIdGenerator.MAX_CELL_COUNT + 1));
+  }
+
+  @Test
+  public void testMultiThread() throws Exception {
+    // 块很小，单元很少，使得多个线程频繁地同时为同一个单元领取新的块
+    final IdGenerator generator = new StripedAutoIncrementIdGenerator(2, 2);
+    multiThreadBenchmarkImpl(MAX * 10, 16, generator);
+  }
+
+  @Test
+  public void singleThreadBenchmark() throws Exception {
+    final IdGenerator generator = new StripedAutoIncrementIdGenerator();
+    singleThreadBenchmarkImpl(TOTAL_ID_COUNT, generator);
+  }
+
+  @Test
+  public void multitheadBenchmark() throws Exception {
+    final IdGenerator generator = new StripedAutoIncrementIdGenerator();
+    multiThreadBenchmarkImpl(TOTAL_ID_COUNT, TOTAL_THREAD_COUNT, generator);
+  }
+
+  @Test
+  public void compareBenchmark() throws Exception {
+    for (final int threadCount : THREAD_COUNTS) {
+      multiThreadBenchmarkImpl(TOTAL_ID_COUNT, threadCount, new AutoIncrementIdGenerator());
+      multiThreadBenchmarkImpl(TOTAL_ID_COUNT, threadCount,
+          new StripedAutoIncrementIdGenerator());
+    }
+  }
+}
@@ -0,0 +1,49 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.lang.System.nanoTime;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import static ltd.qubit.commons.lang.ClassUtils.getShortClassName;
+
+public class TimerBenchmark {
+
+  protected static final int TOTAL_CALL_COUNT = 50000000;
+
+  protected static final int WARMUP_CALL_COUNT = 5000000;
+
+  private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private long loop(final Timer timer, final int count) {
+    long sum = 0;
+    for (int i = 0; i < count; ++i) {
+      sum += timer.now();
+    }
+    return sum;
+  }
+
+  protected void nowBenchmarkImpl(final Timer timer) {
+    final String timerName = getShortClassName(timer.getClass());
+    loop(timer, WARMUP_CALL_COUNT);
+    logger.info("Calling {}({}).now() {} times ...", timerName,
+        timer.getPrecision(), TOTAL_CALL_COUNT);
+    final long start = nanoTime();
+    final long sum = loop(timer, TOTAL_CALL_COUNT);
+    final long end = nanoTime();
+    // 防止循环被JIT编译器当作死代码消除
+    assertTrue(sum != Long.MIN_VALUE);
+    logger.info("Finished. Average time is {} ns/call.",
+        String.format("%.2f", (double) (end - start) / TOTAL_CALL_COUNT));
+  }
+}
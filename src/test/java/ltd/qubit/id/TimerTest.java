@@ -15,8 +15,10 @@ import org.junit.jupiter.api.Test;
 import ltd.qubit.commons.random.RandomBeanGenerator;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
-public class TimerTest {
+public class TimerTest extends TimerBenchmark {
 
   private static final int TEST_COUNT = 100;
 
@@ -32,4 +34,65 @@ public class TimerTest {
       assertEquals(epoch, timer.getEpoch());
     }
   }
+
+  @Test
+  public void testGetTimestamp() {
+    final RandomBeanGenerator random = new RandomBeanGenerator();
+    for (int i = 0; i < TEST_COUNT * 1000; ++i) {
+      final Precision precision = random.nextObject(Precision.class);
+      final long epochMilli = random.nextLong(-Long.MAX_VALUE / 4, Long.MAX_VALUE / 4);
+      final long milli = random.nextLong(-Long.MAX_VALUE / 4, Long.MAX_VALUE / 4);
+      final Timer timer = new Timer(precision, Instant.ofEpochMilli(epochMilli));
+      final long divisor = (precision == Precision.SECOND ? 1000L : 1L);
+      assertEquals((milli - epochMilli) / divisor, timer.getTimestamp(milli));
+      final long timestamp = timer.getTimestamp(milli);
+      assertEquals(timestamp, timer.getTimestamp(timer.getEpochMillis(timestamp)));
+      assertEquals(timestamp + 1, timer.getTimestamp(timer.getEpochMillis(timestamp + 1)));
+    }
+    final Instant epoch = Instant.ofEpochMilli(1000L);
+    final Timer second = new Timer(Precision.SECOND, epoch);
+    assertEquals(1000L, second.getEpochMillis(0L));
+    assertEquals(123000L, second.getEpochMillis(122L));
+    assertEquals(-1000L, second.getEpochMillis(-2L));
+    final Timer millisecond = new Timer(Precision.MILLISECOND, epoch);
+    assertEquals(1005L, millisecond.getEpochMillis(5L));
+    assertEquals(995L, millisecond.getEpochMillis(-5L));
+  }
+
+  @Test
+  public void testClockSource() {
+    final Instant epoch = Instant.ofEpochMilli(1000L);
+    final long[] millis = {123456L};
+    final ClockSource clock = () -> millis[0];
+    final Timer timer = new Timer(Precision.SECOND, epoch, clock);
+    assertSame(clock, timer.getClock());
+    assertEquals(122L, timer.now());
+    millis[0] = 124999L;
+    assertEquals(123L, timer.now());
+    millis[0] = 125000L;
+    assertEquals(124L, timer.now());
+    assertSame(SystemClockSource.INSTANCE, new Timer(Precision.SECOND, epoch).getClock());
+  }
+
+  @Test
+  public void testWaitForNext() {
+    final Timer timer = new Timer(Precision.MILLISECOND, Constant.DEFAULT_EPOCH);
+    final long timestamp = timer.now();
+    assertTrue(timer.waitForNext(timestamp) > timestamp);
+    // 等待过程不响应中断，但会保留中断状态
+    Thread.currentThread().interrupt();
+    try {
+      final long next = timer.now();
+      assertTrue(timer.waitForNext(next) > next);
+      assertTrue(Thread.currentThread().isInterrupted());
+    } finally {
+      Thread.interrupted();
+    }
+  }
+
+  @Test
+  public void nowBenchmark() {
+    final Timer timer = new Timer(Precision.SECOND, Constant.DEFAULT_EPOCH);
+    nowBenchmarkImpl(timer);
+  }
 }
@@ -0,0 +1,115 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import static ltd.qubit.id.Mode.SEQUENTIAL;
+import static ltd.qubit.id.Precision.MILLISECOND;
+
+/**
+ * 测试ID生成器在虚拟线程中的行为。
+ *
+ * <p>在序列号耗尽时等待的虚拟线程必须让出其载体线程，否则当等待的虚拟线程数目超过载体
+ * 线程数目时，其他虚拟线程将无法被调度。
+ *
+ * @author Haixing Hu
+ */
+public class VirtualThreadTest {
+
+  private static final Instant EPOCH = Instant.ofEpochMilli(0L);
+
+  private static final long START_MILLIS = 1_000_000_000_000L;
+
+  /**
+   * 每个载体线程对应的等待线程数目。
+   */
+  private static final int WAITERS_PER_CARRIER = 64;
+
+  private static final long TIMEOUT_MILLIS = 10_000L;
+
+  private static List<ExhaustionPolicy> policies() {
+    return List.of(StandardExhaustionPolicy.SLEEP, StandardExhaustionPolicy.PARK,
+        new SliceBarrier());
+  }
+
+  @Test
+  public void testAtomicIdGeneratorWaitersUnmount() throws Exception {
+    for (final ExhaustionPolicy policy : policies()) {
+      assertWaitersUnmount((timer) -> new AtomicIdGenerator(SEQUENTIAL, 0L, timer), policy);
+    }
+  }
+
+  @Test
+  public void testLockedIdGeneratorWaitersUnmount() throws Exception {
+    for (final ExhaustionPolicy policy : policies()) {
+      assertWaitersUnmount((timer) -> new LockedIdGenerator(SEQUENTIAL, 0L, timer), policy);
+    }
+  }
+
+  private void assertWaitersUnmount(final Function<Timer, AbstractIdGenerator> factory,
+      final ExhaustionPolicy policy) throws Exception {
+    assumeTrue(VirtualThreads.isSupported(), "Virtual threads are not supported.");
+    // 时钟被冻结，第一个时间片的序列号耗尽后，其余的线程都必须等待
+    final VirtualClockSource clock = new VirtualClockSource(START_MILLIS);
+    final Timer timer = new Timer(MILLISECOND, EPOCH, clock);
+    final AbstractIdGenerator generator = factory.apply(timer);
+    generator.setExhaustionPolicy(policy);
+    final int perSlice = (int) generator.getBuilder().getMaxSequence() + 1;
+    final int waiters = Math.max(perSlice, VirtualThreads.getParallelism() * WAITERS_PER_CARRIER);
+    final int threadCount = perSlice + waiters;
+    final long[] ids = new long[threadCount];
+    final AtomicInteger done = new AtomicInteger();
+    final Thread[] threads = new Thread[threadCount];
+    for (int i = 0; i < threadCount; ++i) {
+      final int index = i;
+      threads[i] = VirtualThreads.start(() -> {
+        ids[index] = generator.generate();
+        done.incrementAndGet();
+      });
+    }
+    final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    while (done.get() < perSlice && System.currentTimeMillis() < deadline) {
+      Thread.sleep(1);
+    }
+    assertEquals(perSlice, done.get(), policy.toString());
+    // 若等待的虚拟线程占据了载体线程，新的虚拟线程将无法运行
+    final Thread probe = VirtualThreads.start(() -> {});
+    probe.join(TIMEOUT_MILLIS);
+    assertFalse(probe.isAlive(), "Waiting virtual threads pin their carriers: " + policy);
+    assertEquals(perSlice, done.get(), policy.toString());
+    // 推进时钟，放行所有等待的线程
+    while (done.get() < threadCount && System.currentTimeMillis() < deadline) {
+      clock.advance(1, TimeUnit.MILLISECONDS);
+      Thread.sleep(5);
+    }
+    for (final Thread thread : threads) {
+      thread.join(TIMEOUT_MILLIS);
+    }
+    assertEquals(threadCount, done.get(), policy.toString());
+    final IdVerifier.Report report;
+    try (final IdVerifier verifier = new IdVerifier()) {
+      verifier.add(ids, false);
+      report = verifier.verify();
+    }
+    assertEquals(0, report.getDuplicates(), report.toString());
+    assertTrue(timer.now() > timer.getTimestamp(START_MILLIS));
+  }
+}
@@ -0,0 +1,115 @@
+////////////////////////////////////////////////////////////////////////////////
+//
+//    Copyright (c) 2022 - 2024.
+//    Haixing Hu, Qubit Co. Ltd.
+//
+//    All rights reserved.
+//
+////////////////////////////////////////////////////////////////////////////////
+package ltd.qubit.id;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * 通过反射创建虚拟线程的工具类。
+ *
+ * <p>项目以Java 17编译，无法直接引用{@code Thread.ofVirtual()}；在Java 21及以上版本的
+ * 运行环境中，此类通过反射创建虚拟线程，否则{@link #isSupported()}返回{@code false}。
+ *
+ * @author Haixing Hu
+ */
+final class VirtualThreads {
+
+  /**
+   * 虚拟线程调度器的并行度的系统属性名称。
+   */
+  private static final String PARALLELISM_PROPERTY = "jdk.virtualThreadScheduler.parallelism";
+
+  /**
+   * {@code Thread.ofVirtual()}返回的虚拟线程构造器；若不支持虚拟线程则为{@code null}。
+   */
+  private static final Object BUILDER;
+
+  /**
+   * {@code Thread.Builder.start(Runnable)}方法；若不支持虚拟线程则为{@code null}。
+   */
+  private static final Method START;
+
+  static {
+    Object builder = null;
+    Method start = null;
+    try {
+      builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      start = Class.forName("java.lang.Thread$Builder").getMethod("start", Runnable.class);
+    } catch (final ReflectiveOperationException | UnsupportedOperationException e) {
+      // 运行环境不支持虚拟线程，或者虚拟线程仍是预览特性而未被启用
+      builder = null;
+      start = null;
+    }
+    BUILDER = builder;
+    START = start;
+  }
+
+  private VirtualThreads() {}
+
+  /**
+   * 判断当前的运行环境是否支持虚拟线程。
+   *
+   * @return 若支持虚拟线程则返回{@code true}；否则返回{@code false}。
+   */
+  static boolean isSupported() {
+    return BUILDER != null;
+  }
+
+  /**
+   * 创建并启动一个虚拟线程。
+   *
+   * @param task
+   *     该虚拟线程执行的任务。
+   * @return 已启动的虚拟线程。
+   * @throws UnsupportedOperationException
+   *     若当前的运行环境不支持虚拟线程。
+   */
+  static Thread start(final Runnable task) {
+    if (BUILDER == null) {
+      throw new UnsupportedOperationException("Virtual threads are not supported.");
+    }
+    try {
+      return (Thread) START.invoke(BUILDER, task);
+    } catch (final IllegalAccessException e) {
+      throw new IllegalStateException(e);
+    } catch (final InvocationTargetException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  /**
+   * 获取虚拟线程调度器的载体线程数目。
+   *
+   * @return 虚拟线程调度器的并行度，默认等于可用的处理器数目。
+   */
+  static int getParallelism() {
+    return Integer.getInteger(PARALLELISM_PROPERTY,
+        Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * 获取当前进程已经消耗的CPU时间。
+   *
+   * @return 当前进程已经消耗的CPU时间，单位为纳秒；若无法获取则返回-1。
+   */
+  static long getProcessCpuTime() {
+    final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    if (os instanceof com.sun.management.OperatingSystemMXBean) {
+      return ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuTime();
+    }
+    return -1L;
+  }
+}